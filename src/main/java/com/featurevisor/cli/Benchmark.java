@@ -0,0 +1,323 @@
+package com.featurevisor.cli;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Measures the latency, throughput and allocation rate of a single evaluation
+ *
+ * Every thread first runs its warmup iterations, then all threads start the measured loop
+ * together. The measured loop is timed in batches: each batch yields one latency sample
+ * (batch duration divided by its size), so percentiles are not dominated by the cost of
+ * reading the clock on every evaluation.
+ */
+class Benchmark {
+
+    /**
+     * Options for a benchmark run
+     */
+    static class BenchmarkOptions {
+        private int iterations = 1000;
+        private int warmupIterations = 1000;
+        private int threads = 1;
+        private int batchSize = 100;
+
+        BenchmarkOptions iterations(int iterations) {
+            this.iterations = iterations;
+            return this;
+        }
+
+        BenchmarkOptions warmupIterations(int warmupIterations) {
+            this.warmupIterations = warmupIterations;
+            return this;
+        }
+
+        BenchmarkOptions threads(int threads) {
+            this.threads = threads;
+            return this;
+        }
+
+        BenchmarkOptions batchSize(int batchSize) {
+            this.batchSize = batchSize;
+            return this;
+        }
+
+        int getIterations() { return iterations; }
+        int getWarmupIterations() { return warmupIterations; }
+        int getThreads() { return threads; }
+        int getBatchSize() { return batchSize; }
+    }
+
+    /**
+     * Result of a benchmark run, latencies are per evaluation in nanoseconds
+     */
+    static class BenchmarkResult {
+        final int iterations;
+        final int warmupIterations;
+        final int threads;
+        final int batchSize;
+        final int samples;
+        final long wallNanos;
+        final double meanNanos;
+        final double minNanos;
+        final double p50Nanos;
+        final double p90Nanos;
+        final double p99Nanos;
+        final double p999Nanos;
+        final double maxNanos;
+        final double allocatedBytesPerEvaluation;
+        final Object value;
+
+        BenchmarkResult(
+                BenchmarkOptions options,
+                double[] samples,
+                long wallNanos,
+                long measuredNanos,
+                double allocatedBytesPerEvaluation,
+                Object value) {
+            this.iterations = options.getIterations();
+            this.warmupIterations = options.getWarmupIterations();
+            this.threads = options.getThreads();
+            this.batchSize = options.getBatchSize();
+            this.samples = samples.length;
+            this.wallNanos = wallNanos;
+            this.meanNanos = iterations > 0 ? (double) measuredNanos / iterations : 0;
+            this.minNanos = percentile(samples, 0);
+            this.p50Nanos = percentile(samples, 50);
+            this.p90Nanos = percentile(samples, 90);
+            this.p99Nanos = percentile(samples, 99);
+            this.p999Nanos = percentile(samples, 99.9);
+            this.maxNanos = percentile(samples, 100);
+            this.allocatedBytesPerEvaluation = allocatedBytesPerEvaluation;
+            this.value = value;
+        }
+
+        /**
+         * Evaluations per second across all threads
+         */
+        double getThroughput() {
+            return wallNanos > 0 ? iterations * 1_000_000_000.0 / wallNanos : 0;
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> latency = new LinkedHashMap<>();
+            latency.put("mean", meanNanos);
+            latency.put("min", minNanos);
+            latency.put("p50", p50Nanos);
+            latency.put("p90", p90Nanos);
+            latency.put("p99", p99Nanos);
+            latency.put("p999", p999Nanos);
+            latency.put("max", maxNanos);
+
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("iterations", iterations);
+            result.put("warmupIterations", warmupIterations);
+            result.put("threads", threads);
+            result.put("batchSize", batchSize);
+            result.put("samples", samples);
+            result.put("totalDurationMs", wallNanos / 1_000_000.0);
+            result.put("throughputPerSecond", getThroughput());
+            result.put("latencyNanos", latency);
+            result.put("allocatedBytesPerEvaluation", allocatedBytesPerEvaluation >= 0 ? allocatedBytesPerEvaluation : null);
+            result.put("value", value);
+            return result;
+        }
+    }
+
+    private static class ThreadResult {
+        double[] samples;
+        long measuredNanos;
+        long allocatedBytes;
+        Object value;
+    }
+
+    private Benchmark() {}
+
+    /**
+     * Run the evaluation concurrently on the configured number of threads
+     * @param options The benchmark options
+     * @param evaluation The evaluation to measure, shared by all threads
+     * @return The result
+     */
+    static BenchmarkResult run(BenchmarkOptions options, Supplier<Object> evaluation) throws Exception {
+        int threads = Math.max(1, options.getThreads());
+        int batchSize = Math.max(1, options.getBatchSize());
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        com.sun.management.ThreadMXBean allocationBean = getAllocationBean(threadMXBean);
+
+        // the barrier action marks the start of the measured phase, once every thread is warmed up
+        long[] wallStart = new long[1];
+        CyclicBarrier barrier = new CyclicBarrier(threads, () -> wallStart[0] = System.nanoTime());
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<ThreadResult>> futures = new ArrayList<>();
+
+        try {
+            for (int t = 0; t < threads; t++) {
+                int iterations = options.getIterations() / threads + (t < options.getIterations() % threads ? 1 : 0);
+                int warmupIterations = options.getWarmupIterations() / threads +
+                    (t < options.getWarmupIterations() % threads ? 1 : 0);
+
+                Callable<ThreadResult> task = () -> runThread(
+                    evaluation, iterations, warmupIterations, batchSize, barrier, allocationBean);
+                futures.add(executor.submit(task));
+            }
+
+            List<ThreadResult> results = new ArrayList<>();
+            ExecutionException failure = null;
+            for (Future<ThreadResult> future : futures) {
+                try {
+                    results.add(future.get());
+                } catch (ExecutionException e) {
+                    // threads waiting for a failed one fail with a broken barrier, the original failure is reported
+                    if (failure == null || failure.getCause() instanceof BrokenBarrierException) {
+                        failure = e;
+                    }
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            long wallNanos = System.nanoTime() - wallStart[0];
+
+            int sampleCount = 0;
+            long measuredNanos = 0;
+            long allocatedBytes = 0;
+            for (ThreadResult result : results) {
+                sampleCount += result.samples.length;
+                measuredNanos += result.measuredNanos;
+                allocatedBytes = result.allocatedBytes < 0 || allocatedBytes < 0 ? -1 : allocatedBytes + result.allocatedBytes;
+            }
+
+            double[] samples = new double[sampleCount];
+            int offset = 0;
+            for (ThreadResult result : results) {
+                System.arraycopy(result.samples, 0, samples, offset, result.samples.length);
+                offset += result.samples.length;
+            }
+            Arrays.sort(samples);
+
+            double allocatedBytesPerEvaluation = allocatedBytes < 0 || options.getIterations() == 0 ?
+                -1 :
+                (double) allocatedBytes / options.getIterations();
+
+            return new BenchmarkResult(
+                options, samples, wallNanos, measuredNanos, allocatedBytesPerEvaluation, results.get(0).value);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static ThreadResult runThread(
+            Supplier<Object> evaluation,
+            int iterations,
+            int warmupIterations,
+            int batchSize,
+            CyclicBarrier barrier,
+            com.sun.management.ThreadMXBean allocationBean) throws Exception {
+        ThreadResult result = new ThreadResult();
+        Object value = null;
+        double[] samples;
+
+        try {
+            for (int i = 0; i < warmupIterations; i++) {
+                value = evaluation.get();
+            }
+
+            // allocated up front, so that the measured loop only counts what evaluations allocate
+            samples = new double[(iterations + batchSize - 1) / batchSize];
+        } catch (RuntimeException | Error e) {
+            breakBarrier(barrier);
+            throw e;
+        }
+
+        long threadId = Thread.currentThread().getId();
+
+        barrier.await();
+
+        long allocatedBefore = allocationBean != null ? allocationBean.getThreadAllocatedBytes(threadId) : -1;
+        long measuredNanos = 0;
+        int remaining = iterations;
+
+        for (int s = 0; s < samples.length; s++) {
+            int batch = Math.min(batchSize, remaining);
+
+            long start = System.nanoTime();
+            for (int i = 0; i < batch; i++) {
+                value = evaluation.get();
+            }
+            long duration = System.nanoTime() - start;
+
+            measuredNanos += duration;
+            samples[s] = (double) duration / batch;
+            remaining -= batch;
+        }
+
+        long allocatedAfter = allocationBean != null ? allocationBean.getThreadAllocatedBytes(threadId) : -1;
+
+        result.samples = samples;
+        result.measuredNanos = measuredNanos;
+        result.allocatedBytes = allocatedBefore >= 0 && allocatedAfter >= 0 ? allocatedAfter - allocatedBefore : -1;
+        result.value = value;
+        return result;
+    }
+
+    /**
+     * Break the barrier for the threads waiting at it and those still to arrive, unless this thread trips it
+     */
+    private static void breakBarrier(CyclicBarrier barrier) {
+        try {
+            barrier.await(0, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException | BrokenBarrierException e) {
+            // broken, as intended
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static com.sun.management.ThreadMXBean getAllocationBean(ThreadMXBean threadMXBean) {
+        if (!(threadMXBean instanceof com.sun.management.ThreadMXBean)) {
+            return null;
+        }
+
+        com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) threadMXBean;
+        if (!allocationBean.isThreadAllocatedMemorySupported()) {
+            return null;
+        }
+        if (!allocationBean.isThreadAllocatedMemoryEnabled()) {
+            allocationBean.setThreadAllocatedMemoryEnabled(true);
+        }
+        return allocationBean;
+    }
+
+    /**
+     * Nearest-rank percentile of sorted samples
+     */
+    static double percentile(double[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        if (percentile <= 0) {
+            return sorted[0];
+        }
+
+        // the epsilon keeps ranks like 99.9% of 1000 from rounding up because of floating point error
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.length - 1e-9);
+        return sorted[Math.min(sorted.length, Math.max(1, rank)) - 1];
+    }
+}
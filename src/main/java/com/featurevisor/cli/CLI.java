@@ -13,17 +13,16 @@ import com.featurevisor.sdk.Segment;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.core.type.TypeReference;
 
-import org.apache.commons.exec.DefaultExecutor;
-import org.apache.commons.exec.PumpStreamHandler;
-import org.apache.commons.exec.ExecuteException;
-
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Pattern;
 
 import com.featurevisor.sdk.HooksManager;
@@ -105,10 +104,50 @@ public class CLI implements Runnable {
     @Option(names = {"--populateUuid"}, description = "Populate UUID for specified keys")
     private List<String> populateUuid = new ArrayList<>();
 
+    @Option(names = {"--warmup"}, description = "Number of warmup iterations before benchmarking")
+    private Integer warmup = 1000;
+
+    @Option(names = {"--threads"}, description = "Number of threads evaluating concurrently (benchmark: 1, assess-distribution: number of processors)")
+    private Integer threads;
+
+    @Option(names = {"--exact"}, description = "Compute the exact distribution over the bucket space, instead of evaluating random users")
+    private Boolean exact = false;
+
+    @Option(names = {"--seed"}, description = "Seed for the random IDs of assess-distribution, for reproducible results")
+    private Long seed;
+
+    @Option(names = {"--batchSize"}, description = "Number of evaluations timed together per latency sample")
+    private Integer batchSize = 100;
+
+    @Option(names = {"--json"}, description = "Print results as JSON")
+    private Boolean json = false;
+
+    @Option(names = {"--concurrency"}, description = "Number of test specs to run in parallel")
+    private Integer concurrency = Runtime.getRuntime().availableProcessors();
+
+    @Option(names = {"--buildConcurrency"}, description = "Number of datafiles to build in parallel")
+    private Integer buildConcurrency = 4;
+
+    @Option(names = {"--cacheDirectoryPath"}, description = "Directory where built datafiles are cached")
+    private String cacheDirectoryPath;
+
+    @Option(names = {"--noCache"}, description = "Always build datafiles, without reading or writing the cache")
+    private Boolean noCache = false;
+
+    // bucket value of the assertion being tested on the current thread, when it has `at`
+    private static final ThreadLocal<Integer> AT_BUCKET_VALUE = new ThreadLocal<>();
+
     private String cwd;
     private ObjectMapper objectMapper;
+    private CommandRunner commandRunner;
+    private DatafileBuilder datafileBuilder;
 
     public CLI() {
+        this(new ExecCommandRunner());
+    }
+
+    public CLI(CommandRunner commandRunner) {
+        this.commandRunner = commandRunner;
         this.cwd = System.getProperty("user.dir");
         this.objectMapper = new ObjectMapper();
         // Configure ObjectMapper to handle null values properly
@@ -141,37 +180,10 @@ public class CLI implements Runnable {
     }
 
     /**
-     * Execute a command and return the output
+     * Execute a command in a directory and return the output
      */
-    private String executeCommand(String command) throws IOException {
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        PumpStreamHandler streamHandler = new PumpStreamHandler(outputStream);
-
-        DefaultExecutor executor = new DefaultExecutor();
-        executor.setStreamHandler(streamHandler);
-
-        try {
-            executor.execute(org.apache.commons.exec.CommandLine.parse(command));
-            return outputStream.toString();
-        } catch (ExecuteException e) {
-            throw new IOException("Command execution failed: " + e.getMessage(), e);
-        }
-    }
-
     private String executeCommandInDirectory(String directory, String command) throws IOException {
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        PumpStreamHandler streamHandler = new PumpStreamHandler(outputStream);
-
-        DefaultExecutor executor = new DefaultExecutor();
-        executor.setStreamHandler(streamHandler);
-        executor.setWorkingDirectory(new java.io.File(directory));
-
-        try {
-            executor.execute(org.apache.commons.exec.CommandLine.parse(command));
-            return outputStream.toString();
-        } catch (ExecuteException e) {
-            throw new IOException("Command execution failed: " + e.getMessage(), e);
-        }
+        return commandRunner.run(directory, command);
     }
 
     /**
@@ -217,39 +229,74 @@ public class CLI implements Runnable {
         }
     }
 
+    private DatafileBuilder getDatafileBuilder(String featurevisorProjectPath) {
+        if (datafileBuilder == null) {
+            StringBuilder extraArguments = new StringBuilder();
+            if (schemaVersion != null && !schemaVersion.isBlank()) {
+                extraArguments.append(" --schema-version=").append(schemaVersion);
+            }
+            if (inflate != null && inflate > 0) {
+                extraArguments.append(" --inflate=").append(inflate);
+            }
+
+            Path cacheDirectory = null;
+            if (!Boolean.TRUE.equals(noCache)) {
+                cacheDirectory = cacheDirectoryPath != null ?
+                    Paths.get(cacheDirectoryPath) :
+                    Paths.get(System.getProperty("java.io.tmpdir"), "featurevisor-java-cli");
+            }
+
+            datafileBuilder = new DatafileBuilder(
+                commandRunner, featurevisorProjectPath, cacheDirectory, buildConcurrency, extraArguments.toString());
+        }
+        return datafileBuilder;
+    }
+
     private DatafileContent buildDatafile(
         String featurevisorProjectPath,
         String environment,
         String tag
     ) throws IOException {
-        StringBuilder command = new StringBuilder("npx featurevisor build --json");
-        if (environment != null) {
-            command.append(" --environment=").append(environment);
-        }
-        if (tag != null) {
-            command.append(" --tag=").append(tag);
-        }
-        if (schemaVersion != null && !schemaVersion.isBlank()) {
-            command.append(" --schema-version=").append(schemaVersion);
-        }
-        if (inflate != null && inflate > 0) {
-            command.append(" --inflate=").append(inflate);
-        }
-
-        String datafileOutput = executeCommandInDirectory(featurevisorProjectPath, command.toString());
-        return parseDatafileContent(datafileOutput, command.toString());
+        return getDatafileBuilder(featurevisorProjectPath).build(new DatafileBuilder.Target(environment, tag));
     }
 
-    private Map<String, DatafileContent> buildBaseDatafiles(
+    /**
+     * Build the datafiles of all environments, and of all environment and tag combinations when tags are given
+     */
+    private Map<String, DatafileContent> buildDatafiles(
         String featurevisorProjectPath,
-        List<String> environments
+        List<String> environments,
+        List<String> tags
     ) throws IOException {
-        Map<String, DatafileContent> datafilesByEnvironment = new HashMap<>();
+        List<DatafileBuilder.Target> targets = new ArrayList<>();
+        List<String> cacheKeys = new ArrayList<>();
+
         for (String env : environments) {
             System.out.println("Building datafile for environment: " + (env == null ? "default" : env) + "...");
-            datafilesByEnvironment.put(getEnvironmentKey(env), buildDatafile(featurevisorProjectPath, env, null));
+            targets.add(new DatafileBuilder.Target(env, null));
+            cacheKeys.add(getEnvironmentKey(env));
         }
-        return datafilesByEnvironment;
+
+        for (String env : environments) {
+            for (String tag : tags) {
+                targets.add(new DatafileBuilder.Target(env, tag));
+                cacheKeys.add(taggedDatafileCacheKey(env, tag));
+            }
+        }
+
+        DatafileBuilder builder = getDatafileBuilder(featurevisorProjectPath);
+        List<DatafileContent> datafiles = builder.buildAll(targets);
+
+        Map<String, DatafileContent> datafilesByKey = new HashMap<>();
+        for (int i = 0; i < targets.size(); i++) {
+            datafilesByKey.put(cacheKeys.get(i), datafiles.get(i));
+        }
+
+        if (builder.getCacheHits() > 0) {
+            System.out.println("Reused " + builder.getCacheHits() + " cached datafile(s)");
+        }
+
+        return datafilesByKey;
     }
 
     private List<String> getEnvironmentList(Map<String, Object> config) {
@@ -339,13 +386,6 @@ public class CLI implements Runnable {
         }
     }
 
-    /**
-     * Generate UUID
-     */
-    private String generateUuid() {
-        return UUID.randomUUID().toString();
-    }
-
     /**
      * Get tests from featurevisor project
      */
@@ -365,19 +405,32 @@ public class CLI implements Runnable {
     /**
      * Test a feature
      */
-    private TestResult testFeature(Map<String, Object> assertion, String featureKey, Object f, Logger.LogLevel level) {
+    private TestResult testFeature(
+        Map<String, Object> assertion,
+        String featureKey,
+        Object f,
+        Logger.LogLevel level,
+        Map<String, Object> parentContext,
+        Map<String, Object> parentSticky
+    ) {
         @SuppressWarnings("unchecked")
         Map<String, Object> context = (Map<String, Object>) assertion.getOrDefault("context", new HashMap<>());
         @SuppressWarnings("unchecked")
         Map<String, Object> sticky = (Map<String, Object>) assertion.getOrDefault("sticky", new HashMap<>());
 
-        // Update the SDK instance context and sticky values for this assertion
+        // The shared instance is never modified, its sticky values are passed per evaluation.
+        // Child instances belong to this assertion and inherit the context and sticky values of their parent assertion.
+        Map<String, Object> stickyOverride = null;
         if (f instanceof Featurevisor) {
-            ((Featurevisor) f).setContext(context, true);
-            ((Featurevisor) f).setSticky(sticky, true);
+            stickyOverride = sticky;
         } else if (f instanceof com.featurevisor.sdk.ChildInstance) {
-            ((com.featurevisor.sdk.ChildInstance) f).setContext(context, true);
-            ((com.featurevisor.sdk.ChildInstance) f).setSticky(sticky, true);
+            Map<String, Object> childContext = new HashMap<>(parentContext);
+            childContext.putAll(context);
+            Map<String, Object> childSticky = new HashMap<>(parentSticky);
+            childSticky.putAll(sticky);
+
+            ((com.featurevisor.sdk.ChildInstance) f).setContext(childContext, true);
+            ((com.featurevisor.sdk.ChildInstance) f).setSticky(childSticky, true);
         }
 
         boolean hasError = false;
@@ -386,7 +439,7 @@ public class CLI implements Runnable {
 
         // Test expectedToBeEnabled
         if (assertion.containsKey("expectedToBeEnabled")) {
-            boolean isEnabled = isEnabled(f, featureKey, context);
+            boolean isEnabled = isEnabled(f, featureKey, context, overrides(stickyOverride));
             boolean expected = (Boolean) assertion.get("expectedToBeEnabled");
             if (isEnabled != expected) {
                 hasError = true;
@@ -396,7 +449,7 @@ public class CLI implements Runnable {
 
         // Test expectedVariation
         if (assertion.containsKey("expectedVariation")) {
-            Featurevisor.OverrideOptions options = new Featurevisor.OverrideOptions();
+            Featurevisor.OverrideOptions options = overrides(stickyOverride);
             if (assertion.containsKey("defaultVariationValue")) {
                 options.setDefaultVariationValue(assertion.get("defaultVariationValue").toString());
             }
@@ -430,7 +483,7 @@ public class CLI implements Runnable {
                     }
                 }
 
-                Featurevisor.OverrideOptions options = new Featurevisor.OverrideOptions();
+                Featurevisor.OverrideOptions options = overrides(stickyOverride);
                 if (defaultVariableValues.containsKey(variableKey)) {
                     options.setDefaultVariableValue(defaultVariableValues.get(variableKey));
                 }
@@ -451,7 +504,7 @@ public class CLI implements Runnable {
                     if (expectedEvaluations.containsKey("flag")) {
             @SuppressWarnings("unchecked")
             Map<String, Object> flagEvaluation = (Map<String, Object>) expectedEvaluations.get("flag");
-            com.featurevisor.sdk.Evaluation actualEvaluation = evaluateFlag(f, featureKey, context);
+            com.featurevisor.sdk.Evaluation actualEvaluation = evaluateFlag(f, featureKey, context, overrides(stickyOverride));
 
             if (actualEvaluation != null) {
                 for (Map.Entry<String, Object> entry : flagEvaluation.entrySet()) {
@@ -469,7 +522,7 @@ public class CLI implements Runnable {
                     if (expectedEvaluations.containsKey("variation")) {
             @SuppressWarnings("unchecked")
             Map<String, Object> variationEvaluation = (Map<String, Object>) expectedEvaluations.get("variation");
-            Featurevisor.OverrideOptions options = new Featurevisor.OverrideOptions();
+            Featurevisor.OverrideOptions options = overrides(stickyOverride);
             if (assertion.containsKey("defaultVariationValue")) {
                 options.setDefaultVariationValue(assertion.get("defaultVariationValue").toString());
             }
@@ -500,7 +553,7 @@ public class CLI implements Runnable {
                     @SuppressWarnings("unchecked")
                     Map<String, Object> expectedEvaluation = (Map<String, Object>) entry.getValue();
 
-                    Featurevisor.OverrideOptions options = new Featurevisor.OverrideOptions();
+                    Featurevisor.OverrideOptions options = overrides(stickyOverride);
                     if (defaultVariableValues.containsKey(variableKey)) {
                         options.setDefaultVariableValue(defaultVariableValues.get(variableKey));
                     }
@@ -532,7 +585,7 @@ public class CLI implements Runnable {
                 @SuppressWarnings("unchecked")
                 Map<String, Object> childContext = (Map<String, Object>) child.getOrDefault("context", new HashMap<>());
                 com.featurevisor.sdk.ChildInstance childF = spawn(f, childContext);
-                TestResult childResult = testFeature(child, featureKey, childF, level);
+                TestResult childResult = testFeature(child, featureKey, childF, level, context, sticky);
                 duration += childResult.duration;
                 hasError = hasError || childResult.hasError;
 
@@ -545,14 +598,22 @@ public class CLI implements Runnable {
         return new TestResult(hasError, errors.toString(), duration);
     }
 
+    private Featurevisor.OverrideOptions overrides(Map<String, Object> sticky) {
+        Featurevisor.OverrideOptions options = new Featurevisor.OverrideOptions();
+        if (sticky != null) {
+            options.setSticky(sticky);
+        }
+        return options;
+    }
+
     /**
      * Helper methods to work with both Instance and ChildInstance
      */
-    private boolean isEnabled(Object f, String featureKey, Map<String, Object> context) {
+    private boolean isEnabled(Object f, String featureKey, Map<String, Object> context, Featurevisor.OverrideOptions options) {
         if (f instanceof Featurevisor) {
-            return ((Featurevisor) f).isEnabled(featureKey, context);
+            return ((Featurevisor) f).isEnabled(featureKey, context, options);
         } else if (f instanceof com.featurevisor.sdk.ChildInstance) {
-            return ((com.featurevisor.sdk.ChildInstance) f).isEnabled(featureKey, context);
+            return ((com.featurevisor.sdk.ChildInstance) f).isEnabled(featureKey, context, options);
         }
         return false;
     }
@@ -575,9 +636,9 @@ public class CLI implements Runnable {
         return null;
     }
 
-    private com.featurevisor.sdk.Evaluation evaluateFlag(Object f, String featureKey, Map<String, Object> context) {
+    private com.featurevisor.sdk.Evaluation evaluateFlag(Object f, String featureKey, Map<String, Object> context, Featurevisor.OverrideOptions options) {
         if (f instanceof Featurevisor) {
-            return ((Featurevisor) f).evaluateFlag(featureKey, context);
+            return ((Featurevisor) f).evaluateFlag(featureKey, context, options);
         } else if (f instanceof com.featurevisor.sdk.ChildInstance) {
             // ChildInstance doesn't have evaluateFlag, so we'll skip this test for child instances
             return null;
@@ -692,18 +753,11 @@ public class CLI implements Runnable {
             Map<String, Segment> segmentsByKey = getSegments(featurevisorProjectPath);
             Map<String, DatafileContent> datafileCache = new HashMap<>();
 
-            datafileCache.putAll(buildBaseDatafiles(featurevisorProjectPath, environments));
-
-            if (Boolean.TRUE.equals(withTags)) {
-                for (String env : environments) {
-                    for (String tag : tags) {
-                        datafileCache.put(
-                            taggedDatafileCacheKey(env, tag),
-                            buildDatafile(featurevisorProjectPath, env, tag)
-                        );
-                    }
-                }
-            }
+            datafileCache.putAll(buildDatafiles(
+                featurevisorProjectPath,
+                environments,
+                Boolean.TRUE.equals(withTags) ? tags : Collections.emptyList()
+            ));
 
             if (Boolean.TRUE.equals(withScopes) && !scopesByName.isEmpty()) {
                 // Ensure scoped datafiles are materialized on disk.
@@ -735,151 +789,190 @@ public class CLI implements Runnable {
                 return;
             }
 
+            // one instance per datafile variant, shared by all assertions
+            Map<String, Featurevisor> instances = new HashMap<>();
+            for (Map.Entry<String, DatafileContent> entry : datafileCache.entrySet()) {
+                instances.put(entry.getKey(), createTestInstance(entry.getValue(), level));
+            }
+
+            TestContext testContext = new TestContext(datafileCache, instances, scopesByName, segmentsByKey, level);
+
             int passedTestsCount = 0;
             int failedTestsCount = 0;
             int passedAssertionsCount = 0;
             int failedAssertionsCount = 0;
 
-            for (Map<String, Object> test : tests) {
-                String testKey = (String) test.get("key");
-                @SuppressWarnings("unchecked")
-                List<Map<String, Object>> assertions = (List<Map<String, Object>>) test.get("assertions");
+            ForkJoinPool pool = new ForkJoinPool(Math.max(1, concurrency));
+            try {
+                List<Future<TestSpecResult>> futures = new ArrayList<>();
+                for (Map<String, Object> test : tests) {
+                    futures.add(pool.submit(() -> testSpec(test, testContext)));
+                }
 
+                // printed in the order of the specs, as soon as each one is done
+                for (Future<TestSpecResult> future : futures) {
+                    TestSpecResult specResult;
+                    try {
+                        specResult = future.get();
+                    } catch (ExecutionException e) {
+                        throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                    }
 
+                    passedAssertionsCount += specResult.passedAssertions;
+                    failedAssertionsCount += specResult.failedAssertions;
 
-                StringBuilder results = new StringBuilder();
-                boolean testHasError = false;
-                double testDuration = 0;
+                    if (!onlyFailures || (onlyFailures && specResult.hasError)) {
+                        System.out.print(specResult.output);
+                    }
 
-                for (Map<String, Object> assertion : assertions) {
-                        TestResult testResult;
+                    if (specResult.hasError) {
+                        failedTestsCount++;
+                    } else {
+                        passedTestsCount++;
+                    }
+                }
+            } finally {
+                pool.shutdownNow();
+            }
 
-                    if (test.containsKey("feature")) {
-                        String assertionEnvironment = assertion.get("environment") instanceof String
-                            ? (String) assertion.get("environment")
-                            : null;
-                        String baseDatafileKey = getEnvironmentKey(assertionEnvironment);
-                        String selectedDatafileKey = baseDatafileKey;
+            System.out.println();
+            System.out.println("Test specs: " + passedTestsCount + " passed, " + failedTestsCount + " failed");
+            System.out.println("Assertions: " + passedAssertionsCount + " passed, " + failedAssertionsCount + " failed");
+            System.out.println();
 
-                        String scope = assertion.get("scope") instanceof String ? (String) assertion.get("scope") : null;
-                        String tag = assertion.get("tag") instanceof String ? (String) assertion.get("tag") : null;
+            if (failedTestsCount > 0) {
+                System.exit(1);
+            }
 
-                        if (scope != null && datafileCache.containsKey(scopedDatafileCacheKey(assertionEnvironment, scope))) {
-                            selectedDatafileKey = scopedDatafileCacheKey(assertionEnvironment, scope);
-                        }
+        } catch (Exception e) {
+            System.err.println("Error running tests: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
 
-                        if (scope == null && tag != null && datafileCache.containsKey(taggedDatafileCacheKey(assertionEnvironment, tag))) {
-                            selectedDatafileKey = taggedDatafileCacheKey(assertionEnvironment, tag);
-                        }
+    /**
+     * Create an instance for a datafile variant
+     * Bucket values of assertions with `at` are applied per assertion through {@link #AT_BUCKET_VALUE}.
+     */
+    private Featurevisor createTestInstance(DatafileContent datafile, Logger.LogLevel level) {
+        return Featurevisor.createInstance(new Featurevisor.Options()
+            .datafile(datafile)
+            .logLevel(level)
+            .hooks(Collections.singletonList(new HooksManager.Hook("at-parameter")
+                .bucketValue((options) -> {
+                    Integer at = AT_BUCKET_VALUE.get();
+                    return at != null ? at : options.getBucketValue();
+                }))));
+    }
 
-                        DatafileContent selectedDatafile = datafileCache.get(selectedDatafileKey);
-                        if (selectedDatafile == null) {
-                            selectedDatafile = datafileCache.get(baseDatafileKey);
-                        }
+    /**
+     * Run all assertions of a test spec, buffering its output
+     */
+    private TestSpecResult testSpec(Map<String, Object> test, TestContext testContext) throws IOException {
+        String testKey = (String) test.get("key");
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> assertions = (List<Map<String, Object>>) test.get("assertions");
 
-                        if (selectedDatafile == null) {
-                            throw new IOException("No datafile found for assertion environment: " + assertionEnvironment);
-                        }
+        StringBuilder results = new StringBuilder();
+        TestSpecResult specResult = new TestSpecResult();
+        double testDuration = 0;
 
-                        @SuppressWarnings("unchecked")
-                        Map<String, Object> effectiveAssertion = objectMapper.convertValue(
-                            assertion,
-                            new TypeReference<Map<String, Object>>() {}
-                        );
+        for (Map<String, Object> assertion : assertions) {
+            TestResult testResult;
 
-                        if (scope != null && !Boolean.TRUE.equals(withScopes) && scopesByName.containsKey(scope)) {
-                            @SuppressWarnings("unchecked")
-                            Map<String, Object> currentContext = (Map<String, Object>) effectiveAssertion.getOrDefault("context", new HashMap<>());
-                            @SuppressWarnings("unchecked")
-                            Map<String, Object> scopeContext = (Map<String, Object>) scopesByName.get(scope).getOrDefault("context", new HashMap<>());
+            if (test.containsKey("feature")) {
+                String assertionEnvironment = assertion.get("environment") instanceof String
+                    ? (String) assertion.get("environment")
+                    : null;
+                String baseDatafileKey = getEnvironmentKey(assertionEnvironment);
+                String selectedDatafileKey = baseDatafileKey;
 
-                            Map<String, Object> mergedContext = new HashMap<>(scopeContext);
-                            mergedContext.putAll(currentContext);
-                            effectiveAssertion.put("context", mergedContext);
-                        }
+                String scope = assertion.get("scope") instanceof String ? (String) assertion.get("scope") : null;
+                String tag = assertion.get("tag") instanceof String ? (String) assertion.get("tag") : null;
 
-                        if (Boolean.TRUE.equals(showDatafile)) {
-                            System.out.println();
-                            System.out.println(objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(selectedDatafile));
-                            System.out.println();
-                        }
+                if (scope != null && testContext.datafiles.containsKey(scopedDatafileCacheKey(assertionEnvironment, scope))) {
+                    selectedDatafileKey = scopedDatafileCacheKey(assertionEnvironment, scope);
+                }
 
-                        Featurevisor f = Featurevisor.createInstance(new Featurevisor.Options()
-                            .datafile(selectedDatafile)
-                            .logLevel(level));
+                if (scope == null && tag != null && testContext.datafiles.containsKey(taggedDatafileCacheKey(assertionEnvironment, tag))) {
+                    selectedDatafileKey = taggedDatafileCacheKey(assertionEnvironment, tag);
+                }
 
-                        // If "at" parameter is provided, create a new SDK instance with the specific hook
-                        if (effectiveAssertion.containsKey("at")) {
-                            Object atObj = effectiveAssertion.get("at");
-                            double atValue;
+                if (!testContext.datafiles.containsKey(selectedDatafileKey)) {
+                    selectedDatafileKey = baseDatafileKey;
+                }
 
-                            if (atObj instanceof Number) {
-                                atValue = ((Number) atObj).doubleValue();
-                            } else {
-                                atValue = Double.parseDouble(atObj.toString());
-                            }
+                DatafileContent selectedDatafile = testContext.datafiles.get(selectedDatafileKey);
+                if (selectedDatafile == null) {
+                    throw new IOException("No datafile found for assertion environment: " + assertionEnvironment);
+                }
 
-                            // Create a hook that sets the bucket value to at * 1000
-                            Logger logger = Logger.createLogger(new Logger.CreateLoggerOptions().level(level));
-                            HooksManager hooksManager = new HooksManager(new HooksManager.HooksManagerOptions(logger));
+                Map<String, Object> effectiveAssertion = assertion;
 
-                            hooksManager.add(new HooksManager.Hook("at-parameter")
-                                .bucketValue((options) -> (int) (atValue * 1000)));
+                if (scope != null && !Boolean.TRUE.equals(withScopes) && testContext.scopesByName.containsKey(scope)) {
+                    @SuppressWarnings("unchecked")
+                    Map<String, Object> currentContext = (Map<String, Object>) assertion.getOrDefault("context", new HashMap<>());
+                    @SuppressWarnings("unchecked")
+                    Map<String, Object> scopeContext = (Map<String, Object>) testContext.scopesByName.get(scope).getOrDefault("context", new HashMap<>());
 
-                            f = Featurevisor.createInstance(new Featurevisor.Options()
-                                .datafile(selectedDatafile)
-                                .logLevel(level)
-                                .hooks(hooksManager.getAll()));
-                        }
+                    Map<String, Object> mergedContext = new HashMap<>(scopeContext);
+                    mergedContext.putAll(currentContext);
 
-                        testResult = testFeature(effectiveAssertion, (String) test.get("feature"), f, level);
+                    // only the context is replaced, nested values are shared with the original assertion
+                    effectiveAssertion = new HashMap<>(assertion);
+                    effectiveAssertion.put("context", mergedContext);
+                }
 
+                if (Boolean.TRUE.equals(showDatafile)) {
+                    results.append("\n")
+                        .append(objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(selectedDatafile))
+                        .append("\n\n");
+                }
 
-                    } else if (test.containsKey("segment")) {
-                        testResult = testSegment(assertion, segmentsByKey.get(test.get("segment")), level);
-                    } else {
-                        continue;
-                    }
+                Featurevisor f = testContext.instances.get(selectedDatafileKey);
 
-                    testDuration += testResult.duration;
+                // If "at" parameter is provided, the bucket value is set to at * 1000 for this assertion
+                if (effectiveAssertion.containsKey("at")) {
+                    Object atObj = effectiveAssertion.get("at");
+                    double atValue;
 
-                    if (testResult.hasError) {
-                        results.append("  ✘ ").append(assertion.get("description")).append(" (").append(String.format("%.2f", testResult.duration)).append("ms)\n");
-                        results.append(testResult.errors);
-                        testHasError = true;
-                        failedAssertionsCount++;
+                    if (atObj instanceof Number) {
+                        atValue = ((Number) atObj).doubleValue();
                     } else {
-                        results.append("  ✔ ").append(assertion.get("description")).append(" (").append(String.format("%.2f", testResult.duration)).append("ms)\n");
-                        passedAssertionsCount++;
+                        atValue = Double.parseDouble(atObj.toString());
                     }
-                }
 
-                if (!onlyFailures || (onlyFailures && testHasError)) {
-                    System.out.println("\nTesting: " + testKey + " (" + String.format("%.2f", testDuration) + "ms)");
-                    System.out.print(results);
+                    AT_BUCKET_VALUE.set((int) (atValue * 1000));
                 }
 
-                if (testHasError) {
-                    failedTestsCount++;
-                } else {
-                    passedTestsCount++;
+                try {
+                    testResult = testFeature(effectiveAssertion, (String) test.get("feature"), f, testContext.level,
+                        Collections.emptyMap(), Collections.emptyMap());
+                } finally {
+                    AT_BUCKET_VALUE.remove();
                 }
+            } else if (test.containsKey("segment")) {
+                testResult = testSegment(assertion, testContext.segmentsByKey.get(test.get("segment")), testContext.level);
+            } else {
+                continue;
             }
 
-            System.out.println();
-            System.out.println("Test specs: " + passedTestsCount + " passed, " + failedTestsCount + " failed");
-            System.out.println("Assertions: " + passedAssertionsCount + " passed, " + failedAssertionsCount + " failed");
-            System.out.println();
+            testDuration += testResult.duration;
 
-            if (failedTestsCount > 0) {
-                System.exit(1);
+            if (testResult.hasError) {
+                results.append("  ✘ ").append(assertion.get("description")).append(" (").append(String.format("%.2f", testResult.duration)).append("ms)\n");
+                results.append(testResult.errors);
+                specResult.hasError = true;
+                specResult.failedAssertions++;
+            } else {
+                results.append("  ✔ ").append(assertion.get("description")).append(" (").append(String.format("%.2f", testResult.duration)).append("ms)\n");
+                specResult.passedAssertions++;
             }
-
-        } catch (Exception e) {
-            System.err.println("Error running tests: " + e.getMessage());
-            e.printStackTrace();
-            System.exit(1);
         }
+
+        specResult.output = "\nTesting: " + testKey + " (" + String.format("%.2f", testDuration) + "ms)\n" + results;
+        return specResult;
     }
 
     /**
@@ -909,35 +1002,55 @@ public class CLI implements Runnable {
                 .datafile(datafile)
                 .logLevel(level));
 
-            Object value = null;
-
-            if (variation) {
-                System.out.println("Benchmarking variation for feature '" + feature + "'...");
-            } else if (variable != null) {
-                System.out.println("Benchmarking variable '" + variable + "' for feature '" + feature + "'...");
-            } else {
-                System.out.println("Benchmarking flag for feature '" + feature + "'...");
-            }
-
-            System.out.println("Against context: " + contextMap);
-            System.out.println("Running " + n + " times...");
+            int benchmarkThreads = threads != null ? threads : 1;
 
-            long startTime = System.nanoTime();
-            for (int i = 0; i < n; i++) {
+            if (!json) {
                 if (variation) {
-                    value = f.getVariation(feature, contextMap);
+                    System.out.println("Benchmarking variation for feature '" + feature + "'...");
                 } else if (variable != null) {
-                    value = f.getVariable(feature, variable, contextMap);
+                    System.out.println("Benchmarking variable '" + variable + "' for feature '" + feature + "'...");
                 } else {
-                    value = f.isEnabled(feature, contextMap);
+                    System.out.println("Benchmarking flag for feature '" + feature + "'...");
                 }
+
+                System.out.println("Against context: " + contextMap);
+                System.out.println("Running " + n + " times on " + benchmarkThreads + " thread(s), after " + warmup + " warmup iterations...");
             }
 
-            double duration = (System.nanoTime() - startTime) / 1_000_000.0; // Convert to milliseconds
+            Map<String, Object> benchmarkContext = contextMap;
+            Benchmark.BenchmarkResult result = Benchmark.run(
+                new Benchmark.BenchmarkOptions()
+                    .iterations(n)
+                    .warmupIterations(warmup)
+                    .threads(benchmarkThreads)
+                    .batchSize(batchSize),
+                () -> {
+                    if (variation) {
+                        return f.getVariation(feature, benchmarkContext);
+                    } else if (variable != null) {
+                        return f.getVariable(feature, variable, benchmarkContext);
+                    }
+                    return f.isEnabled(feature, benchmarkContext);
+                });
+
+            if (json) {
+                System.out.println(objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(result.toMap()));
+                return;
+            }
 
-            System.out.println("Evaluated value: " + value);
-            System.out.println("Total duration: " + String.format("%.3f", duration) + "ms");
-            System.out.println("Average duration: " + String.format("%.3f", duration / n) + "ms");
+            System.out.println("Evaluated value: " + result.value);
+            System.out.println("Total duration: " + String.format("%.3f", result.wallNanos / 1_000_000.0) + "ms");
+            System.out.println("Average duration: " + String.format("%.3f", result.meanNanos / 1_000_000.0) + "ms");
+            System.out.println("Throughput: " + String.format("%.0f", result.getThroughput()) + " evaluations/s");
+            System.out.println("Latency per evaluation (" + result.samples + " samples of " + result.batchSize + "):");
+            System.out.println("  p50: " + String.format("%.0f", result.p50Nanos) + "ns");
+            System.out.println("  p90: " + String.format("%.0f", result.p90Nanos) + "ns");
+            System.out.println("  p99: " + String.format("%.0f", result.p99Nanos) + "ns");
+            System.out.println("  p999: " + String.format("%.0f", result.p999Nanos) + "ns");
+            System.out.println("  max: " + String.format("%.0f", result.maxNanos) + "ns");
+            if (result.allocatedBytesPerEvaluation >= 0) {
+                System.out.println("Allocated per evaluation: " + String.format("%.1f", result.allocatedBytesPerEvaluation) + " bytes");
+            }
 
         } catch (Exception e) {
             System.err.println("Error running benchmark: " + e.getMessage());
@@ -968,12 +1081,6 @@ public class CLI implements Runnable {
 
             DatafileContent datafile = buildDatafile(rootDirectoryPath, environment, null);
 
-            Featurevisor f = Featurevisor.createInstance(new Featurevisor.Options()
-                .datafile(datafile)
-                .logLevel(getLoggerLevel()));
-
-            Object value = null;
-
             if (variation) {
                 System.out.println("Assessing distribution for feature '" + feature + "'...");
             } else if (variable != null) {
@@ -982,39 +1089,64 @@ public class CLI implements Runnable {
                 System.out.println("Assessing distribution for flag for feature '" + feature + "'...");
             }
 
-            System.out.println("Against context: " + contextMap);
-            System.out.println("Running " + n + " times...");
-
-            Map<Object, Integer> values = new HashMap<>();
-
-            for (int i = 0; i < n; i++) {
-                Map<String, Object> currentContext = new HashMap<>(contextMap);
+            if (exact) {
+                System.out.println("Against context: " + contextMap);
+                System.out.println("Computing exactly over " + DistributionAnalyzer.BUCKETS + " buckets...");
+
+                Map<Object, Long> values = DistributionAnalyzer.analyze(
+                    datafile,
+                    feature,
+                    getLoggerLevel(),
+                    contextMap,
+                    (instance, analyzedContext) -> {
+                        if (variation) {
+                            return instance.getVariation(feature, analyzedContext);
+                        } else if (variable != null) {
+                            return instance.getVariable(feature, variable, analyzedContext);
+                        }
+                        return instance.isEnabled(feature, analyzedContext);
+                    });
 
-                if (!populateUuid.isEmpty()) {
-                    for (String key : populateUuid) {
-                        currentContext.put(key, generateUuid());
-                    }
-                }
+                printDistribution(values, DistributionAnalyzer.BUCKETS);
+                return;
+            }
 
-                if (variation) {
-                    value = f.getVariation(feature, currentContext);
-                } else if (variable != null) {
-                    value = f.getVariable(feature, variable, currentContext);
-                } else {
-                    value = f.isEnabled(feature, currentContext);
-                }
+            Featurevisor f = Featurevisor.createInstance(new Featurevisor.Options()
+                .datafile(datafile)
+                .logLevel(getLoggerLevel()));
 
-                values.put(value, values.getOrDefault(value, 0) + 1);
-            }
+            int assessThreads = threads != null ? threads : Runtime.getRuntime().availableProcessors();
+            long assessSeed = seed != null ? seed : ThreadLocalRandom.current().nextLong();
 
-            System.out.println("Values:");
-            for (Map.Entry<Object, Integer> entry : values.entrySet()) {
-                Object val = entry.getKey();
-                Integer count = entry.getValue();
-                double percentage = (count.doubleValue() / n) * 100;
-                System.out.println("  - " + val + ": " + count + " (" + String.format("%.2f", percentage) + "%)");
-            }
+            System.out.println("Against context: " + contextMap);
+            System.out.println("Running " + n + " times on " + assessThreads + " thread(s), with seed " + assessSeed + "...");
+
+            // printed from the evaluating threads, whenever another tenth of the iterations is done
+            AtomicInteger reportedTenths = new AtomicInteger();
+            Map<Object, Long> values = DistributionAssessor.assess(
+                f,
+                new DistributionAssessor.AssessOptions()
+                    .iterations(n)
+                    .threads(assessThreads)
+                    .seed(assessSeed)
+                    .context(contextMap)
+                    .populateUuid(populateUuid)
+                    .progress(done -> {
+                        int tenths = (int) (done * 10 / n);
+                        if (reportedTenths.getAndAccumulate(tenths, Math::max) < tenths && done < n) {
+                            System.out.println("  ... " + done + " of " + n + " (" + (tenths * 10) + "%)");
+                        }
+                    }),
+                (child, generated) -> {
+                    if (variation) {
+                        return child.getVariation(feature, generated);
+                    } else if (variable != null) {
+                        return child.getVariable(feature, variable, generated);
+                    }
+                    return child.isEnabled(feature, generated);
+                });
 
+            printDistribution(values, n);
         } catch (Exception e) {
             System.err.println("Error assessing distribution: " + e.getMessage());
             e.printStackTrace();
@@ -1022,6 +1154,54 @@ public class CLI implements Runnable {
         }
     }
 
+    /**
+     * Print the counted values of a distribution
+     */
+    private void printDistribution(Map<Object, Long> values, long total) {
+        System.out.println("Values:");
+        for (Map.Entry<Object, Long> entry : values.entrySet()) {
+            Object val = entry.getKey();
+            long count = entry.getValue();
+            double percentage = ((double) count / total) * 100;
+            System.out.println("  - " + val + ": " + count + " (" + String.format("%.2f", percentage) + "%)");
+        }
+    }
+
+    /**
+     * Datafiles and instances shared by all test specs
+     */
+    private static class TestContext {
+        public final Map<String, DatafileContent> datafiles;
+        public final Map<String, Featurevisor> instances;
+        public final Map<String, Map<String, Object>> scopesByName;
+        public final Map<String, Segment> segmentsByKey;
+        public final Logger.LogLevel level;
+
+        public TestContext(
+            Map<String, DatafileContent> datafiles,
+            Map<String, Featurevisor> instances,
+            Map<String, Map<String, Object>> scopesByName,
+            Map<String, Segment> segmentsByKey,
+            Logger.LogLevel level
+        ) {
+            this.datafiles = datafiles;
+            this.instances = instances;
+            this.scopesByName = scopesByName;
+            this.segmentsByKey = segmentsByKey;
+            this.level = level;
+        }
+    }
+
+    /**
+     * Result of a test spec, with its output buffered for printing in order
+     */
+    private static class TestSpecResult {
+        public boolean hasError;
+        public int passedAssertions;
+        public int failedAssertions;
+        public String output;
+    }
+
     /**
      * Test result class
      */
@@ -0,0 +1,35 @@
+package com.featurevisor.cli;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+
+/**
+ * Runs shell commands for the CLI, for example `npx featurevisor build`
+ * Can be replaced to run the CLI against a stub executable.
+ */
+public interface CommandRunner {
+
+    /**
+     * Run a command, writing its standard output to the given stream
+     * @param directory The working directory
+     * @param command The command line
+     * @param output Receives the standard output of the command
+     * @throws IOException If the command could not be run or exited with an error
+     */
+    void run(String directory, String command, OutputStream output) throws IOException;
+
+    /**
+     * Run a command and return its standard output
+     * @param directory The working directory
+     * @param command The command line
+     * @return The standard output
+     * @throws IOException If the command could not be run or exited with an error
+     */
+    default String run(String directory, String command) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        run(directory, command, outputStream);
+        return outputStream.toString(Charset.defaultCharset());
+    }
+}
@@ -0,0 +1,268 @@
+package com.featurevisor.cli;
+
+import com.featurevisor.sdk.DatafileContent;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Builds datafiles for a matrix of environments and tags with `npx featurevisor build`
+ *
+ * Builds run concurrently. Their output is cached on disk, keyed by a hash of the project's
+ * definition files and the build command, so that unchanged projects are not rebuilt.
+ */
+class DatafileBuilder {
+
+    /**
+     * Directories that never contain definitions
+     */
+    static final Set<String> IGNORED_DIRECTORIES = Collections.unmodifiableSet(new HashSet<>(
+        java.util.Arrays.asList("node_modules", "datafiles", "target", "build", "dist", "out")));
+
+    /**
+     * A datafile to build
+     */
+    static class Target {
+        final String environment;
+        final String tag;
+
+        Target(String environment, String tag) {
+            this.environment = environment;
+            this.tag = tag;
+        }
+    }
+
+    private final CommandRunner commandRunner;
+    private final String projectDirectoryPath;
+    private final Path cacheDirectory;
+    private final int parallelism;
+    private final String extraArguments;
+
+    private String definitionsHash;
+    private int builds;
+    private int cacheHits;
+
+    /**
+     * @param commandRunner Runs the build command
+     * @param projectDirectoryPath The Featurevisor project
+     * @param cacheDirectory Where build outputs are cached, or null to always build
+     * @param parallelism Maximum number of concurrent builds
+     * @param extraArguments Appended to every build command, for example `--schema-version=2`
+     */
+    DatafileBuilder(
+            CommandRunner commandRunner,
+            String projectDirectoryPath,
+            Path cacheDirectory,
+            int parallelism,
+            String extraArguments) {
+        this.commandRunner = commandRunner;
+        this.projectDirectoryPath = projectDirectoryPath;
+        this.cacheDirectory = cacheDirectory;
+        this.parallelism = Math.max(1, parallelism);
+        this.extraArguments = extraArguments != null ? extraArguments : "";
+    }
+
+    static String getCommand(Target target, String extraArguments) {
+        StringBuilder command = new StringBuilder("npx featurevisor build --json");
+        if (target.environment != null) {
+            command.append(" --environment=").append(target.environment);
+        }
+        if (target.tag != null) {
+            command.append(" --tag=").append(target.tag);
+        }
+        command.append(extraArguments);
+        return command.toString();
+    }
+
+    /**
+     * Build a single datafile
+     */
+    DatafileContent build(Target target) throws IOException {
+        return buildAll(Collections.singletonList(target)).get(0);
+    }
+
+    /**
+     * Build datafiles concurrently
+     * @param targets The datafiles to build
+     * @return The datafiles, in the order of the targets
+     */
+    List<DatafileContent> buildAll(List<Target> targets) throws IOException {
+        if (cacheDirectory != null && definitionsHash == null) {
+            definitionsHash = hashDefinitions(Paths.get(projectDirectoryPath));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, Math.max(1, targets.size())));
+        try {
+            List<Future<DatafileContent>> futures = new ArrayList<>();
+            for (Target target : targets) {
+                futures.add(executor.submit(() -> buildOne(target)));
+            }
+
+            List<DatafileContent> datafiles = new ArrayList<>();
+            for (Future<DatafileContent> future : futures) {
+                try {
+                    datafiles.add(future.get());
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof IOException) {
+                        throw (IOException) e.getCause();
+                    }
+                    throw new IOException(e.getCause().getMessage(), e.getCause());
+                }
+            }
+            return datafiles;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while building datafiles", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private DatafileContent buildOne(Target target) throws IOException {
+        String command = getCommand(target, extraArguments);
+
+        if (cacheDirectory == null) {
+            String output = commandRunner.run(projectDirectoryPath, command);
+            countBuild(false);
+            return parse(output, command);
+        }
+
+        Path cached = cacheDirectory.resolve(sha256(definitionsHash + "\n" + command) + ".json");
+        if (Files.exists(cached)) {
+            try {
+                DatafileContent datafile = parse(Files.readString(cached), command);
+                countBuild(true);
+                return datafile;
+            } catch (IOException e) {
+                // unreadable or corrupt entry, rebuild it
+            }
+        }
+
+        // streamed to a temporary file first, so that a failed or concurrent build never leaves a partial entry
+        Files.createDirectories(cacheDirectory);
+        Path temporary = Files.createTempFile(cacheDirectory, "build-", ".tmp");
+        try {
+            try (OutputStream output = Files.newOutputStream(temporary)) {
+                commandRunner.run(projectDirectoryPath, command, output);
+            }
+
+            DatafileContent datafile = parse(Files.readString(temporary), command);
+            Files.move(temporary, cached, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            countBuild(false);
+            return datafile;
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private synchronized void countBuild(boolean cacheHit) {
+        if (cacheHit) {
+            cacheHits++;
+        } else {
+            builds++;
+        }
+    }
+
+    synchronized int getBuilds() {
+        return builds;
+    }
+
+    synchronized int getCacheHits() {
+        return cacheHits;
+    }
+
+    private static DatafileContent parse(String output, String command) throws IOException {
+        try {
+            return DatafileContent.fromJson(output);
+        } catch (Exception e) {
+            throw new IOException("Failed to parse datafile for " + command + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Hash the paths and contents of all files in the project, except hidden files and
+     * directories and directories that never contain definitions (see {@link #IGNORED_DIRECTORIES})
+     */
+    static String hashDefinitions(Path projectDirectory) throws IOException {
+        Path root = projectDirectory.toAbsolutePath().normalize();
+        MessageDigest digest = newDigest();
+        digest.update(root.toString().getBytes(StandardCharsets.UTF_8));
+
+        List<Path> files;
+        try (Stream<Path> paths = Files.walk(root)) {
+            files = paths
+                .filter(Files::isRegularFile)
+                .filter(path -> isDefinition(root.relativize(path)))
+                .sorted()
+                .collect(Collectors.toList());
+        }
+
+        byte[] buffer = new byte[8192];
+        for (Path file : files) {
+            digest.update((byte) 0);
+            digest.update(root.relativize(file).toString().replace('\\', '/').getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+
+            try (InputStream input = Files.newInputStream(file)) {
+                int read;
+                while ((read = input.read(buffer)) > 0) {
+                    digest.update(buffer, 0, read);
+                }
+            }
+        }
+
+        return toHex(digest.digest());
+    }
+
+    private static boolean isDefinition(Path relativePath) {
+        for (int i = 0; i < relativePath.getNameCount(); i++) {
+            String name = relativePath.getName(i).toString();
+            if (name.startsWith(".")) {
+                return false;
+            }
+            if (i < relativePath.getNameCount() - 1 && IGNORED_DIRECTORIES.contains(name)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String sha256(String value) {
+        return toHex(newDigest().digest(value.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return hex.toString();
+    }
+}
@@ -0,0 +1,122 @@
+package com.featurevisor.cli;
+
+import com.featurevisor.sdk.Allocation;
+import com.featurevisor.sdk.Bucketer;
+import com.featurevisor.sdk.DatafileContent;
+import com.featurevisor.sdk.Feature;
+import com.featurevisor.sdk.Featurevisor;
+import com.featurevisor.sdk.HooksManager;
+import com.featurevisor.sdk.Logger;
+import com.featurevisor.sdk.Range;
+import com.featurevisor.sdk.Traffic;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.function.BiFunction;
+
+/**
+ * Computes the exact distribution of a feature's values over the bucket space, without sampling
+ *
+ * For a given context, the value of a feature only depends on its bucket value, and only changes at
+ * the boundaries of its rules' percentages, allocation ranges and mutually exclusive ranges. The
+ * bucket space is split at those boundaries and one bucket value per interval is evaluated, with a
+ * hook pinning the feature's bucket value, so that the SDK's own evaluation logic decides the value.
+ *
+ * Required features keep their own bucket values, so they are evaluated for the context as is.
+ */
+class DistributionAnalyzer {
+
+    /**
+     * Number of bucket values, each bucket value is one hundred-thousandth of all users
+     */
+    static final int BUCKETS = Bucketer.MAX_BUCKETED_NUMBER;
+
+    private DistributionAnalyzer() {}
+
+    /**
+     * Analyze the distribution of a feature
+     * @param datafile The datafile
+     * @param featureKey The feature to analyze
+     * @param level The log level of the instance evaluating the intervals
+     * @param context The context to evaluate with
+     * @param evaluate Evaluates the feature with the instance and the context
+     * @return The number of bucket values (out of {@link #BUCKETS}) per value, most frequent first
+     */
+    static Map<Object, Long> analyze(
+            DatafileContent datafile,
+            String featureKey,
+            Logger.LogLevel level,
+            Map<String, Object> context,
+            BiFunction<Featurevisor, Map<String, Object>, Object> evaluate) {
+        int[] pinned = new int[1];
+
+        Featurevisor f = Featurevisor.createInstance(new Featurevisor.Options()
+            .datafile(datafile)
+            .logLevel(level)
+            .hooks(Collections.singletonList(new HooksManager.Hook("exact-distribution")
+                .bucketValue((options) -> featureKey.equals(options.getFeatureKey()) ?
+                    pinned[0] :
+                    options.getBucketValue()))));
+
+        Map<Object, Long> counts = new HashMap<>();
+        int[] boundaries = getBoundaries(datafile.getFeature(featureKey));
+
+        for (int i = 0; i < boundaries.length - 1; i++) {
+            pinned[0] = boundaries[i];
+            Object value = evaluate.apply(f, context);
+            counts.merge(value, (long) (boundaries[i + 1] - boundaries[i]), Long::sum);
+        }
+
+        return DistributionAssessor.sortByCount(counts);
+    }
+
+    /**
+     * Sorted bucket values where the evaluation of a feature may change, starting with 0 and ending
+     * with {@link #BUCKETS}
+     */
+    static int[] getBoundaries(Feature feature) {
+        TreeSet<Integer> boundaries = new TreeSet<>();
+        boundaries.add(0);
+        boundaries.add(BUCKETS);
+
+        if (feature != null) {
+            // mutually exclusive ranges: start <= bucketValue < end
+            if (feature.getRanges() != null) {
+                for (Range range : feature.getRanges()) {
+                    addBoundary(boundaries, range.getStart());
+                    addBoundary(boundaries, range.getEnd());
+                }
+            }
+
+            if (feature.getTraffic() != null) {
+                for (Traffic traffic : feature.getTraffic()) {
+                    // enabled while bucketValue <= percentage
+                    if (traffic.getPercentage() != null) {
+                        addBoundary(boundaries, traffic.getPercentage() + 1);
+                    }
+
+                    // allocations: start <= bucketValue <= end
+                    if (traffic.getAllocation() != null) {
+                        for (Allocation allocation : traffic.getAllocation()) {
+                            Range range = allocation.getRange();
+                            if (range != null && range.getStart() != null && range.getEnd() != null) {
+                                addBoundary(boundaries, range.getStart());
+                                addBoundary(boundaries, range.getEnd() + 1);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        return boundaries.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static void addBoundary(TreeSet<Integer> boundaries, Integer boundary) {
+        if (boundary != null && boundary > 0 && boundary < BUCKETS) {
+            boundaries.add(boundary);
+        }
+    }
+}
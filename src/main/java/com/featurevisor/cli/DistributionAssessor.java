@@ -0,0 +1,197 @@
+package com.featurevisor.cli;
+
+import com.featurevisor.sdk.ChildInstance;
+import com.featurevisor.sdk.Featurevisor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.LongConsumer;
+
+/**
+ * Evaluates a feature for many random users and counts the resulting values
+ *
+ * Iterations are split into fixed-size chunks that threads take in turn. The random IDs of a
+ * chunk only depend on the seed and the chunk's index, so the same seed gives the same counts
+ * regardless of the number of threads.
+ */
+class DistributionAssessor {
+    static final int CHUNK_SIZE = 16_384;
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    /**
+     * Options for an assessment
+     */
+    static class AssessOptions {
+        private long iterations = 1000;
+        private int threads = 1;
+        private long seed;
+        private Map<String, Object> context = new HashMap<>();
+        private List<String> populateUuid = new ArrayList<>();
+        private LongConsumer progress;
+
+        AssessOptions iterations(long iterations) {
+            this.iterations = iterations;
+            return this;
+        }
+
+        AssessOptions threads(int threads) {
+            this.threads = threads;
+            return this;
+        }
+
+        AssessOptions seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        AssessOptions context(Map<String, Object> context) {
+            this.context = context;
+            return this;
+        }
+
+        AssessOptions populateUuid(List<String> populateUuid) {
+            this.populateUuid = populateUuid;
+            return this;
+        }
+
+        /**
+         * Called with the number of completed iterations after every chunk, from the evaluating threads
+         */
+        AssessOptions progress(LongConsumer progress) {
+            this.progress = progress;
+            return this;
+        }
+    }
+
+    /**
+     * Mutable counter, so that counting does not box
+     */
+    private static final class Counter {
+        long value;
+    }
+
+    private DistributionAssessor() {}
+
+    /**
+     * Run the assessment
+     * @param f The instance to spawn per-thread child instances from
+     * @param options The assessment options
+     * @param evaluate Evaluates the feature with a child instance and the generated context
+     * @return The number of times each value was returned, most frequent first
+     */
+    static Map<Object, Long> assess(
+            Featurevisor f,
+            AssessOptions options,
+            BiFunction<ChildInstance, Map<String, Object>, Object> evaluate) throws Exception {
+        int threads = Math.max(1, options.threads);
+        long chunks = (options.iterations + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        AtomicLong nextChunk = new AtomicLong();
+        AtomicLong completed = new AtomicLong();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Map<Object, Counter>>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    ChildInstance child = f.spawn(new HashMap<>(options.context));
+                    Map<String, Object> generated = new HashMap<>();
+                    Map<Object, Counter> counts = new HashMap<>();
+                    char[] uuid = new char[36];
+
+                    long chunk;
+                    while ((chunk = nextChunk.getAndIncrement()) < chunks) {
+                        SplittableRandom random = new SplittableRandom(options.seed + chunk * 0x9E3779B97F4A7C15L);
+                        long start = chunk * CHUNK_SIZE;
+                        long end = Math.min(options.iterations, start + CHUNK_SIZE);
+
+                        for (long i = start; i < end; i++) {
+                            for (String key : options.populateUuid) {
+                                generated.put(key, randomUuid(random, uuid));
+                            }
+
+                            Object value = evaluate.apply(child, generated);
+                            counts.computeIfAbsent(value, k -> new Counter()).value++;
+                        }
+
+                        long done = completed.addAndGet(end - start);
+                        if (options.progress != null) {
+                            options.progress.accept(done);
+                        }
+                    }
+
+                    return counts;
+                }));
+            }
+
+            Map<Object, Long> merged = new HashMap<>();
+            for (Future<Map<Object, Counter>> future : futures) {
+                Map<Object, Counter> counts;
+                try {
+                    counts = future.get();
+                } catch (ExecutionException e) {
+                    throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                }
+                for (Map.Entry<Object, Counter> entry : counts.entrySet()) {
+                    merged.merge(entry.getKey(), entry.getValue().value, Long::sum);
+                }
+            }
+
+            return sortByCount(merged);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Counts ordered by count, most frequent first, then by value
+     */
+    static Map<Object, Long> sortByCount(Map<Object, Long> counts) {
+        List<Map.Entry<Object, Long>> entries = new ArrayList<>(counts.entrySet());
+        entries.sort((a, b) -> {
+            int byCount = Long.compare(b.getValue(), a.getValue());
+            return byCount != 0 ? byCount : String.valueOf(a.getKey()).compareTo(String.valueOf(b.getKey()));
+        });
+
+        Map<Object, Long> sorted = new LinkedHashMap<>();
+        for (Map.Entry<Object, Long> entry : entries) {
+            sorted.put(entry.getKey(), entry.getValue());
+        }
+        return sorted;
+    }
+
+    /**
+     * Random version 4 UUID string, without going through {@link java.util.UUID} and its secure random
+     */
+    static String randomUuid(SplittableRandom random, char[] buffer) {
+        long most = (random.nextLong() & ~0xF000L) | 0x4000L;
+        long least = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+
+        int position = 0;
+        for (int i = 60; i >= 0; i -= 4) {
+            if (position == 8 || position == 13 || position == 18) {
+                buffer[position++] = '-';
+            }
+            buffer[position++] = HEX[(int) (most >>> i) & 0xF];
+        }
+        buffer[position++] = '-';
+        for (int i = 60; i >= 0; i -= 4) {
+            if (position == 23) {
+                buffer[position++] = '-';
+            }
+            buffer[position++] = HEX[(int) (least >>> i) & 0xF];
+        }
+
+        return new String(buffer);
+    }
+}
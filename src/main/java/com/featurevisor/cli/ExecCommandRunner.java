@@ -0,0 +1,29 @@
+package com.featurevisor.cli;
+
+import org.apache.commons.exec.DefaultExecutor;
+import org.apache.commons.exec.ExecuteException;
+import org.apache.commons.exec.PumpStreamHandler;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Runs commands as child processes using commons-exec
+ */
+public class ExecCommandRunner implements CommandRunner {
+
+    @Override
+    public void run(String directory, String command, OutputStream output) throws IOException {
+        DefaultExecutor executor = new DefaultExecutor();
+        executor.setStreamHandler(new PumpStreamHandler(output));
+        if (directory != null) {
+            executor.setWorkingDirectory(new java.io.File(directory));
+        }
+
+        try {
+            executor.execute(org.apache.commons.exec.CommandLine.parse(command));
+        } catch (ExecuteException e) {
+            throw new IOException("Command execution failed: " + e.getMessage(), e);
+        }
+    }
+}
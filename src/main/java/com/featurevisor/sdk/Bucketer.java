@@ -43,7 +43,30 @@ public class Bucketer {
      * @return A number between 0 and 100000
      */
     public static int getBucketedNumber(String bucketKey) {
-        int hashValue = MurmurHash.murmurHashV3(bucketKey, HASH_SEED);
+        return toBucketedNumber(MurmurHash.murmurHashV3(bucketKey, HASH_SEED));
+    }
+
+    /**
+     * Hashing state of a bucket key prefix, to be shared by all features bucketed by it
+     * @param bucketKeyPrefix The prefix, as returned by getBucketKeyPrefix
+     * @return The resumable hashing state
+     */
+    public static MurmurHash.State getBucketKeyPrefixState(String bucketKeyPrefix) {
+        return MurmurHash.State.of(bucketKeyPrefix, HASH_SEED);
+    }
+
+    /**
+     * Get a bucketed number from the hashing state of a bucket key prefix and the feature key,
+     * identical to getBucketedNumber of the whole bucket key
+     * @param prefixState The hashing state of the bucket key prefix
+     * @param featureKey The feature key ending the bucket key
+     * @return A number between 0 and 100000
+     */
+    public static int getBucketedNumber(MurmurHash.State prefixState, String featureKey) {
+        return toBucketedNumber(prefixState.finish(featureKey));
+    }
+
+    private static int toBucketedNumber(int hashValue) {
         // Convert to unsigned 32-bit integer for calculation
         long unsignedHash = hashValue & 0xffffffffL;
         double ratio = (double) unsignedHash / MAX_HASH_VALUE;
@@ -95,6 +118,16 @@ public class Bucketer {
      * @return The bucket key string
      */
     public static String getBucketKey(GetBucketKeyOptions options) {
+        return getBucketKeyPrefix(options) + options.getFeatureKey();
+    }
+
+    /**
+     * Get the part of the bucket key before the feature key, which is the same for all features
+     * bucketed by the same attributes
+     * @param options The options containing feature key, bucketBy, context, and logger
+     * @return The attribute values each followed by the separator, or an empty string
+     */
+    public static String getBucketKeyPrefix(GetBucketKeyOptions options) {
         String featureKey = options.getFeatureKey();
         Bucket bucketBy = options.getBucketBy();
         Map<String, Object> context = options.getContext();
@@ -122,7 +155,8 @@ public class Bucketer {
             throw new RuntimeException("invalid bucketBy");
         }
 
-        List<Object> bucketKey = new ArrayList<>();
+        StringBuilder bucketKeyPrefix = new StringBuilder();
+        boolean hasValue = false;
 
         for (String attributeKey : attributeKeys) {
             Object attributeValue = ContextUtils.getValueFromContext(context, attributeKey);
@@ -131,19 +165,13 @@ public class Bucketer {
                 continue;
             }
 
-            if ("plain".equals(type) || "and".equals(type)) {
-                bucketKey.add(attributeValue);
-            } else {
-                // or
-                if (bucketKey.isEmpty()) {
-                    bucketKey.add(attributeValue);
-                }
+            if ("plain".equals(type) || "and".equals(type) || !hasValue) {
+                // or takes the first value only
+                bucketKeyPrefix.append(attributeValue).append(DEFAULT_BUCKET_KEY_SEPARATOR);
+                hasValue = true;
             }
         }
 
-        bucketKey.add(featureKey);
-
-        return String.join(DEFAULT_BUCKET_KEY_SEPARATOR,
-            bucketKey.stream().map(Object::toString).toArray(String[]::new));
+        return bucketKeyPrefix.toString();
     }
 }
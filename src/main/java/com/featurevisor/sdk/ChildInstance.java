@@ -14,8 +14,9 @@ import com.featurevisor.sdk.EvaluatedFeatures;
 public class ChildInstance {
     private Featurevisor parent;
     private Map<String, Object> context;
-    private Map<String, Object> sticky;
+    private StickyMap sticky;
     private Emitter emitter;
+    private EvaluationMemo memo;
 
     /**
      * Constructor
@@ -23,7 +24,7 @@ public class ChildInstance {
     public ChildInstance(Featurevisor parent, Map<String, Object> context, Map<String, Object> sticky) {
         this.parent = parent;
         this.context = context != null ? new HashMap<>(context) : new HashMap<>();
-        this.sticky = sticky;
+        this.sticky = sticky != null ? StickyMap.of(sticky) : null;
         this.emitter = new Emitter();
     }
 
@@ -60,6 +61,8 @@ public class ChildInstance {
         eventDetails.put("context", this.context);
         eventDetails.put("replaced", replace);
 
+        clearMemo();
+
         this.emitter.trigger(Emitter.EventName.CONTEXT_SET, eventDetails);
     }
 
@@ -82,26 +85,50 @@ public class ChildInstance {
      * Set sticky features
      */
     public void setSticky(Map<String, Object> sticky, boolean replace) {
-        Map<String, Object> previousStickyFeatures = this.sticky != null ?
-            new HashMap<>(this.sticky) : new HashMap<>();
+        // immutable, so the previous map can be kept as is
+        StickyMap previousStickyFeatures = this.sticky;
 
         if (replace) {
-            this.sticky = new HashMap<>(sticky);
+            this.sticky = StickyMap.of(sticky);
         } else {
-            this.sticky = new HashMap<>(this.sticky != null ? this.sticky : new HashMap<>());
-            this.sticky.putAll(sticky);
+            this.sticky = (this.sticky != null ? this.sticky : StickyMap.EMPTY).withAll(sticky);
         }
 
-        Emitter.EventDetails params = Events.getParamsForStickySetEvent(
-            previousStickyFeatures, this.sticky, replace);
+        clearMemo();
+
+        if (this.emitter.hasListeners(Emitter.EventName.STICKY_SET)) {
+            Emitter.EventDetails params = Events.getParamsForStickySetEvent(
+                previousStickyFeatures, this.sticky, replace);
 
-        this.emitter.trigger(Emitter.EventName.STICKY_SET, params);
+            this.emitter.trigger(Emitter.EventName.STICKY_SET, params);
+        }
     }
 
     public void setSticky(Map<String, Object> sticky) {
         setSticky(sticky, false);
     }
 
+    /**
+     * Memoize evaluations until the context or sticky features are set, or the parent's datafile,
+     * context, sticky features or hooks change
+     *
+     * Only calls without their own context or override options are memoized. Repeated calls return
+     * the same evaluation without running hooks again.
+     */
+    public void setMemoizeEvaluations(boolean memoizeEvaluations) {
+        this.memo = memoizeEvaluations ? new EvaluationMemo() : null;
+    }
+
+    public boolean isMemoizeEvaluations() {
+        return this.memo != null;
+    }
+
+    private void clearMemo() {
+        if (this.memo != null) {
+            this.memo.clear();
+        }
+    }
+
     /**
      * Flag
      */
@@ -109,7 +136,7 @@ public class ChildInstance {
         return this.parent.isEnabled(
             featureKey,
             mergeContexts(this.context, context),
-            mergeOverrideOptions(options)
+            mergeOverrideOptions(options, context)
         );
     }
 
@@ -128,7 +155,7 @@ public class ChildInstance {
         return this.parent.getVariation(
             featureKey,
             mergeContexts(this.context, context),
-            mergeOverrideOptions(options)
+            mergeOverrideOptions(options, context)
         );
     }
 
@@ -148,7 +175,7 @@ public class ChildInstance {
             featureKey,
             variableKey,
             mergeContexts(this.context, context),
-            mergeOverrideOptions(options)
+            mergeOverrideOptions(options, context)
         );
     }
 
@@ -165,7 +192,7 @@ public class ChildInstance {
             featureKey,
             variableKey,
             mergeContexts(this.context, context),
-            mergeOverrideOptions(options)
+            mergeOverrideOptions(options, context)
         );
     }
 
@@ -182,7 +209,7 @@ public class ChildInstance {
             featureKey,
             variableKey,
             mergeContexts(this.context, context),
-            mergeOverrideOptions(options)
+            mergeOverrideOptions(options, context)
         );
     }
 
@@ -199,7 +226,7 @@ public class ChildInstance {
             featureKey,
             variableKey,
             mergeContexts(this.context, context),
-            mergeOverrideOptions(options)
+            mergeOverrideOptions(options, context)
         );
     }
 
@@ -216,7 +243,7 @@ public class ChildInstance {
             featureKey,
             variableKey,
             mergeContexts(this.context, context),
-            mergeOverrideOptions(options)
+            mergeOverrideOptions(options, context)
         );
     }
 
@@ -233,7 +260,7 @@ public class ChildInstance {
             featureKey,
             variableKey,
             mergeContexts(this.context, context),
-            mergeOverrideOptions(options)
+            mergeOverrideOptions(options, context)
         );
     }
 
@@ -256,7 +283,7 @@ public class ChildInstance {
             featureKey,
             variableKey,
             mergeContexts(this.context, context),
-            mergeOverrideOptions(options),
+            mergeOverrideOptions(options, context),
             itemType
         );
     }
@@ -285,7 +312,7 @@ public class ChildInstance {
             featureKey,
             variableKey,
             mergeContexts(this.context, context),
-            mergeOverrideOptions(options),
+            mergeOverrideOptions(options, context),
             typeRef
         );
     }
@@ -308,7 +335,7 @@ public class ChildInstance {
             featureKey,
             variableKey,
             mergeContexts(this.context, context),
-            mergeOverrideOptions(options)
+            mergeOverrideOptions(options, context)
         );
     }
 
@@ -331,7 +358,7 @@ public class ChildInstance {
             featureKey,
             variableKey,
             mergeContexts(this.context, context),
-            mergeOverrideOptions(options),
+            mergeOverrideOptions(options, context),
             type
         );
     }
@@ -360,7 +387,7 @@ public class ChildInstance {
             featureKey,
             variableKey,
             mergeContexts(this.context, context),
-            mergeOverrideOptions(options),
+            mergeOverrideOptions(options, context),
             typeRef
         );
     }
@@ -383,7 +410,7 @@ public class ChildInstance {
             featureKey,
             variableKey,
             mergeContexts(this.context, context),
-            mergeOverrideOptions(options)
+            mergeOverrideOptions(options, context)
         );
     }
 
@@ -405,7 +432,7 @@ public class ChildInstance {
             featureKey,
             variableKey,
             mergeContexts(this.context, context),
-            mergeOverrideOptions(options)
+            mergeOverrideOptions(options, context)
         );
     }
 
@@ -424,7 +451,7 @@ public class ChildInstance {
         return this.parent.getAllEvaluations(
             mergeContexts(this.context, context),
             featureKeys,
-            mergeOverrideOptions(options)
+            mergeOverrideOptions(options, context)
         );
     }
 
@@ -453,17 +480,21 @@ public class ChildInstance {
         return merged;
     }
 
-    private Featurevisor.OverrideOptions mergeOverrideOptions(Featurevisor.OverrideOptions options) {
+    private Featurevisor.OverrideOptions mergeOverrideOptions(
+            Featurevisor.OverrideOptions options,
+            Map<String, Object> context) {
+        // only evaluations of the child's own context and sticky features are memoized
+        if (this.memo != null && options == null && (context == null || context.isEmpty())) {
+            options = new Featurevisor.OverrideOptions();
+            options.memo = this.memo;
+        }
+
         if (options == null) {
             options = new Featurevisor.OverrideOptions();
         }
 
         if (this.sticky != null) {
-            Map<String, Object> mergedSticky = new HashMap<>(this.sticky);
-            if (options.getSticky() != null) {
-                mergedSticky.putAll(options.getSticky());
-            }
-            options.sticky(mergedSticky);
+            options.sticky(this.sticky.withAll(options.getSticky()));
         }
 
         return options;
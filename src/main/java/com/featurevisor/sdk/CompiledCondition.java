@@ -0,0 +1,418 @@
+package com.featurevisor.sdk;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Condition tree compiled from datafile conditions
+ * Produced by {@link ConditionCompiler} and evaluated by {@link DatafileReader}
+ */
+public abstract class CompiledCondition {
+
+    /**
+     * Check if the compiled condition is matched given a context
+     * @param context The context to check against
+     * @return True if the condition is matched
+     */
+    public abstract boolean matches(Map<String, Object> context);
+
+    /**
+     * Same as {@link #matches(Map)}, recording the time taken by each evaluated condition
+     * @param context The evaluation context
+     * @param trace The trace to record into
+     * @return True if matched
+     */
+    boolean matches(Map<String, Object> context, EvaluationTrace trace) {
+        return matches(context);
+    }
+
+    /**
+     * Estimated cost of evaluating this condition, used to order children of groups
+     * @return The worst case cost in arbitrary units
+     */
+    abstract int cost();
+
+    /**
+     * Check if evaluating this condition may throw, in which case its position relative
+     * to its siblings affects the result and it cannot be reordered
+     */
+    boolean mayThrow() {
+        return false;
+    }
+
+    static final CompiledCondition TRUE = new Constant(true);
+    static final CompiledCondition FALSE = new Constant(false);
+
+    /**
+     * Condition with a fixed result, such as "*"
+     */
+    static final class Constant extends CompiledCondition {
+        private final boolean value;
+
+        Constant(boolean value) {
+            this.value = value;
+        }
+
+        @Override
+        public boolean matches(Map<String, Object> context) {
+            return value;
+        }
+
+        @Override
+        int cost() {
+            return 0;
+        }
+
+        boolean getValue() {
+            return value;
+        }
+    }
+
+    /**
+     * All children must match
+     */
+    static final class All extends CompiledCondition {
+        private final CompiledCondition[] children;
+        private final int cost;
+        private final boolean mayThrow;
+
+        All(List<CompiledCondition> children) {
+            this.children = children.toArray(new CompiledCondition[0]);
+            this.cost = sumCost(this.children);
+            this.mayThrow = anyMayThrow(this.children);
+        }
+
+        @Override
+        public boolean matches(Map<String, Object> context) {
+            for (CompiledCondition child : children) {
+                if (!child.matches(context)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        boolean matches(Map<String, Object> context, EvaluationTrace trace) {
+            for (CompiledCondition child : children) {
+                if (!child.matches(context, trace)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        int cost() {
+            return cost;
+        }
+
+        @Override
+        boolean mayThrow() {
+            return mayThrow;
+        }
+
+        CompiledCondition[] getChildren() {
+            return children;
+        }
+    }
+
+    /**
+     * At least one child must match
+     */
+    static final class Any extends CompiledCondition {
+        private final CompiledCondition[] children;
+        private final int cost;
+        private final boolean mayThrow;
+
+        Any(List<CompiledCondition> children) {
+            this.children = children.toArray(new CompiledCondition[0]);
+            this.cost = sumCost(this.children);
+            this.mayThrow = anyMayThrow(this.children);
+        }
+
+        @Override
+        public boolean matches(Map<String, Object> context) {
+            for (CompiledCondition child : children) {
+                if (child.matches(context)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        boolean matches(Map<String, Object> context, EvaluationTrace trace) {
+            for (CompiledCondition child : children) {
+                if (child.matches(context, trace)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        int cost() {
+            return cost;
+        }
+
+        @Override
+        boolean mayThrow() {
+            return mayThrow;
+        }
+
+        CompiledCondition[] getChildren() {
+            return children;
+        }
+    }
+
+    /**
+     * Negation of a child
+     */
+    static final class Not extends CompiledCondition {
+        private final CompiledCondition child;
+
+        Not(CompiledCondition child) {
+            this.child = child;
+        }
+
+        @Override
+        public boolean matches(Map<String, Object> context) {
+            return !child.matches(context);
+        }
+
+        @Override
+        boolean matches(Map<String, Object> context, EvaluationTrace trace) {
+            return !child.matches(context, trace);
+        }
+
+        @Override
+        int cost() {
+            return child.cost();
+        }
+
+        @Override
+        boolean mayThrow() {
+            return child.mayThrow();
+        }
+
+        CompiledCondition getChild() {
+            return child;
+        }
+    }
+
+    /**
+     * Plain condition with attribute, operator and value
+     */
+    static final class Plain extends CompiledCondition {
+        private final Condition condition;
+        private final String attribute;
+        private final Operator operator;
+        private final ConditionValueSet valueSet;
+        private final DatafileReader.GetRegex getRegex;
+
+        Plain(Condition condition, DatafileReader.GetRegex getRegex) {
+            this.condition = condition;
+            this.attribute = condition.getAttribute();
+            this.operator = condition.getOperator();
+            this.getRegex = getRegex;
+
+            if ((operator == Operator.IN || operator == Operator.NOT_IN) && condition.getValue() instanceof List) {
+                this.valueSet = ConditionValueSet.of((List<?>) condition.getValue());
+            } else {
+                this.valueSet = null;
+            }
+        }
+
+        @Override
+        public boolean matches(Map<String, Object> context) {
+            if (valueSet == null) {
+                return Conditions.conditionIsMatched(condition, context, getRegex);
+            }
+
+            Object contextValue = ContextUtils.getValueFromContext(context, attribute);
+
+            if (operator == Operator.IN) {
+                return valueSet.contains(contextValue);
+            }
+
+            // notIn
+            if ((contextValue instanceof String || contextValue instanceof Number || contextValue == null) &&
+                Conditions.pathExists(context, attribute)) {
+                return !valueSet.contains(contextValue);
+            }
+            return false;
+        }
+
+        @Override
+        int cost() {
+            int cost;
+            switch (operator) {
+                case EXISTS:
+                case NOT_EXISTS:
+                    cost = 1;
+                    break;
+                case EQUALS:
+                case NOT_EQUALS:
+                case GREATER_THAN:
+                case GREATER_THAN_OR_EQUALS:
+                case LESS_THAN:
+                case LESS_THAN_OR_EQUALS:
+                    cost = 2;
+                    break;
+                case IN:
+                case NOT_IN:
+                    // a set lookup, or a linear scan of the list
+                    cost = valueSet != null ? 3 : 3 + sizeOf(condition.getValue()) / 8;
+                    break;
+                case CONTAINS:
+                case NOT_CONTAINS:
+                case STARTS_WITH:
+                case ENDS_WITH:
+                case INCLUDES:
+                case NOT_INCLUDES:
+                    cost = 4;
+                    break;
+                case MATCHES:
+                case NOT_MATCHES:
+                    cost = 15;
+                    break;
+                case SEMVER_EQUALS:
+                case SEMVER_NOT_EQUALS:
+                case SEMVER_GREATER_THAN:
+                case SEMVER_GREATER_THAN_OR_EQUALS:
+                case SEMVER_LESS_THAN:
+                case SEMVER_LESS_THAN_OR_EQUALS:
+                    cost = 20;
+                    break;
+                case BEFORE:
+                case AFTER:
+                    // dates are parsed on every evaluation
+                    cost = 40;
+                    break;
+                default:
+                    cost = 2;
+            }
+
+            // nested attributes are resolved path by path
+            if (attribute != null && attribute.indexOf('.') != -1) {
+                cost++;
+            }
+            return cost;
+        }
+
+        @Override
+        boolean mayThrow() {
+            switch (operator) {
+                case SEMVER_EQUALS:
+                case SEMVER_NOT_EQUALS:
+                case SEMVER_GREATER_THAN:
+                case SEMVER_GREATER_THAN_OR_EQUALS:
+                case SEMVER_LESS_THAN:
+                case SEMVER_LESS_THAN_OR_EQUALS:
+                case MATCHES:
+                case NOT_MATCHES:
+                    return true;
+                default:
+                    return false;
+            }
+        }
+
+        private static int sizeOf(Object value) {
+            return value instanceof List ? ((List<?>) value).size() : 0;
+        }
+
+        Condition getCondition() {
+            return condition;
+        }
+
+        @Override
+        boolean matches(Map<String, Object> context, EvaluationTrace trace) {
+            long start = System.nanoTime();
+            boolean matched = false;
+            try {
+                matched = matches(context);
+                return matched;
+            } finally {
+                trace.condition(attribute, operator, matched, System.nanoTime() - start);
+            }
+        }
+
+        ConditionValueSet getValueSet() {
+            return valueSet;
+        }
+    }
+
+    /**
+     * Treats errors thrown by a child as not matched, the same way the interpreter does
+     */
+    static final class Guarded extends CompiledCondition {
+        private final CompiledCondition child;
+        private final Object source;
+        private final Logger logger;
+
+        Guarded(CompiledCondition child, Object source, Logger logger) {
+            this.child = child;
+            this.source = source;
+            this.logger = logger;
+        }
+
+        @Override
+        public boolean matches(Map<String, Object> context) {
+            try {
+                return child.matches(context);
+            } catch (Exception e) {
+                return notMatched(e, context);
+            }
+        }
+
+        @Override
+        boolean matches(Map<String, Object> context, EvaluationTrace trace) {
+            try {
+                return child.matches(context, trace);
+            } catch (Exception e) {
+                return notMatched(e, context);
+            }
+        }
+
+        private boolean notMatched(Exception e, Map<String, Object> context) {
+            Map<String, Object> details = new HashMap<>();
+            details.put("error", e);
+            details.put("condition", source);
+            details.put("context", context);
+            logger.warn(e.getMessage(), details);
+            return false;
+        }
+
+        @Override
+        int cost() {
+            return child.cost();
+        }
+
+        CompiledCondition getChild() {
+            return child;
+        }
+
+        Guarded withChild(CompiledCondition child) {
+            return new Guarded(child, source, logger);
+        }
+    }
+
+    private static int sumCost(CompiledCondition[] children) {
+        long cost = 0;
+        for (CompiledCondition child : children) {
+            cost += child.cost();
+        }
+        return (int) Math.min(cost, Integer.MAX_VALUE);
+    }
+
+    private static boolean anyMayThrow(CompiledCondition[] children) {
+        for (CompiledCondition child : children) {
+            if (child.mayThrow()) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,478 @@
+package com.featurevisor.sdk;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.function.IntPredicate;
+
+/**
+ * Lookup tables of a feature, compiled when its datafile is loaded
+ *
+ * Mutually exclusive ranges become sorted, disjoint intervals, each traffic rule's allocations
+ * become sorted boundaries, and variations are indexed by value, so that bucket values are looked
+ * up by binary search on primitive arrays. Forces on a single attribute being equal to a string
+ * are indexed by that string.
+ */
+final class CompiledFeature {
+    private static final int[] NO_INTERVALS = new int[0];
+
+    // start inclusive, end exclusive, sorted and disjoint
+    private final int[] rangeStarts;
+    private final int[] rangeEnds;
+    private final Map<String, Variation> variations;
+    private final Map<Traffic, Allocations> allocations;
+    private final Forces forces;
+
+    private CompiledFeature(
+            int[] rangeStarts,
+            int[] rangeEnds,
+            Map<String, Variation> variations,
+            Map<Traffic, Allocations> allocations,
+            Forces forces) {
+        this.rangeStarts = rangeStarts;
+        this.rangeEnds = rangeEnds;
+        this.variations = variations;
+        this.allocations = allocations;
+        this.forces = forces;
+    }
+
+    static CompiledFeature compile(Feature feature) {
+        return compile(feature, conditions -> null);
+    }
+
+    /**
+     * @param compiledConditions Compiled conditions of a force's conditions, or null if not compiled
+     */
+    static CompiledFeature compile(Feature feature, Function<Object, CompiledCondition> compiledConditions) {
+        int[][] ranges = compileRanges(feature.getRanges());
+
+        Map<String, Variation> variations = new HashMap<>();
+        if (feature.getVariations() != null) {
+            for (Variation variation : feature.getVariations()) {
+                // the first variation with a value wins, as with a linear search
+                if (variation != null && variation.getValue() != null) {
+                    variations.putIfAbsent(variation.getValue(), variation);
+                }
+            }
+        }
+
+        Map<Traffic, Allocations> allocations = new IdentityHashMap<>();
+        if (feature.getTraffic() != null) {
+            for (Traffic traffic : feature.getTraffic()) {
+                if (traffic != null && traffic.getAllocation() != null) {
+                    allocations.put(traffic, Allocations.compile(traffic.getAllocation()));
+                }
+            }
+        }
+
+        Forces forces = feature.getForce() != null ? Forces.compile(feature.getForce(), compiledConditions) : null;
+
+        return new CompiledFeature(ranges[0], ranges[1], variations, allocations, forces);
+    }
+
+    /**
+     * Union of the ranges as sorted, disjoint intervals, so that any range matching stays a match
+     */
+    private static int[][] compileRanges(List<Range> ranges) {
+        if (ranges == null || ranges.isEmpty()) {
+            return new int[][]{NO_INTERVALS, NO_INTERVALS};
+        }
+
+        List<int[]> intervals = new ArrayList<>();
+        for (Range range : ranges) {
+            if (range != null && range.getStart() != null && range.getEnd() != null &&
+                range.getStart() < range.getEnd()) {
+                intervals.add(new int[]{range.getStart(), range.getEnd()});
+            }
+        }
+        intervals.sort((a, b) -> Integer.compare(a[0], b[0]));
+
+        int[] starts = new int[intervals.size()];
+        int[] ends = new int[intervals.size()];
+        int count = 0;
+        for (int[] interval : intervals) {
+            if (count > 0 && interval[0] <= ends[count - 1]) {
+                ends[count - 1] = Math.max(ends[count - 1], interval[1]);
+            } else {
+                starts[count] = interval[0];
+                ends[count] = interval[1];
+                count++;
+            }
+        }
+
+        return new int[][]{Arrays.copyOf(starts, count), Arrays.copyOf(ends, count)};
+    }
+
+    /**
+     * Whether the bucket value is within any of the feature's mutually exclusive ranges
+     */
+    boolean isInRanges(int bucketValue) {
+        int index = floorIndex(rangeStarts, bucketValue);
+        return index >= 0 && bucketValue < rangeEnds[index];
+    }
+
+    /**
+     * Variation with the value, or null if none
+     */
+    Variation getVariation(String value) {
+        return variations.get(value);
+    }
+
+    /**
+     * Compiled allocations of the traffic rule, or null if it is not a rule of this feature
+     */
+    Allocations getAllocations(Traffic traffic) {
+        return allocations.get(traffic);
+    }
+
+    Map<Traffic, Allocations> getAllAllocations() {
+        return allocations;
+    }
+
+    /**
+     * Compiled forces, or null if none of the feature's forces could be indexed
+     */
+    Forces getForces() {
+        return forces;
+    }
+
+    /**
+     * Index of the greatest value less than or equal to the key, or -1 if none
+     */
+    private static int floorIndex(int[] sorted, int key) {
+        int index = Arrays.binarySearch(sorted, key);
+        return index >= 0 ? index : -index - 2;
+    }
+
+    /**
+     * Allocations of a traffic rule, as the allocation matched from each boundary up to the next
+     */
+    static final class Allocations {
+        private final int[] boundaries;
+        // matched from the boundary at the same index, null where no allocation matches
+        private final Allocation[] allocations;
+
+        private Allocations(int[] boundaries, Allocation[] allocations) {
+            this.boundaries = boundaries;
+            this.allocations = allocations;
+        }
+
+        static Allocations compile(List<Allocation> allocationList) {
+            // ranges are inclusive at both ends, so each one changes the match at its start and after its end
+            List<Allocation> valid = new ArrayList<>();
+            TreeSet<Long> points = new TreeSet<>();
+            for (Allocation allocation : allocationList) {
+                Range range = allocation != null ? allocation.getRange() : null;
+                if (range == null || range.getRange() == null || range.getRange().size() < 2 ||
+                    range.getRange().get(0) == null || range.getRange().get(1) == null) {
+                    continue;
+                }
+                long start = range.getRange().get(0);
+                long end = range.getRange().get(1);
+                if (start > end) {
+                    continue;
+                }
+                valid.add(allocation);
+                points.add(start);
+                points.add(end + 1);
+            }
+
+            // points beyond the int range cannot be reached by any bucket value
+            List<Integer> boundaries = new ArrayList<>();
+            List<Allocation> matched = new ArrayList<>();
+            for (long point : points) {
+                if (point > Integer.MAX_VALUE) {
+                    break;
+                }
+
+                // the first allocation matching the point matches until the next one
+                Allocation first = null;
+                for (Allocation allocation : valid) {
+                    List<Integer> range = allocation.getRange().getRange();
+                    if (range.get(0) <= point && range.get(1) >= point) {
+                        first = allocation;
+                        break;
+                    }
+                }
+
+                if (!matched.isEmpty() && matched.get(matched.size() - 1) == first) {
+                    continue;
+                }
+                boundaries.add((int) point);
+                matched.add(first);
+            }
+
+            return new Allocations(
+                boundaries.stream().mapToInt(Integer::intValue).toArray(),
+                matched.toArray(new Allocation[0]));
+        }
+
+        /**
+         * First allocation whose range includes the bucket value, or null if none
+         */
+        Allocation find(int bucketValue) {
+            int index = floorIndex(boundaries, bucketValue);
+            return index >= 0 ? allocations[index] : null;
+        }
+    }
+
+    /**
+     * Forces of a feature, with those matching a single attribute equal to a string indexed by it
+     */
+    static final class Forces {
+        private final String[] attributes;
+        // index of the first force matching each value, per attribute
+        private final List<Map<String, Integer>> indexes;
+        // indexes of the forces that are not indexed, evaluated in order
+        private final int[] remaining;
+
+        private Forces(String[] attributes, List<Map<String, Integer>> indexes, int[] remaining) {
+            this.attributes = attributes;
+            this.indexes = indexes;
+            this.remaining = remaining;
+        }
+
+        static Forces compile(List<Force> forces, Function<Object, CompiledCondition> compiledConditions) {
+            Map<String, Map<String, Integer>> byAttribute = new HashMap<>();
+            List<Integer> remaining = new ArrayList<>();
+
+            for (int i = 0; i < forces.size(); i++) {
+                Force force = forces.get(i);
+                Condition condition = null;
+                // forces with segments may also match by them
+                if (force != null && force.getConditions() != null && force.getSegments() == null) {
+                    condition = equalsCondition(compiledConditions.apply(force.getConditions()));
+                }
+
+                if (condition == null) {
+                    remaining.add(i);
+                    continue;
+                }
+                byAttribute.computeIfAbsent(condition.getAttribute(), k -> new HashMap<>())
+                    .putIfAbsent((String) condition.getValue(), i);
+            }
+
+            if (byAttribute.isEmpty()) {
+                return null;
+            }
+
+            return new Forces(
+                byAttribute.keySet().toArray(new String[0]),
+                new ArrayList<>(byAttribute.values()),
+                remaining.stream().mapToInt(Integer::intValue).toArray());
+        }
+
+        /**
+         * Plain condition of an attribute being equal to a string, possibly guarded, or null if it is not one
+         */
+        private static Condition equalsCondition(CompiledCondition node) {
+            if (node instanceof CompiledCondition.Guarded) {
+                node = ((CompiledCondition.Guarded) node).getChild();
+            }
+            if (!(node instanceof CompiledCondition.Plain)) {
+                return null;
+            }
+
+            // equals compares with Object.equals, which is only the same as a key lookup for strings
+            Condition condition = ((CompiledCondition.Plain) node).getCondition();
+            return condition.getAttribute() != null &&
+                condition.getOperator() == Operator.EQUALS &&
+                condition.getValue() instanceof String ? condition : null;
+        }
+
+        /**
+         * Index of the first force matched by the context, or -1 if none
+         * @param isMatched Whether the force at an index that is not indexed is matched
+         */
+        int find(Map<String, Object> context, IntPredicate isMatched) {
+            int first = Integer.MAX_VALUE;
+            for (int i = 0; i < attributes.length; i++) {
+                Object value = ContextUtils.getValueFromContext(context, attributes[i]);
+                Integer index = value instanceof String ? indexes.get(i).get(value) : null;
+                if (index != null && index < first) {
+                    first = index;
+                }
+            }
+
+            // forces that are not indexed only win when they come before the indexed match
+            for (int index : remaining) {
+                if (index > first) {
+                    break;
+                }
+                if (isMatched.test(index)) {
+                    return index;
+                }
+            }
+
+            return first == Integer.MAX_VALUE ? -1 : first;
+        }
+    }
+
+    /**
+     * Traffic rules switched on the attribute constraining most of them
+     *
+     * A rule whose segments can only match some values of the attribute is a candidate for those
+     * values only, while rules that do not constrain it are candidates for every value. Candidates
+     * are kept in rule order, so the first matching candidate is the first matching rule.
+     */
+    static final class Rules {
+        // below this many constrained rules, evaluating the rules in order is as fast
+        static final int MIN_CONSTRAINED_RULES = 2;
+
+        private final String attribute;
+        private final Map<Object, int[]> candidates;
+        // rules that do not constrain the attribute, for values no rule requires
+        private final int[] unconstrained;
+
+        private Rules(String attribute, Map<Object, int[]> candidates, int[] unconstrained) {
+            this.attribute = attribute;
+            this.candidates = candidates;
+            this.unconstrained = unconstrained;
+        }
+
+        /**
+         * Compile traffic rules, or return null if too few of them constrain the same attribute
+         * @param parseSegments Parses segments of a rule if stringified
+         */
+        static Rules compile(List<Traffic> traffic, SegmentIndex segmentIndex, Function<Object, Object> parseSegments) {
+            List<Map<String, Set<Object>>> constraints = new ArrayList<>(traffic.size());
+            Map<String, Integer> counts = new LinkedHashMap<>();
+            for (Traffic rule : traffic) {
+                Map<String, Set<Object>> constraint = rule != null ?
+                    constraints(parseSegments.apply(rule.getSegments()), segmentIndex) :
+                    new HashMap<>();
+                constraints.add(constraint);
+                for (String constrained : constraint.keySet()) {
+                    counts.merge(constrained, 1, Integer::sum);
+                }
+            }
+
+            String attribute = null;
+            int max = 0;
+            for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+                if (entry.getValue() > max) {
+                    attribute = entry.getKey();
+                    max = entry.getValue();
+                }
+            }
+            if (max < MIN_CONSTRAINED_RULES) {
+                return null;
+            }
+
+            Set<Object> keys = new HashSet<>();
+            List<Integer> unconstrained = new ArrayList<>();
+            for (int i = 0; i < constraints.size(); i++) {
+                Set<Object> values = constraints.get(i).get(attribute);
+                if (values != null) {
+                    keys.addAll(values);
+                } else {
+                    unconstrained.add(i);
+                }
+            }
+
+            Map<Object, int[]> candidates = new HashMap<>();
+            for (Object key : keys) {
+                List<Integer> rules = new ArrayList<>();
+                for (int i = 0; i < constraints.size(); i++) {
+                    Set<Object> values = constraints.get(i).get(attribute);
+                    if (values == null || values.contains(key)) {
+                        rules.add(i);
+                    }
+                }
+                candidates.put(key, rules.stream().mapToInt(Integer::intValue).toArray());
+            }
+
+            return new Rules(attribute, candidates, unconstrained.stream().mapToInt(Integer::intValue).toArray());
+        }
+
+        /**
+         * Values each attribute must have for the segments to match, for the attributes they constrain
+         */
+        @SuppressWarnings("unchecked")
+        private static Map<String, Set<Object>> constraints(Object groupSegments, SegmentIndex segmentIndex) {
+            if (groupSegments instanceof String) {
+                String attribute = segmentIndex.getAttribute((String) groupSegments);
+                Map<String, Set<Object>> constraint = new HashMap<>();
+                if (attribute != null) {
+                    constraint.put(attribute, new HashSet<>(segmentIndex.getValues((String) groupSegments)));
+                }
+                return constraint;
+            }
+
+            // the same precedence of and, or and not as when matching
+            if (groupSegments instanceof Map) {
+                Map<String, Object> groupSegmentsMap = (Map<String, Object>) groupSegments;
+                if (groupSegmentsMap.get("and") instanceof List) {
+                    return constraints(groupSegmentsMap.get("and"), segmentIndex);
+                }
+                if (groupSegmentsMap.get("or") instanceof List) {
+                    return anyConstraints((List<Object>) groupSegmentsMap.get("or"), segmentIndex);
+                }
+                return new HashMap<>();
+            }
+
+            // all of them must match, so each attribute must have a value allowed by all of them
+            Map<String, Set<Object>> constraint = new HashMap<>();
+            if (groupSegments instanceof List) {
+                for (Object child : (List<Object>) groupSegments) {
+                    for (Map.Entry<String, Set<Object>> entry : constraints(child, segmentIndex).entrySet()) {
+                        Set<Object> values = constraint.get(entry.getKey());
+                        if (values == null) {
+                            constraint.put(entry.getKey(), new HashSet<>(entry.getValue()));
+                        } else {
+                            values.retainAll(entry.getValue());
+                        }
+                    }
+                }
+            }
+            return constraint;
+        }
+
+        /**
+         * One of them must match, so only attributes constrained by all of them are, by any of their values
+         */
+        private static Map<String, Set<Object>> anyConstraints(List<Object> groupSegments, SegmentIndex segmentIndex) {
+            Map<String, Set<Object>> constraint = null;
+            for (Object child : groupSegments) {
+                Map<String, Set<Object>> childConstraint = constraints(child, segmentIndex);
+                if (constraint == null) {
+                    constraint = childConstraint;
+                    continue;
+                }
+
+                constraint.keySet().retainAll(childConstraint.keySet());
+                for (Map.Entry<String, Set<Object>> entry : constraint.entrySet()) {
+                    entry.getValue().addAll(childConstraint.get(entry.getKey()));
+                }
+            }
+            return constraint != null ? constraint : new HashMap<>();
+        }
+
+        String getAttribute() {
+            return attribute;
+        }
+
+        /**
+         * Index of the first rule matched by the context, or -1 if none
+         * @param isMatched Whether the rule at an index is matched
+         */
+        int find(Map<String, Object> context, IntPredicate isMatched) {
+            Object key = SegmentIndex.key(ContextUtils.getValueFromContext(context, attribute));
+            int[] rules = key != null ? candidates.get(key) : null;
+            for (int index : rules != null ? rules : unconstrained) {
+                if (isMatched.test(index)) {
+                    return index;
+                }
+            }
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,426 @@
+package com.featurevisor.sdk;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiles datafile conditions into {@link CompiledCondition} trees
+ * The compiled tree gives the same results as {@link DatafileReader#allConditionsAreMatched(Object, Map)}
+ *
+ * Trees are optimized after they are built: constants are folded, nested groups are flattened,
+ * and children of and/or groups are ordered by estimated cost so that cheap checks short-circuit
+ * expensive ones. Children that may throw keep their position, since in typed conditions an error
+ * makes the whole tree not matched and moving them would change which errors are reached.
+ */
+public class ConditionCompiler {
+
+    /**
+     * Statistics about compiling and optimizing conditions
+     */
+    public static class CompileStats {
+        private int nodes;
+        private int optimizedNodes;
+        private long cost;
+        private long optimizedCost;
+        private int foldedConstants;
+        private int flattenedGroups;
+        private int reorderedGroups;
+
+        public CompileStats() {}
+
+        void add(CompileStats other) {
+            this.nodes += other.nodes;
+            this.optimizedNodes += other.optimizedNodes;
+            this.cost += other.cost;
+            this.optimizedCost += other.optimizedCost;
+            this.foldedConstants += other.foldedConstants;
+            this.flattenedGroups += other.flattenedGroups;
+            this.reorderedGroups += other.reorderedGroups;
+        }
+
+        // Getters
+        public int getNodes() { return nodes; }
+        public int getOptimizedNodes() { return optimizedNodes; }
+        public long getCost() { return cost; }
+        public long getOptimizedCost() { return optimizedCost; }
+        public int getFoldedConstants() { return foldedConstants; }
+        public int getFlattenedGroups() { return flattenedGroups; }
+        public int getReorderedGroups() { return reorderedGroups; }
+    }
+
+    private final DatafileReader.GetRegex getRegex;
+    private final Logger logger;
+    private final boolean compactValues;
+
+    // in/notIn value sets built so far, for footprint reporting
+    private final List<ConditionValueSet> valueSets = new ArrayList<>();
+    private long originalValuesBytes;
+
+    public ConditionCompiler(DatafileReader.GetRegex getRegex, Logger logger) {
+        this(getRegex, logger, false);
+    }
+
+    /**
+     * @param getRegex Regex provider
+     * @param logger Logger for conditions that fail to compile or evaluate
+     * @param compactValues Replace large in/notIn value lists in the datafile with views over their compact value sets
+     */
+    public ConditionCompiler(DatafileReader.GetRegex getRegex, Logger logger, boolean compactValues) {
+        this.getRegex = getRegex;
+        this.logger = logger;
+        this.compactValues = compactValues;
+    }
+
+    /**
+     * Get the in/notIn value sets built by this compiler
+     * @return The value sets
+     */
+    public List<ConditionValueSet> getValueSets() {
+        return valueSets;
+    }
+
+    /**
+     * Get the estimated heap size of the in/notIn value lists as they were parsed
+     * @return The estimated size in bytes
+     */
+    public long getOriginalValuesBytes() {
+        return originalValuesBytes;
+    }
+
+    /**
+     * Compile conditions as accepted by {@link DatafileReader#allConditionsAreMatched(Object, Map)}
+     * Stringified conditions are expected to be parsed already
+     * @param conditions The conditions to compile
+     * @return The compiled condition
+     */
+    public CompiledCondition compile(Object conditions) {
+        return compile(conditions, new CompileStats());
+    }
+
+    /**
+     * Compile and optimize conditions, recording statistics
+     * @param conditions The conditions to compile
+     * @param stats The statistics to add to
+     * @return The compiled condition
+     */
+    public CompiledCondition compile(Object conditions, CompileStats stats) {
+        CompiledCondition built = build(conditions);
+        CompiledCondition optimized = optimize(built, stats);
+
+        stats.nodes += countNodes(built);
+        stats.optimizedNodes += countNodes(optimized);
+        stats.cost += built.cost();
+        stats.optimizedCost += optimized.cost();
+
+        return optimized;
+    }
+
+    @SuppressWarnings("unchecked")
+    private CompiledCondition build(Object conditions) {
+        if (conditions instanceof String) {
+            return "*".equals(conditions) ? CompiledCondition.TRUE : CompiledCondition.FALSE;
+        }
+
+        if (conditions instanceof Condition) {
+            return new CompiledCondition.Guarded(compileCondition((Condition) conditions), conditions, logger);
+        }
+
+        if (conditions instanceof Map) {
+            Map<String, Object> conditionMap = (Map<String, Object>) conditions;
+
+            if (conditionMap.containsKey("attribute")) {
+                return compilePlainMap(conditionMap);
+            }
+
+            if (conditionMap.get("and") instanceof List) {
+                return new CompiledCondition.All(compileAll((List<Object>) conditionMap.get("and")));
+            }
+
+            if (conditionMap.get("or") instanceof List) {
+                return new CompiledCondition.Any(compileAll((List<Object>) conditionMap.get("or")));
+            }
+
+            if (conditionMap.get("not") instanceof List) {
+                // true if not all of the conditions are matched
+                return new CompiledCondition.Not(
+                    new CompiledCondition.All(compileAll((List<Object>) conditionMap.get("not"))));
+            }
+
+            return CompiledCondition.FALSE;
+        }
+
+        if (conditions instanceof List) {
+            return new CompiledCondition.All(compileAll((List<Object>) conditions));
+        }
+
+        return CompiledCondition.FALSE;
+    }
+
+    private List<CompiledCondition> compileAll(List<Object> conditions) {
+        List<CompiledCondition> compiled = new ArrayList<>(conditions.size());
+        for (Object condition : conditions) {
+            compiled.add(build(condition));
+        }
+        return compiled;
+    }
+
+    private CompiledCondition compilePlainMap(Map<String, Object> conditionMap) {
+        Condition condition = new Condition();
+
+        try {
+            condition.setAttribute((String) conditionMap.get("attribute"));
+
+            String operatorStr = (String) conditionMap.get("operator");
+            if (operatorStr != null) {
+                for (Operator op : Operator.values()) {
+                    if (op.getValue().equals(operatorStr)) {
+                        condition.setOperator(op);
+                        break;
+                    }
+                }
+            }
+
+            condition.setValue(conditionMap.get("value"));
+            condition.setRegexFlags((String) conditionMap.get("regexFlags"));
+        } catch (Exception e) {
+            Map<String, Object> details = new HashMap<>();
+            details.put("error", e);
+            details.put("condition", conditionMap);
+            logger.warn(e.getMessage(), details);
+            return CompiledCondition.FALSE;
+        }
+
+        if (!condition.isPlainCondition()) {
+            return CompiledCondition.FALSE;
+        }
+
+        CompiledCondition.Plain plain = compilePlain(condition);
+
+        if (compactValues && plain.getValueSet() != null && plain.getValueSet().isCompact()) {
+            // let the boxed list parsed by Jackson be garbage collected
+            try {
+                conditionMap.put("value", condition.getValue());
+            } catch (UnsupportedOperationException e) {
+                // immutable map, keep the original list
+            }
+        }
+
+        return new CompiledCondition.Guarded(plain, conditionMap, logger);
+    }
+
+    private CompiledCondition.Plain compilePlain(Condition condition) {
+        CompiledCondition.Plain plain = new CompiledCondition.Plain(condition, getRegex);
+        ConditionValueSet valueSet = plain.getValueSet();
+
+        if (valueSet != null) {
+            valueSets.add(valueSet);
+            originalValuesBytes += ConditionValueSet.estimatedListBytes((List<?>) condition.getValue());
+
+            if (compactValues && valueSet.isCompact()) {
+                condition.setValue(valueSet.asList());
+            }
+        }
+
+        return plain;
+    }
+
+    /**
+     * Compile a typed condition, following {@link Conditions#conditionIsMatched}
+     */
+    private CompiledCondition compileCondition(Condition condition) {
+        if (condition == null) {
+            return CompiledCondition.FALSE;
+        }
+
+        if (condition.isStringCondition()) {
+            return "*".equals(condition.getStringCondition()) ? CompiledCondition.TRUE : CompiledCondition.FALSE;
+        }
+
+        if (condition.isAndCondition()) {
+            if (condition.getAnd().isEmpty()) {
+                return CompiledCondition.TRUE;
+            }
+            return new CompiledCondition.All(compileConditions(condition.getAnd()));
+        }
+
+        if (condition.isOrCondition()) {
+            if (condition.getOr().isEmpty()) {
+                return CompiledCondition.FALSE;
+            }
+            return new CompiledCondition.Any(compileConditions(condition.getOr()));
+        }
+
+        if (condition.isNotCondition()) {
+            if (condition.getNot().isEmpty()) {
+                return CompiledCondition.TRUE;
+            }
+            // true if none of the conditions are matched
+            return new CompiledCondition.Not(new CompiledCondition.Any(compileConditions(condition.getNot())));
+        }
+
+        if (!condition.isPlainCondition()) {
+            return CompiledCondition.FALSE;
+        }
+
+        return compilePlain(condition);
+    }
+
+    private List<CompiledCondition> compileConditions(List<Condition> conditions) {
+        List<CompiledCondition> compiled = new ArrayList<>(conditions.size());
+        for (Condition condition : conditions) {
+            compiled.add(compileCondition(condition));
+        }
+        return compiled;
+    }
+
+    private CompiledCondition optimize(CompiledCondition node, CompileStats stats) {
+        if (node instanceof CompiledCondition.Guarded) {
+            CompiledCondition.Guarded guarded = (CompiledCondition.Guarded) node;
+            CompiledCondition child = optimize(guarded.getChild(), stats);
+
+            // constants cannot throw
+            if (child instanceof CompiledCondition.Constant) {
+                return child;
+            }
+            return child == guarded.getChild() ? guarded : guarded.withChild(child);
+        }
+
+        if (node instanceof CompiledCondition.Not) {
+            CompiledCondition child = optimize(((CompiledCondition.Not) node).getChild(), stats);
+
+            if (child instanceof CompiledCondition.Constant) {
+                stats.foldedConstants++;
+                return ((CompiledCondition.Constant) child).getValue() ? CompiledCondition.FALSE : CompiledCondition.TRUE;
+            }
+
+            if (child instanceof CompiledCondition.Not) {
+                stats.flattenedGroups++;
+                return ((CompiledCondition.Not) child).getChild();
+            }
+
+            return child == ((CompiledCondition.Not) node).getChild() ? node : new CompiledCondition.Not(child);
+        }
+
+        if (node instanceof CompiledCondition.All) {
+            return optimizeGroup(((CompiledCondition.All) node).getChildren(), true, stats);
+        }
+
+        if (node instanceof CompiledCondition.Any) {
+            return optimizeGroup(((CompiledCondition.Any) node).getChildren(), false, stats);
+        }
+
+        return node;
+    }
+
+    /**
+     * Optimize the children of an and (all) or or (any) group
+     */
+    private CompiledCondition optimizeGroup(CompiledCondition[] children, boolean all, CompileStats stats) {
+        List<CompiledCondition> optimized = new ArrayList<>(children.length);
+        boolean mayThrow = false;
+
+        for (CompiledCondition child : children) {
+            CompiledCondition optimizedChild = optimize(child, stats);
+
+            if (optimizedChild instanceof CompiledCondition.Constant) {
+                stats.foldedConstants++;
+
+                // true in and, false in or: no effect
+                if (((CompiledCondition.Constant) optimizedChild).getValue() == all) {
+                    continue;
+                }
+
+                // false in and, true in or: decides the group, following children are never evaluated
+                if (!mayThrow) {
+                    return optimizedChild;
+                }
+                optimized.add(optimizedChild);
+                break;
+            }
+
+            if (all ? optimizedChild instanceof CompiledCondition.All : optimizedChild instanceof CompiledCondition.Any) {
+                stats.flattenedGroups++;
+                for (CompiledCondition grandChild : all ?
+                        ((CompiledCondition.All) optimizedChild).getChildren() :
+                        ((CompiledCondition.Any) optimizedChild).getChildren()) {
+                    optimized.add(grandChild);
+                }
+            } else {
+                optimized.add(optimizedChild);
+            }
+
+            mayThrow = mayThrow || optimizedChild.mayThrow();
+        }
+
+        if (optimized.isEmpty()) {
+            stats.foldedConstants++;
+            return all ? CompiledCondition.TRUE : CompiledCondition.FALSE;
+        }
+
+        if (optimized.size() == 1) {
+            stats.flattenedGroups++;
+            return optimized.get(0);
+        }
+
+        if (sortByCost(optimized)) {
+            stats.reorderedGroups++;
+        }
+
+        return all ? new CompiledCondition.All(optimized) : new CompiledCondition.Any(optimized);
+    }
+
+    /**
+     * Stable sort runs of children that cannot throw by cost, children that may throw stay in place
+     * @return True if the order changed
+     */
+    private static boolean sortByCost(List<CompiledCondition> children) {
+        boolean changed = false;
+        int start = 0;
+
+        while (start < children.size()) {
+            int end = start;
+            while (end < children.size() && !children.get(end).mayThrow()) {
+                end++;
+            }
+
+            if (end - start > 1) {
+                List<CompiledCondition> run = children.subList(start, end);
+                List<CompiledCondition> original = new ArrayList<>(run);
+                run.sort(Comparator.comparingInt(CompiledCondition::cost));
+                changed = changed || !original.equals(run);
+            }
+
+            start = end + 1;
+        }
+
+        return changed;
+    }
+
+    private static int countNodes(CompiledCondition node) {
+        if (node instanceof CompiledCondition.Guarded) {
+            return countNodes(((CompiledCondition.Guarded) node).getChild());
+        }
+
+        if (node instanceof CompiledCondition.Not) {
+            return 1 + countNodes(((CompiledCondition.Not) node).getChild());
+        }
+
+        CompiledCondition[] children = null;
+        if (node instanceof CompiledCondition.All) {
+            children = ((CompiledCondition.All) node).getChildren();
+        } else if (node instanceof CompiledCondition.Any) {
+            children = ((CompiledCondition.Any) node).getChildren();
+        }
+
+        int count = 1;
+        if (children != null) {
+            for (CompiledCondition child : children) {
+                count += countNodes(child);
+            }
+        }
+        return count;
+    }
+}
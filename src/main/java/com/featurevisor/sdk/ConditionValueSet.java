@@ -0,0 +1,353 @@
+package com.featurevisor.sdk;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Membership set for `in` and `notIn` condition values
+ * Built once per datafile so that lookups do not scan the original list
+ *
+ * Numbers are normalized, so that Integer, Long and integral Double values
+ * coming from Jackson or from the caller's context compare equal.
+ *
+ * Large lists are stored compactly: integral values as a sorted long[] and
+ * strings front-coded in a single byte array.
+ */
+public final class ConditionValueSet {
+
+    /**
+     * Number of integral values (or strings) from which a sorted compact representation
+     * is used instead of a hash set
+     */
+    public static final int SORTED_ARRAY_THRESHOLD = 512;
+
+    private static final double MIN_LONG_AS_DOUBLE = -0x1p63;
+    private static final double MAX_LONG_AS_DOUBLE = 0x1p63;
+
+    private final boolean containsNull;
+    private final Set<String> strings;
+    private final FrontCodedStringSet compactStrings;
+    private final Set<Long> longs;
+    private final long[] sortedLongs;
+    private final Set<Double> doubles;
+    private final int size;
+
+    private ConditionValueSet(
+            boolean containsNull,
+            Set<String> strings,
+            FrontCodedStringSet compactStrings,
+            Set<Long> longs,
+            long[] sortedLongs,
+            Set<Double> doubles,
+            int size) {
+        this.containsNull = containsNull;
+        this.strings = strings;
+        this.compactStrings = compactStrings;
+        this.longs = longs;
+        this.sortedLongs = sortedLongs;
+        this.doubles = doubles;
+        this.size = size;
+    }
+
+    /**
+     * Build a set from a condition value list
+     * Values that can never match a context value (booleans, maps, lists) are ignored
+     * @param values The condition values
+     * @return The value set
+     */
+    public static ConditionValueSet of(List<?> values) {
+        boolean containsNull = false;
+        Set<String> strings = new HashSet<>();
+        Set<Long> longs = new HashSet<>();
+        Set<Double> doubles = new HashSet<>();
+
+        for (Object value : values) {
+            if (value == null) {
+                containsNull = true;
+            } else if (value instanceof String) {
+                strings.add((String) value);
+            } else if (value instanceof Number) {
+                Object normalized = normalizeNumber((Number) value);
+                if (normalized instanceof Long) {
+                    longs.add((Long) normalized);
+                } else {
+                    doubles.add((Double) normalized);
+                }
+            }
+        }
+
+        long[] sortedLongs = null;
+        if (longs.size() >= SORTED_ARRAY_THRESHOLD) {
+            sortedLongs = new long[longs.size()];
+            int i = 0;
+            for (Long value : longs) {
+                sortedLongs[i++] = value;
+            }
+            Arrays.sort(sortedLongs);
+            longs = Collections.emptySet();
+        }
+
+        FrontCodedStringSet compactStrings = null;
+        if (strings.size() >= SORTED_ARRAY_THRESHOLD) {
+            compactStrings = FrontCodedStringSet.of(strings);
+            strings = Collections.emptySet();
+        }
+
+        return new ConditionValueSet(
+            containsNull,
+            strings.isEmpty() ? Collections.emptySet() : strings,
+            compactStrings,
+            longs.isEmpty() ? Collections.emptySet() : longs,
+            sortedLongs,
+            doubles.isEmpty() ? Collections.emptySet() : doubles,
+            values.size()
+        );
+    }
+
+    /**
+     * Check if a context value is a member of this set
+     * @param contextValue The value from the context
+     * @return True if the value is in the set
+     */
+    public boolean contains(Object contextValue) {
+        if (contextValue == null) {
+            return containsNull;
+        }
+
+        if (contextValue instanceof String) {
+            if (compactStrings != null) {
+                return compactStrings.contains((String) contextValue);
+            }
+            return strings.contains(contextValue);
+        }
+
+        if (contextValue instanceof Integer || contextValue instanceof Long) {
+            return containsLong(((Number) contextValue).longValue());
+        }
+
+        if (contextValue instanceof Number) {
+            Object normalized = normalizeNumber((Number) contextValue);
+            if (normalized instanceof Long) {
+                return containsLong((Long) normalized);
+            }
+            return doubles.contains(normalized);
+        }
+
+        return false;
+    }
+
+    private boolean containsLong(long value) {
+        if (sortedLongs != null) {
+            return Arrays.binarySearch(sortedLongs, value) >= 0;
+        }
+        return longs.contains(value);
+    }
+
+    /**
+     * Get the number of values in the original list
+     * @return The size of the original list
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Check if integral values are stored in a sorted primitive array
+     * @return True if the sorted array representation is used
+     */
+    public boolean isSorted() {
+        return sortedLongs != null;
+    }
+
+    /**
+     * Check if any values are stored in a compact representation
+     * @return True if integral values or strings are stored compactly
+     */
+    public boolean isCompact() {
+        return sortedLongs != null || compactStrings != null;
+    }
+
+    /**
+     * Estimated retained heap size of this set in bytes
+     * @return The estimated size
+     */
+    public long estimatedBytes() {
+        long bytes = 32;
+        bytes += hashSetBytes(strings.size());
+        for (String value : strings) {
+            bytes += 40 + value.length();
+        }
+        if (compactStrings != null) {
+            bytes += compactStrings.estimatedBytes();
+        }
+        bytes += hashSetBytes(longs.size()) + 16L * longs.size();
+        if (sortedLongs != null) {
+            bytes += 16 + 8L * sortedLongs.length;
+        }
+        bytes += hashSetBytes(doubles.size()) + 16L * doubles.size();
+        return bytes;
+    }
+
+    /**
+     * Estimated retained heap size of the given list of boxed values in bytes
+     * @param values The list as produced by Jackson
+     * @return The estimated size
+     */
+    public static long estimatedListBytes(List<?> values) {
+        long bytes = 40 + 4L * values.size();
+        for (Object value : values) {
+            if (value instanceof String) {
+                bytes += 40 + ((String) value).length();
+            } else if (value != null) {
+                bytes += 16;
+            }
+        }
+        return bytes;
+    }
+
+    private static long hashSetBytes(int size) {
+        if (size == 0) {
+            return 0;
+        }
+        // HashSet + HashMap + table + one node per entry
+        return 64 + 4L * Integer.highestOneBit(size * 2) + 32L * size;
+    }
+
+    /**
+     * Read-only list view of the values in this set
+     * Used to release the original list when condition values are compacted, values are
+     * presented in sorted order without duplicates and are decoded on access
+     * @return The list view
+     */
+    public List<Object> asList() {
+        return new ValueList(this);
+    }
+
+    /**
+     * List view over a {@link ConditionValueSet}
+     */
+    static final class ValueList extends AbstractList<Object> {
+        private final ConditionValueSet set;
+        private final List<Object> small;
+
+        ValueList(ConditionValueSet set) {
+            this.set = set;
+
+            // values that are not stored compactly are few, keep them as is
+            List<Object> small = new ArrayList<>();
+            if (set.containsNull) {
+                small.add(null);
+            }
+            small.addAll(set.strings);
+            small.addAll(set.longs);
+            small.addAll(set.doubles);
+            this.small = small;
+        }
+
+        ConditionValueSet getSet() {
+            return set;
+        }
+
+        @Override
+        public Object get(int index) {
+            if (index < small.size()) {
+                return small.get(index);
+            }
+            index -= small.size();
+
+            if (set.sortedLongs != null) {
+                if (index < set.sortedLongs.length) {
+                    return set.sortedLongs[index];
+                }
+                index -= set.sortedLongs.length;
+            }
+
+            if (set.compactStrings != null) {
+                return set.compactStrings.get(index);
+            }
+
+            throw new IndexOutOfBoundsException("Index: " + index);
+        }
+
+        @Override
+        public int size() {
+            return small.size() +
+                (set.sortedLongs != null ? set.sortedLongs.length : 0) +
+                (set.compactStrings != null ? set.compactStrings.size() : 0);
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return set.contains(o);
+        }
+    }
+
+    /**
+     * Check list membership with the same normalization as {@link #contains(Object)}
+     * Used for condition values that were not compiled ahead of time
+     * @param values The condition values
+     * @param contextValue The value from the context
+     * @return True if the value is in the list
+     */
+    public static boolean listContains(List<?> values, Object contextValue) {
+        if (values instanceof ValueList) {
+            return ((ValueList) values).getSet().contains(contextValue);
+        }
+
+        if (!(contextValue instanceof Number)) {
+            return values.contains(contextValue);
+        }
+
+        Object normalized = normalizeNumber((Number) contextValue);
+        for (Object value : values) {
+            if (value instanceof Number && normalized.equals(normalizeNumber((Number) value))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Normalize a number to a Long when it has an integral value, or to a Double otherwise
+     * @param number The number to normalize
+     * @return A Long or a Double
+     */
+    static Object normalizeNumber(Number number) {
+        if (number instanceof Integer || number instanceof Long ||
+            number instanceof Short || number instanceof Byte) {
+            return number.longValue();
+        }
+
+        if (number instanceof BigInteger) {
+            BigInteger bigInteger = (BigInteger) number;
+            if (bigInteger.bitLength() < 64) {
+                return bigInteger.longValue();
+            }
+            return bigInteger.doubleValue();
+        }
+
+        if (number instanceof BigDecimal) {
+            try {
+                return ((BigDecimal) number).longValueExact();
+            } catch (ArithmeticException e) {
+                return normalizeDouble(number.doubleValue());
+            }
+        }
+
+        return normalizeDouble(number.doubleValue());
+    }
+
+    private static Object normalizeDouble(double value) {
+        if (value == Math.rint(value) && value >= MIN_LONG_AS_DOUBLE && value < MAX_LONG_AS_DOUBLE) {
+            return (long) value;
+        }
+        return value;
+    }
+}
@@ -21,7 +21,7 @@ public class Conditions {
      * @param path The dot-separated path
      * @return True if the path exists
      */
-    private static boolean pathExists(Map<String, Object> context, String path) {
+    static boolean pathExists(Map<String, Object> context, String path) {
         if (path.indexOf(".") == -1) {
             return context.containsKey(path);
         }
@@ -211,11 +211,11 @@ public class Conditions {
             return values.contains(null);
         }
 
-        // Handle string, numeric, or null context values
+        // Handle string, numeric, or null context values (numbers are compared by value)
         if (contextValue instanceof String || contextValue instanceof Number || contextValue == null) {
             @SuppressWarnings("unchecked")
             List<Object> values = (List<Object>) conditionValue;
-            return values.contains(contextValue);
+            return ConditionValueSet.listContains(values, contextValue);
         }
 
         return false;
@@ -12,8 +12,10 @@ import com.featurevisor.sdk.Traffic;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 
@@ -37,6 +39,9 @@ public class DatafileReader {
     public static class DatafileReaderOptions {
         private DatafileContent datafile;
         private Logger logger;
+        private boolean compactConditionValues;
+        private boolean compileTrafficRules;
+        private FeaturevisorMetrics metrics;
 
         public DatafileReaderOptions() {}
 
@@ -50,9 +55,35 @@ public class DatafileReader {
             return this;
         }
 
+        /**
+         * Replace large in/notIn value lists in the datafile with read-only views over
+         * their compact value sets, so the original lists can be garbage collected
+         */
+        public DatafileReaderOptions compactConditionValues(boolean compactConditionValues) {
+            this.compactConditionValues = compactConditionValues;
+            return this;
+        }
+
+        /**
+         * Switch each feature's traffic rules on the attribute their segments constrain most,
+         * so that only the rules a context can match are evaluated
+         */
+        public DatafileReaderOptions compileTrafficRules(boolean compileTrafficRules) {
+            this.compileTrafficRules = compileTrafficRules;
+            return this;
+        }
+
+        public DatafileReaderOptions metrics(FeaturevisorMetrics metrics) {
+            this.metrics = metrics;
+            return this;
+        }
+
         // Getters
         public DatafileContent getDatafile() { return datafile; }
         public Logger getLogger() { return logger; }
+        public boolean isCompactConditionValues() { return compactConditionValues; }
+        public boolean isCompileTrafficRules() { return compileTrafficRules; }
+        public FeaturevisorMetrics getMetrics() { return metrics; }
     }
 
     /**
@@ -76,30 +107,302 @@ public class DatafileReader {
         public void setForceIndex(Integer forceIndex) { this.forceIndex = forceIndex; }
     }
 
+    /**
+     * Memory used by in/notIn condition values
+     */
+    public static class ConditionValuesFootprint {
+        private final int valueSets;
+        private final int compactValueSets;
+        private final long values;
+        private final long estimatedBytes;
+        private final long originalEstimatedBytes;
+
+        public ConditionValuesFootprint(int valueSets, int compactValueSets, long values, long estimatedBytes, long originalEstimatedBytes) {
+            this.valueSets = valueSets;
+            this.compactValueSets = compactValueSets;
+            this.values = values;
+            this.estimatedBytes = estimatedBytes;
+            this.originalEstimatedBytes = originalEstimatedBytes;
+        }
+
+        // Getters
+        public int getValueSets() { return valueSets; }
+        public int getCompactValueSets() { return compactValueSets; }
+        public long getValues() { return values; }
+        public long getEstimatedBytes() { return estimatedBytes; }
+        public long getOriginalEstimatedBytes() { return originalEstimatedBytes; }
+    }
+
     private String schemaVersion;
     private String revision;
     private Map<String, Segment> segments;
     private Map<String, Feature> features;
     private Logger logger;
+    private FeaturevisorMetrics metrics;
 
-    // Cache for regex patterns to avoid creating new objects for the same regex
+    // Cache for regex patterns to avoid creating new objects for the same regex, shared by concurrent evaluations
     private Map<String, Pattern> regexCache;
 
+    // Stringified conditions parsed at load time, keyed by the original string instance
+    private Map<Object, Object> parsedConditions;
+
+    // Conditions compiled at load time, keyed by the parsed conditions instance
+    private Map<Object, CompiledCondition> compiledConditions;
+
+    private boolean compactConditionValues;
+    private ConditionValuesFootprint conditionValuesFootprint;
+
+    // Compile statistics per segment key, and for all compiled conditions
+    private Map<String, ConditionCompiler.CompileStats> segmentCompileStats;
+    private ConditionCompiler.CompileStats compileStats;
+
+    // segments with the attribute values their conditions require
+    private SegmentIndex segmentIndex;
+
+    // traffic rules switched on an attribute, keyed by the feature's traffic list instance, null unless enabled
+    private Map<List<Traffic>, CompiledFeature.Rules> compiledRules;
+
+    // required features, sorted with cycles detected at load
+    private RequiredGraph requiredGraph;
+
+    // ranges, allocations and variations compiled at load time, keyed by feature and traffic instance
+    private Map<Feature, CompiledFeature> compiledFeatures;
+    private Map<Traffic, CompiledFeature.Allocations> compiledAllocations;
+
+    // decoded and converted variable values, dropped with this revision
+    private final VariableValueCache variableValues;
+
     public DatafileReader(DatafileReaderOptions options) {
         DatafileContent datafile = options.getDatafile();
         this.logger = options.getLogger();
+        this.metrics = options.getMetrics();
 
         this.schemaVersion = datafile.getSchemaVersion();
         this.revision = datafile.getRevision();
         this.segments = datafile.getSegments();
         this.features = datafile.getFeatures();
-        this.regexCache = new HashMap<>();
+        this.variableValues = new VariableValueCache(this.features);
+        this.regexCache = new ConcurrentHashMap<>();
+        this.parsedConditions = new IdentityHashMap<>();
+        this.compiledConditions = new IdentityHashMap<>();
+        this.compactConditionValues = options.isCompactConditionValues();
+        this.segmentCompileStats = new HashMap<>();
+        this.compileStats = new ConditionCompiler.CompileStats();
+
+        compileConditions();
+        compileFeatures();
+        this.segmentIndex = SegmentIndex.build(this.segments, this.compiledConditions::get);
+        if (options.isCompileTrafficRules()) {
+            compileTrafficRules();
+        }
+
+        this.requiredGraph = RequiredGraph.build(this.features);
+        for (List<String> cycle : this.requiredGraph.getCycles()) {
+            if (this.logger == null) {
+                break;
+            }
+
+            Map<String, Object> details = new HashMap<>();
+            details.put("featureKeys", cycle);
+            this.logger.error("required features form a cycle", details);
+        }
+    }
+
+    /**
+     * Compile conditions of all segments, forces and variable overrides in the datafile
+     * so that evaluations do not need to interpret them again
+     */
+    private void compileConditions() {
+        ConditionCompiler compiler = new ConditionCompiler(this::getRegex, logger, compactConditionValues);
+
+        compileConditions(compiler);
+        conditionValuesFootprint = createFootprint(compiler);
+    }
+
+    private void compileFeatures() {
+        this.compiledFeatures = new IdentityHashMap<>();
+        this.compiledAllocations = new IdentityHashMap<>();
+        if (features == null) {
+            return;
+        }
+
+        for (Feature feature : features.values()) {
+            if (feature == null) {
+                continue;
+            }
+
+            CompiledFeature compiled = CompiledFeature.compile(feature,
+                conditions -> compiledConditions.get(parseConditionsIfStringified(conditions)));
+            compiledFeatures.put(feature, compiled);
+            compiledAllocations.putAll(compiled.getAllAllocations());
+        }
+    }
+
+    private void compileTrafficRules() {
+        this.compiledRules = new IdentityHashMap<>();
+        if (features == null) {
+            return;
+        }
+
+        for (Feature feature : features.values()) {
+            if (feature == null || feature.getTraffic() == null) {
+                continue;
+            }
+
+            CompiledFeature.Rules rules = CompiledFeature.Rules.compile(
+                feature.getTraffic(), segmentIndex, this::parseSegmentsIfStringified);
+            if (rules != null) {
+                compiledRules.put(feature.getTraffic(), rules);
+            }
+        }
+    }
+
+    private static ConditionValuesFootprint createFootprint(ConditionCompiler compiler) {
+        int compactValueSets = 0;
+        long values = 0;
+        long estimatedBytes = 0;
+
+        for (ConditionValueSet valueSet : compiler.getValueSets()) {
+            if (valueSet.isCompact()) {
+                compactValueSets++;
+            }
+            values += valueSet.size();
+            estimatedBytes += valueSet.estimatedBytes();
+        }
+
+        return new ConditionValuesFootprint(
+            compiler.getValueSets().size(),
+            compactValueSets,
+            values,
+            estimatedBytes,
+            compiler.getOriginalValuesBytes()
+        );
+    }
+
+    private void compileConditions(ConditionCompiler compiler) {
+        if (segments != null) {
+            for (Map.Entry<String, Segment> entry : segments.entrySet()) {
+                Segment segment = entry.getValue();
+                if (segment == null) {
+                    continue;
+                }
+
+                ConditionCompiler.CompileStats stats = new ConditionCompiler.CompileStats();
+                segment.setConditions(parseConditionsIfStringified(segment.getConditions()));
+                addCompiledConditions(compiler, segment.getConditions(), stats);
+
+                segmentCompileStats.put(entry.getKey(), stats);
+                compileStats.add(stats);
+            }
+        }
+
+        if (features == null) {
+            return;
+        }
+
+        for (Feature feature : features.values()) {
+            if (feature == null) {
+                continue;
+            }
+
+            if (feature.getForce() != null) {
+                for (Force force : feature.getForce()) {
+                    addCompiledConditions(compiler, force.getConditions(), compileStats);
+                }
+            }
+
+            if (feature.getTraffic() != null) {
+                for (Traffic traffic : feature.getTraffic()) {
+                    addCompiledVariableOverrides(compiler, traffic.getVariableOverrides());
+                }
+            }
+
+            if (feature.getVariations() != null) {
+                for (Variation variation : feature.getVariations()) {
+                    addCompiledVariableOverrides(compiler, variation.getVariableOverrides());
+                }
+            }
+        }
+    }
+
+    private void addCompiledVariableOverrides(ConditionCompiler compiler, Map<String, List<VariableOverride>> variableOverrides) {
+        if (variableOverrides == null) {
+            return;
+        }
+
+        for (List<VariableOverride> overrides : variableOverrides.values()) {
+            if (overrides == null) {
+                continue;
+            }
+
+            for (VariableOverride override : overrides) {
+                addCompiledConditions(compiler, override.getConditions(), compileStats);
+            }
+        }
+    }
+
+    private void addCompiledConditions(ConditionCompiler compiler, Object conditions, ConditionCompiler.CompileStats stats) {
+        if (conditions == null) {
+            return;
+        }
+
+        Object parsed = parseConditionsIfStringified(conditions);
+        if (parsed != conditions) {
+            parsedConditions.put(conditions, parsed);
+        }
+
+        // "*" and unparsable strings are cheap to interpret
+        if (parsed instanceof String) {
+            return;
+        }
+
+        compiledConditions.put(parsed, compiler.compile(parsed, stats));
+    }
+
+    /**
+     * Get the segments indexed by the attribute values their conditions require
+     */
+    SegmentIndex getSegmentIndex() {
+        return segmentIndex;
+    }
+
+    /**
+     * Get the required features of the datafile
+     * @return The required features graph
+     */
+    public RequiredGraph getRequiredGraph() {
+        return requiredGraph;
     }
 
     public String getRevision() {
         return revision;
     }
 
+    /**
+     * Get the estimated memory used by in/notIn condition values of this datafile
+     * @return The footprint
+     */
+    public ConditionValuesFootprint getConditionValuesFootprint() {
+        return conditionValuesFootprint;
+    }
+
+    /**
+     * Get statistics about compiling the conditions of a segment
+     * @param segmentKey The segment key
+     * @return The statistics, or null if the segment is not found
+     */
+    public ConditionCompiler.CompileStats getSegmentCompileStats(String segmentKey) {
+        return segmentCompileStats.get(segmentKey);
+    }
+
+    /**
+     * Get statistics about compiling all conditions of segments, forces and variable overrides
+     * @return The statistics
+     */
+    public ConditionCompiler.CompileStats getCompileStats() {
+        return compileStats;
+    }
+
     public String getSchemaVersion() {
         return schemaVersion;
     }
@@ -157,8 +460,12 @@ public class DatafileReader {
         String flags = regexFlags != null ? regexFlags : "";
         String cacheKey = regexString + "-" + flags;
 
-        if (regexCache.containsKey(cacheKey)) {
-            return regexCache.get(cacheKey);
+        Pattern cached = regexCache.get(cacheKey);
+        if (metrics != null) {
+            metrics.recordCacheAccess("regex", cached != null);
+        }
+        if (cached != null) {
+            return cached;
         }
 
         try {
@@ -182,6 +489,14 @@ public class DatafileReader {
     }
 
     public boolean allConditionsAreMatched(Object conditions, Map<String, Object> context) {
+        CompiledCondition compiled = compiledConditions.get(conditions);
+        if (metrics != null) {
+            metrics.recordCacheAccess("conditions", compiled != null);
+        }
+        if (compiled != null) {
+            return compiled.matches(context);
+        }
+
         if (conditions instanceof String) {
             String conditionsStr = (String) conditions;
             if ("*".equals(conditionsStr)) {
@@ -300,6 +615,11 @@ public class DatafileReader {
 
         if (groupSegments instanceof String) {
             String segmentKey = (String) groupSegments;
+            Boolean indexed = segmentIndex.matches(segmentKey, context);
+            if (indexed != null) {
+                return indexed;
+            }
+
             Segment segment = getSegment(segmentKey);
 
             if (segment != null) {
@@ -343,7 +663,12 @@ public class DatafileReader {
     }
 
     public Traffic getMatchedTraffic(List<Traffic> traffic, Map<String, Object> context) {
-
+        CompiledFeature.Rules rules = compiledRules != null ? compiledRules.get(traffic) : null;
+        if (rules != null) {
+            int index = rules.find(context,
+                i -> allSegmentsAreMatched(parseSegmentsIfStringified(traffic.get(i).getSegments()), context));
+            return index >= 0 ? traffic.get(index) : null;
+        }
 
         return traffic.stream()
             .filter(t -> allSegmentsAreMatched(parseSegmentsIfStringified(t.getSegments()), context))
@@ -351,11 +676,111 @@ public class DatafileReader {
             .orElse(null);
     }
 
+    /**
+     * Same as {@link #getMatchedTraffic(List, Map)}, recording the rules, segments and conditions
+     * that were tried when a trace is given
+     */
+    public Traffic getMatchedTraffic(List<Traffic> traffic, Map<String, Object> context, EvaluationTrace trace) {
+        if (trace == null) {
+            return getMatchedTraffic(traffic, context);
+        }
+
+        for (Traffic t : traffic) {
+            long start = System.nanoTime();
+            boolean matched = allSegmentsAreMatched(parseSegmentsIfStringified(t.getSegments()), context, trace);
+            trace.rule(t.getKey(), matched, System.nanoTime() - start);
+
+            if (matched) {
+                return t;
+            }
+        }
+
+        return null;
+    }
+
+    private boolean allSegmentsAreMatched(Object groupSegments, Map<String, Object> context, EvaluationTrace trace) {
+        if ("*".equals(groupSegments)) {
+            return true;
+        }
+
+        if (groupSegments instanceof String) {
+            String segmentKey = (String) groupSegments;
+            Segment segment = getSegment(segmentKey);
+
+            long start = System.nanoTime();
+            boolean matched = segment != null && allConditionsAreMatched(segment.getConditions(), context, trace);
+            trace.segment(segmentKey, matched, System.nanoTime() - start);
+
+            return matched;
+        }
+
+        if (groupSegments instanceof Map) {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> groupSegmentsMap = (Map<String, Object>) groupSegments;
+
+            if (groupSegmentsMap.get("and") instanceof List) {
+                for (Object s : (List<?>) groupSegmentsMap.get("and")) {
+                    if (!allSegmentsAreMatched(s, context, trace)) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+
+            if (groupSegmentsMap.get("or") instanceof List) {
+                for (Object s : (List<?>) groupSegmentsMap.get("or")) {
+                    if (allSegmentsAreMatched(s, context, trace)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+
+            if (groupSegmentsMap.get("not") instanceof List) {
+                for (Object s : (List<?>) groupSegmentsMap.get("not")) {
+                    if (allSegmentsAreMatched(s, context, trace)) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+        }
+
+        if (groupSegments instanceof List) {
+            for (Object s : (List<?>) groupSegments) {
+                if (!allSegmentsAreMatched(s, context, trace)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        return false;
+    }
+
+    private boolean allConditionsAreMatched(Object conditions, Map<String, Object> context, EvaluationTrace trace) {
+        CompiledCondition compiled = compiledConditions.get(conditions);
+        if (compiled != null) {
+            return compiled.matches(context, trace);
+        }
+
+        // not compiled ahead of time, recorded as a whole
+        long start = System.nanoTime();
+        boolean matched = allConditionsAreMatched(conditions, context);
+        trace.condition(null, null, matched, System.nanoTime() - start);
+        return matched;
+    }
+
     public Allocation getMatchedAllocation(Traffic traffic, int bucketValue) {
         if (traffic.getAllocation() == null) {
             return null;
         }
 
+        CompiledFeature.Allocations compiled = compiledAllocations.get(traffic);
+        if (compiled != null) {
+            return compiled.find(bucketValue);
+        }
+
         for (Allocation allocation : traffic.getAllocation()) {
             Range range = allocation.getRange();
             if (range != null && range.getRange() != null && range.getRange().size() >= 2) {
@@ -371,6 +796,54 @@ public class DatafileReader {
         return null;
     }
 
+    VariableValueCache getVariableValues() {
+        return variableValues;
+    }
+
+    /**
+     * Whether the bucket value is within any of the feature's mutually exclusive ranges
+     */
+    public boolean isInRanges(Feature feature, int bucketValue) {
+        CompiledFeature compiled = compiledFeatures.get(feature);
+        if (compiled != null) {
+            return compiled.isInRanges(bucketValue);
+        }
+
+        if (feature.getRanges() != null) {
+            for (Range range : feature.getRanges()) {
+                if (bucketValue >= range.getStart() && bucketValue < range.getEnd()) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Variation of the feature with the given value, or null if none
+     */
+    public Variation getVariation(Feature feature, String variationValue) {
+        if (variationValue == null) {
+            return null;
+        }
+
+        CompiledFeature compiled = compiledFeatures.get(feature);
+        if (compiled != null) {
+            return compiled.getVariation(variationValue);
+        }
+
+        if (feature.getVariations() != null) {
+            for (Variation variation : feature.getVariations()) {
+                if (variationValue.equals(variation.getValue())) {
+                    return variation;
+                }
+            }
+        }
+
+        return null;
+    }
+
     public ForceResult getMatchedForce(Object featureKey, Map<String, Object> context) {
         ForceResult result = new ForceResult();
 
@@ -387,18 +860,59 @@ public class DatafileReader {
             return result;
         }
 
-        for (int i = 0; i < feature.getForce().size(); i++) {
-            Force currentForce = feature.getForce().get(i);
+        List<Force> forces = feature.getForce();
+        CompiledFeature compiled = compiledFeatures.get(feature);
+        if (compiled != null && compiled.getForces() != null) {
+            int index = compiled.getForces().find(context, i -> forceIsMatched(forces.get(i), context));
+            if (index >= 0) {
+                result.setForce(forces.get(index));
+                result.setForceIndex(index);
+            }
+            return result;
+        }
 
-            if (currentForce.getConditions() != null &&
-                allConditionsAreMatched(parseConditionsIfStringified(currentForce.getConditions()), context)) {
-                result.setForce(currentForce);
+        for (int i = 0; i < forces.size(); i++) {
+            if (forceIsMatched(forces.get(i), context)) {
+                result.setForce(forces.get(i));
                 result.setForceIndex(i);
                 break;
             }
+        }
+
+        return result;
+    }
+
+    private boolean forceIsMatched(Force force, Map<String, Object> context) {
+        if (force.getConditions() != null &&
+            allConditionsAreMatched(parseConditionsIfStringified(force.getConditions()), context)) {
+            return true;
+        }
+
+        return force.getSegments() != null &&
+            allSegmentsAreMatched(parseSegmentsIfStringified(force.getSegments()), context);
+    }
 
-            if (currentForce.getSegments() != null &&
-                allSegmentsAreMatched(parseSegmentsIfStringified(currentForce.getSegments()), context)) {
+    /**
+     * Same as {@link #getMatchedForce(Object, Map)}, recording the segments and conditions
+     * that were tried when a trace is given
+     */
+    public ForceResult getMatchedForce(Feature feature, Map<String, Object> context, EvaluationTrace trace) {
+        if (trace == null) {
+            return getMatchedForce(feature, context);
+        }
+
+        ForceResult result = new ForceResult();
+        if (feature == null || feature.getForce() == null) {
+            return result;
+        }
+
+        for (int i = 0; i < feature.getForce().size(); i++) {
+            Force currentForce = feature.getForce().get(i);
+
+            if ((currentForce.getConditions() != null &&
+                    allConditionsAreMatched(parseConditionsIfStringified(currentForce.getConditions()), context, trace)) ||
+                (currentForce.getSegments() != null &&
+                    allSegmentsAreMatched(parseSegmentsIfStringified(currentForce.getSegments()), context, trace))) {
                 result.setForce(currentForce);
                 result.setForceIndex(i);
                 break;
@@ -420,6 +934,12 @@ public class DatafileReader {
             return conditions;
         }
 
+        Object parsed = parsedConditions.get(conditions);
+        if (parsed != null) {
+            // parsed at load time
+            return parsed;
+        }
+
         try {
             ObjectMapper mapper = new ObjectMapper();
             return mapper.readValue(conditionsStr, Object.class);
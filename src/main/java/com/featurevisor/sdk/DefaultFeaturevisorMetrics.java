@@ -0,0 +1,129 @@
+package com.featurevisor.sdk;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process {@link FeaturevisorMetrics} built on {@link LongAdder} counters and fixed-bucket histograms
+ * Recording does not lock or allocate once a feature, reason and cache has been seen,
+ * and all aggregation happens when the metrics are read.
+ */
+public class DefaultFeaturevisorMetrics implements FeaturevisorMetrics {
+
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, LongAdder>> evaluations = new ConcurrentHashMap<>();
+    private final LatencyHistogram evaluationLatency = new LatencyHistogram();
+    private final LatencyHistogram datafileParseLatency = new LatencyHistogram();
+    private final LatencyHistogram datafileCompileLatency = new LatencyHistogram();
+    private final LatencyHistogram datafileSwapLatency = new LatencyHistogram();
+    private final ConcurrentHashMap<String, LatencyHistogram> hookLatency = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, LongAdder[]> cacheAccesses = new ConcurrentHashMap<>();
+
+    @Override
+    public void recordEvaluation(String type, String featureKey, String reason, long durationNanos) {
+        evaluations
+            .computeIfAbsent(String.valueOf(featureKey), key -> new ConcurrentHashMap<>())
+            .computeIfAbsent(String.valueOf(reason), key -> new LongAdder())
+            .increment();
+        evaluationLatency.record(durationNanos);
+    }
+
+    @Override
+    public void recordDatafileParse(long durationNanos) {
+        datafileParseLatency.record(durationNanos);
+    }
+
+    @Override
+    public void recordDatafileCompile(long durationNanos) {
+        datafileCompileLatency.record(durationNanos);
+    }
+
+    @Override
+    public void recordDatafileSwap(long durationNanos) {
+        datafileSwapLatency.record(durationNanos);
+    }
+
+    @Override
+    public void recordCacheAccess(String cache, boolean hit) {
+        // [hits, misses]
+        cacheAccesses.computeIfAbsent(cache, key -> new LongAdder[] { new LongAdder(), new LongAdder() })[hit ? 0 : 1]
+            .increment();
+    }
+
+    @Override
+    public void recordHooks(String kind, long durationNanos) {
+        hookLatency.computeIfAbsent(kind, key -> new LatencyHistogram()).record(durationNanos);
+    }
+
+    /**
+     * Get the number of evaluations of a feature with a reason
+     */
+    public long getEvaluationCount(String featureKey, String reason) {
+        Map<String, LongAdder> reasons = evaluations.get(featureKey);
+        if (reasons == null) {
+            return 0;
+        }
+        LongAdder count = reasons.get(reason);
+        return count != null ? count.sum() : 0;
+    }
+
+    /**
+     * Get the number of evaluations by feature key and reason
+     */
+    public Map<String, Map<String, Long>> getEvaluationCounts() {
+        Map<String, Map<String, Long>> result = new HashMap<>();
+        evaluations.forEach((featureKey, reasons) -> {
+            Map<String, Long> counts = new HashMap<>();
+            reasons.forEach((reason, count) -> counts.put(reason, count.sum()));
+            result.put(featureKey, counts);
+        });
+        return result;
+    }
+
+    public LatencyHistogram getEvaluationLatency() {
+        return evaluationLatency;
+    }
+
+    public LatencyHistogram getDatafileParseLatency() {
+        return datafileParseLatency;
+    }
+
+    public LatencyHistogram getDatafileCompileLatency() {
+        return datafileCompileLatency;
+    }
+
+    public LatencyHistogram getDatafileSwapLatency() {
+        return datafileSwapLatency;
+    }
+
+    /**
+     * Get the time spent in hooks of a kind
+     * @param kind before, after, bucketKey or bucketValue
+     * @return The histogram, or null if no hooks of the kind ran
+     */
+    public LatencyHistogram getHookLatency(String kind) {
+        return hookLatency.get(kind);
+    }
+
+    public long getCacheHits(String cache) {
+        LongAdder[] accesses = cacheAccesses.get(cache);
+        return accesses != null ? accesses[0].sum() : 0;
+    }
+
+    public long getCacheMisses(String cache) {
+        LongAdder[] accesses = cacheAccesses.get(cache);
+        return accesses != null ? accesses[1].sum() : 0;
+    }
+
+    /**
+     * Get the ratio of hits to all lookups of a cache
+     * @param cache The cache name
+     * @return The ratio between 0 and 1, or 0 if the cache was not used
+     */
+    public double getCacheHitRatio(String cache) {
+        long hits = getCacheHits(cache);
+        long total = hits + getCacheMisses(cache);
+        return total == 0 ? 0 : (double) hits / total;
+    }
+}
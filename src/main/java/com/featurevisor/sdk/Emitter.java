@@ -4,15 +4,32 @@ import java.util.Map;
 import java.util.HashMap;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 
 /**
  * Event emitter for Featurevisor SDK
  * Handles event subscription and triggering
+ *
+ * Listeners can be added and removed while events are triggered from other threads.
+ * In async mode, events are queued in a bounded queue and delivered in order on an executor,
+ * so slow listeners do not block the thread that triggered the event.
  */
 public class Emitter {
 
+    /**
+     * Default capacity of the queue of pending events in async mode
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
     /**
      * Event names that can be emitted
      */
@@ -70,10 +87,66 @@ public class Emitter {
         void unsubscribe();
     }
 
+    /**
+     * Options for creating an emitter
+     */
+    public static class EmitterOptions {
+        private boolean async;
+        private Executor executor;
+        private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+
+        public EmitterOptions() {}
+
+        /**
+         * Deliver events on an executor instead of the triggering thread
+         */
+        public EmitterOptions async(boolean async) {
+            this.async = async;
+            return this;
+        }
+
+        /**
+         * Executor for async delivery, a single daemon thread owned by the emitter is used if not set
+         */
+        public EmitterOptions executor(Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * Maximum number of pending events in async mode, further events are dropped
+         * and counted by {@link Emitter#getDroppedEvents()}
+         */
+        public EmitterOptions queueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+            return this;
+        }
+
+        // Getters
+        public boolean isAsync() { return async; }
+        public Executor getExecutor() { return executor; }
+        public int getQueueCapacity() { return queueCapacity; }
+    }
+
     private final Map<EventName, List<EventCallback>> listeners;
 
+    // async delivery
+    private final boolean async;
+    private final BlockingQueue<Runnable> queue;
+    private final AtomicBoolean draining = new AtomicBoolean(false);
+    private final AtomicLong droppedEvents = new AtomicLong();
+    private Executor executor;
+    private ExecutorService ownedExecutor;
+
     public Emitter() {
-        this.listeners = new HashMap<>();
+        this(new EmitterOptions());
+    }
+
+    public Emitter(EmitterOptions options) {
+        this.listeners = new ConcurrentHashMap<>();
+        this.async = options.isAsync();
+        this.queue = async ? new ArrayBlockingQueue<>(Math.max(1, options.getQueueCapacity())) : null;
+        this.executor = options.getExecutor();
     }
 
     /**
@@ -83,23 +156,17 @@ public class Emitter {
      * @return An unsubscribe function to remove the listener
      */
     public UnsubscribeFunction on(EventName eventName, EventCallback callback) {
-        if (!listeners.containsKey(eventName)) {
-            listeners.put(eventName, new CopyOnWriteArrayList<>());
-        }
-
-        List<EventCallback> eventListeners = listeners.get(eventName);
+        List<EventCallback> eventListeners = listeners.computeIfAbsent(eventName, key -> new CopyOnWriteArrayList<>());
         eventListeners.add(callback);
 
         // Track if the subscription is still active
-        final boolean[] isActive = {true};
+        final AtomicBoolean isActive = new AtomicBoolean(true);
 
         return () -> {
-            if (!isActive[0]) {
+            if (!isActive.compareAndSet(true, false)) {
                 return;
             }
 
-            isActive[0] = false;
-
             List<EventCallback> currentListeners = listeners.get(eventName);
             if (currentListeners != null) {
                 currentListeners.remove(callback);
@@ -115,6 +182,39 @@ public class Emitter {
     public void trigger(EventName eventName, EventDetails details) {
         List<EventCallback> eventListeners = listeners.get(eventName);
 
+        if (eventListeners == null || eventListeners.isEmpty()) {
+            return;
+        }
+
+        if (async) {
+            enqueue(() -> callListeners(eventName, details));
+            return;
+        }
+
+        callListeners(eventName, details);
+    }
+
+    /**
+     * Check if an event has any listeners
+     * @param eventName The event name
+     * @return True if at least one listener is subscribed
+     */
+    public boolean hasListeners(EventName eventName) {
+        List<EventCallback> eventListeners = listeners.get(eventName);
+        return eventListeners != null && !eventListeners.isEmpty();
+    }
+
+    /**
+     * Get the number of events dropped because the async queue was full
+     * @return The number of dropped events
+     */
+    public long getDroppedEvents() {
+        return droppedEvents.get();
+    }
+
+    private void callListeners(EventName eventName, EventDetails details) {
+        List<EventCallback> eventListeners = listeners.get(eventName);
+
         if (eventListeners == null) {
             return;
         }
@@ -129,6 +229,61 @@ public class Emitter {
         }
     }
 
+    private void enqueue(Runnable delivery) {
+        if (!queue.offer(delivery)) {
+            // logged on the 1st, 2nd, 4th, 8th... drop, so a full queue does not flood stderr
+            long dropped = droppedEvents.incrementAndGet();
+            if (Long.bitCount(dropped) == 1) {
+                System.err.println("Event queue is full, " + dropped + " events dropped so far");
+            }
+            return;
+        }
+
+        scheduleDrain();
+    }
+
+    private void scheduleDrain() {
+        if (draining.compareAndSet(false, true)) {
+            try {
+                getExecutor().execute(this::drain);
+            } catch (RuntimeException e) {
+                draining.set(false);
+                System.err.println("Could not schedule event delivery: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Deliver queued events one at a time, so listeners see them in order
+     */
+    private void drain() {
+        try {
+            Runnable delivery;
+            while ((delivery = queue.poll()) != null) {
+                delivery.run();
+            }
+        } finally {
+            draining.set(false);
+        }
+
+        // an event may have been queued after the last poll, but before draining was reset
+        if (!queue.isEmpty()) {
+            scheduleDrain();
+        }
+    }
+
+    private synchronized Executor getExecutor() {
+        if (executor == null) {
+            ownedExecutor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "featurevisor-events");
+                thread.setDaemon(true);
+                return thread;
+            });
+            executor = ownedExecutor;
+        }
+        return executor;
+    }
+
     /**
      * Trigger an event with empty details
      * @param eventName The event name to trigger
@@ -144,6 +299,24 @@ public class Emitter {
         listeners.clear();
     }
 
+    /**
+     * Clear all event listeners and stop the executor owned by this emitter, if any
+     * Events still queued are discarded
+     */
+    public void close() {
+        clearAll();
+
+        if (queue != null) {
+            queue.clear();
+        }
+
+        synchronized (this) {
+            if (ownedExecutor != null) {
+                ownedExecutor.shutdown();
+            }
+        }
+    }
+
     /**
      * Get the current listeners (for testing purposes)
      * @return A copy of the listeners map
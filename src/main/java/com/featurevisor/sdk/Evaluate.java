@@ -20,15 +20,12 @@ public class Evaluate {
      */
     public static Evaluation evaluateWithHooks(EvaluateOptions opts) {
         try {
-            HooksManager hooksManager = opts.getHooksManager();
-            java.util.List<HooksManager.Hook> hooks = hooksManager.getAll();
+            HooksManager.HookChain hooks = opts.getHooksManager().getChain();
 
             // run before hooks
             EvaluateOptions options = opts;
-            for (HooksManager.Hook hook : hooksManager.getAll()) {
-                if (hook.getBefore() != null) {
-                    options = hook.getBefore().apply(options);
-                }
+            if (hooks.hasBefore()) {
+                options = hooks.executeBeforeHooks(options);
             }
 
             // evaluate
@@ -49,10 +46,8 @@ public class Evaluate {
             }
 
             // run after hooks
-            for (HooksManager.Hook hook : hooks) {
-                if (hook.getAfter() != null) {
-                    evaluation = hook.getAfter().apply(evaluation, options);
-                }
+            if (hooks.hasAfter()) {
+                evaluation = hooks.executeAfterHooks(evaluation, options);
             }
 
             return evaluation;
@@ -89,6 +84,10 @@ public class Evaluate {
 
         Evaluation evaluation;
 
+        // only set for sampled evaluations
+        EvaluationTrace trace = options.getTrace();
+        long mark = trace != null ? trace.enter(featureKey) : 0;
+
         try {
             // root
             Evaluation flag;
@@ -100,6 +99,9 @@ public class Evaluate {
                     evaluate(options.copy().type(Evaluation.TYPE_FLAG));
 
                 Evaluation disabledEvaluation = EvaluateDisabled.evaluateDisabled(options, flag);
+                if (trace != null) {
+                    mark = trace.stage(featureKey, EvaluationTracer.STAGE_FLAG, mark);
+                }
                 if (disabledEvaluation != null) {
                     return disabledEvaluation;
                 }
@@ -107,12 +109,18 @@ public class Evaluate {
 
             // sticky
             Evaluation stickyEvaluation = EvaluateSticky.evaluateSticky(options);
+            if (trace != null) {
+                mark = trace.stage(featureKey, EvaluationTracer.STAGE_STICKY, mark);
+            }
             if (stickyEvaluation != null) {
                 return stickyEvaluation;
             }
 
             // not found
             EvaluateNotFound.EvaluateNotFoundResult notFoundResult = EvaluateNotFound.evaluateNotFound(options);
+            if (trace != null) {
+                mark = trace.stage(featureKey, EvaluationTracer.STAGE_NOT_FOUND, mark);
+            }
 
             if (notFoundResult.getEvaluation() != null) {
                 return notFoundResult.getEvaluation();
@@ -124,6 +132,9 @@ public class Evaluate {
             // forced
             EvaluateForced.EvaluateForcedResult forcedResult = EvaluateForced.evaluate(options, feature, variableSchema);
             Force force = forcedResult.getForce();
+            if (trace != null) {
+                mark = trace.stage(featureKey, EvaluationTracer.STAGE_FORCED, mark);
+            }
 
             if (forcedResult.getEvaluation() != null) {
                 return forcedResult.getEvaluation();
@@ -132,6 +143,9 @@ public class Evaluate {
             // required (only for flag evaluations)
             if (Evaluation.TYPE_FLAG.equals(type)) {
                 Evaluation requiredEvaluation = evaluateRequired(options, feature);
+                if (trace != null) {
+                    mark = trace.stage(featureKey, EvaluationTracer.STAGE_REQUIRED, mark);
+                }
                 if (requiredEvaluation != null) {
                     return requiredEvaluation;
                 }
@@ -141,6 +155,9 @@ public class Evaluate {
             EvaluateByBucketing.EvaluateByBucketingResult bucketingResult = EvaluateByBucketing.evaluateByBucketing(options, feature, variableSchema, force);
             String bucketKey = bucketingResult.getBucketKey();
             Integer bucketValue = bucketingResult.getBucketValue();
+            if (trace != null) {
+                trace.stage(featureKey, EvaluationTracer.STAGE_BUCKETING, mark);
+            }
 
             if (bucketingResult.getEvaluation() != null) {
                 return bucketingResult.getEvaluation();
@@ -187,64 +204,56 @@ public class Evaluate {
         String variableKey = options.getVariableKey();
         Logger logger = options.getLogger();
         DatafileReader datafileReader = options.getDatafileReader();
+        RequiredGraph requiredGraph = datafileReader.getRequiredGraph();
 
         // Check if required features are enabled
-        List<Object> requiredList = feature.getRequired();
-        if (requiredList == null) {
-            requiredList = new java.util.ArrayList<>();
-        }
-        if (requiredList.isEmpty()) {
+        List<RequiredGraph.Dependency> dependencies = requiredGraph.getDependencies(featureKey);
+        if (dependencies.isEmpty()) {
             return null;
         }
 
-        for (Object required : requiredList) {
-            if (required instanceof String) {
-                String requiredFeatureKey = (String) required;
-                Feature requiredFeature = datafileReader.getFeature(requiredFeatureKey);
+        if (requiredGraph.isCyclic(featureKey)) {
+            Evaluation evaluation = new Evaluation(type, featureKey, variableKey)
+                .reason(Evaluation.REASON_REQUIRED)
+                .enabled(false);
 
-                if (requiredFeature == null) {
-                    Evaluation evaluation = new Evaluation(type, featureKey, variableKey)
-                        .reason(Evaluation.REASON_REQUIRED)
-                        .enabled(false);
+            Map<String, Object> details = new HashMap<>();
+            details.put("featureKey", featureKey);
+            logger.debug("required features form a cycle", details);
 
-                    Map<String, Object> details = new HashMap<>();
-                    details.put("featureKey", featureKey);
-                    details.put("requiredFeatureKey", requiredFeatureKey);
-                    logger.debug("required feature not found", details);
+            return evaluation;
+        }
 
-                    return evaluation;
-                }
+        // memoized for the rest of this call, so shared prerequisites are evaluated once
+        Map<String, Evaluation> requiredEvaluations = options.getRequiredEvaluations();
+        if (requiredEvaluations == null) {
+            requiredEvaluations = new HashMap<>();
+            options.setRequiredEvaluations(requiredEvaluations);
+        }
 
-                // Check if the required feature is enabled
-                Evaluation requiredEvaluation = evaluate(options.copy()
-                    .type(Evaluation.TYPE_FLAG)
-                    .featureKey(requiredFeatureKey));
+        for (RequiredGraph.Dependency dependency : dependencies) {
+            String requiredFeatureKey = dependency.getFeatureKey();
+            Feature requiredFeature = datafileReader.getFeature(requiredFeatureKey);
 
-                if (!Boolean.TRUE.equals(requiredEvaluation.getEnabled())) {
-                    Evaluation evaluation = new Evaluation(type, featureKey, variableKey)
-                        .reason(Evaluation.REASON_REQUIRED)
-                        .enabled(false);
+            if (requiredFeature == null) {
+                Evaluation evaluation = new Evaluation(type, featureKey, variableKey)
+                    .reason(Evaluation.REASON_REQUIRED)
+                    .enabled(false);
 
-                    Map<String, Object> details = new HashMap<>();
-                    details.put("featureKey", featureKey);
-                    details.put("requiredFeatureKey", requiredFeatureKey);
-                    logger.debug("required feature disabled", details);
+                Map<String, Object> details = new HashMap<>();
+                details.put("featureKey", featureKey);
+                details.put("requiredFeatureKey", requiredFeatureKey);
+                logger.debug("required feature not found", details);
 
-                    return evaluation;
-                }
-            } else if (required instanceof Map) {
-                @SuppressWarnings("unchecked")
-                Map<String, Object> requiredMap = (Map<String, Object>) required;
-                String requiredFeatureKey = (String) requiredMap.get("key");
-                String requiredVariation = (String) requiredMap.get("variation");
-
-                if (requiredFeatureKey == null) {
-                    continue;
-                }
+                return evaluation;
+            }
 
-                Feature requiredFeature = datafileReader.getFeature(requiredFeatureKey);
+            if (!dependency.isByVariation()) {
+                // Check if the required feature is enabled
+                Evaluation requiredEvaluation = evaluateRequiredFeature(
+                    options, requiredEvaluations, Evaluation.TYPE_FLAG, requiredFeatureKey);
 
-                if (requiredFeature == null) {
+                if (!Boolean.TRUE.equals(requiredEvaluation.getEnabled())) {
                     Evaluation evaluation = new Evaluation(type, featureKey, variableKey)
                         .reason(Evaluation.REASON_REQUIRED)
                         .enabled(false);
@@ -252,15 +261,16 @@ public class Evaluate {
                     Map<String, Object> details = new HashMap<>();
                     details.put("featureKey", featureKey);
                     details.put("requiredFeatureKey", requiredFeatureKey);
-                    logger.debug("required feature not found", details);
+                    logger.debug("required feature disabled", details);
 
                     return evaluation;
                 }
+            } else {
+                String requiredVariation = dependency.getVariation();
 
                 // Check if the required feature has the required variation
-                Evaluation requiredEvaluation = evaluate(options.copy()
-                    .type(Evaluation.TYPE_VARIATION)
-                    .featureKey(requiredFeatureKey));
+                Evaluation requiredEvaluation = evaluateRequiredFeature(
+                    options, requiredEvaluations, Evaluation.TYPE_VARIATION, requiredFeatureKey);
 
                 Object variationValue = requiredEvaluation.getVariationValue();
                 if (variationValue == null && requiredEvaluation.getVariation() != null) {
@@ -286,4 +296,25 @@ public class Evaluate {
 
         return null;
     }
+
+    private static Evaluation evaluateRequiredFeature(
+            EvaluateOptions options,
+            Map<String, Evaluation> requiredEvaluations,
+            String type,
+            String requiredFeatureKey) {
+        String memoKey = type + ":" + requiredFeatureKey;
+        Evaluation evaluation = requiredEvaluations.get(memoKey);
+
+        if (evaluation == null) {
+            // evaluated on its own, not for the variable or flag evaluation of the requiring feature
+            evaluation = evaluate(options.copy()
+                .type(type)
+                .featureKey(requiredFeatureKey)
+                .variableKey(null)
+                .flagEvaluation(null));
+            requiredEvaluations.put(memoKey, evaluation);
+        }
+
+        return evaluation;
+    }
 }
@@ -7,7 +7,6 @@ import com.featurevisor.sdk.Variation;
 import com.featurevisor.sdk.VariableOverride;
 import com.featurevisor.sdk.Traffic;
 import com.featurevisor.sdk.Allocation;
-import com.featurevisor.sdk.Range;
 import java.util.Map;
 import java.util.HashMap;
 import java.util.List;
@@ -73,25 +72,33 @@ public class EvaluateByBucketing {
         DatafileReader datafileReader = options.getDatafileReader();
 
         // Get bucket key
-        String bucketKey = Bucketer.getBucketKey(new Bucketer.GetBucketKeyOptions()
+        String bucketKeyPrefix = Bucketer.getBucketKeyPrefix(new Bucketer.GetBucketKeyOptions()
             .featureKey(featureKey)
             .bucketBy(feature.getBucketBy())
             .context(context)
             .logger(logger));
+        String bucketKey = bucketKeyPrefix + featureKey;
+
+        HooksManager.HookChain hooks = hooksManager != null ? hooksManager.getChain() : null;
 
         // Apply bucket key hooks
-        if (hooksManager != null) {
-            bucketKey = hooksManager.executeBucketKeyHooks(new HooksManager.ConfigureBucketKeyOptions(
-                featureKey, context, feature.getBucketBy(), bucketKey));
+        if (hooks != null && hooks.hasBucketKey()) {
+            bucketKey = hooks.executeBucketKeyHooks(featureKey, context, feature.getBucketBy(), bucketKey);
         }
 
-        // Get bucket value
-        Integer bucketValue = Bucketer.getBucketedNumber(bucketKey);
+        // Get bucket value, resuming from the prefix's hashing state when shared with other features
+        Map<String, MurmurHash.State> prefixStates = options.getBucketKeyPrefixStates();
+        Integer bucketValue;
+        if (prefixStates != null && !(hooks != null && hooks.hasBucketKey())) {
+            MurmurHash.State prefixState = prefixStates.computeIfAbsent(bucketKeyPrefix, Bucketer::getBucketKeyPrefixState);
+            bucketValue = Bucketer.getBucketedNumber(prefixState, featureKey);
+        } else {
+            bucketValue = Bucketer.getBucketedNumber(bucketKey);
+        }
 
         // Apply bucket value hooks
-        if (hooksManager != null) {
-            bucketValue = hooksManager.executeBucketValueHooks(new HooksManager.ConfigureBucketValueOptions(
-                featureKey, bucketKey, context, bucketValue));
+        if (hooks != null && hooks.hasBucketValue()) {
+            bucketValue = hooks.executeBucketValueHooks(featureKey, bucketKey, context, bucketValue);
         }
 
         // Get matched traffic and allocation
@@ -99,12 +106,12 @@ public class EvaluateByBucketing {
         Allocation matchedAllocation = null;
 
         if (!Evaluation.TYPE_FLAG.equals(type)) {
-            matchedTraffic = datafileReader.getMatchedTraffic(feature.getTraffic(), context);
+            matchedTraffic = datafileReader.getMatchedTraffic(feature.getTraffic(), context, options.getTrace());
             if (matchedTraffic != null) {
                 matchedAllocation = datafileReader.getMatchedAllocation(matchedTraffic, bucketValue);
             }
         } else {
-            matchedTraffic = datafileReader.getMatchedTraffic(feature.getTraffic(), context);
+            matchedTraffic = datafileReader.getMatchedTraffic(feature.getTraffic(), context, options.getTrace());
         }
 
 
@@ -141,13 +148,7 @@ public class EvaluateByBucketing {
                 // flag: check if mutually exclusive
                 if (feature.getRanges() != null && !feature.getRanges().isEmpty()) {
                     // Find matched range
-                    boolean matchedRange = false;
-                    for (Range range : feature.getRanges()) {
-                        if (bucketValue >= range.getStart() && bucketValue < range.getEnd()) {
-                            matchedRange = true;
-                            break;
-                        }
-                    }
+                    boolean matchedRange = datafileReader.isInRanges(feature, bucketValue);
 
                     // matched
                     if (matchedRange) {
@@ -231,13 +232,7 @@ public class EvaluateByBucketing {
             if (Evaluation.TYPE_VARIATION.equals(type) && feature.getVariations() != null) {
                 // override from rule
                 if (matchedTraffic.getVariation() != null) {
-                    Variation variation = null;
-                    for (Variation v : feature.getVariations()) {
-                        if (matchedTraffic.getVariation().equals(v.getValue())) {
-                            variation = v;
-                            break;
-                        }
-                    }
+                    Variation variation = datafileReader.getVariation(feature, matchedTraffic.getVariation());
 
                     if (variation != null) {
                         Evaluation evaluation = new Evaluation(type, featureKey, variableKey)
@@ -261,13 +256,7 @@ public class EvaluateByBucketing {
 
                 // regular allocation
                 if (matchedAllocation != null && matchedAllocation.getVariation() != null) {
-                    Variation variation = null;
-                    for (Variation v : feature.getVariations()) {
-                        if (matchedAllocation.getVariation().equals(v.getValue())) {
-                            variation = v;
-                            break;
-                        }
-                    }
+                    Variation variation = datafileReader.getVariation(feature, matchedAllocation.getVariation());
 
                     if (variation != null) {
                         Evaluation evaluation = new Evaluation(type, featureKey, variableKey)
@@ -302,16 +291,7 @@ public class EvaluateByBucketing {
                         boolean matches = false;
 
                         if (override.getConditions() != null) {
-                            Object conditions = override.getConditions();
-                            if (conditions instanceof String && !"*".equals(conditions)) {
-                                try {
-                                    conditions = new com.fasterxml.jackson.databind.ObjectMapper()
-                                        .readValue((String) conditions, Object.class);
-                                } catch (Exception ignored) {
-                                    conditions = override.getConditions();
-                                }
-                            }
-
+                            Object conditions = datafileReader.parseConditionsIfStringified(override.getConditions());
                             matches = datafileReader.allConditionsAreMatched(conditions, context);
                         } else if (override.getSegments() != null) {
                             Object parsedSegments = datafileReader.parseSegmentsIfStringified(override.getSegments());
@@ -377,13 +357,7 @@ public class EvaluateByBucketing {
                 }
 
                 if (variationValue != null && feature.getVariations() != null) {
-                    Variation variation = null;
-                    for (Variation v : feature.getVariations()) {
-                        if (variationValue.equals(v.getValue())) {
-                            variation = v;
-                            break;
-                        }
-                    }
+                    Variation variation = datafileReader.getVariation(feature, variationValue);
 
 
 
@@ -398,15 +372,7 @@ public class EvaluateByBucketing {
 
                             // Check conditions
                             if (override.getConditions() != null) {
-                                Object conditions = override.getConditions();
-                                if (conditions instanceof String && !"*".equals(conditions)) {
-                                    try {
-                                        conditions = new com.fasterxml.jackson.databind.ObjectMapper()
-                                            .readValue((String) conditions, Object.class);
-                                    } catch (Exception ignored) {
-                                        conditions = override.getConditions();
-                                    }
-                                }
+                                Object conditions = datafileReader.parseConditionsIfStringified(override.getConditions());
                                 matches = datafileReader.allConditionsAreMatched(conditions, context);
                             }
                             // Check segments
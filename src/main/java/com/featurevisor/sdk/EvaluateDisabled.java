@@ -19,7 +19,6 @@ public class EvaluateDisabled {
     public static Evaluation evaluateDisabled(EvaluateOptions options, Evaluation flag) {
         String type = options.getType();
         String featureKey = options.getFeatureKey();
-        DatafileReader datafileReader = options.getDatafileReader();
         String variableKey = options.getVariableKey();
         Logger logger = options.getLogger();
 
@@ -30,7 +29,7 @@ public class EvaluateDisabled {
                     .featureKey(featureKey)
                     .reason(Evaluation.REASON_DISABLED);
 
-                Feature feature = datafileReader.getFeature(featureKey);
+                Feature feature = options.resolveFeature();
 
                 // serve variable default value if feature is disabled (if explicitly specified)
                 if (Evaluation.TYPE_VARIABLE.equals(type)) {
@@ -58,7 +58,7 @@ public class EvaluateForced {
         Logger logger = options.getLogger();
         DatafileReader datafileReader = options.getDatafileReader();
 
-        DatafileReader.ForceResult forceResult = datafileReader.getMatchedForce(feature, context);
+        DatafileReader.ForceResult forceResult = datafileReader.getMatchedForce(feature, context, options.getTrace());
         Force force = forceResult.getForce();
         Integer forceIndex = forceResult.getForceIndex();
 
@@ -86,13 +86,7 @@ public class EvaluateForced {
 
             // variation
             if (Evaluation.TYPE_VARIATION.equals(type) && force.getVariation() != null && feature.getVariations() != null) {
-                Variation variation = null;
-                for (Variation v : feature.getVariations()) {
-                    if (force.getVariation().equals(v.getValue())) {
-                        variation = v;
-                        break;
-                    }
-                }
+                Variation variation = datafileReader.getVariation(feature, force.getVariation());
 
                 if (variation != null) {
                     Evaluation evaluation = new Evaluation()
@@ -123,13 +117,7 @@ public class EvaluateForced {
                 // If no direct variable, check if force has a variation with variable overrides
                 else if (force.getVariation() != null && feature.getVariations() != null) {
                     // Find the forced variation
-                    Variation forcedVariation = null;
-                    for (Variation v : feature.getVariations()) {
-                        if (force.getVariation().equals(v.getValue())) {
-                            forcedVariation = v;
-                            break;
-                        }
-                    }
+                    Variation forcedVariation = datafileReader.getVariation(feature, force.getVariation());
 
                     if (forcedVariation != null) {
                         // Get base variable value from variation
@@ -45,11 +45,10 @@ public class EvaluateNotFound {
         String featureKey = options.getFeatureKey();
         String variableKey = options.getVariableKey();
         Logger logger = options.getLogger();
-        DatafileReader datafileReader = options.getDatafileReader();
 
         EvaluateNotFoundResult result = new EvaluateNotFoundResult();
 
-        Feature feature = datafileReader.getFeature(featureKey);
+        Feature feature = options.resolveFeature();
 
         // feature: not found
         if (feature == null) {
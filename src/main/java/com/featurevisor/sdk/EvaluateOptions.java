@@ -25,6 +25,20 @@ public class EvaluateOptions {
     private Object defaultVariableValue;
     private Evaluation flagEvaluation;
 
+    // Tracing (only set for sampled evaluations)
+    private EvaluationTrace trace;
+
+    // Evaluations of required features, shared by all evaluations of a single call
+    private Map<String, Evaluation> requiredEvaluations;
+
+    // Hashing states of bucket key prefixes, shared by all evaluations of a single call
+    private Map<String, MurmurHash.State> bucketKeyPrefixStates;
+
+    // Feature resolved ahead of time by a handle, for the key and datafile reader it was resolved with
+    private String resolvedFeatureKey;
+    private DatafileReader resolvedDatafileReader;
+    private Feature resolvedFeature;
+
     // Constructors
     public EvaluateOptions() {}
 
@@ -51,6 +65,9 @@ public class EvaluateOptions {
     public String getDefaultVariationValue() { return defaultVariationValue; }
     public Object getDefaultVariableValue() { return defaultVariableValue; }
     public Evaluation getFlagEvaluation() { return flagEvaluation; }
+    public EvaluationTrace getTrace() { return trace; }
+    public Map<String, Evaluation> getRequiredEvaluations() { return requiredEvaluations; }
+    public Map<String, MurmurHash.State> getBucketKeyPrefixStates() { return bucketKeyPrefixStates; }
 
     // Setters
     public void setType(String type) { this.type = type; }
@@ -64,6 +81,9 @@ public class EvaluateOptions {
     public void setDefaultVariationValue(String defaultVariationValue) { this.defaultVariationValue = defaultVariationValue; }
     public void setDefaultVariableValue(Object defaultVariableValue) { this.defaultVariableValue = defaultVariableValue; }
     public void setFlagEvaluation(Evaluation flagEvaluation) { this.flagEvaluation = flagEvaluation; }
+    public void setTrace(EvaluationTrace trace) { this.trace = trace; }
+    public void setRequiredEvaluations(Map<String, Evaluation> requiredEvaluations) { this.requiredEvaluations = requiredEvaluations; }
+    public void setBucketKeyPrefixStates(Map<String, MurmurHash.State> bucketKeyPrefixStates) { this.bucketKeyPrefixStates = bucketKeyPrefixStates; }
 
     // Builder pattern methods
     public EvaluateOptions type(String type) {
@@ -121,6 +141,43 @@ public class EvaluateOptions {
         return this;
     }
 
+    public EvaluateOptions trace(EvaluationTrace trace) {
+        this.trace = trace;
+        return this;
+    }
+
+    public EvaluateOptions requiredEvaluations(Map<String, Evaluation> requiredEvaluations) {
+        this.requiredEvaluations = requiredEvaluations;
+        return this;
+    }
+
+    public EvaluateOptions bucketKeyPrefixStates(Map<String, MurmurHash.State> bucketKeyPrefixStates) {
+        this.bucketKeyPrefixStates = bucketKeyPrefixStates;
+        return this;
+    }
+
+    /**
+     * Set the feature already looked up for the key in the datafile reader
+     */
+    public EvaluateOptions resolvedFeature(String featureKey, DatafileReader datafileReader, Feature feature) {
+        this.resolvedFeatureKey = featureKey;
+        this.resolvedDatafileReader = datafileReader;
+        this.resolvedFeature = feature;
+        return this;
+    }
+
+    /**
+     * The feature being evaluated, looked up in the datafile reader unless already resolved for them
+     */
+    public Feature resolveFeature() {
+        if (resolvedFeature != null &&
+            resolvedDatafileReader == datafileReader &&
+            resolvedFeatureKey.equals(featureKey)) {
+            return resolvedFeature;
+        }
+        return datafileReader.getFeature(featureKey);
+    }
+
     /**
      * Create a copy of this EvaluateOptions with new values
      * @return A new EvaluateOptions instance with the same values
@@ -138,6 +195,12 @@ public class EvaluateOptions {
         copy.defaultVariationValue = this.defaultVariationValue;
         copy.defaultVariableValue = this.defaultVariableValue;
         copy.flagEvaluation = this.flagEvaluation;
+        copy.trace = this.trace;
+        copy.requiredEvaluations = this.requiredEvaluations;
+        copy.bucketKeyPrefixStates = this.bucketKeyPrefixStates;
+        copy.resolvedFeatureKey = this.resolvedFeatureKey;
+        copy.resolvedDatafileReader = this.resolvedDatafileReader;
+        copy.resolvedFeature = this.resolvedFeature;
         return copy;
     }
 
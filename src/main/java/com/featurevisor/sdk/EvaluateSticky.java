@@ -21,70 +21,64 @@ public class EvaluateSticky {
         Map<String, Object> sticky = options.getSticky();
         Logger logger = options.getLogger();
 
-        if (sticky != null && sticky.containsKey(featureKey)) {
-            Object stickyData = sticky.get(featureKey);
-
-            if (stickyData instanceof Map) {
-                @SuppressWarnings("unchecked")
-                Map<String, Object> stickyMap = (Map<String, Object>) stickyData;
-                Evaluation evaluation;
-
-                // flag
-                if (Evaluation.TYPE_FLAG.equals(type) && stickyMap.containsKey("enabled")) {
-                    evaluation = new Evaluation()
-                        .type(type)
-                        .featureKey(featureKey)
-                        .reason(Evaluation.REASON_STICKY)
-                        .sticky(stickyMap)
-                        .enabled((Boolean) stickyMap.get("enabled"));
+        if (sticky == null) {
+            return null;
+        }
 
-                    logger.debug("using sticky enabled", null);
+        // parsed once when added to a StickyMap, otherwise parsed here
+        StickyMap.StickyEntry entry;
+        if (sticky instanceof StickyMap) {
+            entry = ((StickyMap) sticky).getEntry(featureKey);
+        } else {
+            entry = sticky.containsKey(featureKey) ? new StickyMap.StickyEntry(featureKey, sticky.get(featureKey)) : null;
+        }
 
-                    return evaluation;
-                }
+        if (entry != null && entry.getMap() != null) {
+            Map<String, Object> stickyMap = entry.getMap();
+            Evaluation evaluation;
 
-                // variation
-                if (Evaluation.TYPE_VARIATION.equals(type) && stickyMap.containsKey("variation")) {
-                    Object variationValue = stickyMap.get("variation");
+            // flag
+            if (Evaluation.TYPE_FLAG.equals(type) && entry.hasEnabled()) {
+                evaluation = new Evaluation()
+                    .type(type)
+                    .featureKey(featureKey)
+                    .reason(Evaluation.REASON_STICKY)
+                    .sticky(stickyMap)
+                    .enabled((Boolean) entry.getEnabled());
 
-                    if (variationValue != null) {
-                        evaluation = new Evaluation()
-                            .type(type)
-                            .featureKey(featureKey)
-                            .reason(Evaluation.REASON_STICKY)
-                            .variationValue(variationValue.toString());
+                logger.debug("using sticky enabled", null);
 
-                        logger.debug("using sticky variation", null);
+                return evaluation;
+            }
 
-                        return evaluation;
-                    }
-                }
+            // variation
+            if (Evaluation.TYPE_VARIATION.equals(type) && entry.getVariation() != null) {
+                evaluation = new Evaluation()
+                    .type(type)
+                    .featureKey(featureKey)
+                    .reason(Evaluation.REASON_STICKY)
+                    .variationValue(entry.getVariation().toString());
 
-                // variable
-                if (variableKey != null && stickyMap.containsKey("variables")) {
-                    Object variablesObj = stickyMap.get("variables");
+                logger.debug("using sticky variation", null);
 
-                    if (variablesObj instanceof Map) {
-                        @SuppressWarnings("unchecked")
-                        Map<String, Object> variables = (Map<String, Object>) variablesObj;
+                return evaluation;
+            }
 
-                        if (variables.containsKey(variableKey)) {
-                            Object result = variables.get(variableKey);
+            // variable
+            if (variableKey != null && entry.getVariables() != null) {
+                Object result = entry.getVariables().get(variableKey);
 
-                            if (result != null) {
-                                evaluation = new Evaluation()
-                                    .type(type)
-                                    .featureKey(featureKey)
-                                    .reason(Evaluation.REASON_STICKY)
-                                    .variableKey(variableKey)
-                                    .variableValue(result);
+                if (result != null) {
+                    evaluation = new Evaluation()
+                        .type(type)
+                        .featureKey(featureKey)
+                        .reason(Evaluation.REASON_STICKY)
+                        .variableKey(variableKey)
+                        .variableValue(result);
 
-                                logger.debug("using sticky variable", null);
+                    logger.debug("using sticky variable", null);
 
-                                return evaluation;
-                            }
-                        }
-                    }
+                    return evaluation;
                 }
             }
         }
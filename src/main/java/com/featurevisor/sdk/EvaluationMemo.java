@@ -0,0 +1,70 @@
+package com.featurevisor.sdk;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Evaluations of a child instance, kept until its context or sticky features change
+ *
+ * Entries are only valid for the state they were evaluated under, so the memo is cleared whenever
+ * the parent's datafile, context, sticky features or hooks, or the child's own context or sticky
+ * features, are no longer the same objects.
+ */
+final class EvaluationMemo {
+    private final Map<String, Evaluation> flags = new HashMap<>();
+    private final Map<String, Evaluation> variations = new HashMap<>();
+    // keyed by feature key and variable key, separated by a NUL character
+    private final Map<String, Evaluation> variables = new HashMap<>();
+
+    // state the entries were evaluated under, compared by identity as it is replaced rather than modified
+    private final Object[] state = new Object[6];
+
+    /**
+     * Clear the memo if the given state differs from the one it was filled under
+     */
+    synchronized void validate(
+            DatafileReader datafileReader,
+            Map<String, Object> parentContext,
+            Map<String, Object> parentSticky,
+            HooksManager.HookChain hookChain,
+            Map<String, Object> context,
+            Map<String, Object> sticky) {
+        Object[] current = {datafileReader, parentContext, parentSticky, hookChain, context, sticky};
+        for (int i = 0; i < state.length; i++) {
+            if (state[i] != current[i]) {
+                clear();
+                System.arraycopy(current, 0, state, 0, state.length);
+                return;
+            }
+        }
+    }
+
+    synchronized Evaluation get(String type, String featureKey, String variableKey) {
+        return map(type).get(key(type, featureKey, variableKey));
+    }
+
+    synchronized void put(String type, String featureKey, String variableKey, Evaluation evaluation) {
+        map(type).put(key(type, featureKey, variableKey), evaluation);
+    }
+
+    synchronized void clear() {
+        flags.clear();
+        variations.clear();
+        variables.clear();
+    }
+
+    synchronized int size() {
+        return flags.size() + variations.size() + variables.size();
+    }
+
+    private Map<String, Evaluation> map(String type) {
+        if (Evaluation.TYPE_FLAG.equals(type)) {
+            return flags;
+        }
+        return Evaluation.TYPE_VARIATION.equals(type) ? variations : variables;
+    }
+
+    private static String key(String type, String featureKey, String variableKey) {
+        return Evaluation.TYPE_VARIABLE.equals(type) ? featureKey + '\0' + variableKey : featureKey;
+    }
+}
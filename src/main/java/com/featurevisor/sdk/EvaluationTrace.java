@@ -0,0 +1,220 @@
+package com.featurevisor.sdk;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Timings of a single sampled evaluation, recorded by {@link EvaluationTracer}
+ *
+ * Stages are recorded in the order they ran, including the ones of nested evaluations
+ * (the flag evaluation behind a variation or variable, and required features), so each
+ * entry carries the key of the feature it belongs to.
+ */
+public final class EvaluationTrace {
+
+    /**
+     * Time spent in one stage of {@link Evaluate}
+     */
+    public static final class Stage {
+        private final String featureKey;
+        private final String name;
+        private final long durationNanos;
+
+        Stage(String featureKey, String name, long durationNanos) {
+            this.featureKey = featureKey;
+            this.name = name;
+            this.durationNanos = durationNanos;
+        }
+
+        public String getFeatureKey() { return featureKey; }
+        public String getName() { return name; }
+        public long getDurationNanos() { return durationNanos; }
+
+        @Override
+        public String toString() {
+            return featureKey + "/" + name + "=" + durationNanos + "ns";
+        }
+    }
+
+    /**
+     * A traffic rule that was tried, in datafile order
+     */
+    public static final class Rule {
+        private final String featureKey;
+        private final String ruleKey;
+        private final boolean matched;
+        private final long durationNanos;
+
+        Rule(String featureKey, String ruleKey, boolean matched, long durationNanos) {
+            this.featureKey = featureKey;
+            this.ruleKey = ruleKey;
+            this.matched = matched;
+            this.durationNanos = durationNanos;
+        }
+
+        public String getFeatureKey() { return featureKey; }
+        public String getRuleKey() { return ruleKey; }
+        public boolean isMatched() { return matched; }
+        public long getDurationNanos() { return durationNanos; }
+
+        @Override
+        public String toString() {
+            return featureKey + "/" + ruleKey + "=" + matched + " " + durationNanos + "ns";
+        }
+    }
+
+    /**
+     * A segment that was tried while matching a rule or a force entry
+     */
+    public static final class SegmentMatch {
+        private final String featureKey;
+        private final String segmentKey;
+        private final boolean matched;
+        private final long durationNanos;
+
+        SegmentMatch(String featureKey, String segmentKey, boolean matched, long durationNanos) {
+            this.featureKey = featureKey;
+            this.segmentKey = segmentKey;
+            this.matched = matched;
+            this.durationNanos = durationNanos;
+        }
+
+        public String getFeatureKey() { return featureKey; }
+        public String getSegmentKey() { return segmentKey; }
+        public boolean isMatched() { return matched; }
+        public long getDurationNanos() { return durationNanos; }
+
+        @Override
+        public String toString() {
+            return segmentKey + "=" + matched + " " + durationNanos + "ns";
+        }
+    }
+
+    /**
+     * A single condition that was evaluated
+     * Conditions that were skipped by short-circuiting are not recorded.
+     */
+    public static final class ConditionMatch {
+        private final String featureKey;
+        private final String attribute;
+        private final Operator operator;
+        private final boolean matched;
+        private final long durationNanos;
+
+        ConditionMatch(String featureKey, String attribute, Operator operator, boolean matched, long durationNanos) {
+            this.featureKey = featureKey;
+            this.attribute = attribute;
+            this.operator = operator;
+            this.matched = matched;
+            this.durationNanos = durationNanos;
+        }
+
+        public String getFeatureKey() { return featureKey; }
+        public String getAttribute() { return attribute; }
+        public Operator getOperator() { return operator; }
+        public boolean isMatched() { return matched; }
+        public long getDurationNanos() { return durationNanos; }
+
+        @Override
+        public String toString() {
+            return attribute + " " + operator + "=" + matched + " " + durationNanos + "ns";
+        }
+    }
+
+    private final String type;
+    private final String featureKey;
+    private final String variableKey;
+    private final List<Stage> stages = new ArrayList<>();
+    private final List<Rule> rules = new ArrayList<>();
+    private final List<SegmentMatch> segments = new ArrayList<>();
+    private final List<ConditionMatch> conditions = new ArrayList<>();
+
+    private String currentFeatureKey;
+    private String reason;
+    private long durationNanos;
+
+    public EvaluationTrace(String type, String featureKey, String variableKey) {
+        this.type = type;
+        this.featureKey = featureKey;
+        this.variableKey = variableKey;
+        this.currentFeatureKey = featureKey;
+    }
+
+    /**
+     * Start timing the stages of a feature
+     * @return The current time, to be passed to {@link #stage(String, String, long)}
+     */
+    long enter(String featureKey) {
+        this.currentFeatureKey = featureKey;
+        return System.nanoTime();
+    }
+
+    /**
+     * Record a stage that started at the given time
+     * @return The current time, which is the start of the next stage
+     */
+    long stage(String featureKey, String name, long startNanos) {
+        long now = System.nanoTime();
+        this.currentFeatureKey = featureKey;
+        stages.add(new Stage(featureKey, name, now - startNanos));
+        return now;
+    }
+
+    void rule(String ruleKey, boolean matched, long durationNanos) {
+        rules.add(new Rule(currentFeatureKey, ruleKey, matched, durationNanos));
+    }
+
+    void segment(String segmentKey, boolean matched, long durationNanos) {
+        segments.add(new SegmentMatch(currentFeatureKey, segmentKey, matched, durationNanos));
+    }
+
+    void condition(String attribute, Operator operator, boolean matched, long durationNanos) {
+        conditions.add(new ConditionMatch(currentFeatureKey, attribute, operator, matched, durationNanos));
+    }
+
+    void finish(String reason, long durationNanos) {
+        this.reason = reason;
+        this.durationNanos = durationNanos;
+    }
+
+    public String getType() { return type; }
+    public String getFeatureKey() { return featureKey; }
+    public String getVariableKey() { return variableKey; }
+    public String getReason() { return reason; }
+    public long getDurationNanos() { return durationNanos; }
+    public List<Stage> getStages() { return Collections.unmodifiableList(stages); }
+    public List<Rule> getRules() { return Collections.unmodifiableList(rules); }
+    public List<SegmentMatch> getSegments() { return Collections.unmodifiableList(segments); }
+    public List<ConditionMatch> getConditions() { return Collections.unmodifiableList(conditions); }
+
+    /**
+     * Total time of the stages with the given name, across nested evaluations
+     * @param name The stage name, for example {@link EvaluationTracer#STAGE_BUCKETING}
+     * @return The duration in nanoseconds
+     */
+    public long getStageNanos(String name) {
+        long total = 0;
+        for (Stage stage : stages) {
+            if (stage.getName().equals(name)) {
+                total += stage.getDurationNanos();
+            }
+        }
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        return "EvaluationTrace{" +
+                "type='" + type + '\'' +
+                ", featureKey='" + featureKey + '\'' +
+                ", variableKey='" + variableKey + '\'' +
+                ", reason='" + reason + '\'' +
+                ", durationNanos=" + durationNanos +
+                ", stages=" + stages +
+                ", rules=" + rules +
+                ", segments=" + segments +
+                ", conditions=" + conditions +
+                '}';
+    }
+}
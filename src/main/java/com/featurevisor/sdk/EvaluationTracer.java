@@ -0,0 +1,105 @@
+package com.featurevisor.sdk;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+
+/**
+ * Samples evaluations and records an {@link EvaluationTrace} for them
+ *
+ * Traces are handed to the consumer on the evaluating thread, after the evaluation
+ * (including its hooks) has finished.
+ */
+public class EvaluationTracer {
+    public static final String STAGE_FLAG = "flag";
+    public static final String STAGE_STICKY = "sticky";
+    public static final String STAGE_NOT_FOUND = "notFound";
+    public static final String STAGE_FORCED = "forced";
+    public static final String STAGE_REQUIRED = "required";
+    public static final String STAGE_BUCKETING = "bucketing";
+
+    /**
+     * Options for the tracer
+     */
+    public static class EvaluationTracerOptions {
+        private int sampleRate = 1000;
+        private Consumer<EvaluationTrace> consumer;
+        private Logger logger;
+
+        public EvaluationTracerOptions() {}
+
+        /**
+         * Trace one in every N evaluations on average, 1 traces all of them
+         */
+        public EvaluationTracerOptions sampleRate(int sampleRate) {
+            this.sampleRate = sampleRate;
+            return this;
+        }
+
+        public EvaluationTracerOptions consumer(Consumer<EvaluationTrace> consumer) {
+            this.consumer = consumer;
+            return this;
+        }
+
+        public EvaluationTracerOptions logger(Logger logger) {
+            this.logger = logger;
+            return this;
+        }
+
+        public int getSampleRate() { return sampleRate; }
+        public Consumer<EvaluationTrace> getConsumer() { return consumer; }
+        public Logger getLogger() { return logger; }
+
+        public void setSampleRate(int sampleRate) { this.sampleRate = sampleRate; }
+        public void setConsumer(Consumer<EvaluationTrace> consumer) { this.consumer = consumer; }
+        public void setLogger(Logger logger) { this.logger = logger; }
+    }
+
+    private final int sampleRate;
+    private final Consumer<EvaluationTrace> consumer;
+    private final Logger logger;
+
+    public EvaluationTracer(EvaluationTracerOptions options) {
+        if (options.getConsumer() == null) {
+            throw new IllegalArgumentException("consumer is required");
+        }
+        if (options.getSampleRate() < 1) {
+            throw new IllegalArgumentException("sampleRate must be at least 1");
+        }
+
+        this.sampleRate = options.getSampleRate();
+        this.consumer = options.getConsumer();
+        this.logger = options.getLogger() != null ?
+            options.getLogger() :
+            Logger.createLogger(new Logger.CreateLoggerOptions());
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * Decide whether the next evaluation is traced
+     * @return True if it should be traced
+     */
+    public boolean sample() {
+        return sampleRate == 1 || ThreadLocalRandom.current().nextInt(sampleRate) == 0;
+    }
+
+    /**
+     * Hand a finished trace to the consumer
+     * Errors thrown by the consumer are logged and do not affect the evaluation.
+     * @param trace The finished trace
+     */
+    public void publish(EvaluationTrace trace) {
+        try {
+            consumer.accept(trace);
+        } catch (Exception e) {
+            Map<String, Object> details = new HashMap<>();
+            details.put("featureKey", trace.getFeatureKey());
+            details.put("error", e.getMessage());
+            logger.error("error in trace consumer", details);
+        }
+    }
+}
@@ -5,6 +5,8 @@ import com.featurevisor.sdk.DatafileContent;
 import java.util.Map;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.Set;
 import java.util.Arrays;
 import java.util.stream.Collectors;
 
@@ -33,17 +35,11 @@ public class Events {
             newStickyFeatures = new java.util.HashMap<>();
         }
 
-        List<String> keysBefore = new ArrayList<>(previousStickyFeatures.keySet());
-        List<String> keysAfter = new ArrayList<>(newStickyFeatures.keySet());
-
         // Combine all keys and get unique features affected
-        List<String> allKeys = new ArrayList<>();
-        allKeys.addAll(keysBefore);
-        allKeys.addAll(keysAfter);
+        Set<String> allKeys = new LinkedHashSet<>(previousStickyFeatures.keySet());
+        allKeys.addAll(newStickyFeatures.keySet());
 
-        List<String> uniqueFeaturesAffected = allKeys.stream()
-                .distinct()
-                .collect(Collectors.toList());
+        List<String> uniqueFeaturesAffected = new ArrayList<>(allKeys);
 
         Emitter.EventDetails details = new Emitter.EventDetails();
         details.put("features", uniqueFeaturesAffected);
@@ -0,0 +1,39 @@
+package com.featurevisor.sdk;
+
+/**
+ * A record of the variation a user was exposed to
+ * Produced by {@link ExposureTracker} and written to an {@link ExposureSink}
+ */
+public final class Exposure {
+    private final String featureKey;
+    private final String userId;
+    private final String variation;
+    private final String reason;
+    private final long timestamp;
+
+    public Exposure(String featureKey, String userId, String variation, String reason, long timestamp) {
+        this.featureKey = featureKey;
+        this.userId = userId;
+        this.variation = variation;
+        this.reason = reason;
+        this.timestamp = timestamp;
+    }
+
+    // Getters
+    public String getFeatureKey() { return featureKey; }
+    public String getUserId() { return userId; }
+    public String getVariation() { return variation; }
+    public String getReason() { return reason; }
+    public long getTimestamp() { return timestamp; }
+
+    @Override
+    public String toString() {
+        return "Exposure{" +
+                "featureKey='" + featureKey + '\'' +
+                ", userId='" + userId + '\'' +
+                ", variation='" + variation + '\'' +
+                ", reason='" + reason + '\'' +
+                ", timestamp=" + timestamp +
+                '}';
+    }
+}
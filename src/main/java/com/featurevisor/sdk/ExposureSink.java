@@ -0,0 +1,22 @@
+package com.featurevisor.sdk;
+
+import java.util.List;
+
+/**
+ * Destination of batches of exposures flushed by {@link ExposureTracker}
+ * Called from the tracker's background thread, one batch at a time
+ */
+public interface ExposureSink {
+
+    /**
+     * Write a batch of exposures
+     * @param exposures The exposures, in the order they were tracked
+     * @throws Exception If the batch could not be written, the batch is then dropped
+     */
+    void write(List<Exposure> exposures) throws Exception;
+
+    /**
+     * Release resources held by the sink, called when the tracker is closed
+     */
+    default void close() throws Exception {}
+}
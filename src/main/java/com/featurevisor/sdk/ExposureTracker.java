@@ -0,0 +1,513 @@
+package com.featurevisor.sdk;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Tracks which variations users are exposed to, without blocking evaluations
+ *
+ * Exposures are recorded from an after hook into a bounded lock-free ring buffer,
+ * deduplicated by user, feature and variation within a time window, and flushed
+ * in batches to an {@link ExposureSink} from a background thread.
+ *
+ * <pre>
+ * ExposureTracker tracker = new ExposureTracker(new ExposureTracker.ExposureTrackerOptions()
+ *     .sink(new FileExposureSink(Paths.get("exposures.jsonl"))));
+ * f.addHook(tracker.getHook());
+ * </pre>
+ */
+public class ExposureTracker implements AutoCloseable {
+
+    /**
+     * What to do when the buffer is full
+     */
+    public enum DropPolicy {
+        /** Drop the exposure being tracked */
+        DROP_NEWEST,
+        /** Drop the oldest buffered exposure to make room */
+        DROP_OLDEST
+    }
+
+    /**
+     * Options for creating an exposure tracker
+     */
+    public static class ExposureTrackerOptions {
+        private ExposureSink sink;
+        private Logger logger;
+        private String userIdAttribute = "userId";
+        private int bufferCapacity = 8192;
+        private int batchSize = 500;
+        private long flushIntervalMillis = 1000;
+        private long dedupWindowMillis = TimeUnit.MINUTES.toMillis(10);
+        private int dedupMaxEntries = 100_000;
+        private DropPolicy dropPolicy = DropPolicy.DROP_NEWEST;
+        private boolean trackFlags = false;
+
+        public ExposureTrackerOptions() {}
+
+        public ExposureTrackerOptions sink(ExposureSink sink) {
+            this.sink = sink;
+            return this;
+        }
+
+        public ExposureTrackerOptions logger(Logger logger) {
+            this.logger = logger;
+            return this;
+        }
+
+        /**
+         * Context attribute identifying the user, dot-separated paths are supported
+         */
+        public ExposureTrackerOptions userIdAttribute(String userIdAttribute) {
+            this.userIdAttribute = userIdAttribute;
+            return this;
+        }
+
+        /**
+         * Capacity of the ring buffer, rounded up to a power of two
+         */
+        public ExposureTrackerOptions bufferCapacity(int bufferCapacity) {
+            this.bufferCapacity = bufferCapacity;
+            return this;
+        }
+
+        public ExposureTrackerOptions batchSize(int batchSize) {
+            this.batchSize = batchSize;
+            return this;
+        }
+
+        public ExposureTrackerOptions flushIntervalMillis(long flushIntervalMillis) {
+            this.flushIntervalMillis = flushIntervalMillis;
+            return this;
+        }
+
+        /**
+         * Exposures of the same user, feature and variation within this window are tracked once,
+         * 0 disables deduplication. Exposures without a user are never deduplicated
+         */
+        public ExposureTrackerOptions dedupWindowMillis(long dedupWindowMillis) {
+            this.dedupWindowMillis = dedupWindowMillis;
+            return this;
+        }
+
+        /**
+         * Maximum number of remembered exposures for deduplication, enforced on each background flush
+         * Above it the oldest are forgotten first, so their users may be tracked again within the window
+         */
+        public ExposureTrackerOptions dedupMaxEntries(int dedupMaxEntries) {
+            this.dedupMaxEntries = dedupMaxEntries;
+            return this;
+        }
+
+        public ExposureTrackerOptions dropPolicy(DropPolicy dropPolicy) {
+            this.dropPolicy = dropPolicy;
+            return this;
+        }
+
+        /**
+         * Also track flag evaluations, with "true" or "false" as the variation
+         */
+        public ExposureTrackerOptions trackFlags(boolean trackFlags) {
+            this.trackFlags = trackFlags;
+            return this;
+        }
+
+        // Getters
+        public ExposureSink getSink() { return sink; }
+        public Logger getLogger() { return logger; }
+        public String getUserIdAttribute() { return userIdAttribute; }
+        public int getBufferCapacity() { return bufferCapacity; }
+        public int getBatchSize() { return batchSize; }
+        public long getFlushIntervalMillis() { return flushIntervalMillis; }
+        public long getDedupWindowMillis() { return dedupWindowMillis; }
+        public int getDedupMaxEntries() { return dedupMaxEntries; }
+        public DropPolicy getDropPolicy() { return dropPolicy; }
+        public boolean isTrackFlags() { return trackFlags; }
+    }
+
+    public static final String HOOK_NAME = "exposure-tracker";
+
+    private final ExposureSink sink;
+    private final Logger logger;
+    private final String userIdAttribute;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+    private final long dedupWindowMillis;
+    private final int dedupMaxEntries;
+    private final DropPolicy dropPolicy;
+    private final boolean trackFlags;
+
+    private final RingBuffer buffer;
+    private final Map<String, Long> lastSeen = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final HooksManager.Hook hook;
+    private final Thread flusher;
+    private volatile boolean closed;
+
+    // tracks between their closed check and their offer, which close waits for before its last flush
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    // metrics
+    private final LongAdder tracked = new LongAdder();
+    private final LongAdder deduplicated = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder flushed = new LongAdder();
+    private final LongAdder sinkErrors = new LongAdder();
+
+    public ExposureTracker(ExposureTrackerOptions options) {
+        if (options.getSink() == null) {
+            throw new IllegalArgumentException("Exposure sink is required");
+        }
+
+        this.sink = options.getSink();
+        this.logger = options.getLogger() != null ? options.getLogger() : Logger.createLogger();
+        this.userIdAttribute = options.getUserIdAttribute();
+        this.batchSize = Math.max(1, options.getBatchSize());
+        this.flushIntervalMillis = Math.max(1, options.getFlushIntervalMillis());
+        this.dedupWindowMillis = options.getDedupWindowMillis();
+        this.dedupMaxEntries = options.getDedupMaxEntries();
+        this.dropPolicy = options.getDropPolicy() != null ? options.getDropPolicy() : DropPolicy.DROP_NEWEST;
+        this.trackFlags = options.isTrackFlags();
+        this.buffer = new RingBuffer(options.getBufferCapacity());
+
+        this.hook = new HooksManager.Hook(HOOK_NAME)
+            .after((evaluation, evaluateOptions) -> {
+                track(evaluation, evaluateOptions.getContext());
+                return evaluation;
+            });
+
+        this.flusher = new Thread(this::runFlusher, "featurevisor-exposures");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * Get the after hook recording exposures, to be added to an instance or a {@link HooksManager}
+     * @return The hook
+     */
+    public HooksManager.Hook getHook() {
+        return hook;
+    }
+
+    /**
+     * Track the exposure of an evaluation, if it is a variation (or flag) evaluation
+     * @param evaluation The evaluation
+     * @param context The context of the evaluation
+     */
+    public void track(Evaluation evaluation, Map<String, Object> context) {
+        if (closed || evaluation == null) {
+            return;
+        }
+
+        String variation;
+        if (Evaluation.TYPE_VARIATION.equals(evaluation.getType())) {
+            variation = evaluation.getVariationValue();
+            if (variation == null && evaluation.getVariation() != null) {
+                variation = evaluation.getVariation().getValue();
+            }
+        } else if (trackFlags && Evaluation.TYPE_FLAG.equals(evaluation.getType())) {
+            variation = Boolean.TRUE.equals(evaluation.getEnabled()) ? "true" : "false";
+        } else {
+            return;
+        }
+
+        if (variation == null) {
+            return;
+        }
+
+        Object userIdValue = context != null ? ContextUtils.getValueFromContext(context, userIdAttribute) : null;
+        String userId = userIdValue != null ? String.valueOf(userIdValue) : null;
+
+        track(evaluation.getFeatureKey(), userId, variation, evaluation.getReason());
+    }
+
+    /**
+     * Track an exposure
+     * @param featureKey The feature key
+     * @param userId The user, may be null
+     * @param variation The variation the user was exposed to
+     * @param reason The evaluation reason, may be null
+     */
+    public void track(String featureKey, String userId, String variation, String reason) {
+        inFlight.incrementAndGet();
+        try {
+            if (!closed) {
+                trackExposure(featureKey, userId, variation, reason);
+            }
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    private void trackExposure(String featureKey, String userId, String variation, String reason) {
+        long now = System.currentTimeMillis();
+
+        // anonymous exposures cannot be told apart, so they are all tracked
+        String seenKey = dedupWindowMillis > 0 && userId != null ?
+            userId + '\u0000' + featureKey + '\u0000' + variation :
+            null;
+        if (seenKey != null && !markSeen(seenKey, now)) {
+            deduplicated.increment();
+            return;
+        }
+
+        Exposure exposure = new Exposure(featureKey, userId, variation, reason, now);
+
+        if (!offer(exposure)) {
+            // not reported, so the exposure is not seen either
+            if (seenKey != null) {
+                lastSeen.remove(seenKey, now);
+            }
+            return;
+        }
+
+        tracked.increment();
+
+        if (buffer.size() >= batchSize) {
+            LockSupport.unpark(flusher);
+        }
+    }
+
+    /**
+     * Add an exposure to the buffer following the drop policy
+     * @return True if it was added
+     */
+    private boolean offer(Exposure exposure) {
+        if (!buffer.offer(exposure)) {
+            if (dropPolicy == DropPolicy.DROP_OLDEST) {
+                // make room, retrying a few times in case other threads fill it again
+                boolean added = false;
+                for (int i = 0; i < 4 && !added; i++) {
+                    if (buffer.poll() != null) {
+                        dropped.increment();
+                    }
+                    added = buffer.offer(exposure);
+                }
+                if (!added) {
+                    dropped.increment();
+                    return false;
+                }
+            } else {
+                dropped.increment();
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Remember an exposure for deduplication
+     * @return True if it was not seen within the window
+     */
+    private boolean markSeen(String key, long now) {
+        Long previous = lastSeen.get(key);
+        if (previous != null && now - previous < dedupWindowMillis) {
+            return false;
+        }
+
+        if (previous == null) {
+            return lastSeen.putIfAbsent(key, now) == null;
+        }
+        return lastSeen.replace(key, previous, now);
+    }
+
+    /**
+     * Write all buffered exposures to the sink on the calling thread
+     */
+    public void flush() {
+        flushLock.lock();
+        try {
+            List<Exposure> batch = new ArrayList<>(Math.min(batchSize, buffer.capacity()));
+            Exposure exposure;
+
+            while ((exposure = buffer.poll()) != null) {
+                batch.add(exposure);
+                if (batch.size() >= batchSize) {
+                    writeBatch(batch);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+
+            if (!batch.isEmpty()) {
+                writeBatch(batch);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void writeBatch(List<Exposure> batch) {
+        try {
+            sink.write(batch);
+            flushed.add(batch.size());
+        } catch (Exception e) {
+            sinkErrors.increment();
+            dropped.add(batch.size());
+
+            Map<String, Object> details = new HashMap<>();
+            details.put("error", e.getMessage());
+            details.put("exposures", batch.size());
+            logger.error("could not write exposures", details);
+        }
+    }
+
+    private void runFlusher() {
+        while (!closed) {
+            LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis));
+
+            if (closed) {
+                break;
+            }
+
+            flush();
+            expireSeen();
+        }
+    }
+
+    /**
+     * Forget exposures that are out of the deduplication window, and bound the number remembered
+     */
+    void expireSeen() {
+        if (dedupWindowMillis <= 0 || lastSeen.isEmpty()) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        lastSeen.values().removeIf(seen -> now - seen >= dedupWindowMillis);
+
+        int excess = lastSeen.size() - Math.max(0, dedupMaxEntries);
+        if (excess > 0) {
+            // forget the oldest, whose users are the least likely to be exposed again within the window
+            long[] seen = lastSeen.values().stream().mapToLong(Long::longValue).sorted().toArray();
+            long cutoff = seen[Math.min(excess, seen.length) - 1];
+            lastSeen.values().removeIf(time -> time <= cutoff);
+        }
+    }
+
+    int getSeenCount() {
+        return lastSeen.size();
+    }
+
+    /**
+     * Stop the background thread, flush remaining exposures and close the sink
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        LockSupport.unpark(flusher);
+        try {
+            flusher.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // tracks that passed the closed check before it was set are buffered before the last flush
+        while (inFlight.get() > 0) {
+            Thread.onSpinWait();
+        }
+
+        flush();
+
+        try {
+            sink.close();
+        } catch (Exception e) {
+            logger.error("could not close exposure sink", Map.of("error", String.valueOf(e.getMessage())));
+        }
+    }
+
+    // Metrics
+    public long getTrackedCount() { return tracked.sum(); }
+    public long getDeduplicatedCount() { return deduplicated.sum(); }
+    public long getDroppedCount() { return dropped.sum(); }
+    public long getFlushedCount() { return flushed.sum(); }
+    public long getSinkErrorCount() { return sinkErrors.sum(); }
+    public int getBufferedCount() { return buffer.size(); }
+
+    /**
+     * Bounded multi-producer, multi-consumer ring buffer
+     * Each slot carries a sequence number telling producers and consumers whose turn it is,
+     * so offer and poll only need a CAS on the tail or head counter.
+     */
+    static final class RingBuffer {
+        private final int mask;
+        private final AtomicReferenceArray<Exposure> slots;
+        private final AtomicLongArray sequences;
+        private final AtomicLong head = new AtomicLong();
+        private final AtomicLong tail = new AtomicLong();
+
+        RingBuffer(int requestedCapacity) {
+            int capacity = 2;
+            while (capacity < requestedCapacity) {
+                capacity <<= 1;
+            }
+            this.mask = capacity - 1;
+            this.slots = new AtomicReferenceArray<>(capacity);
+            this.sequences = new AtomicLongArray(capacity);
+            for (int i = 0; i < capacity; i++) {
+                sequences.set(i, i);
+            }
+        }
+
+        boolean offer(Exposure exposure) {
+            while (true) {
+                long position = tail.get();
+                int index = (int) position & mask;
+                long difference = sequences.get(index) - position;
+
+                if (difference == 0) {
+                    if (tail.compareAndSet(position, position + 1)) {
+                        slots.set(index, exposure);
+                        sequences.set(index, position + 1);
+                        return true;
+                    }
+                } else if (difference < 0) {
+                    // full
+                    return false;
+                }
+            }
+        }
+
+        Exposure poll() {
+            while (true) {
+                long position = head.get();
+                int index = (int) position & mask;
+                long difference = sequences.get(index) - (position + 1);
+
+                if (difference == 0) {
+                    if (head.compareAndSet(position, position + 1)) {
+                        Exposure exposure = slots.getAndSet(index, null);
+                        sequences.set(index, position + mask + 1);
+                        return exposure;
+                    }
+                } else if (difference < 0) {
+                    // empty
+                    return null;
+                }
+            }
+        }
+
+        int size() {
+            return (int) Math.max(0, tail.get() - head.get());
+        }
+
+        int capacity() {
+            return mask + 1;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.featurevisor.sdk;
+
+import java.util.Map;
+
+/**
+ * Handle of a feature, created once and evaluated many times
+ *
+ * The feature is looked up once per datafile revision rather than on every evaluation, and
+ * evaluated against the same datafile it was looked up in.
+ */
+public abstract class FeatureHandle {
+    final Featurevisor featurevisor;
+    final String featureKey;
+
+    // replaced whenever the instance has a new datafile reader
+    private volatile Resolved resolved;
+
+    private static final class Resolved {
+        private final DatafileReader datafileReader;
+        private final Feature feature;
+
+        Resolved(DatafileReader datafileReader, Feature feature) {
+            this.datafileReader = datafileReader;
+            this.feature = feature;
+        }
+    }
+
+    FeatureHandle(Featurevisor featurevisor, String featureKey) {
+        this.featurevisor = featurevisor;
+        this.featureKey = featureKey;
+    }
+
+    public String getFeatureKey() {
+        return featureKey;
+    }
+
+    /**
+     * Whether the feature exists in the current datafile
+     */
+    public boolean exists() {
+        return resolve().feature != null;
+    }
+
+    Evaluation evaluate(String type, String variableKey, Map<String, Object> context) {
+        Resolved current = resolve();
+        return featurevisor.evaluateResolved(
+            type, featureKey, variableKey, context, current.datafileReader, current.feature);
+    }
+
+    private Resolved resolve() {
+        DatafileReader datafileReader = featurevisor.getDatafileReader();
+        Resolved current = resolved;
+        if (current == null || current.datafileReader != datafileReader) {
+            current = new Resolved(datafileReader, datafileReader.getFeature(featureKey));
+            resolved = current;
+        }
+        return current;
+    }
+}
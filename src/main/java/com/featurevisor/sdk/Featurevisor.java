@@ -12,6 +12,14 @@ import java.util.Map;
 import java.util.HashMap;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Main Featurevisor SDK class
@@ -23,12 +31,20 @@ public class Featurevisor {
     // from options
     private Map<String, Object> context = new HashMap<>();
     private Logger logger;
-    private Map<String, Object> sticky;
+    private StickyMap sticky;
 
     // internally created
     private DatafileReader datafileReader;
     private HooksManager hooksManager;
     private Emitter emitter;
+    private boolean compactConditionValues;
+    private boolean compileTrafficRules;
+    private FeaturevisorMetrics metrics;
+    private EvaluationTracer tracer;
+    private boolean instrumented;
+    private int parallelEvaluationsThreshold;
+    private Executor parallelEvaluationsExecutor;
+    private WarmUpOptions warmUp;
 
     private static final DatafileContent emptyDatafile;
 
@@ -93,6 +109,14 @@ public class Featurevisor {
         private Logger logger;
         private Map<String, Object> sticky;
         private List<HooksManager.Hook> hooks;
+        private boolean compactConditionValues;
+        private boolean compileTrafficRules;
+        private Emitter.EmitterOptions emitterOptions;
+        private FeaturevisorMetrics metrics;
+        private EvaluationTracer tracer;
+        private int parallelEvaluationsThreshold;
+        private Executor parallelEvaluationsExecutor;
+        private WarmUpOptions warmUp;
 
         public Options() {}
 
@@ -104,6 +128,14 @@ public class Featurevisor {
         public Logger getLogger() { return logger; }
         public Map<String, Object> getSticky() { return sticky; }
         public List<HooksManager.Hook> getHooks() { return hooks; }
+        public boolean isCompactConditionValues() { return compactConditionValues; }
+        public boolean isCompileTrafficRules() { return compileTrafficRules; }
+        public Emitter.EmitterOptions getEmitterOptions() { return emitterOptions; }
+        public FeaturevisorMetrics getMetrics() { return metrics; }
+        public EvaluationTracer getTracer() { return tracer; }
+        public int getParallelEvaluationsThreshold() { return parallelEvaluationsThreshold; }
+        public Executor getParallelEvaluationsExecutor() { return parallelEvaluationsExecutor; }
+        public WarmUpOptions getWarmUp() { return warmUp; }
 
         // Setters
         public void setDatafile(DatafileContent datafile) { this.datafile = datafile; }
@@ -113,6 +145,14 @@ public class Featurevisor {
         public void setLogger(Logger logger) { this.logger = logger; }
         public void setSticky(Map<String, Object> sticky) { this.sticky = sticky; }
         public void setHooks(List<HooksManager.Hook> hooks) { this.hooks = hooks; }
+        public void setCompactConditionValues(boolean compactConditionValues) { this.compactConditionValues = compactConditionValues; }
+        public void setCompileTrafficRules(boolean compileTrafficRules) { this.compileTrafficRules = compileTrafficRules; }
+        public void setEmitterOptions(Emitter.EmitterOptions emitterOptions) { this.emitterOptions = emitterOptions; }
+        public void setMetrics(FeaturevisorMetrics metrics) { this.metrics = metrics; }
+        public void setTracer(EvaluationTracer tracer) { this.tracer = tracer; }
+        public void setParallelEvaluationsThreshold(int parallelEvaluationsThreshold) { this.parallelEvaluationsThreshold = parallelEvaluationsThreshold; }
+        public void setParallelEvaluationsExecutor(Executor parallelEvaluationsExecutor) { this.parallelEvaluationsExecutor = parallelEvaluationsExecutor; }
+        public void setWarmUp(WarmUpOptions warmUp) { this.warmUp = warmUp; }
 
         // Builder pattern methods
         public Options datafile(DatafileContent datafile) {
@@ -149,6 +189,121 @@ public class Featurevisor {
             this.hooks = hooks;
             return this;
         }
+
+        /**
+         * Store large in/notIn condition value lists compactly, replacing them in the datafile
+         */
+        public Options compactConditionValues(boolean compactConditionValues) {
+            this.compactConditionValues = compactConditionValues;
+            return this;
+        }
+
+        /**
+         * Switch traffic rules on the attribute their segments constrain most, evaluating only the rules a context can match
+         */
+        public Options compileTrafficRules(boolean compileTrafficRules) {
+            this.compileTrafficRules = compileTrafficRules;
+            return this;
+        }
+
+        /**
+         * Configure event delivery, for example async dispatch of listeners
+         */
+        public Options emitterOptions(Emitter.EmitterOptions emitterOptions) {
+            this.emitterOptions = emitterOptions;
+            return this;
+        }
+
+        /**
+         * Report evaluation, datafile, cache and hook metrics, for example to {@link DefaultFeaturevisorMetrics}
+         */
+        public Options metrics(FeaturevisorMetrics metrics) {
+            this.metrics = metrics;
+            return this;
+        }
+
+        /**
+         * Record per-stage timings for a sample of evaluations
+         */
+        public Options tracer(EvaluationTracer tracer) {
+            this.tracer = tracer;
+            return this;
+        }
+
+        /**
+         * Evaluate features in parallel in {@link #getAllEvaluations} once there are at least this many, 0 to never
+         */
+        public Options parallelEvaluationsThreshold(int parallelEvaluationsThreshold) {
+            this.parallelEvaluationsThreshold = parallelEvaluationsThreshold;
+            return this;
+        }
+
+        /**
+         * Executor for parallel evaluations, the common ForkJoin pool by default
+         * The calling thread evaluates features too and never waits for a task the executor has not
+         * started, so the executor may be bounded, or be the one that calls {@link #getAllEvaluations}
+         */
+        public Options parallelEvaluationsExecutor(Executor parallelEvaluationsExecutor) {
+            this.parallelEvaluationsExecutor = parallelEvaluationsExecutor;
+            return this;
+        }
+
+        /**
+         * Evaluate features against sample contexts whenever a datafile is loaded, before it is used
+         */
+        public Options warmUp(WarmUpOptions warmUp) {
+            this.warmUp = warmUp;
+            return this;
+        }
+    }
+
+    /**
+     * Options for warming up a datafile before it is used
+     *
+     * Warm-up evaluations do not run hooks, record metrics or emit events.
+     */
+    public static class WarmUpOptions {
+        private List<Map<String, Object>> contexts;
+        private List<String> featureKeys;
+        private int iterations = 1;
+
+        public WarmUpOptions() {}
+
+        // Getters
+        public List<Map<String, Object>> getContexts() { return contexts; }
+        public List<String> getFeatureKeys() { return featureKeys; }
+        public int getIterations() { return iterations; }
+
+        // Setters
+        public void setContexts(List<Map<String, Object>> contexts) { this.contexts = contexts; }
+        public void setFeatureKeys(List<String> featureKeys) { this.featureKeys = featureKeys; }
+        public void setIterations(int iterations) { this.iterations = iterations; }
+
+        // Builder pattern methods
+
+        /**
+         * Sample contexts to evaluate against, merged over the instance's context
+         */
+        public WarmUpOptions contexts(List<Map<String, Object>> contexts) {
+            this.contexts = contexts;
+            return this;
+        }
+
+        /**
+         * Features to evaluate, all features of the datafile if not set
+         */
+        public WarmUpOptions featureKeys(List<String> featureKeys) {
+            this.featureKeys = featureKeys;
+            return this;
+        }
+
+        /**
+         * Number of times to evaluate each feature against each context
+         */
+        public WarmUpOptions iterations(int iterations) {
+            this.iterations = iterations;
+            return this;
+        }
     }
 
     /**
@@ -159,6 +314,10 @@ public class Featurevisor {
         private String defaultVariationValue;
         private Object defaultVariableValue;
         private Evaluation flagEvaluation;
+        // set by child instances memoizing their evaluations
+        EvaluationMemo memo;
+        // set by getAllEvaluations, sharing bucket key prefix hashing states across features
+        Map<String, MurmurHash.State> bucketKeyPrefixStates;
 
         public OverrideOptions() {}
 
@@ -211,35 +370,136 @@ public class Featurevisor {
                 options.getLogLevel() != null ? options.getLogLevel() : Logger.LogLevel.INFO
             ));
 
+        this.metrics = options.getMetrics();
+        this.tracer = options.getTracer();
+        this.instrumented = this.metrics != null || this.tracer != null;
+        this.parallelEvaluationsThreshold = options.getParallelEvaluationsThreshold();
+        this.parallelEvaluationsExecutor = options.getParallelEvaluationsExecutor() != null ?
+            options.getParallelEvaluationsExecutor() :
+            ForkJoinPool.commonPool();
+
         this.hooksManager = new HooksManager(new HooksManager.HooksManagerOptions(this.logger)
-            .hooks(options.getHooks() != null ? options.getHooks() : new ArrayList<>()));
+            .hooks(options.getHooks() != null ? options.getHooks() : new ArrayList<>())
+            .metrics(this.metrics));
 
-        this.emitter = new Emitter();
-        this.sticky = options.getSticky();
+        this.emitter = options.getEmitterOptions() != null ?
+            new Emitter(options.getEmitterOptions()) :
+            new Emitter();
+        this.sticky = options.getSticky() != null ? StickyMap.of(options.getSticky()) : null;
+        this.compactConditionValues = options.isCompactConditionValues();
+        this.compileTrafficRules = options.isCompileTrafficRules();
+        this.warmUp = options.getWarmUp();
 
         // datafile
-        this.datafileReader = new DatafileReader(new DatafileReader.DatafileReaderOptions()
-            .datafile(emptyDatafile)
-            .logger(this.logger));
-
         if (options.getDatafile() != null) {
-            this.datafileReader = new DatafileReader(new DatafileReader.DatafileReaderOptions()
-                .datafile(options.getDatafile())
-                .logger(this.logger));
+            this.datafileReader = createDatafileReader(options.getDatafile());
         } else if (options.getDatafileString() != null) {
             try {
-                DatafileContent datafile = DatafileContent.fromJson(options.getDatafileString());
-                this.datafileReader = new DatafileReader(new DatafileReader.DatafileReaderOptions()
-                    .datafile(datafile)
-                    .logger(this.logger));
+                DatafileContent datafile = parseDatafile(options.getDatafileString());
+                this.datafileReader = createDatafileReader(datafile);
             } catch (Exception e) {
                 this.logger.error("could not parse datafile string", Map.of("error", e.getMessage()));
             }
         }
 
+        if (this.datafileReader == null) {
+            this.datafileReader = createDatafileReader(emptyDatafile);
+        } else {
+            warmUp(this.datafileReader);
+        }
+
         this.logger.info("Featurevisor SDK initialized", null);
     }
 
+    private DatafileReader createDatafileReader(DatafileContent datafile) {
+        long start = this.metrics != null ? System.nanoTime() : 0;
+
+        DatafileReader reader = new DatafileReader(new DatafileReader.DatafileReaderOptions()
+            .datafile(datafile)
+            .logger(this.logger)
+            .compactConditionValues(this.compactConditionValues)
+            .compileTrafficRules(this.compileTrafficRules)
+            .metrics(this.metrics));
+
+        if (this.metrics != null) {
+            this.metrics.recordDatafileCompile(System.nanoTime() - start);
+        }
+        return reader;
+    }
+
+    /**
+     * Evaluate the configured features against the warm-up contexts, returning the nanoseconds spent
+     */
+    private long warmUp(DatafileReader reader) {
+        if (this.warmUp == null) {
+            return 0;
+        }
+
+        long start = System.nanoTime();
+
+        List<String> featureKeys = this.warmUp.getFeatureKeys() != null ?
+            this.warmUp.getFeatureKeys() :
+            reader.getFeatureKeys();
+        List<Map<String, Object>> contexts = this.warmUp.getContexts() != null && !this.warmUp.getContexts().isEmpty() ?
+            this.warmUp.getContexts() :
+            Collections.singletonList(Collections.emptyMap());
+
+        for (int iteration = 0; iteration < this.warmUp.getIterations(); iteration++) {
+            for (Map<String, Object> context : contexts) {
+                Map<String, Object> mergedContext = getContext(context);
+                Map<String, MurmurHash.State> bucketKeyPrefixStates = new HashMap<>();
+
+                for (String featureKey : featureKeys) {
+                    try {
+                        warmUpFeature(reader, featureKey, mergedContext, bucketKeyPrefixStates);
+                    } catch (Exception e) {
+                        this.logger.warn("could not warm up feature", Map.of(
+                            "featureKey", featureKey,
+                            "error", String.valueOf(e.getMessage())));
+                    }
+                }
+            }
+        }
+
+        return System.nanoTime() - start;
+    }
+
+    private void warmUpFeature(
+            DatafileReader reader,
+            String featureKey,
+            Map<String, Object> context,
+            Map<String, MurmurHash.State> bucketKeyPrefixStates) {
+        // without a hooks manager, so that no hooks run for warm-up evaluations
+        EvaluateOptions flagOptions = new EvaluateOptions(Evaluation.TYPE_FLAG, featureKey)
+            .context(context)
+            .logger(this.logger)
+            .datafileReader(reader)
+            .bucketKeyPrefixStates(bucketKeyPrefixStates);
+        Evaluation flagEvaluation = Evaluate.evaluate(flagOptions);
+
+        if (reader.hasVariations(featureKey)) {
+            Evaluate.evaluate(flagOptions.withType(Evaluation.TYPE_VARIATION).flagEvaluation(flagEvaluation));
+        }
+
+        for (String variableKey : reader.getVariableKeys(featureKey)) {
+            Evaluation evaluation = Evaluate.evaluate(flagOptions.withType(Evaluation.TYPE_VARIABLE)
+                .variableKey(variableKey)
+                .flagEvaluation(flagEvaluation));
+            getVariableValue(evaluation, reader.getVariableValues());
+        }
+    }
+
+    private DatafileContent parseDatafile(String datafileString) throws Exception {
+        long start = this.metrics != null ? System.nanoTime() : 0;
+
+        DatafileContent datafile = DatafileContent.fromJson(datafileString);
+
+        if (this.metrics != null) {
+            this.metrics.recordDatafileParse(System.nanoTime() - start);
+        }
+        return datafile;
+    }
+
     /**
      * Set log level
      */
@@ -252,17 +512,32 @@ public class Featurevisor {
      */
     public void setDatafile(DatafileContent datafile) {
         try {
-            DatafileReader newDatafileReader = new DatafileReader(new DatafileReader.DatafileReaderOptions()
-                .datafile(datafile)
-                .logger(this.logger));
+            DatafileReader newDatafileReader = createDatafileReader(datafile);
+            DatafileReader previousDatafileReader = this.datafileReader;
 
-            Emitter.EventDetails details = Events.getParamsForDatafileSetEvent(
-                this.datafileReader.getDatafile(), newDatafileReader.getDatafile());
+            // paid before the new datafile is used by any evaluation
+            long warmUpDuration = warmUp(newDatafileReader);
+
+            long start = this.metrics != null ? System.nanoTime() : 0;
 
             this.datafileReader = newDatafileReader;
 
-            this.logger.info("datafile set", details);
-            this.emitter.trigger(Emitter.EventName.DATAFILE_SET, details);
+            if (this.metrics != null) {
+                this.metrics.recordDatafileSwap(System.nanoTime() - start);
+            }
+
+            // details are only built when they are logged or listened to
+            if (this.logger.isLevelEnabled(Logger.LogLevel.INFO) ||
+                this.emitter.hasListeners(Emitter.EventName.DATAFILE_SET)) {
+                Emitter.EventDetails details = Events.getParamsForDatafileSetEvent(
+                    previousDatafileReader.getDatafile(), newDatafileReader.getDatafile());
+                if (this.warmUp != null) {
+                    details.put("warmUpDuration", warmUpDuration / 1_000_000.0);
+                }
+
+                this.logger.info("datafile set", details);
+                this.emitter.trigger(Emitter.EventName.DATAFILE_SET, details);
+            }
         } catch (Exception e) {
             this.logger.error("could not parse datafile", Map.of("error", e.getMessage()));
         }
@@ -273,7 +548,7 @@ public class Featurevisor {
      */
     public void setDatafile(String datafileString) {
         try {
-            DatafileContent datafile = DatafileContent.fromJson(datafileString);
+            DatafileContent datafile = parseDatafile(datafileString);
             setDatafile(datafile);
         } catch (Exception e) {
             this.logger.error("could not parse datafile string", Map.of("error", e.getMessage()));
@@ -284,21 +559,23 @@ public class Featurevisor {
      * Set sticky features
      */
     public void setSticky(Map<String, Object> sticky, boolean replace) {
-        Map<String, Object> previousStickyFeatures = this.sticky != null ?
-            new HashMap<>(this.sticky) : new HashMap<>();
+        // immutable, so the previous map can be kept as is
+        StickyMap previousStickyFeatures = this.sticky;
 
         if (replace) {
-            this.sticky = new HashMap<>(sticky);
+            this.sticky = StickyMap.of(sticky);
         } else {
-            this.sticky = new HashMap<>(this.sticky != null ? this.sticky : new HashMap<>());
-            this.sticky.putAll(sticky);
+            this.sticky = (this.sticky != null ? this.sticky : StickyMap.EMPTY).withAll(sticky);
         }
 
-        Emitter.EventDetails params = Events.getParamsForStickySetEvent(
-            previousStickyFeatures, this.sticky, replace);
+        if (this.logger.isLevelEnabled(Logger.LogLevel.INFO) ||
+            this.emitter.hasListeners(Emitter.EventName.STICKY_SET)) {
+            Emitter.EventDetails params = Events.getParamsForStickySetEvent(
+                previousStickyFeatures, this.sticky, replace);
 
-        this.logger.info("sticky features set", params);
-        this.emitter.trigger(Emitter.EventName.STICKY_SET, params);
+            this.logger.info("sticky features set", params);
+            this.emitter.trigger(Emitter.EventName.STICKY_SET, params);
+        }
     }
 
     /**
@@ -333,7 +610,7 @@ public class Featurevisor {
      * Close instance
      */
     public void close() {
-        this.emitter.clearAll();
+        this.emitter.close();
     }
 
     /**
@@ -347,12 +624,15 @@ public class Featurevisor {
             this.context.putAll(context);
         }
 
-        Emitter.EventDetails eventDetails = new Emitter.EventDetails();
-        eventDetails.put("context", this.context);
-        eventDetails.put("replaced", replace);
+        if (this.logger.isLevelEnabled(Logger.LogLevel.DEBUG) ||
+            this.emitter.hasListeners(Emitter.EventName.CONTEXT_SET)) {
+            Emitter.EventDetails eventDetails = new Emitter.EventDetails();
+            eventDetails.put("context", this.context);
+            eventDetails.put("replaced", replace);
 
-        this.emitter.trigger(Emitter.EventName.CONTEXT_SET, eventDetails);
-        this.logger.debug(replace ? "context replaced" : "context updated", eventDetails);
+            this.emitter.trigger(Emitter.EventName.CONTEXT_SET, eventDetails);
+            this.logger.debug(replace ? "context replaced" : "context updated", eventDetails);
+        }
     }
 
     public Map<String, Object> getContext(Map<String, Object> context) {
@@ -401,14 +681,10 @@ public class Featurevisor {
             options = new OverrideOptions();
         }
 
+        // layered over the instance's sticky features without copying them
         Map<String, Object> mergedSticky = this.sticky;
         if (options.getSticky() != null) {
-            if (this.sticky != null) {
-                mergedSticky = new HashMap<>(this.sticky);
-                mergedSticky.putAll(options.getSticky());
-            } else {
-                mergedSticky = options.getSticky();
-            }
+            mergedSticky = this.sticky != null ? this.sticky.withAll(options.getSticky()) : options.getSticky();
         }
 
         return new EvaluateOptions()
@@ -419,15 +695,131 @@ public class Featurevisor {
             .sticky(mergedSticky)
             .defaultVariationValue(options.getDefaultVariationValue())
             .defaultVariableValue(options.getDefaultVariableValue())
-            .flagEvaluation(options.getFlagEvaluation());
+            .flagEvaluation(options.getFlagEvaluation())
+            .bucketKeyPrefixStates(options.bucketKeyPrefixStates);
+    }
+
+    private Evaluation evaluate(EvaluateOptions evaluateOptions) {
+        if (!this.instrumented) {
+            return Evaluate.evaluateWithHooks(evaluateOptions);
+        }
+
+        EvaluationTrace trace = null;
+        if (this.tracer != null && this.tracer.sample()) {
+            trace = new EvaluationTrace(
+                evaluateOptions.getType(), evaluateOptions.getFeatureKey(), evaluateOptions.getVariableKey());
+            evaluateOptions.trace(trace);
+        }
+
+        long start = System.nanoTime();
+        Evaluation evaluation = Evaluate.evaluateWithHooks(evaluateOptions);
+        long duration = System.nanoTime() - start;
+
+        if (this.metrics != null) {
+            this.metrics.recordEvaluation(
+                evaluateOptions.getType(), evaluateOptions.getFeatureKey(), evaluation.getReason(), duration);
+        }
+
+        if (trace != null) {
+            trace.finish(evaluation.getReason(), duration);
+            this.tracer.publish(trace);
+        }
+
+        return evaluation;
+    }
+
+    /**
+     * Evaluation from the child instance's memo, evaluated and memoized on a miss
+     */
+    private Evaluation evaluateMemoized(
+            String type,
+            String featureKey,
+            String variableKey,
+            Map<String, Object> context,
+            OverrideOptions options) {
+        EvaluationMemo memo = options.memo;
+        memo.validate(
+            this.datafileReader, this.context, this.sticky, this.hooksManager.getChain(), context, options.getSticky());
+
+        Evaluation evaluation = memo.get(type, featureKey, variableKey);
+        if (evaluation != null) {
+            return evaluation;
+        }
+
+        EvaluateOptions evaluateOptions = getEvaluationDependencies(context, options)
+            .type(type)
+            .featureKey(featureKey)
+            .variableKey(variableKey);
+
+        // variations and variables reuse the memoized flag evaluation
+        if (!Evaluation.TYPE_FLAG.equals(type) && options.getFlagEvaluation() == null) {
+            evaluateOptions.flagEvaluation(evaluateMemoized(Evaluation.TYPE_FLAG, featureKey, null, context, options));
+        }
+
+        evaluation = evaluate(evaluateOptions);
+        memo.put(type, featureKey, variableKey, evaluation);
+        return evaluation;
+    }
+
+    /**
+     * Evaluate with the feature a handle resolved from the datafile reader, which is evaluated against
+     */
+    Evaluation evaluateResolved(
+            String type,
+            String featureKey,
+            String variableKey,
+            Map<String, Object> context,
+            DatafileReader datafileReader,
+            Feature feature) {
+        EvaluateOptions evaluateOptions = getEvaluationDependencies(context, null)
+            .type(type)
+            .featureKey(featureKey)
+            .variableKey(variableKey)
+            .datafileReader(datafileReader)
+            .resolvedFeature(featureKey, datafileReader, feature);
+
+        return evaluate(evaluateOptions);
+    }
+
+    DatafileReader getDatafileReader() {
+        return this.datafileReader;
+    }
+
+    Logger getLogger() {
+        return this.logger;
+    }
+
+    /**
+     * Handle of a flag, resolving the feature once per datafile revision
+     */
+    public FlagHandle flag(String featureKey) {
+        return new FlagHandle(this, featureKey);
+    }
+
+    /**
+     * Handle of a feature's variation, resolving the feature once per datafile revision
+     */
+    public VariationHandle variation(String featureKey) {
+        return new VariationHandle(this, featureKey);
+    }
+
+    /**
+     * Handle of a variable, resolving the feature once per datafile revision and converting values to the type
+     */
+    public <T> VariableHandle<T> variable(String featureKey, String variableKey, Class<T> type) {
+        return new VariableHandle<>(this, featureKey, variableKey, type);
     }
 
     public Evaluation evaluateFlag(String featureKey, Map<String, Object> context, OverrideOptions options) {
+        if (options != null && options.memo != null) {
+            return evaluateMemoized(Evaluation.TYPE_FLAG, featureKey, null, context, options);
+        }
+
         EvaluateOptions evaluateOptions = getEvaluationDependencies(context, options)
             .type(Evaluation.TYPE_FLAG)
             .featureKey(featureKey);
 
-        return Evaluate.evaluateWithHooks(evaluateOptions);
+        return evaluate(evaluateOptions);
     }
 
     public Evaluation evaluateFlag(String featureKey, Map<String, Object> context) {
@@ -460,11 +852,15 @@ public class Featurevisor {
      * Variation
      */
     public Evaluation evaluateVariation(String featureKey, Map<String, Object> context, OverrideOptions options) {
+        if (options != null && options.memo != null) {
+            return evaluateMemoized(Evaluation.TYPE_VARIATION, featureKey, null, context, options);
+        }
+
         EvaluateOptions evaluateOptions = getEvaluationDependencies(context, options)
             .type(Evaluation.TYPE_VARIATION)
             .featureKey(featureKey);
 
-        return Evaluate.evaluateWithHooks(evaluateOptions);
+        return evaluate(evaluateOptions);
     }
 
     public Evaluation evaluateVariation(String featureKey, Map<String, Object> context) {
@@ -506,12 +902,16 @@ public class Featurevisor {
      * Variable
      */
     public Evaluation evaluateVariable(String featureKey, String variableKey, Map<String, Object> context, OverrideOptions options) {
+        if (options != null && options.memo != null) {
+            return evaluateMemoized(Evaluation.TYPE_VARIABLE, featureKey, variableKey, context, options);
+        }
+
         EvaluateOptions evaluateOptions = getEvaluationDependencies(context, options)
             .type(Evaluation.TYPE_VARIABLE)
             .featureKey(featureKey)
             .variableKey(variableKey);
 
-        return Evaluate.evaluateWithHooks(evaluateOptions);
+        return evaluate(evaluateOptions);
     }
 
     public Evaluation evaluateVariable(String featureKey, String variableKey, Map<String, Object> context) {
@@ -526,30 +926,48 @@ public class Featurevisor {
         try {
             Evaluation evaluation = evaluateVariable(featureKey, variableKey, context, options);
 
-            if (evaluation.getVariableValue() != null) {
-                Object value = evaluation.getVariableValue();
-                if (value instanceof String) {
-                    String strValue = (String) value;
-                    boolean isJsonType = evaluation.getVariableSchema() != null &&
-                                         evaluation.getVariableSchema().getType() == VariableType.JSON;
-                    if (isJsonType) {
-                        try {
-                            return OBJECT_MAPPER.readValue(strValue, Object.class);
-                        } catch (Exception e) {
-                            return null;
-                        }
-                    }
-                }
-                return value;
-            }
-
-            return null;
+            return getVariableValue(evaluation);
         } catch (Exception e) {
             this.logger.error("getVariable", Map.of("featureKey", featureKey, "variableKey", variableKey, "error", e.getMessage()));
             return null;
         }
     }
 
+    /**
+     * Value of a variable evaluation, with JSON variables decoded once per datafile revision
+     */
+    Object getVariableValue(Evaluation evaluation) {
+        return getVariableValue(evaluation, variableValues());
+    }
+
+    private static Object getVariableValue(Evaluation evaluation, VariableValueCache variableValues) {
+        if (evaluation.getVariableValue() != null) {
+            Object value = evaluation.getVariableValue();
+            if (value instanceof String) {
+                String strValue = (String) value;
+                boolean isJsonType = evaluation.getVariableSchema() != null &&
+                                     evaluation.getVariableSchema().getType() == VariableType.JSON;
+                if (isJsonType) {
+                    return variableValues.decodeJson(strValue);
+                }
+            }
+            return value;
+        }
+
+        return null;
+    }
+
+    <T> T convertValue(Object value, Class<T> type) {
+        return variableValues().convert(value, VariableValueCache.typeOf(type));
+    }
+
+    /**
+     * Decoded and converted variable values of the current datafile revision
+     */
+    private VariableValueCache variableValues() {
+        return this.datafileReader.getVariableValues();
+    }
+
     public Object getVariable(String featureKey, String variableKey, Map<String, Object> context) {
         return getVariable(featureKey, variableKey, context, null);
     }
@@ -686,14 +1104,7 @@ public class Featurevisor {
             return null;
         }
 
-        try {
-            return OBJECT_MAPPER.convertValue(
-                arrayValue,
-                OBJECT_MAPPER.getTypeFactory().constructCollectionType(List.class, itemType)
-            );
-        } catch (IllegalArgumentException e) {
-            return null;
-        }
+        return variableValues().convert(arrayValue, VariableValueCache.listOf(itemType));
     }
 
     public <T> List<T> getVariableArray(
@@ -722,11 +1133,7 @@ public class Featurevisor {
             return null;
         }
 
-        try {
-            return OBJECT_MAPPER.convertValue(arrayValue, typeRef);
-        } catch (IllegalArgumentException e) {
-            return null;
-        }
+        return variableValues().convert(arrayValue, VariableValueCache.typeOf(typeRef));
     }
 
     public <T> T getVariableArray(
@@ -755,11 +1162,7 @@ public class Featurevisor {
             return null;
         }
 
-        try {
-            return OBJECT_MAPPER.convertValue(objectValue, type);
-        } catch (IllegalArgumentException e) {
-            return null;
-        }
+        return variableValues().convert(objectValue, VariableValueCache.typeOf(type));
     }
 
     public <T> T getVariableObject(
@@ -788,11 +1191,7 @@ public class Featurevisor {
             return null;
         }
 
-        try {
-            return OBJECT_MAPPER.convertValue(objectValue, typeRef);
-        } catch (IllegalArgumentException e) {
-            return null;
-        }
+        return variableValues().convert(objectValue, VariableValueCache.typeOf(typeRef));
     }
 
     public <T> T getVariableObject(
@@ -818,50 +1217,155 @@ public class Featurevisor {
         if (featureKeys == null) {
             featureKeys = new ArrayList<>();
         }
-        if (options == null) {
-            options = new OverrideOptions();
-        }
 
-        Map<String, EvaluatedFeature> result = new HashMap<>();
+        // a copy, so that the caller's options are left as they were
+        OverrideOptions evaluationOptions = new OverrideOptions();
+        if (options != null) {
+            evaluationOptions
+                .sticky(options.getSticky())
+                .defaultVariationValue(options.getDefaultVariationValue())
+                .defaultVariableValue(options.getDefaultVariableValue())
+                .flagEvaluation(options.getFlagEvaluation());
+            evaluationOptions.memo = options.memo;
+        }
+        // the bucket key prefix of a context is hashed once for all features
+        evaluationOptions.bucketKeyPrefixStates = new ConcurrentHashMap<>();
+        options = evaluationOptions;
 
         List<String> keys = featureKeys.isEmpty() ? this.datafileReader.getFeatureKeys() : featureKeys;
-        for (String featureKey : keys) {
-            // isEnabled
-            Evaluation flagEvaluation = evaluateFlag(featureKey, context, options);
 
-            EvaluatedFeature evaluatedFeature = new EvaluatedFeature();
-            evaluatedFeature.setEnabled(Boolean.TRUE.equals(flagEvaluation.getEnabled()));
+        // pre-sized, and filled in key order by both paths, so that they give identical maps
+        Map<String, EvaluatedFeature> result = new HashMap<>((int) (keys.size() / 0.75f) + 1);
 
-            OverrideOptions opts = new OverrideOptions()
-                .sticky(options.getSticky())
-                .defaultVariationValue(options.getDefaultVariationValue())
-                .defaultVariableValue(options.getDefaultVariableValue())
-                .flagEvaluation(flagEvaluation);
+        if (parallelEvaluationsThreshold > 0 && keys.size() >= parallelEvaluationsThreshold) {
+            EvaluatedFeature[] evaluatedFeatures = evaluateFeaturesInParallel(keys, context, options);
+            for (int i = 0; i < evaluatedFeatures.length; i++) {
+                result.put(keys.get(i), evaluatedFeatures[i]);
+            }
+        } else {
+            for (String featureKey : keys) {
+                result.put(featureKey, evaluateFeature(featureKey, context, options));
+            }
+        }
+
+        return EvaluatedFeatures.of(result);
+    }
 
-            // variation
-            if (this.datafileReader.hasVariations(featureKey)) {
-                Object variation = getVariation(featureKey, context, opts);
-                if (variation != null) {
-                    evaluatedFeature.setVariation(variation.toString());
+    /**
+     * Evaluate contiguous partitions of the keys on the parallel evaluations executor and on the
+     * calling thread, which claim partitions from a shared counter
+     *
+     * The calling thread only waits for partitions that other threads have claimed and are running,
+     * never for a task still queued, so it cannot be starved by a busy or bounded executor, even one
+     * that runs the caller itself.
+     */
+    private EvaluatedFeature[] evaluateFeaturesInParallel(
+            List<String> keys,
+            Map<String, Object> context,
+            OverrideOptions options) {
+        EvaluatedFeature[] evaluatedFeatures = new EvaluatedFeature[keys.size()];
+        int partitions = Math.min(keys.size(), Runtime.getRuntime().availableProcessors() * 4);
+        int partitionSize = (keys.size() + partitions - 1) / partitions;
+
+        AtomicInteger nextPartition = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(partitions);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Runnable worker = () -> {
+            int partition;
+            while ((partition = nextPartition.getAndIncrement()) < partitions) {
+                int from = partition * partitionSize;
+                try {
+                    evaluateFeatures(keys, from, Math.min(keys.size(), from + partitionSize), context, options, evaluatedFeatures);
+                } catch (RuntimeException | Error e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    done.countDown();
                 }
             }
+        };
 
-            // variables
-            List<String> variableKeys = this.datafileReader.getVariableKeys(featureKey);
-            if (!variableKeys.isEmpty()) {
-                Map<String, Object> variables = new HashMap<>();
+        try {
+            // helpers that start after all partitions are claimed return at once
+            for (int i = 1; i < partitions; i++) {
+                parallelEvaluationsExecutor.execute(worker);
+            }
+        } catch (RejectedExecutionException e) {
+            // the calling thread takes the partitions left
+        }
+        worker.run();
 
-                for (String variableKey : variableKeys) {
-                    variables.put(variableKey, getVariable(featureKey, variableKey, context, opts));
-                }
+        boolean interrupted = false;
+        while (true) {
+            try {
+                done.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        Throwable cause = failure.get();
+        if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+
+        return evaluatedFeatures;
+    }
+
+    private void evaluateFeatures(
+            List<String> keys,
+            int from,
+            int to,
+            Map<String, Object> context,
+            OverrideOptions options,
+            EvaluatedFeature[] evaluatedFeatures) {
+        for (int i = from; i < to; i++) {
+            evaluatedFeatures[i] = evaluateFeature(keys.get(i), context, options);
+        }
+    }
 
-                evaluatedFeature.setVariables(variables);
+    private EvaluatedFeature evaluateFeature(String featureKey, Map<String, Object> context, OverrideOptions options) {
+        // isEnabled
+        Evaluation flagEvaluation = evaluateFlag(featureKey, context, options);
+
+        EvaluatedFeature evaluatedFeature = new EvaluatedFeature();
+        evaluatedFeature.setEnabled(Boolean.TRUE.equals(flagEvaluation.getEnabled()));
+
+        OverrideOptions opts = new OverrideOptions()
+            .sticky(options.getSticky())
+            .defaultVariationValue(options.getDefaultVariationValue())
+            .defaultVariableValue(options.getDefaultVariableValue())
+            .flagEvaluation(flagEvaluation);
+        opts.memo = options.memo;
+        opts.bucketKeyPrefixStates = options.bucketKeyPrefixStates;
+
+        // variation
+        if (this.datafileReader.hasVariations(featureKey)) {
+            Object variation = getVariation(featureKey, context, opts);
+            if (variation != null) {
+                evaluatedFeature.setVariation(variation.toString());
+            }
+        }
+
+        // variables
+        List<String> variableKeys = this.datafileReader.getVariableKeys(featureKey);
+        if (!variableKeys.isEmpty()) {
+            Map<String, Object> variables = new HashMap<>();
+
+            for (String variableKey : variableKeys) {
+                variables.put(variableKey, getVariable(featureKey, variableKey, context, opts));
             }
 
-            result.put(featureKey, evaluatedFeature);
+            evaluatedFeature.setVariables(variables);
         }
 
-        return EvaluatedFeatures.of(result);
+        return evaluatedFeature;
     }
 
     public EvaluatedFeatures getAllEvaluations(Map<String, Object> context, List<String> featureKeys) {
@@ -0,0 +1,48 @@
+package com.featurevisor.sdk;
+
+/**
+ * Receiver of SDK metrics
+ * Implement it to bridge to a metrics library, or use {@link DefaultFeaturevisorMetrics}.
+ * Methods are called on evaluation paths and must be cheap and thread-safe.
+ */
+public interface FeaturevisorMetrics {
+
+    /**
+     * Called after each evaluation through an instance
+     * @param type The evaluation type (flag, variation or variable)
+     * @param featureKey The feature key
+     * @param reason The evaluation reason
+     * @param durationNanos Time spent evaluating, including hooks
+     */
+    default void recordEvaluation(String type, String featureKey, String reason, long durationNanos) {}
+
+    /**
+     * Called after a datafile is parsed from JSON
+     */
+    default void recordDatafileParse(long durationNanos) {}
+
+    /**
+     * Called after a datafile reader is created, including compiling its conditions
+     */
+    default void recordDatafileCompile(long durationNanos) {}
+
+    /**
+     * Called after a new datafile is published, with the time taken to publish it only
+     * Compiling is reported by {@link #recordDatafileCompile}, and warm-up and the datafile_set event are not included.
+     */
+    default void recordDatafileSwap(long durationNanos) {}
+
+    /**
+     * Called when an internal cache is looked up
+     * @param cache The cache name, for example "regex" or "conditions"
+     * @param hit True if the value was found
+     */
+    default void recordCacheAccess(String cache, boolean hit) {}
+
+    /**
+     * Called after hooks of a kind ran for an evaluation
+     * @param kind The hook kind: before, after, bucketKey or bucketValue
+     * @param durationNanos Time spent in the hooks
+     */
+    default void recordHooks(String kind, long durationNanos) {}
+}
@@ -0,0 +1,42 @@
+package com.featurevisor.sdk;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Exposure sink that appends exposures to a file, one JSON object per line
+ */
+public class FileExposureSink implements ExposureSink {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final BufferedWriter writer;
+
+    /**
+     * @param path The file to append to, created if it does not exist
+     * @throws IOException If the file cannot be opened
+     */
+    public FileExposureSink(Path path) throws IOException {
+        this.writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+            StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE);
+    }
+
+    @Override
+    public synchronized void write(List<Exposure> exposures) throws IOException {
+        for (Exposure exposure : exposures) {
+            writer.write(OBJECT_MAPPER.writeValueAsString(exposure));
+            writer.newLine();
+        }
+        writer.flush();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        writer.close();
+    }
+}
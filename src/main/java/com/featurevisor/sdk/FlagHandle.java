@@ -0,0 +1,30 @@
+package com.featurevisor.sdk;
+
+import java.util.Map;
+
+/**
+ * Handle of a flag, created by {@link Featurevisor#flag(String)}
+ */
+public final class FlagHandle extends FeatureHandle {
+
+    FlagHandle(Featurevisor featurevisor, String featureKey) {
+        super(featurevisor, featureKey);
+    }
+
+    public Evaluation evaluate(Map<String, Object> context) {
+        return evaluate(Evaluation.TYPE_FLAG, null, context);
+    }
+
+    public boolean isEnabled(Map<String, Object> context) {
+        try {
+            return Boolean.TRUE.equals(evaluate(context).getEnabled());
+        } catch (Exception e) {
+            featurevisor.getLogger().error("isEnabled", Map.of("featureKey", featureKey, "error", String.valueOf(e.getMessage())));
+            return false;
+        }
+    }
+
+    public boolean isEnabled() {
+        return isEnabled(null);
+    }
+}
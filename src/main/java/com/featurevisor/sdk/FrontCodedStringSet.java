@@ -0,0 +1,331 @@
+package com.featurevisor.sdk;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Sorted, front-coded set of strings packed into a single byte array
+ *
+ * Strings are stored as UTF-8 in blocks of {@link #BLOCK_SIZE}. The first entry of a block
+ * is stored in full, the following ones as the length of the prefix shared with the previous
+ * entry plus the remaining suffix. Lookups binary search the block heads and scan one block,
+ * without creating String objects for the stored entries.
+ */
+final class FrontCodedStringSet {
+    static final int BLOCK_SIZE = 16;
+
+    private final byte[] data;
+    private final int[] blockOffsets;
+    private final int size;
+    private final int maxLength;
+
+    private FrontCodedStringSet(byte[] data, int[] blockOffsets, int size, int maxLength) {
+        this.data = data;
+        this.blockOffsets = blockOffsets;
+        this.size = size;
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * Build a set from distinct strings
+     * @param strings The strings to pack
+     * @return The packed set
+     */
+    static FrontCodedStringSet of(Collection<String> strings) {
+        byte[][] entries = new byte[strings.size()][];
+        int n = 0;
+        int maxLength = 0;
+        for (String value : strings) {
+            entries[n] = value.getBytes(StandardCharsets.UTF_8);
+            maxLength = Math.max(maxLength, entries[n].length);
+            n++;
+        }
+        Arrays.sort(entries, FrontCodedStringSet::compare);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int[] blockOffsets = new int[(n + BLOCK_SIZE - 1) / BLOCK_SIZE];
+        byte[] previous = null;
+
+        for (int i = 0; i < n; i++) {
+            byte[] current = entries[i];
+
+            if (i % BLOCK_SIZE == 0) {
+                blockOffsets[i / BLOCK_SIZE] = out.size();
+                writeVarInt(out, current.length);
+                out.write(current, 0, current.length);
+            } else {
+                int prefix = commonPrefix(previous, current);
+                writeVarInt(out, prefix);
+                writeVarInt(out, current.length - prefix);
+                out.write(current, prefix, current.length - prefix);
+            }
+
+            previous = current;
+        }
+
+        return new FrontCodedStringSet(out.toByteArray(), blockOffsets, n, maxLength);
+    }
+
+    /**
+     * Check if a string is in the set
+     * @param value The string to look up
+     * @return True if the string is in the set
+     */
+    boolean contains(String value) {
+        if (size == 0) {
+            return false;
+        }
+
+        // the key is encoded as it is compared, rather than into a byte array
+        int keyLength = utf8Length(value);
+        if (keyLength > maxLength) {
+            return false;
+        }
+
+        // find the last block whose head is not greater than the key
+        int low = 0;
+        int high = blockOffsets.length - 1;
+        int block = -1;
+        int matched = 0;
+
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long header = readVarInt(data, blockOffsets[mid]);
+            long result = compare(data, (int) header, (int) (header >>> 32), value, 0);
+            int cmp = (int) result;
+
+            if (cmp == 0) {
+                return true;
+            }
+
+            if (cmp < 0) {
+                block = mid;
+                matched = (int) (result >>> 32);
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+
+        if (block < 0) {
+            return false;
+        }
+
+        long header = readVarInt(data, blockOffsets[block]);
+        int position = (int) header + (int) (header >>> 32);
+
+        // each entry is compared in place, knowing the previous one is less than the key
+        // and shares its first `matched` bytes with it
+        int end = Math.min(size, (block + 1) * BLOCK_SIZE);
+        for (int i = block * BLOCK_SIZE + 1; i < end; i++) {
+            long prefixHeader = readVarInt(data, position);
+            int prefix = (int) (prefixHeader >>> 32);
+            long suffixHeader = readVarInt(data, (int) prefixHeader);
+            int suffix = (int) (suffixHeader >>> 32);
+            position = (int) suffixHeader;
+
+            // differs from the previous entry before it differs from the key, so it is greater than the key
+            if (prefix < matched) {
+                return false;
+            }
+
+            // shares the previous entry's smaller byte where that one differs from the key
+            if (prefix > matched) {
+                position += suffix;
+                continue;
+            }
+
+            long result = compare(data, position, suffix, value, matched);
+            int cmp = (int) result;
+            if (cmp == 0) {
+                return true;
+            }
+            if (cmp > 0) {
+                return false;
+            }
+            matched = (int) (result >>> 32);
+            position += suffix;
+        }
+
+        return false;
+    }
+
+    /**
+     * Decode the entry at a position in sorted order
+     * @param index The index of the entry
+     * @return The decoded string
+     */
+    String get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+
+        int block = index / BLOCK_SIZE;
+        byte[] current = new byte[maxLength];
+        long header = readVarInt(data, blockOffsets[block]);
+        int length = (int) (header >>> 32);
+        int position = (int) header;
+        System.arraycopy(data, position, current, 0, length);
+        position += length;
+
+        for (int i = block * BLOCK_SIZE + 1; i <= index; i++) {
+            long prefixHeader = readVarInt(data, position);
+            int prefix = (int) (prefixHeader >>> 32);
+            long suffixHeader = readVarInt(data, (int) prefixHeader);
+            int suffix = (int) (suffixHeader >>> 32);
+            position = (int) suffixHeader;
+
+            System.arraycopy(data, position, current, prefix, suffix);
+            position += suffix;
+            length = prefix + suffix;
+        }
+
+        return new String(current, 0, length, StandardCharsets.UTF_8);
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Estimated retained heap size in bytes
+     */
+    long estimatedBytes() {
+        return 16 + (16 + data.length) + (16 + 4L * blockOffsets.length);
+    }
+
+    private static void writeVarInt(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7f) != 0) {
+            out.write((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    /**
+     * Read a variable length integer
+     * @return The value in the high 32 bits and the position after it in the low 32 bits
+     */
+    private static long readVarInt(byte[] data, int position) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = data[position++];
+            value |= (b & 0x7f) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+
+        return ((long) value << 32) | (position & 0xffffffffL);
+    }
+
+    private static int commonPrefix(byte[] a, byte[] b) {
+        int max = Math.min(a.length, b.length);
+        int i = 0;
+        while (i < max && a[i] == b[i]) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int compare(byte[] a, byte[] b) {
+        return compare(a, 0, a.length, b);
+    }
+
+    private static int compare(byte[] data, int start, int length, byte[] key) {
+        int max = Math.min(length, key.length);
+        for (int i = 0; i < max; i++) {
+            int cmp = (data[start + i] & 0xff) - (key[i] & 0xff);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return length - key.length;
+    }
+
+    /**
+     * Compare bytes with the UTF-8 encoding of a key from a byte offset on
+     * @return The length of the prefix they share in the high 32 bits, and a negative, zero or
+     *         positive comparison result in the low 32 bits
+     */
+    private static long compare(byte[] data, int start, int length, String key, int from) {
+        int keyPosition = 0;
+        int index = 0;
+
+        for (int c = 0; c < key.length(); c++) {
+            char ch = key.charAt(c);
+            int codePoint = ch;
+            int bytes;
+            if (ch < 0x80) {
+                bytes = 1;
+            } else if (ch < 0x800) {
+                bytes = 2;
+            } else if (Character.isHighSurrogate(ch) && c + 1 < key.length() &&
+                       Character.isLowSurrogate(key.charAt(c + 1))) {
+                codePoint = Character.toCodePoint(ch, key.charAt(++c));
+                bytes = 4;
+            } else if (Character.isSurrogate(ch)) {
+                // unpaired surrogates are encoded as '?', as by String.getBytes
+                codePoint = '?';
+                bytes = 1;
+            } else {
+                bytes = 3;
+            }
+
+            if (keyPosition + bytes <= from) {
+                keyPosition += bytes;
+                continue;
+            }
+
+            for (int k = 0; k < bytes; k++, keyPosition++) {
+                if (keyPosition < from) {
+                    continue;
+                }
+                if (index == length) {
+                    return ((long) keyPosition << 32) | (-1 & 0xffffffffL);
+                }
+
+                int cmp = (data[start + index] & 0xff) - utf8Byte(codePoint, bytes, k);
+                if (cmp != 0) {
+                    return ((long) keyPosition << 32) | (cmp & 0xffffffffL);
+                }
+                index++;
+            }
+        }
+
+        return ((long) keyPosition << 32) | ((length - index) & 0xffffffffL);
+    }
+
+    private static int utf8Byte(int codePoint, int bytes, int k) {
+        if (bytes == 1) {
+            return codePoint;
+        }
+        if (k == 0) {
+            return (0xff00 >> bytes) & 0xff | codePoint >> (6 * (bytes - 1));
+        }
+        return 0x80 | ((codePoint >> (6 * (bytes - 1 - k))) & 0x3f);
+    }
+
+    private static int utf8Length(String value) {
+        int length = 0;
+        for (int c = 0; c < value.length(); c++) {
+            char ch = value.charAt(c);
+            if (ch < 0x80) {
+                length++;
+            } else if (ch < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(ch) && c + 1 < value.length() &&
+                       Character.isLowSurrogate(value.charAt(c + 1))) {
+                length += 4;
+                c++;
+            } else if (Character.isSurrogate(ch)) {
+                length++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+}
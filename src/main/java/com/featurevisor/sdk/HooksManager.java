@@ -4,16 +4,146 @@ import com.featurevisor.sdk.Bucket;
 import java.util.List;
 import java.util.Map;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.function.Function;
 import java.util.function.BiFunction;
 
 /**
  * Hooks utility for Featurevisor SDK
  * Provides hook management functionality for customizing evaluation behavior
+ *
+ * Hooks are kept in an immutable {@link HookChain}, replaced as a whole when hooks are added or removed,
+ * so evaluations can run concurrently with changes without locking or copying.
+ * Hooks are partitioned by the functions they have at the time they are added.
  */
 public class HooksManager {
-    private List<Hook> hooks = new ArrayList<>();
+    private volatile HookChain chain = HookChain.EMPTY;
     private Logger logger;
+    private FeaturevisorMetrics metrics;
+
+    /**
+     * Immutable snapshot of hooks, partitioned by kind
+     */
+    public static final class HookChain {
+        static final HookChain EMPTY = new HookChain(new Hook[0], null);
+
+        private final Hook[] all;
+        private final Hook[] before;
+        private final Hook[] after;
+        private final Hook[] bucketKey;
+        private final Hook[] bucketValue;
+        private final FeaturevisorMetrics metrics;
+
+        private HookChain(Hook[] all, FeaturevisorMetrics metrics) {
+            this.all = all;
+            this.metrics = metrics;
+            this.before = Arrays.stream(all).filter(hook -> hook.getBefore() != null).toArray(Hook[]::new);
+            this.after = Arrays.stream(all).filter(hook -> hook.getAfter() != null).toArray(Hook[]::new);
+            this.bucketKey = Arrays.stream(all).filter(hook -> hook.getBucketKey() != null).toArray(Hook[]::new);
+            this.bucketValue = Arrays.stream(all).filter(hook -> hook.getBucketValue() != null).toArray(Hook[]::new);
+        }
+
+        public boolean isEmpty() { return all.length == 0; }
+        public boolean hasBefore() { return before.length > 0; }
+        public boolean hasAfter() { return after.length > 0; }
+        public boolean hasBucketKey() { return bucketKey.length > 0; }
+        public boolean hasBucketValue() { return bucketValue.length > 0; }
+
+        /**
+         * Execute before hooks
+         * @param options The evaluation options
+         * @return Modified evaluation options
+         */
+        public EvaluateOptions executeBeforeHooks(EvaluateOptions options) {
+            long start = metrics != null ? System.nanoTime() : 0;
+
+            EvaluateOptions currentOptions = options;
+            for (Hook hook : before) {
+                currentOptions = hook.getBefore().apply(currentOptions);
+            }
+
+            if (metrics != null) {
+                metrics.recordHooks("before", System.nanoTime() - start);
+            }
+            return currentOptions;
+        }
+
+        /**
+         * Execute after hooks
+         * @param evaluation The evaluation result
+         * @param options The evaluation options
+         * @return Modified evaluation result
+         */
+        public Evaluation executeAfterHooks(Evaluation evaluation, EvaluateOptions options) {
+            long start = metrics != null ? System.nanoTime() : 0;
+
+            Evaluation currentEvaluation = evaluation;
+            for (Hook hook : after) {
+                currentEvaluation = hook.getAfter().apply(currentEvaluation, options);
+            }
+
+            if (metrics != null) {
+                metrics.recordHooks("after", System.nanoTime() - start);
+            }
+            return currentEvaluation;
+        }
+
+        /**
+         * Execute bucket key hooks
+         * One options object is shared by all hooks of the call, reset before each hook
+         * @return Modified bucket key
+         */
+        public String executeBucketKeyHooks(String featureKey, Map<String, Object> context, Bucket bucketBy, String bucketKey) {
+            if (this.bucketKey.length == 0) {
+                return bucketKey;
+            }
+
+            long start = metrics != null ? System.nanoTime() : 0;
+
+            String currentBucketKey = bucketKey;
+            ConfigureBucketKeyOptions hookOptions = new ConfigureBucketKeyOptions(featureKey, context, bucketBy, currentBucketKey);
+            for (Hook hook : this.bucketKey) {
+                hookOptions.setFeatureKey(featureKey);
+                hookOptions.setContext(context);
+                hookOptions.setBucketBy(bucketBy);
+                hookOptions.setBucketKey(currentBucketKey);
+                currentBucketKey = hook.getBucketKey().configure(hookOptions);
+            }
+
+            if (metrics != null) {
+                metrics.recordHooks("bucketKey", System.nanoTime() - start);
+            }
+            return currentBucketKey;
+        }
+
+        /**
+         * Execute bucket value hooks
+         * One options object is shared by all hooks of the call, reset before each hook
+         * @return Modified bucket value
+         */
+        public int executeBucketValueHooks(String featureKey, String bucketKey, Map<String, Object> context, int bucketValue) {
+            if (this.bucketValue.length == 0) {
+                return bucketValue;
+            }
+
+            long start = metrics != null ? System.nanoTime() : 0;
+
+            int currentBucketValue = bucketValue;
+            ConfigureBucketValueOptions hookOptions = new ConfigureBucketValueOptions(featureKey, bucketKey, context, currentBucketValue);
+            for (Hook hook : this.bucketValue) {
+                hookOptions.setFeatureKey(featureKey);
+                hookOptions.setBucketKey(bucketKey);
+                hookOptions.setContext(context);
+                hookOptions.setBucketValue(currentBucketValue);
+                currentBucketValue = hook.getBucketValue().configure(hookOptions);
+            }
+
+            if (metrics != null) {
+                metrics.recordHooks("bucketValue", System.nanoTime() - start);
+            }
+            return currentBucketValue;
+        }
+    }
 
     /**
      * Options for configuring bucket key
@@ -144,6 +274,7 @@ public class HooksManager {
     public static class HooksManagerOptions {
         private List<Hook> hooks;
         private Logger logger;
+        private FeaturevisorMetrics metrics;
 
         public HooksManagerOptions(Logger logger) {
             this.logger = logger;
@@ -159,9 +290,15 @@ public class HooksManager {
             return this;
         }
 
+        public HooksManagerOptions metrics(FeaturevisorMetrics metrics) {
+            this.metrics = metrics;
+            return this;
+        }
+
         // Getters
         public List<Hook> getHooks() { return hooks; }
         public Logger getLogger() { return logger; }
+        public FeaturevisorMetrics getMetrics() { return metrics; }
     }
 
     /**
@@ -169,6 +306,7 @@ public class HooksManager {
      */
     public HooksManager(HooksManagerOptions options) {
         this.logger = options.getLogger();
+        this.metrics = options.getMetrics();
 
         if (options.getHooks() != null) {
             for (Hook hook : options.getHooks()) {
@@ -182,8 +320,9 @@ public class HooksManager {
      * @param hook The hook to add
      * @return A function to remove the hook, or null if hook with same name already exists
      */
-    public Runnable add(Hook hook) {
-        if (hooks.stream().anyMatch(existingHook -> existingHook.getName().equals(hook.getName()))) {
+    public synchronized Runnable add(Hook hook) {
+        Hook[] hooks = chain.all;
+        if (Arrays.stream(hooks).anyMatch(existingHook -> existingHook.getName().equals(hook.getName()))) {
             logger.error("Hook with name \"" + hook.getName() + "\" already exists.", Map.of(
                 "name", hook.getName(),
                 "hook", hook
@@ -191,7 +330,9 @@ public class HooksManager {
             return null;
         }
 
-        hooks.add(hook);
+        Hook[] updated = Arrays.copyOf(hooks, hooks.length + 1);
+        updated[hooks.length] = hook;
+        chain = new HookChain(updated, metrics);
 
         return () -> remove(hook.getName());
     }
@@ -200,8 +341,14 @@ public class HooksManager {
      * Remove a hook by name
      * @param name The name of the hook to remove
      */
-    public void remove(String name) {
-        hooks.removeIf(hook -> hook.getName().equals(name));
+    public synchronized void remove(String name) {
+        Hook[] updated = Arrays.stream(chain.all)
+            .filter(hook -> !hook.getName().equals(name))
+            .toArray(Hook[]::new);
+
+        if (updated.length != chain.all.length) {
+            chain = updated.length == 0 ? HookChain.EMPTY : new HookChain(updated, metrics);
+        }
     }
 
     /**
@@ -209,7 +356,15 @@ public class HooksManager {
      * @return List of all hooks
      */
     public List<Hook> getAll() {
-        return new ArrayList<>(hooks);
+        return new ArrayList<>(Arrays.asList(chain.all));
+    }
+
+    /**
+     * Get the current hooks as an immutable snapshot
+     * @return The hook chain
+     */
+    public HookChain getChain() {
+        return chain;
     }
 
     /**
@@ -218,13 +373,7 @@ public class HooksManager {
      * @return Modified evaluation options
      */
     public EvaluateOptions executeBeforeHooks(EvaluateOptions options) {
-        EvaluateOptions currentOptions = options;
-        for (Hook hook : hooks) {
-            if (hook.getBefore() != null) {
-                currentOptions = hook.getBefore().apply(currentOptions);
-            }
-        }
-        return currentOptions;
+        return chain.executeBeforeHooks(options);
     }
 
     /**
@@ -234,13 +383,7 @@ public class HooksManager {
      * @return Modified evaluation result
      */
     public Evaluation executeAfterHooks(Evaluation evaluation, EvaluateOptions options) {
-        Evaluation currentEvaluation = evaluation;
-        for (Hook hook : hooks) {
-            if (hook.getAfter() != null) {
-                currentEvaluation = hook.getAfter().apply(currentEvaluation, options);
-            }
-        }
-        return currentEvaluation;
+        return chain.executeAfterHooks(evaluation, options);
     }
 
     /**
@@ -249,19 +392,8 @@ public class HooksManager {
      * @return Modified bucket key
      */
     public String executeBucketKeyHooks(ConfigureBucketKeyOptions options) {
-        String currentBucketKey = options.getBucketKey();
-        for (Hook hook : hooks) {
-            if (hook.getBucketKey() != null) {
-                ConfigureBucketKeyOptions hookOptions = new ConfigureBucketKeyOptions(
-                    options.getFeatureKey(),
-                    options.getContext(),
-                    options.getBucketBy(),
-                    currentBucketKey
-                );
-                currentBucketKey = hook.getBucketKey().configure(hookOptions);
-            }
-        }
-        return currentBucketKey;
+        return chain.executeBucketKeyHooks(
+            options.getFeatureKey(), options.getContext(), options.getBucketBy(), options.getBucketKey());
     }
 
     /**
@@ -270,18 +402,7 @@ public class HooksManager {
      * @return Modified bucket value
      */
     public int executeBucketValueHooks(ConfigureBucketValueOptions options) {
-        int currentBucketValue = options.getBucketValue();
-        for (Hook hook : hooks) {
-            if (hook.getBucketValue() != null) {
-                ConfigureBucketValueOptions hookOptions = new ConfigureBucketValueOptions(
-                    options.getFeatureKey(),
-                    options.getBucketKey(),
-                    options.getContext(),
-                    currentBucketValue
-                );
-                currentBucketValue = hook.getBucketValue().configure(hookOptions);
-            }
-        }
-        return currentBucketValue;
+        return chain.executeBucketValueHooks(
+            options.getFeatureKey(), options.getBucketKey(), options.getContext(), options.getBucketValue());
     }
 }
@@ -0,0 +1,32 @@
+package com.featurevisor.sdk;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Exposure sink that keeps exposures in memory
+ * Useful for tests, and for reading exposures in process
+ */
+public class InMemoryExposureSink implements ExposureSink {
+    private final List<Exposure> exposures = new ArrayList<>();
+
+    @Override
+    public synchronized void write(List<Exposure> batch) {
+        exposures.addAll(batch);
+    }
+
+    /**
+     * Get a copy of the exposures written so far
+     * @return The exposures
+     */
+    public synchronized List<Exposure> getExposures() {
+        return new ArrayList<>(exposures);
+    }
+
+    /**
+     * Remove all exposures
+     */
+    public synchronized void clear() {
+        exposures.clear();
+    }
+}
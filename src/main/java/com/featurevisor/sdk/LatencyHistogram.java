@@ -0,0 +1,99 @@
+package com.featurevisor.sdk;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of durations with fixed, exponentially growing buckets
+ * Bucket i holds durations up to 2^(i+8) nanoseconds, so the first one holds durations up to 256ns
+ * and the last one, above about 4.6 minutes, everything above.
+ */
+public final class LatencyHistogram {
+    static final int BUCKETS = 32;
+
+    // the first bucket holds durations up to 2^FIRST_BUCKET_SHIFT nanoseconds
+    static final int FIRST_BUCKET_SHIFT = 8;
+
+    private final LongAdder[] counts = new LongAdder[BUCKETS];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Record a duration
+     * @param durationNanos The duration in nanoseconds
+     */
+    public void record(long durationNanos) {
+        long nanos = Math.max(0, durationNanos);
+        int bucket = nanos <= 1L << FIRST_BUCKET_SHIFT ? 0 :
+            64 - Long.numberOfLeadingZeros(nanos - 1) - FIRST_BUCKET_SHIFT;
+
+        counts[Math.min(bucket, BUCKETS - 1)].increment();
+        count.increment();
+        totalNanos.add(durationNanos);
+        maxNanos.accumulate(durationNanos);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getTotalNanos() {
+        return totalNanos.sum();
+    }
+
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    public double getMeanNanos() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) totalNanos.sum() / n;
+    }
+
+    /**
+     * Get an upper bound of a percentile, at the resolution of the buckets
+     * @param percentile The percentile between 0 and 100
+     * @return The upper bound of the bucket containing the percentile, in nanoseconds
+     */
+    public long getPercentileNanos(double percentile) {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts[i].sum();
+            total += snapshot[i];
+        }
+
+        if (total == 0) {
+            return 0;
+        }
+
+        long rank = (long) Math.ceil(percentile / 100.0 * total);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS - 1; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(1L << (i + FIRST_BUCKET_SHIFT), getMaxNanos());
+            }
+        }
+        return getMaxNanos();
+    }
+
+    /**
+     * Get the number of durations recorded in each bucket
+     * @return The counts, bucket i holding durations up to 2^(i+8) nanoseconds
+     */
+    public long[] getBucketCounts() {
+        long[] snapshot = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts[i].sum();
+        }
+        return snapshot;
+    }
+}
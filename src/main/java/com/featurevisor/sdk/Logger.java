@@ -119,6 +119,13 @@ public class Logger {
         }
     }
 
+    /**
+     * Check if messages of a level would be logged, to skip building their details otherwise
+     */
+    public boolean isLevelEnabled(LogLevel logLevel) {
+        return shouldLog(logLevel);
+    }
+
     private boolean shouldLog(LogLevel logLevel) {
         int currentLevelIndex = getLevelIndex(this.level);
         int messageLevelIndex = getLevelIndex(logLevel);
@@ -26,13 +26,11 @@ public class MurmurHash {
      * @return The hash value as an int representing unsigned 32-bit integer
      */
     public static int murmurHashV3(byte[] key, int seed) {
-        int remainder, bytes, h1, h1b, c1, c2, k1, i;
+        int remainder, bytes, h1, k1, i;
 
         remainder = key.length & 3; // key.length % 4
         bytes = key.length - remainder;
         h1 = seed;
-        c1 = 0xcc9e2d51;
-        c2 = 0x1b873593;
         i = 0;
 
         while (i < bytes) {
@@ -42,14 +40,7 @@ public class MurmurHash {
                  ((key[++i] & 0xff) << 24);
             ++i;
 
-            k1 = ((k1 & 0xffff) * c1 + ((((k1 >>> 16) * c1) & 0xffff) << 16)) & 0xffffffff;
-            k1 = (k1 << 15) | (k1 >>> 17);
-            k1 = ((k1 & 0xffff) * c2 + ((((k1 >>> 16) * c2) & 0xffff) << 16)) & 0xffffffff;
-
-            h1 ^= k1;
-            h1 = (h1 << 13) | (h1 >>> 19);
-            h1b = ((h1 & 0xffff) * 5 + ((((h1 >>> 16) * 5) & 0xffff) << 16)) & 0xffffffff;
-            h1 = (h1b & 0xffff) + 0x6b64 + ((((h1b >>> 16) + 0xe654) & 0xffff) << 16);
+            h1 = mixH1(h1, mixK1(k1));
         }
 
         k1 = 0;
@@ -62,13 +53,30 @@ public class MurmurHash {
             case 1:
                 k1 ^= key[i] & 0xff;
 
-                k1 = ((k1 & 0xffff) * c1 + ((((k1 >>> 16) * c1) & 0xffff) << 16)) & 0xffffffff;
-                k1 = (k1 << 15) | (k1 >>> 17);
-                k1 = ((k1 & 0xffff) * c2 + ((((k1 >>> 16) * c2) & 0xffff) << 16)) & 0xffffffff;
-                h1 ^= k1;
+                h1 ^= mixK1(k1);
         }
 
-        h1 ^= key.length;
+        return fmix(h1, key.length);
+    }
+
+    private static final int C1 = 0xcc9e2d51;
+    private static final int C2 = 0x1b873593;
+
+    private static int mixK1(int k1) {
+        k1 = ((k1 & 0xffff) * C1 + ((((k1 >>> 16) * C1) & 0xffff) << 16)) & 0xffffffff;
+        k1 = (k1 << 15) | (k1 >>> 17);
+        return ((k1 & 0xffff) * C2 + ((((k1 >>> 16) * C2) & 0xffff) << 16)) & 0xffffffff;
+    }
+
+    private static int mixH1(int h1, int k1) {
+        h1 ^= k1;
+        h1 = (h1 << 13) | (h1 >>> 19);
+        int h1b = ((h1 & 0xffff) * 5 + ((((h1 >>> 16) * 5) & 0xffff) << 16)) & 0xffffffff;
+        return (h1b & 0xffff) + 0x6b64 + ((((h1b >>> 16) + 0xe654) & 0xffff) << 16);
+    }
+
+    private static int fmix(int h1, int length) {
+        h1 ^= length;
 
         h1 ^= h1 >>> 16;
         h1 = ((h1 & 0xffff) * 0x85ebca6b + ((((h1 >>> 16) * 0x85ebca6b) & 0xffff) << 16)) & 0xffffffff;
@@ -79,4 +87,100 @@ public class MurmurHash {
         // Convert to unsigned 32-bit integer
         return (int) (h1 & 0xffffffffL);
     }
+
+    /**
+     * Immutable hashing state after a prefix, which can be resumed for any number of suffixes
+     *
+     * Hashing a prefix and then a suffix gives the same value as hashing them concatenated.
+     */
+    public static final class State {
+        private final int h1;
+        private final int length;
+        // bytes of the last incomplete 4-byte block, little-endian
+        private final int tail;
+        private final int tailLength;
+
+        private State(int h1, int length, int tail, int tailLength) {
+            this.h1 = h1;
+            this.length = length;
+            this.tail = tail;
+            this.tailLength = tailLength;
+        }
+
+        /**
+         * State before hashing anything
+         */
+        public static State of(int seed) {
+            return new State(seed, 0, 0, 0);
+        }
+
+        /**
+         * State after hashing the prefix
+         */
+        public static State of(String prefix, int seed) {
+            return of(seed).update(prefix);
+        }
+
+        /**
+         * State after additionally hashing the UTF-8 bytes of the string
+         */
+        public State update(String data) {
+            return update(data.getBytes(StandardCharsets.UTF_8));
+        }
+
+        /**
+         * State after additionally hashing the bytes
+         */
+        public State update(byte[] data) {
+            int h1 = this.h1;
+            int tail = this.tail;
+            int tailLength = this.tailLength;
+            int i = 0;
+
+            // complete the pending block first
+            while (tailLength != 0 && tailLength < 4 && i < data.length) {
+                tail |= (data[i++] & 0xff) << (tailLength++ * 8);
+            }
+            if (tailLength == 4) {
+                h1 = mixH1(h1, mixK1(tail));
+                tail = 0;
+                tailLength = 0;
+            }
+
+            int bytes = i + ((data.length - i) & ~3);
+            while (i < bytes) {
+                int k1 = (data[i] & 0xff) |
+                         ((data[i + 1] & 0xff) << 8) |
+                         ((data[i + 2] & 0xff) << 16) |
+                         ((data[i + 3] & 0xff) << 24);
+                i += 4;
+
+                h1 = mixH1(h1, mixK1(k1));
+            }
+
+            while (i < data.length) {
+                tail |= (data[i++] & 0xff) << (tailLength++ * 8);
+            }
+
+            return new State(h1, this.length + data.length, tail, tailLength);
+        }
+
+        /**
+         * Hash of everything hashed so far
+         */
+        public int finish() {
+            int h1 = this.h1;
+            if (tailLength > 0) {
+                h1 ^= mixK1(tail);
+            }
+            return fmix(h1, length);
+        }
+
+        /**
+         * Hash of everything hashed so far followed by the UTF-8 bytes of the suffix
+         */
+        public int finish(String suffix) {
+            return update(suffix).finish();
+        }
+    }
 }
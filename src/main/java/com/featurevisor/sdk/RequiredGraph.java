@@ -0,0 +1,242 @@
+package com.featurevisor.sdk;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Required features of a datafile, parsed and topologically sorted once when it is loaded
+ *
+ * Features whose requirements form a cycle are reported, and evaluate as disabled instead of
+ * recursing endlessly.
+ */
+public final class RequiredGraph {
+
+    /**
+     * A required feature, optionally with the variation it must have
+     */
+    public static final class Dependency {
+        private final String featureKey;
+        private final boolean byVariation;
+        private final String variation;
+
+        Dependency(String featureKey, boolean byVariation, String variation) {
+            this.featureKey = featureKey;
+            this.byVariation = byVariation;
+            this.variation = variation;
+        }
+
+        public String getFeatureKey() { return featureKey; }
+        /**
+         * Whether the requirement was given as an object with `key` and `variation`, evaluating the required feature's variation
+         */
+        public boolean isByVariation() { return byVariation; }
+        public String getVariation() { return variation; }
+    }
+
+    private final Map<String, List<Dependency>> dependencies;
+    private final List<String> order;
+    private final List<List<String>> cycles;
+    private final Set<String> cyclic;
+
+    private RequiredGraph(
+            Map<String, List<Dependency>> dependencies,
+            List<String> order,
+            List<List<String>> cycles,
+            Set<String> cyclic) {
+        this.dependencies = dependencies;
+        this.order = order;
+        this.cycles = cycles;
+        this.cyclic = cyclic;
+    }
+
+    /**
+     * Build the graph of the given features
+     */
+    public static RequiredGraph build(Map<String, Feature> features) {
+        Map<String, List<Dependency>> dependencies = new HashMap<>();
+        if (features != null) {
+            for (Map.Entry<String, Feature> entry : features.entrySet()) {
+                List<Dependency> parsed = parse(entry.getValue());
+                if (!parsed.isEmpty()) {
+                    dependencies.put(entry.getKey(), parsed);
+                }
+            }
+        }
+
+        List<String> keys = features != null ? new ArrayList<>(features.keySet()) : new ArrayList<>();
+        Collections.sort(keys);
+
+        Map<String, Integer> indexes = new HashMap<>();
+        for (int i = 0; i < keys.size(); i++) {
+            indexes.put(keys.get(i), i);
+        }
+
+        // edges from each feature to the features it requires, unknown features are left out
+        int[][] edges = new int[keys.size()][];
+        for (int i = 0; i < keys.size(); i++) {
+            List<Dependency> required = dependencies.getOrDefault(keys.get(i), Collections.emptyList());
+            edges[i] = required.stream()
+                .map(dependency -> indexes.get(dependency.featureKey))
+                .filter(index -> index != null)
+                .mapToInt(Integer::intValue)
+                .toArray();
+        }
+
+        List<String> order = new ArrayList<>(keys.size());
+        List<List<String>> cycles = new ArrayList<>();
+        Set<String> cyclic = new HashSet<>();
+
+        for (int[] component : stronglyConnectedComponents(edges)) {
+            for (int index : component) {
+                order.add(keys.get(index));
+            }
+
+            boolean selfRequired = component.length == 1 &&
+                Arrays.stream(edges[component[0]]).anyMatch(target -> target == component[0]);
+
+            if (component.length > 1 || selfRequired) {
+                List<String> cycle = new ArrayList<>();
+                for (int index : component) {
+                    cycle.add(keys.get(index));
+                }
+                Collections.sort(cycle);
+                cycles.add(Collections.unmodifiableList(cycle));
+                cyclic.addAll(cycle);
+            }
+        }
+
+        return new RequiredGraph(
+            dependencies,
+            Collections.unmodifiableList(order),
+            Collections.unmodifiableList(cycles),
+            cyclic);
+    }
+
+    private static List<Dependency> parse(Feature feature) {
+        if (feature == null || feature.getRequired() == null || feature.getRequired().isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<Dependency> parsed = new ArrayList<>();
+        for (Object required : feature.getRequired()) {
+            if (required instanceof String) {
+                parsed.add(new Dependency((String) required, false, null));
+            } else if (required instanceof Map) {
+                Map<?, ?> requiredMap = (Map<?, ?>) required;
+                if (requiredMap.get("key") != null) {
+                    parsed.add(new Dependency(
+                        (String) requiredMap.get("key"), true, (String) requiredMap.get("variation")));
+                }
+            } else if (required instanceof RequiredWithVariation) {
+                RequiredWithVariation requiredWithVariation = (RequiredWithVariation) required;
+                if (requiredWithVariation.getKey() != null) {
+                    parsed.add(new Dependency(
+                        requiredWithVariation.getKey(), true, requiredWithVariation.getVariation()));
+                }
+            }
+        }
+        return Collections.unmodifiableList(parsed);
+    }
+
+    /**
+     * Tarjan's algorithm without recursion, so that long chains cannot overflow the stack.
+     * Components come out after all components they require, which is a topological order.
+     */
+    private static List<int[]> stronglyConnectedComponents(int[][] edges) {
+        int n = edges.length;
+        int[] index = new int[n];
+        int[] low = new int[n];
+        boolean[] onStack = new boolean[n];
+        Arrays.fill(index, -1);
+
+        List<int[]> components = new ArrayList<>();
+        Deque<Integer> stack = new ArrayDeque<>();
+        int[] callStack = new int[n];
+        int[] nextEdge = new int[n];
+        int counter = 0;
+
+        for (int root = 0; root < n; root++) {
+            if (index[root] != -1) {
+                continue;
+            }
+
+            int depth = 0;
+            callStack[depth++] = root;
+            index[root] = low[root] = counter++;
+            stack.push(root);
+            onStack[root] = true;
+
+            while (depth > 0) {
+                int v = callStack[depth - 1];
+
+                if (nextEdge[v] < edges[v].length) {
+                    int w = edges[v][nextEdge[v]++];
+                    if (index[w] == -1) {
+                        index[w] = low[w] = counter++;
+                        stack.push(w);
+                        onStack[w] = true;
+                        callStack[depth++] = w;
+                    } else if (onStack[w]) {
+                        low[v] = Math.min(low[v], index[w]);
+                    }
+                    continue;
+                }
+
+                depth--;
+                if (depth > 0) {
+                    int parent = callStack[depth - 1];
+                    low[parent] = Math.min(low[parent], low[v]);
+                }
+
+                if (low[v] == index[v]) {
+                    List<Integer> component = new ArrayList<>();
+                    int w;
+                    do {
+                        w = stack.pop();
+                        onStack[w] = false;
+                        component.add(w);
+                    } while (w != v);
+                    components.add(component.stream().mapToInt(Integer::intValue).toArray());
+                }
+            }
+        }
+
+        return components;
+    }
+
+    /**
+     * Required features of a feature, empty if none
+     */
+    public List<Dependency> getDependencies(String featureKey) {
+        return dependencies.getOrDefault(featureKey, Collections.emptyList());
+    }
+
+    /**
+     * All feature keys, each after the features it requires
+     */
+    public List<String> getOrder() {
+        return order;
+    }
+
+    /**
+     * Feature keys of each cycle of required features, sorted
+     */
+    public List<List<String>> getCycles() {
+        return cycles;
+    }
+
+    /**
+     * Whether the feature requires itself, directly or through other features
+     */
+    public boolean isCyclic(String featureKey) {
+        return cyclic.contains(featureKey);
+    }
+}
@@ -0,0 +1,217 @@
+package com.featurevisor.sdk;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Segments whose conditions require one of a few values of an attribute, built when a datafile is loaded
+ *
+ * A segment whose conditions include, at the top level, an `equals` on a string or an `in` on a
+ * small list of values can only match contexts having one of those values for the attribute. Such a
+ * segment is kept with the attribute, the set of values it allows, and the conditions remaining
+ * besides them, so that a context is ruled out with one hash lookup, and only the remaining
+ * conditions are evaluated for contexts it allows.
+ */
+final class SegmentIndex {
+    // key of null values, which `in` lists may contain
+    private static final Object NULL = new Object();
+
+    private final Map<String, IndexedSegment> segments;
+
+    private SegmentIndex(Map<String, IndexedSegment> segments) {
+        this.segments = segments;
+    }
+
+    /**
+     * Index the segments whose compiled conditions have an indexable condition
+     * @param segments Segments of the datafile
+     * @param compiledConditions Compiled conditions of a segment's parsed conditions, or null if not compiled
+     */
+    static SegmentIndex build(Map<String, Segment> segments, Function<Object, CompiledCondition> compiledConditions) {
+        Map<String, IndexedSegment> indexed = new HashMap<>();
+
+        if (segments != null) {
+            for (Map.Entry<String, Segment> entry : segments.entrySet()) {
+                Segment segment = entry.getValue();
+                CompiledCondition compiled = segment != null ? compiledConditions.apply(segment.getConditions()) : null;
+                Split split = compiled != null ? split(compiled) : null;
+                if (split == null) {
+                    continue;
+                }
+
+                indexed.put(entry.getKey(), new IndexedSegment(split.attribute,
+                    Collections.unmodifiableSet(new HashSet<>(split.values)), split.residual));
+            }
+        }
+
+        return new SegmentIndex(indexed);
+    }
+
+    /**
+     * Whether the segment's conditions are matched, or null if the segment is not indexed
+     */
+    Boolean matches(String segmentKey, Map<String, Object> context) {
+        IndexedSegment segment = segments.get(segmentKey);
+        if (segment == null) {
+            return null;
+        }
+
+        Object key = key(ContextUtils.getValueFromContext(context, segment.attribute));
+        if (key == null || !segment.values.contains(key)) {
+            return false;
+        }
+        return segment.residual.matches(context);
+    }
+
+    /**
+     * Attribute the segment is indexed by, or null if the segment is not indexed
+     */
+    String getAttribute(String segmentKey) {
+        IndexedSegment segment = segments.get(segmentKey);
+        return segment != null ? segment.attribute : null;
+    }
+
+    /**
+     * Keys of the attribute values the segment can match, or null if the segment is not indexed
+     */
+    Set<Object> getValues(String segmentKey) {
+        IndexedSegment segment = segments.get(segmentKey);
+        return segment != null ? segment.values : null;
+    }
+
+    /**
+     * Number of indexed segments
+     */
+    int size() {
+        return segments.size();
+    }
+
+    /**
+     * Split a compiled condition into an indexable condition and the conditions remaining after it
+     */
+    private static Split split(CompiledCondition node) {
+        if (node instanceof CompiledCondition.Guarded) {
+            CompiledCondition.Guarded guarded = (CompiledCondition.Guarded) node;
+            Split split = split(guarded.getChild());
+            if (split == null || split.residual instanceof CompiledCondition.Constant) {
+                return split;
+            }
+            return new Split(split.attribute, split.values, guarded.withChild(split.residual));
+        }
+
+        Split plain = splitPlain(node);
+        if (plain != null) {
+            return plain;
+        }
+
+        if (!(node instanceof CompiledCondition.All)) {
+            return null;
+        }
+
+        // children after one that may throw are only evaluated if it does not, so they are kept in place
+        CompiledCondition[] children = ((CompiledCondition.All) node).getChildren();
+        for (int i = 0; i < children.length && !children[i].mayThrow(); i++) {
+            Split child = splitPlain(children[i]);
+            if (child == null) {
+                continue;
+            }
+
+            List<CompiledCondition> rest = new ArrayList<>(children.length - 1);
+            for (int j = 0; j < children.length; j++) {
+                if (j != i) {
+                    rest.add(children[j]);
+                }
+            }
+            return new Split(child.attribute, child.values,
+                rest.size() == 1 ? rest.get(0) : new CompiledCondition.All(rest));
+        }
+
+        return null;
+    }
+
+    /**
+     * Split an indexable plain condition, possibly guarded, leaving nothing else to evaluate
+     */
+    private static Split splitPlain(CompiledCondition node) {
+        if (node instanceof CompiledCondition.Guarded) {
+            node = ((CompiledCondition.Guarded) node).getChild();
+        }
+        if (!(node instanceof CompiledCondition.Plain)) {
+            return null;
+        }
+
+        CompiledCondition.Plain plain = (CompiledCondition.Plain) node;
+        Condition condition = plain.getCondition();
+        Object value = condition.getValue();
+        if (condition.getAttribute() == null) {
+            return null;
+        }
+
+        // equals compares with Object.equals, which is only the same as a key lookup for strings
+        if (condition.getOperator() == Operator.EQUALS && value instanceof String) {
+            return new Split(condition.getAttribute(), List.of(value), CompiledCondition.TRUE);
+        }
+
+        // large value sets are already looked up directly, and are not worth duplicating
+        if (condition.getOperator() == Operator.IN && plain.getValueSet() != null &&
+            plain.getValueSet().size() < ConditionValueSet.SORTED_ARRAY_THRESHOLD) {
+            List<Object> keys = new ArrayList<>();
+            for (Object item : (List<?>) value) {
+                Object key = key(item);
+                if (key != null) {
+                    keys.add(key);
+                }
+            }
+            return new Split(condition.getAttribute(), keys, CompiledCondition.TRUE);
+        }
+
+        return null;
+    }
+
+    /**
+     * Key of a value, normalized the same way as by {@link ConditionValueSet#contains(Object)},
+     * or null if the value can never match
+     */
+    static Object key(Object value) {
+        if (value == null) {
+            return NULL;
+        }
+        if (value instanceof String) {
+            return value;
+        }
+        if (value instanceof Number) {
+            return ConditionValueSet.normalizeNumber((Number) value);
+        }
+        return null;
+    }
+
+    private static final class Split {
+        private final String attribute;
+        private final List<Object> values;
+        private final CompiledCondition residual;
+
+        Split(String attribute, List<Object> values, CompiledCondition residual) {
+            this.attribute = attribute;
+            this.values = values;
+            this.residual = residual;
+        }
+    }
+
+    private static final class IndexedSegment {
+        private final String attribute;
+        private final Set<Object> values;
+        private final CompiledCondition residual;
+
+        IndexedSegment(String attribute, Set<Object> values, CompiledCondition residual) {
+            this.attribute = attribute;
+            this.values = values;
+            this.residual = residual;
+        }
+    }
+}
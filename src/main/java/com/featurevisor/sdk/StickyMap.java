@@ -0,0 +1,406 @@
+package com.featurevisor.sdk;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Immutable sticky features, keyed by feature key
+ *
+ * A persistent hash trie: adding entries returns a new map that shares all untouched nodes with the
+ * original, so layering sticky features costs O(changes) rather than copying every entry. Values
+ * are parsed once, when they are added, into {@link StickyEntry} for evaluation.
+ */
+public final class StickyMap extends AbstractMap<String, Object> {
+    public static final StickyMap EMPTY = new StickyMap(BitmapNode.EMPTY, 0);
+
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+
+    private final Node root;
+    private final int size;
+
+    private StickyMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * Sticky features of a map, which is returned as is when already a StickyMap
+     */
+    public static StickyMap of(Map<String, Object> sticky) {
+        if (sticky instanceof StickyMap) {
+            return (StickyMap) sticky;
+        }
+        return EMPTY.withAll(sticky);
+    }
+
+    /**
+     * A map with the given feature added or replaced
+     */
+    public StickyMap with(String featureKey, Object value) {
+        boolean[] added = new boolean[1];
+        Node newRoot = root.put(hash(featureKey), 0, new StickyEntry(featureKey, value), added);
+        return newRoot == root ? this : new StickyMap(newRoot, added[0] ? size + 1 : size);
+    }
+
+    /**
+     * A map with the given features added or replaced
+     */
+    public StickyMap withAll(Map<String, Object> sticky) {
+        if (sticky == null || sticky.isEmpty()) {
+            return this;
+        }
+        if (size == 0 && sticky instanceof StickyMap) {
+            return (StickyMap) sticky;
+        }
+
+        Node newRoot = root;
+        int newSize = size;
+        boolean[] added = new boolean[1];
+        for (Map.Entry<String, Object> entry : sticky.entrySet()) {
+            StickyEntry stickyEntry = entry instanceof StickyEntry ?
+                (StickyEntry) entry :
+                new StickyEntry(entry.getKey(), entry.getValue());
+
+            added[0] = false;
+            newRoot = newRoot.put(hash(stickyEntry.key), 0, stickyEntry, added);
+            if (added[0]) {
+                newSize++;
+            }
+        }
+        return new StickyMap(newRoot, newSize);
+    }
+
+    /**
+     * Parsed sticky feature, or null if not sticky
+     */
+    public StickyEntry getEntry(String featureKey) {
+        return root.find(hash(featureKey), 0, featureKey);
+    }
+
+    @Override
+    public Object get(Object key) {
+        if (key != null && !(key instanceof String)) {
+            return null;
+        }
+        StickyEntry entry = getEntry((String) key);
+        return entry != null ? entry.value : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return (key == null || key instanceof String) && getEntry((String) key) != null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Set<Map.Entry<String, Object>> entrySet() {
+        return new AbstractSet<Map.Entry<String, Object>>() {
+            @Override
+            public Iterator<Map.Entry<String, Object>> iterator() {
+                StickyEntry[] entries = new StickyEntry[size];
+                root.collect(entries, 0);
+
+                return new Iterator<Map.Entry<String, Object>>() {
+                    private int index;
+
+                    @Override
+                    public boolean hasNext() {
+                        return index < entries.length;
+                    }
+
+                    @Override
+                    public Map.Entry<String, Object> next() {
+                        if (index >= entries.length) {
+                            throw new NoSuchElementException();
+                        }
+                        return entries[index++];
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private static int hash(String key) {
+        int h = key != null ? key.hashCode() : 0;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * A sticky feature, with its value parsed for evaluation
+     */
+    public static final class StickyEntry implements Map.Entry<String, Object> {
+        private final String key;
+        private final Object value;
+        private final int hash;
+
+        // parsed from the value, when it is a map
+        private final Map<String, Object> map;
+        private final boolean hasEnabled;
+        private final Object enabled;
+        private final Object variation;
+        private final Map<String, Object> variables;
+
+        @SuppressWarnings("unchecked")
+        StickyEntry(String key, Object value) {
+            this.key = key;
+            this.value = value;
+            this.hash = hash(key);
+
+            this.map = value instanceof Map ? (Map<String, Object>) value : null;
+            this.hasEnabled = map != null && map.containsKey("enabled");
+            this.enabled = map != null ? map.get("enabled") : null;
+            this.variation = map != null ? map.get("variation") : null;
+            Object variablesValue = map != null ? map.get("variables") : null;
+            this.variables = variablesValue instanceof Map ? (Map<String, Object>) variablesValue : null;
+        }
+
+        @Override
+        public String getKey() { return key; }
+        @Override
+        public Object getValue() { return value; }
+
+        /**
+         * The value, or null when it is not a map
+         */
+        public Map<String, Object> getMap() { return map; }
+        public boolean hasEnabled() { return hasEnabled; }
+        public Object getEnabled() { return enabled; }
+        public Object getVariation() { return variation; }
+        public Map<String, Object> getVariables() { return variables; }
+
+        @Override
+        public Object setValue(Object value) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> other = (Map.Entry<?, ?>) o;
+            return Objects.equals(key, other.getKey()) && Objects.equals(value, other.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(key) ^ Objects.hashCode(value);
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + value;
+        }
+    }
+
+    private abstract static class Node {
+        abstract StickyEntry find(int hash, int shift, String key);
+
+        /**
+         * The node with the entry put, or this node if unchanged. Sets added[0] when a key was added.
+         */
+        abstract Node put(int hash, int shift, StickyEntry entry, boolean[] added);
+
+        /**
+         * Copy all entries into the array from the offset, returning the next offset
+         */
+        abstract int collect(StickyEntry[] entries, int offset);
+    }
+
+    /**
+     * Entries first, then child nodes in reverse order, each indexed by their bitmap
+     */
+    private static final class BitmapNode extends Node {
+        static final BitmapNode EMPTY = new BitmapNode(0, 0, new Object[0]);
+
+        private final int dataMap;
+        private final int nodeMap;
+        private final Object[] content;
+
+        BitmapNode(int dataMap, int nodeMap, Object[] content) {
+            this.dataMap = dataMap;
+            this.nodeMap = nodeMap;
+            this.content = content;
+        }
+
+        private int dataIndex(int bit) {
+            return Integer.bitCount(dataMap & (bit - 1));
+        }
+
+        private int nodeIndex(int bit) {
+            return content.length - 1 - Integer.bitCount(nodeMap & (bit - 1));
+        }
+
+        @Override
+        StickyEntry find(int hash, int shift, String key) {
+            int bit = 1 << ((hash >>> shift) & MASK);
+            if ((dataMap & bit) != 0) {
+                StickyEntry entry = (StickyEntry) content[dataIndex(bit)];
+                return entry.hash == hash && Objects.equals(entry.key, key) ? entry : null;
+            }
+            if ((nodeMap & bit) != 0) {
+                return ((Node) content[nodeIndex(bit)]).find(hash, shift + BITS, key);
+            }
+            return null;
+        }
+
+        @Override
+        Node put(int hash, int shift, StickyEntry entry, boolean[] added) {
+            int bit = 1 << ((hash >>> shift) & MASK);
+
+            if ((dataMap & bit) != 0) {
+                int index = dataIndex(bit);
+                StickyEntry existing = (StickyEntry) content[index];
+
+                if (existing.hash == hash && Objects.equals(existing.key, entry.key)) {
+                    if (existing.value == entry.value) {
+                        return this;
+                    }
+                    Object[] newContent = content.clone();
+                    newContent[index] = entry;
+                    return new BitmapNode(dataMap, nodeMap, newContent);
+                }
+
+                // move both entries down into a new child node
+                added[0] = true;
+                Node child = merge(existing, entry, shift + BITS);
+                return new BitmapNode(dataMap & ~bit, nodeMap | bit, replaceEntryWithNode(index, bit, child));
+            }
+
+            if ((nodeMap & bit) != 0) {
+                int index = nodeIndex(bit);
+                Node child = (Node) content[index];
+                Node newChild = child.put(hash, shift + BITS, entry, added);
+                if (newChild == child) {
+                    return this;
+                }
+                Object[] newContent = content.clone();
+                newContent[index] = newChild;
+                return new BitmapNode(dataMap, nodeMap, newContent);
+            }
+
+            added[0] = true;
+            int index = dataIndex(bit);
+            Object[] newContent = new Object[content.length + 1];
+            System.arraycopy(content, 0, newContent, 0, index);
+            newContent[index] = entry;
+            System.arraycopy(content, index, newContent, index + 1, content.length - index);
+            return new BitmapNode(dataMap | bit, nodeMap, newContent);
+        }
+
+        /**
+         * Content with the entry at the data index removed and the child node added for the bit
+         */
+        private Object[] replaceEntryWithNode(int dataIndex, int bit, Node child) {
+            Object[] newContent = new Object[content.length];
+
+            int dataCount = Integer.bitCount(dataMap);
+            System.arraycopy(content, 0, newContent, 0, dataIndex);
+            System.arraycopy(content, dataIndex + 1, newContent, dataIndex, dataCount - dataIndex - 1);
+
+            // child nodes are stored from the end, lowest bit last
+            int newNodeMap = nodeMap | bit;
+            int position = newContent.length - 1;
+            int oldPosition = content.length - 1;
+            for (int b = 0; b < 32; b++) {
+                int candidate = 1 << b;
+                if ((newNodeMap & candidate) != 0) {
+                    newContent[position--] = candidate == bit ? child : content[oldPosition--];
+                }
+            }
+
+            return newContent;
+        }
+
+        @Override
+        int collect(StickyEntry[] entries, int offset) {
+            int dataCount = Integer.bitCount(dataMap);
+            for (int i = 0; i < dataCount; i++) {
+                entries[offset++] = (StickyEntry) content[i];
+            }
+            for (int i = dataCount; i < content.length; i++) {
+                offset = ((Node) content[i]).collect(entries, offset);
+            }
+            return offset;
+        }
+
+        private static Node merge(StickyEntry a, StickyEntry b, int shift) {
+            if (shift >= 32) {
+                return new CollisionNode(new StickyEntry[]{a, b});
+            }
+
+            int bitA = 1 << ((a.hash >>> shift) & MASK);
+            int bitB = 1 << ((b.hash >>> shift) & MASK);
+            if (bitA != bitB) {
+                Object[] content = Integer.compareUnsigned(bitA, bitB) < 0 ?
+                    new Object[]{a, b} :
+                    new Object[]{b, a};
+                return new BitmapNode(bitA | bitB, 0, content);
+            }
+
+            return new BitmapNode(0, bitA, new Object[]{merge(a, b, shift + BITS)});
+        }
+    }
+
+    /**
+     * Entries whose keys have the same hash
+     */
+    private static final class CollisionNode extends Node {
+        private final StickyEntry[] entries;
+
+        CollisionNode(StickyEntry[] entries) {
+            this.entries = entries;
+        }
+
+        @Override
+        StickyEntry find(int hash, int shift, String key) {
+            for (StickyEntry entry : entries) {
+                if (Objects.equals(entry.key, key)) {
+                    return entry;
+                }
+            }
+            return null;
+        }
+
+        @Override
+        Node put(int hash, int shift, StickyEntry entry, boolean[] added) {
+            for (int i = 0; i < entries.length; i++) {
+                if (Objects.equals(entries[i].key, entry.key)) {
+                    if (entries[i].value == entry.value) {
+                        return this;
+                    }
+                    StickyEntry[] newEntries = entries.clone();
+                    newEntries[i] = entry;
+                    return new CollisionNode(newEntries);
+                }
+            }
+
+            added[0] = true;
+            StickyEntry[] newEntries = Arrays.copyOf(entries, entries.length + 1);
+            newEntries[entries.length] = entry;
+            return new CollisionNode(newEntries);
+        }
+
+        @Override
+        int collect(StickyEntry[] entries, int offset) {
+            System.arraycopy(this.entries, 0, entries, offset, this.entries.length);
+            return offset + this.entries.length;
+        }
+    }
+}
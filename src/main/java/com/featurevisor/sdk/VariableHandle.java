@@ -0,0 +1,132 @@
+package com.featurevisor.sdk;
+
+import java.util.Map;
+
+/**
+ * Handle of a variable, created by {@link Featurevisor#variable(String, String, Class)}
+ *
+ * Values convert to the handle's type as the typed getVariable methods do, and the primitive
+ * getters return a default instead of null when there is no value.
+ */
+public final class VariableHandle<T> extends FeatureHandle {
+    private final String variableKey;
+    private final Class<T> type;
+
+    VariableHandle(Featurevisor featurevisor, String featureKey, String variableKey, Class<T> type) {
+        super(featurevisor, featureKey);
+        this.variableKey = variableKey;
+        this.type = type;
+    }
+
+    public String getVariableKey() {
+        return variableKey;
+    }
+
+    public Class<T> getType() {
+        return type;
+    }
+
+    public Evaluation evaluate(Map<String, Object> context) {
+        return evaluate(Evaluation.TYPE_VARIABLE, variableKey, context);
+    }
+
+    /**
+     * Value as evaluated, with JSON variables decoded
+     */
+    public Object getValue(Map<String, Object> context) {
+        try {
+            return featurevisor.getVariableValue(evaluate(context));
+        } catch (Exception e) {
+            featurevisor.getLogger().error("getVariable", Map.of(
+                "featureKey", featureKey, "variableKey", variableKey, "error", String.valueOf(e.getMessage())));
+            return null;
+        }
+    }
+
+    /**
+     * Value converted to the handle's type, or null
+     */
+    public T get(Map<String, Object> context) {
+        return convert(getValue(context));
+    }
+
+    public T get() {
+        return get(null);
+    }
+
+    public int getInt(Map<String, Object> context, int defaultValue) {
+        Object value = getValue(context);
+        if (value instanceof Number) {
+            return ((Number) value).intValue();
+        }
+        if (value instanceof String) {
+            try {
+                return Integer.parseInt((String) value);
+            } catch (NumberFormatException e) {
+                return defaultValue;
+            }
+        }
+        return defaultValue;
+    }
+
+    public int getInt(Map<String, Object> context) {
+        return getInt(context, 0);
+    }
+
+    public double getDouble(Map<String, Object> context, double defaultValue) {
+        Object value = getValue(context);
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        if (value instanceof String) {
+            try {
+                return Double.parseDouble((String) value);
+            } catch (NumberFormatException e) {
+                return defaultValue;
+            }
+        }
+        return defaultValue;
+    }
+
+    public double getDouble(Map<String, Object> context) {
+        return getDouble(context, 0);
+    }
+
+    public boolean getBoolean(Map<String, Object> context) {
+        return Boolean.TRUE.equals(getValue(context));
+    }
+
+    @SuppressWarnings("unchecked")
+    private T convert(Object value) {
+        if (value == null) {
+            return null;
+        }
+
+        if (type == Integer.class) {
+            if (value instanceof Integer) {
+                return (T) value;
+            }
+            if (value instanceof Number) {
+                return (T) Integer.valueOf(((Number) value).intValue());
+            }
+            return (T) Helpers.getValueByType(value, "integer");
+        }
+
+        if (type == Double.class) {
+            if (value instanceof Number) {
+                return (T) Double.valueOf(((Number) value).doubleValue());
+            }
+            return (T) Helpers.getValueByType(value, "double");
+        }
+
+        if (type == Boolean.class) {
+            return (T) Boolean.valueOf(Boolean.TRUE.equals(value));
+        }
+
+        if (type.isInstance(value)) {
+            return type.cast(value);
+        }
+
+        return type == String.class ? null : featurevisor.convertValue(value, type);
+    }
+}
@@ -0,0 +1,281 @@
+package com.featurevisor.sdk;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Decoded JSON variables and typed conversions of variable values, kept for one datafile revision
+ *
+ * JSON strings decode once into unmodifiable maps and lists, and each value converts once per
+ * target type when the result can be shared: strings, numbers, booleans and enums, and, when the
+ * type asks for the Map or List interface, unmodifiable maps and lists of them. Other results, such
+ * as POJOs or a HashMap asked for by its class, are converted afresh on every call so callers never
+ * see each other's changes.
+ *
+ * Only values of the datafile itself are cached, so the caches are bounded by its size. Values from
+ * sticky features or hooks may be new objects on every call, and are decoded and converted afresh.
+ */
+final class VariableValueCache {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    // stands in for null and failures, which ConcurrentHashMap cannot hold
+    private static final Object NONE = new Object();
+
+    // stands in for conversions that are mutable, and so are not cached
+    private static final Object MUTABLE = new Object();
+
+    private static final Set<Class<?>> IMMUTABLE_TYPES = Set.of(
+        String.class, Boolean.class, Character.class,
+        Byte.class, Short.class, Integer.class, Long.class, Float.class, Double.class,
+        BigInteger.class, BigDecimal.class
+    );
+
+    // variable values of the datafile, by identity, read only once built
+    private final Set<Object> datafileValues = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    private final Map<String, Object> decoded = new ConcurrentHashMap<>();
+    private final Map<Conversion, Object> conversions = new ConcurrentHashMap<>();
+
+    /**
+     * Cache for the variable values of the features
+     * @param features Features of the datafile, possibly null
+     */
+    VariableValueCache(Map<String, Feature> features) {
+        if (features == null) {
+            return;
+        }
+
+        for (Feature feature : features.values()) {
+            if (feature == null) {
+                continue;
+            }
+            if (feature.getVariablesSchema() != null) {
+                for (VariableSchema schema : feature.getVariablesSchema().values()) {
+                    if (schema != null) {
+                        addDatafileValue(schema.getDefaultValue());
+                    }
+                }
+            }
+            if (feature.getVariations() != null) {
+                for (Variation variation : feature.getVariations()) {
+                    if (variation != null) {
+                        addDatafileValues(variation.getVariables(), variation.getVariableOverrides());
+                    }
+                }
+            }
+            if (feature.getTraffic() != null) {
+                for (Traffic traffic : feature.getTraffic()) {
+                    if (traffic != null) {
+                        addDatafileValues(traffic.getVariables(), traffic.getVariableOverrides());
+                    }
+                }
+            }
+            if (feature.getForce() != null) {
+                for (Force force : feature.getForce()) {
+                    if (force != null) {
+                        addDatafileValues(force.getVariables(), null);
+                    }
+                }
+            }
+        }
+    }
+
+    private void addDatafileValues(Map<String, Object> variables, Map<String, List<VariableOverride>> overrides) {
+        if (variables != null) {
+            variables.values().forEach(this::addDatafileValue);
+        }
+        if (overrides != null) {
+            for (List<VariableOverride> list : overrides.values()) {
+                if (list == null) {
+                    continue;
+                }
+                for (VariableOverride override : list) {
+                    if (override != null) {
+                        addDatafileValue(override.getValue());
+                    }
+                }
+            }
+        }
+    }
+
+    private void addDatafileValue(Object value) {
+        if (value != null) {
+            datafileValues.add(value);
+        }
+    }
+
+    /**
+     * Decoded JSON string as an unmodifiable tree, or null if malformed
+     */
+    Object decodeJson(String json) {
+        Object value = decoded.get(json);
+        if (value == null) {
+            try {
+                value = immutable(OBJECT_MAPPER.readValue(json, Object.class));
+            } catch (Exception e) {
+                value = null;
+            }
+            if (value == null) {
+                value = NONE;
+            }
+            if (datafileValues.contains(json)) {
+                decoded.put(json, value);
+            }
+        }
+        return value == NONE ? null : value;
+    }
+
+    /**
+     * Value converted to the type, or null if it cannot be
+     *
+     * Lists and maps are returned unmodifiable when they are shared, which is only when the type
+     * asks for an interface they implement, and mutable results are new instances on every call.
+     */
+    @SuppressWarnings("unchecked")
+    <T> T convert(Object value, JavaType type) {
+        if (!datafileValues.contains(value)) {
+            return convertValue(value, type);
+        }
+
+        Conversion key = new Conversion(value, type);
+        Object cached = conversions.get(key);
+        if (cached != null && cached != MUTABLE) {
+            return cached == NONE ? null : (T) cached;
+        }
+
+        Object converted = convertValue(value, type);
+        if (cached == MUTABLE) {
+            return (T) converted;
+        }
+
+        Object shared = converted == null ? NONE : shareable(converted, type);
+        conversions.put(key, shared);
+        return shared == MUTABLE ? (T) converted : shared == NONE ? null : (T) shared;
+    }
+
+    /**
+     * Number of cached decodings and conversions
+     */
+    int size() {
+        return decoded.size() + conversions.size();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T convertValue(Object value, JavaType type) {
+        try {
+            return (T) OBJECT_MAPPER.convertValue(value, type);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    static JavaType typeOf(Class<?> type) {
+        return OBJECT_MAPPER.getTypeFactory().constructType(type);
+    }
+
+    static JavaType typeOf(TypeReference<?> typeRef) {
+        return OBJECT_MAPPER.getTypeFactory().constructType(typeRef);
+    }
+
+    static JavaType listOf(Class<?> itemType) {
+        return OBJECT_MAPPER.getTypeFactory().constructCollectionType(List.class, itemType);
+    }
+
+    private static Object immutable(Object value) {
+        if (value instanceof Map) {
+            Map<Object, Object> copy = new LinkedHashMap<>();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                copy.put(entry.getKey(), immutable(entry.getValue()));
+            }
+            return Collections.unmodifiableMap(copy);
+        }
+        if (value instanceof List) {
+            List<Object> copy = new ArrayList<>();
+            for (Object item : (List<?>) value) {
+                copy.add(immutable(item));
+            }
+            return Collections.unmodifiableList(copy);
+        }
+        return value;
+    }
+
+    // unmodifiable copy of a value converted to the type, or MUTABLE if any part of it is not
+    // immutable, or is a map or list whose type asks for more than the Map or List interface
+    private static Object shareable(Object value, JavaType type) {
+        if (isImmutable(value)) {
+            return value;
+        }
+
+        Class<?> raw = type.getRawClass();
+        boolean anyType = raw == Object.class;
+        if (value instanceof Map && (anyType || raw == Map.class)) {
+            JavaType valueType = anyType ? type : type.getContentType();
+            Map<Object, Object> copy = new LinkedHashMap<>();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                Object item = shareable(entry.getValue(), valueType);
+                if (item == MUTABLE || !isImmutable(entry.getKey())) {
+                    return MUTABLE;
+                }
+                copy.put(entry.getKey(), item);
+            }
+            return Collections.unmodifiableMap(copy);
+        }
+        if (value instanceof List && (anyType || raw == List.class || raw == Collection.class)) {
+            JavaType itemType = anyType ? type : type.getContentType();
+            List<Object> copy = new ArrayList<>();
+            for (Object item : (List<?>) value) {
+                Object shared = shareable(item, itemType);
+                if (shared == MUTABLE) {
+                    return MUTABLE;
+                }
+                copy.add(shared);
+            }
+            return Collections.unmodifiableList(copy);
+        }
+        return MUTABLE;
+    }
+
+    private static boolean isImmutable(Object value) {
+        return value == null || value instanceof Enum || IMMUTABLE_TYPES.contains(value.getClass());
+    }
+
+    /**
+     * A value, compared by identity, and the type it converts to
+     */
+    private static final class Conversion {
+        private final Object value;
+        private final JavaType type;
+
+        Conversion(Object value, JavaType type) {
+            this.value = value;
+            this.type = type;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Conversion)) {
+                return false;
+            }
+            Conversion other = (Conversion) o;
+            return value == other.value && type.equals(other.type);
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(value) * 31 + type.hashCode();
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.featurevisor.sdk;
+
+import java.util.Map;
+
+/**
+ * Handle of a feature's variation, created by {@link Featurevisor#variation(String)}
+ */
+public final class VariationHandle extends FeatureHandle {
+
+    VariationHandle(Featurevisor featurevisor, String featureKey) {
+        super(featurevisor, featureKey);
+    }
+
+    public Evaluation evaluate(Map<String, Object> context) {
+        return evaluate(Evaluation.TYPE_VARIATION, null, context);
+    }
+
+    public String getVariation(Map<String, Object> context) {
+        try {
+            Evaluation evaluation = evaluate(context);
+
+            if (evaluation.getVariationValue() != null) {
+                return evaluation.getVariationValue();
+            }
+
+            if (evaluation.getVariation() != null) {
+                return evaluation.getVariation().getValue();
+            }
+
+            return null;
+        } catch (Exception e) {
+            featurevisor.getLogger().error("getVariation", Map.of("featureKey", featureKey, "error", String.valueOf(e.getMessage())));
+            return null;
+        }
+    }
+
+    public String getVariation() {
+        return getVariation(null);
+    }
+}
@@ -0,0 +1,102 @@
+package com.featurevisor.cli;
+
+import com.featurevisor.sdk.Featurevisor;
+import com.featurevisor.sdk.Logger;
+import org.junit.jupiter.api.Test;
+import picocli.CommandLine;
+
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BenchmarkTest {
+
+    @Test
+    public void testRunsWarmupAndMeasuredIterationsOnAllThreads() throws Exception {
+        Featurevisor f = Featurevisor.createInstance(new Featurevisor.Options()
+            .datafileString("{\"schemaVersion\":\"2\",\"revision\":\"1\",\"segments\":{},\"features\":{" +
+                "\"test\":{\"key\":\"test\",\"bucketBy\":\"userId\",\"traffic\":[{\"key\":\"1\",\"segments\":\"*\",\"percentage\":100000,\"allocation\":[]}]}}}")
+            .logLevel(Logger.LogLevel.FATAL));
+
+        AtomicInteger calls = new AtomicInteger();
+        Benchmark.BenchmarkResult result = Benchmark.run(
+            new Benchmark.BenchmarkOptions()
+                .iterations(10_001)
+                .warmupIterations(500)
+                .threads(3)
+                .batchSize(50),
+            () -> {
+                calls.incrementAndGet();
+                return f.isEnabled("test", Map.of("userId", "123"));
+            });
+
+        assertEquals(10_501, calls.get());
+        assertEquals(Boolean.TRUE, result.value);
+        assertEquals(3, result.threads);
+        // 3334 + 3334 + 3333 iterations in batches of 50
+        assertEquals(67 + 67 + 67, result.samples);
+
+        assertTrue(result.minNanos <= result.p50Nanos);
+        assertTrue(result.p50Nanos <= result.p90Nanos);
+        assertTrue(result.p90Nanos <= result.p99Nanos);
+        assertTrue(result.p99Nanos <= result.p999Nanos);
+        assertTrue(result.p999Nanos <= result.maxNanos);
+        assertTrue(result.getThroughput() > 0);
+
+        Map<String, Object> json = result.toMap();
+        assertEquals(10_001, json.get("iterations"));
+        assertTrue(((Map<?, ?>) json.get("latencyNanos")).containsKey("p999"));
+        assertTrue(json.containsKey("allocatedBytesPerEvaluation"));
+    }
+
+    @Test
+    public void testFailedWarmupIsReported() {
+        AtomicInteger calls = new AtomicInteger();
+        ExecutionException e = assertThrows(ExecutionException.class, () -> Benchmark.run(
+            new Benchmark.BenchmarkOptions()
+                .iterations(100)
+                .warmupIterations(30)
+                .threads(3),
+            () -> {
+                if (calls.incrementAndGet() == 5) {
+                    throw new IllegalStateException("failed");
+                }
+                return null;
+            }));
+
+        assertTrue(e.getCause() instanceof IllegalStateException);
+    }
+
+    @Test
+    public void testPercentiles() {
+        double[] samples = new double[1000];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = i + 1;
+        }
+
+        assertEquals(1, Benchmark.percentile(samples, 0));
+        assertEquals(500, Benchmark.percentile(samples, 50));
+        assertEquals(990, Benchmark.percentile(samples, 99));
+        assertEquals(999, Benchmark.percentile(samples, 99.9));
+        assertEquals(1000, Benchmark.percentile(samples, 100));
+        assertEquals(0, Benchmark.percentile(new double[0], 50));
+    }
+
+    @Test
+    public void testParseBenchmarkOptions() {
+        CommandLine.ParseResult result = new CommandLine(new CLI()).parseArgs(
+            "benchmark",
+            "--threads=4",
+            "--warmup=100",
+            "--batchSize=10",
+            "--json"
+        );
+
+        assertTrue(result.hasMatchedOption("--threads"));
+        assertTrue(result.hasMatchedOption("--warmup"));
+        assertTrue(result.hasMatchedOption("--batchSize"));
+        assertTrue(result.hasMatchedOption("--json"));
+    }
+}
@@ -16,7 +16,8 @@ public class CLIOptionsTest {
             "--with-tags",
             "--showDatafile",
             "--schemaVersion=2",
-            "--inflate=3"
+            "--inflate=3",
+            "--concurrency=4"
         );
 
         assertTrue(result.hasMatchedOption("--with-scopes"));
@@ -24,5 +25,6 @@ public class CLIOptionsTest {
         assertTrue(result.hasMatchedOption("--showDatafile"));
         assertTrue(result.hasMatchedOption("--schemaVersion"));
         assertTrue(result.hasMatchedOption("--inflate"));
+        assertTrue(result.hasMatchedOption("--concurrency"));
     }
 }
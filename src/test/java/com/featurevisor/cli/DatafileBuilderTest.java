@@ -0,0 +1,119 @@
+package com.featurevisor.cli;
+
+import com.featurevisor.sdk.DatafileContent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DatafileBuilderTest {
+
+    /**
+     * Stands in for `npx featurevisor build`, answering with the revision derived from the command
+     */
+    private static class StubCommandRunner implements CommandRunner {
+        final List<String> commands = Collections.synchronizedList(new ArrayList<>());
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        CountDownLatch started;
+
+        @Override
+        public void run(String directory, String command, java.io.OutputStream output) throws IOException {
+            commands.add(command);
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                if (started != null) {
+                    started.countDown();
+                    started.await(5, TimeUnit.SECONDS);
+                }
+                String revision = command.replace("npx featurevisor build --json", "").trim();
+                output.write(("{\"schemaVersion\":\"2\",\"revision\":\"" + revision + "\",\"segments\":{},\"features\":{}}")
+                    .getBytes(StandardCharsets.UTF_8));
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            } finally {
+                running.decrementAndGet();
+            }
+        }
+    }
+
+    private static List<DatafileBuilder.Target> matrix() {
+        return Arrays.asList(
+            new DatafileBuilder.Target("staging", null),
+            new DatafileBuilder.Target("production", null),
+            new DatafileBuilder.Target("staging", "web"),
+            new DatafileBuilder.Target("production", "web"));
+    }
+
+    @Test
+    public void testBuildsMatrixConcurrentlyInOrder(@TempDir Path project) throws Exception {
+        StubCommandRunner runner = new StubCommandRunner();
+        runner.started = new CountDownLatch(4);
+
+        DatafileBuilder builder = new DatafileBuilder(runner, project.toString(), null, 4, " --schema-version=2");
+        List<DatafileContent> datafiles = builder.buildAll(matrix());
+
+        assertEquals(4, runner.maxRunning.get());
+        assertEquals(4, builder.getBuilds());
+        assertEquals("--environment=staging --schema-version=2", datafiles.get(0).getRevision());
+        assertEquals("--environment=production --schema-version=2", datafiles.get(1).getRevision());
+        assertEquals("--environment=staging --tag=web --schema-version=2", datafiles.get(2).getRevision());
+        assertEquals("--environment=production --tag=web --schema-version=2", datafiles.get(3).getRevision());
+    }
+
+    @Test
+    public void testReusesCachedBuildsUntilDefinitionsChange(@TempDir Path project, @TempDir Path cache) throws Exception {
+        Files.createDirectories(project.resolve("features"));
+        Files.createDirectories(project.resolve("node_modules/featurevisor"));
+        Files.writeString(project.resolve("features/foo.yml"), "description: foo");
+        Files.writeString(project.resolve("node_modules/featurevisor/index.js"), "1");
+
+        StubCommandRunner runner = new StubCommandRunner();
+        new DatafileBuilder(runner, project.toString(), cache, 2, "").buildAll(matrix());
+        assertEquals(4, runner.commands.size());
+
+        // a new run with unchanged definitions builds nothing
+        DatafileBuilder cached = new DatafileBuilder(runner, project.toString(), cache, 2, "");
+        List<DatafileContent> datafiles = cached.buildAll(matrix());
+        assertEquals(4, runner.commands.size());
+        assertEquals(4, cached.getCacheHits());
+        assertEquals("--environment=production --tag=web", datafiles.get(3).getRevision());
+
+        // ignored directories do not affect the key
+        Files.writeString(project.resolve("node_modules/featurevisor/index.js"), "2");
+        new DatafileBuilder(runner, project.toString(), cache, 2, "").buildAll(matrix());
+        assertEquals(4, runner.commands.size());
+
+        // changed definitions are rebuilt
+        Files.writeString(project.resolve("features/foo.yml"), "description: bar");
+        DatafileBuilder rebuilt = new DatafileBuilder(runner, project.toString(), cache, 2, "");
+        rebuilt.build(new DatafileBuilder.Target("staging", null));
+        assertEquals(5, runner.commands.size());
+        assertEquals(1, rebuilt.getBuilds());
+    }
+
+    @Test
+    public void testFailedBuildsAreNotCached(@TempDir Path project, @TempDir Path cache) throws Exception {
+        CommandRunner failing = (directory, command, output) -> output.write("not json".getBytes(StandardCharsets.UTF_8));
+
+        DatafileBuilder builder = new DatafileBuilder(failing, project.toString(), cache, 1, "");
+        IOException error = assertThrows(IOException.class, () -> builder.build(new DatafileBuilder.Target(null, null)));
+        assertTrue(error.getMessage().startsWith("Failed to parse datafile for npx featurevisor build --json"));
+
+        try (java.util.stream.Stream<Path> files = Files.list(cache)) {
+            assertEquals(0, files.count());
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.featurevisor.cli;
+
+import com.featurevisor.sdk.DatafileContent;
+import com.featurevisor.sdk.Featurevisor;
+import com.featurevisor.sdk.HooksManager;
+import com.featurevisor.sdk.Logger;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DistributionAnalyzerTest {
+
+    private static final String DATAFILE = "{\"schemaVersion\":\"2\",\"revision\":\"1\"," +
+        "\"segments\":{\"nl\":{\"key\":\"nl\",\"conditions\":[{\"attribute\":\"country\",\"operator\":\"equals\",\"value\":\"nl\"}]}}," +
+        "\"features\":{\"test\":{\"key\":\"test\",\"bucketBy\":\"userId\"," +
+        "\"variablesSchema\":{\"color\":{\"key\":\"color\",\"type\":\"string\",\"defaultValue\":\"red\"}}," +
+        "\"variations\":[{\"value\":\"control\"},{\"value\":\"treatment\",\"variables\":{\"color\":\"blue\"}}]," +
+        "\"traffic\":[" +
+        "{\"key\":\"nl\",\"segments\":\"nl\",\"percentage\":80000,\"allocation\":[" +
+        "{\"variation\":\"control\",\"range\":[0,40000]},{\"variation\":\"treatment\",\"range\":[40000,80000]}]}," +
+        "{\"key\":\"everyone\",\"segments\":\"*\",\"percentage\":25000,\"allocation\":[" +
+        "{\"variation\":\"control\",\"range\":[0,12500]},{\"variation\":\"treatment\",\"range\":[12500,25000]}]}]}}}";
+
+    private static final BiFunction<Featurevisor, Map<String, Object>, Object> FLAG =
+        (f, context) -> f.isEnabled("test", context);
+    private static final BiFunction<Featurevisor, Map<String, Object>, Object> VARIATION =
+        (f, context) -> f.getVariation("test", context);
+    private static final BiFunction<Featurevisor, Map<String, Object>, Object> VARIABLE =
+        (f, context) -> f.getVariable("test", "color", context);
+
+    /**
+     * Evaluate every single bucket value, which the analysis must agree with
+     */
+    private static Map<Object, Long> evaluateAllBuckets(
+            DatafileContent datafile,
+            Map<String, Object> context,
+            BiFunction<Featurevisor, Map<String, Object>, Object> evaluate) {
+        int[] pinned = new int[1];
+        Featurevisor f = Featurevisor.createInstance(new Featurevisor.Options()
+            .datafile(datafile)
+            .logLevel(Logger.LogLevel.FATAL)
+            .hooks(Collections.singletonList(new HooksManager.Hook("all-buckets")
+                .bucketValue((options) -> pinned[0]))));
+
+        Map<Object, Long> counts = new HashMap<>();
+        for (int bucketValue = 0; bucketValue < DistributionAnalyzer.BUCKETS; bucketValue++) {
+            pinned[0] = bucketValue;
+            counts.merge(evaluate.apply(f, context), 1L, Long::sum);
+        }
+        return counts;
+    }
+
+    @Test
+    public void testMatchesEvaluatingEveryBucket() throws Exception {
+        DatafileContent datafile = DatafileContent.fromJson(DATAFILE);
+
+        for (Map<String, Object> context : List.<Map<String, Object>>of(Map.of("country", "nl"), Map.of("country", "de"))) {
+            for (BiFunction<Featurevisor, Map<String, Object>, Object> evaluate : List.of(FLAG, VARIATION, VARIABLE)) {
+                Map<Object, Long> exact = DistributionAnalyzer.analyze(datafile, "test", Logger.LogLevel.FATAL, context, evaluate);
+
+                assertEquals(evaluateAllBuckets(datafile, context, evaluate), exact);
+                assertEquals(DistributionAnalyzer.BUCKETS, exact.values().stream().mapToLong(Long::longValue).sum());
+            }
+        }
+
+        Map<Object, Long> flag = DistributionAnalyzer.analyze(datafile, "test", Logger.LogLevel.FATAL, Map.of("country", "nl"), FLAG);
+        assertEquals(80_001L, flag.get(true));
+        assertEquals(19_999L, flag.get(false));
+    }
+
+    @Test
+    public void testBoundaries() throws Exception {
+        DatafileContent datafile = DatafileContent.fromJson(DATAFILE);
+
+        assertArrayEquals(
+            new int[]{0, 12_500, 12_501, 25_001, 40_000, 40_001, 80_001, 100_000},
+            DistributionAnalyzer.getBoundaries(datafile.getFeature("test")));
+        assertArrayEquals(new int[]{0, 100_000}, DistributionAnalyzer.getBoundaries(null));
+    }
+}
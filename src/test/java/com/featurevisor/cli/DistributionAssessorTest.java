@@ -0,0 +1,68 @@
+package com.featurevisor.cli;
+
+import com.featurevisor.sdk.Featurevisor;
+import com.featurevisor.sdk.Logger;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DistributionAssessorTest {
+
+    private static Featurevisor createInstance() {
+        return Featurevisor.createInstance(new Featurevisor.Options()
+            .datafileString("{\"schemaVersion\":\"2\",\"revision\":\"1\",\"segments\":{},\"features\":{" +
+                "\"test\":{\"key\":\"test\",\"bucketBy\":\"userId\"," +
+                "\"variations\":[{\"value\":\"control\"},{\"value\":\"treatment\"}]," +
+                "\"traffic\":[{\"key\":\"1\",\"segments\":\"*\",\"percentage\":100000,\"allocation\":[" +
+                "{\"variation\":\"control\",\"range\":[0,50000]},{\"variation\":\"treatment\",\"range\":[50000,100000]}]}]}}}")
+            .logLevel(Logger.LogLevel.FATAL));
+    }
+
+    private static Map<Object, Long> assess(Featurevisor f, int threads, long seed, AtomicLong progress) throws Exception {
+        return DistributionAssessor.assess(
+            f,
+            new DistributionAssessor.AssessOptions()
+                .iterations(50_000)
+                .threads(threads)
+                .seed(seed)
+                .context(Collections.singletonMap("country", "nl"))
+                .populateUuid(Collections.singletonList("userId"))
+                .progress(done -> progress.accumulateAndGet(done, Math::max)),
+            (child, generated) -> child.getVariation("test", generated));
+    }
+
+    @Test
+    public void testSameSeedGivesSameCountsOnAnyNumberOfThreads() throws Exception {
+        Featurevisor f = createInstance();
+        AtomicLong progress = new AtomicLong();
+
+        Map<Object, Long> single = assess(f, 1, 42, progress);
+        assertEquals(50_000, progress.get());
+        assertEquals(50_000, single.values().stream().mapToLong(Long::longValue).sum());
+        assertEquals(2, single.size());
+        assertTrue(Math.abs(single.get("control") - 25_000) < 1_000);
+
+        assertEquals(single, assess(f, 4, 42, new AtomicLong()));
+        assertNotEquals(single, assess(f, 4, 43, new AtomicLong()));
+
+        // most frequent first
+        Long[] counts = single.values().toArray(new Long[0]);
+        assertTrue(counts[0] >= counts[1]);
+    }
+
+    @Test
+    public void testRandomUuid() {
+        char[] buffer = new char[36];
+        String uuid = DistributionAssessor.randomUuid(new SplittableRandom(1), buffer);
+
+        assertTrue(uuid.matches("[0-9a-f]{8}-[0-9a-f]{4}-4[0-9a-f]{3}-[89ab][0-9a-f]{3}-[0-9a-f]{12}"), uuid);
+        assertEquals(java.util.UUID.fromString(uuid).toString(), uuid);
+        assertEquals(uuid, DistributionAssessor.randomUuid(new SplittableRandom(1), buffer));
+        assertNotEquals(uuid, DistributionAssessor.randomUuid(new SplittableRandom(2), buffer));
+    }
+}
@@ -211,4 +211,56 @@ public class BucketerTest {
                 .logger(logger));
         });
     }
+
+    @Test
+    public void testResumedHashIsIdenticalToWholeKey() {
+        java.util.Random random = new java.util.Random(1);
+        String alphabet = "abcXYZ0123456789.-_\u00e9\u4e2d";
+
+        for (int i = 0; i < 2000; i++) {
+            StringBuilder prefix = new StringBuilder();
+            StringBuilder suffix = new StringBuilder();
+            for (int j = random.nextInt(12); j > 0; j--) {
+                prefix.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            for (int j = random.nextInt(12); j > 0; j--) {
+                suffix.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+
+            String key = prefix.toString() + suffix;
+            MurmurHash.State state = MurmurHash.State.of(prefix.toString(), 1);
+
+            assertEquals(MurmurHash.murmurHashV3(key, 1), state.finish(suffix.toString()), key);
+            assertEquals(MurmurHash.murmurHashV3(prefix.toString(), 1), state.finish(), key);
+            assertEquals(
+                Bucketer.getBucketedNumber(key),
+                Bucketer.getBucketedNumber(Bucketer.getBucketKeyPrefixState(prefix.toString()), suffix.toString()),
+                key);
+        }
+
+        // byte by byte, crossing every block boundary
+        MurmurHash.State state = MurmurHash.State.of(0);
+        for (char c : "123.456.foo".toCharArray()) {
+            state = state.update(String.valueOf(c));
+        }
+        assertEquals(MurmurHash.murmurHashV3("123.456.foo", 0), state.finish());
+        assertEquals(14432, Bucketer.getBucketedNumber(Bucketer.getBucketKeyPrefixState("123.456."), "foo"));
+    }
+
+    @Test
+    public void testGetBucketKeyPrefix() {
+        Map<String, Object> context = new HashMap<>();
+        context.put("userId", "123");
+        context.put("country", "nl");
+
+        Bucket and = new Bucket(Arrays.asList("userId", "missing", "country"), true);
+        assertEquals("123.nl.", Bucketer.getBucketKeyPrefix(new Bucketer.GetBucketKeyOptions()
+            .featureKey("test").bucketBy(and).context(context).logger(logger)));
+
+        Bucket missing = new Bucket("missing");
+        assertEquals("", Bucketer.getBucketKeyPrefix(new Bucketer.GetBucketKeyOptions()
+            .featureKey("test").bucketBy(missing).context(context).logger(logger)));
+        assertEquals("test", Bucketer.getBucketKey(new Bucketer.GetBucketKeyOptions()
+            .featureKey("test").bucketBy(missing).context(context).logger(logger)));
+    }
 }
@@ -332,4 +332,59 @@ public class ChildTest {
         // Test close
         childInstance.close();
     }
+
+    @Test
+    public void testMemoizedEvaluations() throws Exception {
+        String datafileJson = "{\"schemaVersion\":\"2\",\"revision\":\"1\",\"segments\":{}," +
+            "\"features\":{\"test\":{\"key\":\"test\",\"bucketBy\":\"userId\"," +
+            "\"variablesSchema\":{\"color\":{\"key\":\"color\",\"type\":\"string\",\"defaultValue\":\"red\"}}," +
+            "\"variations\":[{\"value\":\"control\"},{\"value\":\"treatment\"}]," +
+            "\"traffic\":[{\"key\":\"1\",\"segments\":\"*\",\"percentage\":100000,\"allocation\":[" +
+            "{\"variation\":\"control\",\"range\":[0,50000]},{\"variation\":\"treatment\",\"range\":[50000,100000]}]}]}}}";
+
+        List<String> bucketed = new ArrayList<>();
+        Featurevisor f = Featurevisor.createInstance(new Featurevisor.Options()
+            .datafile(DatafileContent.fromJson(datafileJson))
+            .logLevel(Logger.LogLevel.FATAL)
+            .hooks(List.of(new HooksManager.Hook("count").bucketKey(options -> {
+                bucketed.add(options.getFeatureKey());
+                return options.getBucketKey();
+            }))));
+
+        ChildInstance child = f.spawn(Map.of("userId", "123"));
+        child.setMemoizeEvaluations(true);
+        assertTrue(child.isMemoizeEvaluations());
+
+        // the variation and variable reuse the memoized flag evaluation
+        boolean enabled = child.isEnabled("test");
+        String variation = child.getVariation("test");
+        assertEquals("red", child.getVariableString("test", "color"));
+        assertEquals(3, bucketed.size());
+
+        assertEquals(enabled, child.isEnabled("test"));
+        assertEquals(variation, child.getVariation("test"));
+        assertEquals("red", child.getVariableString("test", "color"));
+        assertEquals(3, bucketed.size());
+
+        // calls with their own context are not memoized
+        child.isEnabled("test", Map.of("country", "nl"));
+        assertEquals(4, bucketed.size());
+
+        child.setContext(Map.of("userId", "456"));
+        child.isEnabled("test");
+        assertEquals(5, bucketed.size());
+
+        child.setSticky(Map.of("other", Map.of("enabled", true)));
+        child.isEnabled("test");
+        assertEquals(6, bucketed.size());
+
+        f.setDatafile(DatafileContent.fromJson(datafileJson.replace("\"revision\":\"1\"", "\"revision\":\"2\"")));
+        child.isEnabled("test");
+        child.isEnabled("test");
+        assertEquals(7, bucketed.size());
+
+        child.setMemoizeEvaluations(false);
+        child.isEnabled("test");
+        assertEquals(8, bucketed.size());
+    }
 }
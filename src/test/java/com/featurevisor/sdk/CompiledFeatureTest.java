@@ -0,0 +1,179 @@
+package com.featurevisor.sdk;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompiledFeatureTest {
+
+    private static Allocation linearMatch(List<Allocation> allocations, int bucketValue) {
+        for (Allocation allocation : allocations) {
+            List<Integer> range = allocation.getRange().getRange();
+            if (range.get(0) <= bucketValue && range.get(1) >= bucketValue) {
+                return allocation;
+            }
+        }
+        return null;
+    }
+
+    @Test
+    public void testAllocationsMatchLinearSearch() {
+        Random random = new Random(1);
+
+        for (int round = 0; round < 200; round++) {
+            // overlapping, adjacent, empty and reversed ranges, first match wins
+            List<Allocation> allocations = new ArrayList<>();
+            for (int i = random.nextInt(8); i > 0; i--) {
+                int start = random.nextInt(1000);
+                int end = start + random.nextInt(300) - 20;
+                allocations.add(new Allocation("v" + i, new Range(Arrays.asList(start, end))));
+            }
+
+            CompiledFeature.Allocations compiled = CompiledFeature.Allocations.compile(allocations);
+            for (int bucketValue = -5; bucketValue < 1400; bucketValue++) {
+                assertSame(linearMatch(allocations, bucketValue), compiled.find(bucketValue));
+            }
+        }
+    }
+
+    @Test
+    public void testRangesAndVariations() {
+        Feature feature = new Feature();
+        feature.setRanges(Arrays.asList(new Range(50, 60), new Range(10, 20), new Range(15, 30), new Range(30, 40)));
+        feature.setVariations(Arrays.asList(new Variation("control"), new Variation("treatment"), new Variation("control")));
+
+        Traffic traffic = new Traffic();
+        Allocation first = new Allocation("control", new Range(Arrays.asList(0, 50000)));
+        Allocation second = new Allocation("treatment", new Range(Arrays.asList(50000, 100000)));
+        traffic.setAllocation(Arrays.asList(first, second));
+        feature.setTraffic(List.of(traffic));
+
+        CompiledFeature compiled = CompiledFeature.compile(feature);
+
+        for (int bucketValue = 0; bucketValue < 70; bucketValue++) {
+            boolean expected = (bucketValue >= 10 && bucketValue < 40) || (bucketValue >= 50 && bucketValue < 60);
+            assertEquals(expected, compiled.isInRanges(bucketValue), String.valueOf(bucketValue));
+        }
+
+        assertSame(feature.getVariations().get(0), compiled.getVariation("control"));
+        assertSame(feature.getVariations().get(1), compiled.getVariation("treatment"));
+        assertNull(compiled.getVariation("missing"));
+
+        assertSame(first, compiled.getAllocations(traffic).find(50000));
+        assertSame(second, compiled.getAllocations(traffic).find(50001));
+        assertNull(compiled.getAllocations(traffic).find(100001));
+        assertNull(compiled.getAllocations(new Traffic()));
+    }
+
+    @Test
+    public void testForcesMatchLinearSearch() throws Exception {
+        // indexed forces on userId and deviceId, interleaved with forces that are evaluated in order
+        String forces = String.join(",",
+            "{\"conditions\":[{\"attribute\":\"userId\",\"operator\":\"equals\",\"value\":\"1\"}],\"enabled\":true}",
+            "{\"conditions\":[{\"attribute\":\"country\",\"operator\":\"equals\",\"value\":\"nl\"},{\"attribute\":\"userId\",\"operator\":\"equals\",\"value\":\"2\"}],\"enabled\":true}",
+            "{\"conditions\":[{\"attribute\":\"userId\",\"operator\":\"equals\",\"value\":\"2\"}],\"enabled\":false}",
+            "{\"segments\":\"germany\",\"enabled\":true}",
+            "{\"conditions\":{\"attribute\":\"userId\",\"operator\":\"equals\",\"value\":\"3\"},\"segments\":\"germany\",\"enabled\":true}",
+            "{\"conditions\":[{\"attribute\":\"device.id\",\"operator\":\"equals\",\"value\":\"3\"}],\"enabled\":true}",
+            "{\"conditions\":[{\"attribute\":\"userId\",\"operator\":\"equals\",\"value\":\"1\"}],\"enabled\":false}",
+            "{\"conditions\":[{\"attribute\":\"userId\",\"operator\":\"equals\",\"value\":4}],\"enabled\":true}",
+            "{\"conditions\":[{\"attribute\":\"userId\",\"operator\":\"equals\",\"value\":\"4\"}],\"enabled\":true}",
+            "{\"conditions\":\"*\",\"enabled\":true}");
+        DatafileReader reader = new DatafileReader(new DatafileReader.DatafileReaderOptions()
+            .datafile(DatafileContent.fromJson("{\"schemaVersion\":\"2\",\"revision\":\"1\"," +
+                "\"segments\":{\"germany\":{\"key\":\"germany\",\"conditions\":[{\"attribute\":\"country\",\"operator\":\"equals\",\"value\":\"de\"}]}}," +
+                "\"features\":{\"test\":{\"key\":\"test\",\"bucketBy\":\"userId\",\"force\":[" + forces + "],\"traffic\":[]}}}"))
+            .logger(Logger.createLogger(new Logger.CreateLoggerOptions().level(Logger.LogLevel.FATAL))));
+        Feature feature = reader.getFeature("test");
+
+        for (Object userId : Arrays.asList("1", "2", "3", "4", "5", 4, null)) {
+            for (Object country : Arrays.asList("nl", "de", "us")) {
+                for (Object deviceId : Arrays.asList("3", 3)) {
+                    Map<String, Object> context = new HashMap<>();
+                    context.put("userId", userId);
+                    context.put("country", country);
+                    context.put("device", Map.of("id", deviceId));
+
+                    Integer expected = null;
+                    for (int i = 0; i < feature.getForce().size(); i++) {
+                        Force force = feature.getForce().get(i);
+                        if ((force.getConditions() != null && reader.allConditionsAreMatched(reader.parseConditionsIfStringified(force.getConditions()), context)) ||
+                            (force.getSegments() != null && reader.allSegmentsAreMatched(force.getSegments(), context))) {
+                            expected = i;
+                            break;
+                        }
+                    }
+
+                    DatafileReader.ForceResult result = reader.getMatchedForce(feature, context);
+                    assertEquals(expected, result.getForceIndex(), context.toString());
+                    if (expected != null) {
+                        assertSame(feature.getForce().get(expected), result.getForce());
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testTrafficRulesMatchLinearSearch() throws Exception {
+        String segments = String.join(",",
+            "\"nl\":{\"key\":\"nl\",\"conditions\":[{\"attribute\":\"country\",\"operator\":\"equals\",\"value\":\"nl\"}]}",
+            "\"de\":{\"key\":\"de\",\"conditions\":[{\"attribute\":\"country\",\"operator\":\"equals\",\"value\":\"de\"}]}",
+            "\"fr\":{\"key\":\"fr\",\"conditions\":[{\"attribute\":\"country\",\"operator\":\"equals\",\"value\":\"fr\"}]}",
+            "\"benelux\":{\"key\":\"benelux\",\"conditions\":[{\"attribute\":\"country\",\"operator\":\"in\",\"value\":[\"nl\",\"be\",\"lu\"]}]}",
+            "\"mobile\":{\"key\":\"mobile\",\"conditions\":[{\"attribute\":\"device\",\"operator\":\"equals\",\"value\":\"mobile\"}]}",
+            "\"adult\":{\"key\":\"adult\",\"conditions\":[{\"attribute\":\"age\",\"operator\":\"greaterThan\",\"value\":18}]}");
+        String rules = String.join(",",
+            "{\"key\":\"1\",\"segments\":[\"nl\",\"adult\"],\"percentage\":100000}",
+            "{\"key\":\"2\",\"segments\":{\"and\":[\"de\",\"mobile\"]},\"percentage\":100000}",
+            "{\"key\":\"3\",\"segments\":{\"or\":[\"fr\",\"benelux\"]},\"percentage\":100000}",
+            "{\"key\":\"4\",\"segments\":\"mobile\",\"percentage\":100000}",
+            "{\"key\":\"5\",\"segments\":{\"or\":[\"fr\",\"mobile\"]},\"percentage\":100000}",
+            "{\"key\":\"6\",\"segments\":\"[\\\"nl\\\",\\\"benelux\\\"]\",\"percentage\":100000}",
+            "{\"key\":\"7\",\"segments\":{\"not\":[\"de\"]},\"percentage\":100000}",
+            "{\"key\":\"8\",\"segments\":\"de\",\"percentage\":100000}");
+        String datafile = "{\"schemaVersion\":\"2\",\"revision\":\"1\",\"segments\":{" + segments + "}," +
+            "\"features\":{\"test\":{\"key\":\"test\",\"bucketBy\":\"userId\",\"traffic\":[" + rules + "]}}}";
+
+        Logger logger = Logger.createLogger(new Logger.CreateLoggerOptions().level(Logger.LogLevel.FATAL));
+        DatafileReader linear = new DatafileReader(new DatafileReader.DatafileReaderOptions()
+            .datafile(DatafileContent.fromJson(datafile))
+            .logger(logger));
+        DatafileReader compiled = new DatafileReader(new DatafileReader.DatafileReaderOptions()
+            .datafile(DatafileContent.fromJson(datafile))
+            .logger(logger)
+            .compileTrafficRules(true));
+
+        List<Traffic> traffic = compiled.getFeature("test").getTraffic();
+        CompiledFeature.Rules switched = CompiledFeature.Rules.compile(
+            traffic, compiled.getSegmentIndex(), compiled::parseSegmentsIfStringified);
+        assertEquals("country", switched.getAttribute());
+
+        for (Object country : Arrays.asList("nl", "be", "de", "fr", "us", 1, null)) {
+            for (Object device : Arrays.asList("mobile", "desktop")) {
+                for (int age : new int[]{10, 30}) {
+                    Map<String, Object> context = new HashMap<>();
+                    context.put("country", country);
+                    context.put("device", device);
+                    context.put("age", age);
+
+                    Traffic expected = linear.getMatchedTraffic(linear.getFeature("test").getTraffic(), context);
+                    Traffic actual = compiled.getMatchedTraffic(traffic, context);
+                    assertEquals(expected != null ? expected.getKey() : null, actual != null ? actual.getKey() : null,
+                        context.toString());
+                }
+            }
+        }
+
+        // too few rules constrain the same attribute
+        assertNull(CompiledFeature.Rules.compile(traffic.subList(3, 6), compiled.getSegmentIndex(),
+            compiled::parseSegmentsIfStringified));
+    }
+}
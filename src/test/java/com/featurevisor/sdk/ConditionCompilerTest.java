@@ -0,0 +1,159 @@
+package com.featurevisor.sdk;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ConditionCompilerTest {
+
+    private final Logger logger = Logger.createLogger(new Logger.CreateLoggerOptions().level(Logger.LogLevel.FATAL));
+
+    private DatafileReader createReader(Map<String, Segment> segments) {
+        DatafileContent datafile = new DatafileContent();
+        datafile.setSchemaVersion("2");
+        datafile.setRevision("1");
+        datafile.setSegments(segments);
+        datafile.setFeatures(new HashMap<>());
+
+        return new DatafileReader(new DatafileReader.DatafileReaderOptions()
+            .datafile(datafile)
+            .logger(logger));
+    }
+
+    private static Map<String, Object> plain(String attribute, String operator, Object value) {
+        Map<String, Object> condition = new HashMap<>();
+        condition.put("attribute", attribute);
+        condition.put("operator", operator);
+        condition.put("value", value);
+        return condition;
+    }
+
+    private static Map<String, Object> group(String operator, Object... conditions) {
+        Map<String, Object> condition = new HashMap<>();
+        condition.put(operator, new ArrayList<>(Arrays.asList(conditions)));
+        return condition;
+    }
+
+    private static List<Map<String, Object>> contexts() {
+        List<Map<String, Object>> contexts = new ArrayList<>();
+        contexts.add(Collections.emptyMap());
+        contexts.add(Map.of("country", "nl"));
+        contexts.add(Map.of("country", "nl", "version", "2.1.0"));
+        contexts.add(Map.of("country", "de", "version", "2.1.0", "browser", "chrome-120"));
+        contexts.add(Map.of("country", "nl", "version", "not-semver", "browser", "firefox"));
+        contexts.add(Map.of("country", "nl", "version", "0.9.0", "browser", "chrome-99"));
+        return contexts;
+    }
+
+    @Test
+    public void testCheapConditionsAreEvaluatedFirst() {
+        Object conditions = Arrays.asList(
+            plain("version", "semverGreaterThanOrEquals", "1.0.0"),
+            plain("browser", "matches", "^chrome-\\d+$"),
+            plain("country", "equals", "nl"));
+
+        Segment segment = new Segment("segment");
+        segment.setConditions(conditions);
+
+        DatafileReader reader = createReader(new HashMap<>(Map.of("segment", segment)));
+        DatafileReader interpreter = createReader(new HashMap<>());
+
+        for (Map<String, Object> context : contexts()) {
+            assertEquals(
+                interpreter.allConditionsAreMatched(copy(conditions), context),
+                reader.allSegmentsAreMatched("segment", context),
+                context.toString());
+        }
+
+        ConditionCompiler.CompileStats stats = reader.getSegmentCompileStats("segment");
+        assertEquals(1, stats.getReorderedGroups());
+        assertEquals(4, stats.getNodes());
+        assertEquals(4, stats.getOptimizedNodes());
+        assertEquals(stats.getCost(), stats.getOptimizedCost());
+        assertNull(reader.getSegmentCompileStats("unknown"));
+    }
+
+    @Test
+    public void testConstantsAndSingleChildGroupsAreFolded() {
+        Object conditions = Arrays.asList(
+            "*",
+            group("and", group("or", plain("country", "equals", "nl"))),
+            group("or"),
+            plain("country", "exists", null));
+
+        Object orWithWildcard = group("or", plain("version", "semverEquals", "1.0.0"), "*");
+
+        ConditionCompiler compiler = new ConditionCompiler(createReader(new HashMap<>())::getRegex, logger);
+        DatafileReader interpreter = createReader(new HashMap<>());
+
+        ConditionCompiler.CompileStats stats = new ConditionCompiler.CompileStats();
+        CompiledCondition folded = compiler.compile(conditions, stats);
+        assertSame(CompiledCondition.FALSE, folded);
+        assertTrue(stats.getFoldedConstants() > 0);
+        assertEquals(1, stats.getOptimizedNodes());
+
+        stats = new ConditionCompiler.CompileStats();
+        CompiledCondition compiled = compiler.compile(Arrays.asList("*", group("and", group("or", plain("country", "equals", "nl")))), stats);
+        assertTrue(compiled instanceof CompiledCondition.Guarded);
+        assertEquals(3, stats.getFlattenedGroups());
+
+        assertSame(CompiledCondition.TRUE, compiler.compile(orWithWildcard));
+        assertSame(CompiledCondition.FALSE, compiler.compile(group("not", "*")));
+
+        for (Map<String, Object> context : contexts()) {
+            assertEquals(interpreter.allConditionsAreMatched(conditions, context), folded.matches(context));
+            assertTrue(interpreter.allConditionsAreMatched(orWithWildcard, context));
+            assertEquals("nl".equals(context.get("country")), compiled.matches(context));
+        }
+    }
+
+    @Test
+    public void testTypedConditionsThatMayThrowKeepTheirPosition() {
+        // an invalid version throws, which makes the whole typed condition not matched
+        Condition and = new Condition();
+        and.setAnd(Arrays.asList(
+            new Condition("version", Operator.SEMVER_GREATER_THAN, "1.0.0"),
+            new Condition("country", Operator.EQUALS, "nl")));
+
+        Condition not = new Condition();
+        not.setNot(Arrays.asList(and));
+
+        DatafileReader interpreter = createReader(new HashMap<>());
+        ConditionCompiler compiler = new ConditionCompiler(interpreter::getRegex, logger);
+        CompiledCondition compiled = compiler.compile(not);
+
+        for (Map<String, Object> context : contexts()) {
+            assertEquals(
+                interpreter.allConditionsAreMatched(not, context),
+                compiled.matches(context),
+                context.toString());
+        }
+
+        assertFalse(compiled.matches(Map.of("country", "de", "version", "not-semver")));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object copy(Object conditions) {
+        if (conditions instanceof List) {
+            List<Object> copy = new ArrayList<>();
+            for (Object condition : (List<Object>) conditions) {
+                copy.add(copy(condition));
+            }
+            return copy;
+        }
+        if (conditions instanceof Map) {
+            Map<String, Object> copy = new HashMap<>();
+            for (Map.Entry<String, Object> entry : ((Map<String, Object>) conditions).entrySet()) {
+                copy.put(entry.getKey(), copy(entry.getValue()));
+            }
+            return copy;
+        }
+        return conditions;
+    }
+}
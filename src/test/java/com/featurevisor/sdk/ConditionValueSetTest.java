@@ -0,0 +1,208 @@
+package com.featurevisor.sdk;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+public class ConditionValueSetTest {
+
+    @Test
+    public void testStringsAndNull() {
+        ConditionValueSet set = ConditionValueSet.of(Arrays.asList("chrome", "firefox", null));
+
+        assertTrue(set.contains("chrome"));
+        assertTrue(set.contains("firefox"));
+        assertTrue(set.contains(null));
+        assertFalse(set.contains("edge"));
+        assertFalse(set.contains(true));
+        assertEquals(3, set.size());
+    }
+
+    @Test
+    public void testNumbersAreNormalized() {
+        ConditionValueSet set = ConditionValueSet.of(Arrays.asList(1, 2L, 3.0, 4.5));
+
+        assertTrue(set.contains(1L));
+        assertTrue(set.contains(1.0));
+        assertTrue(set.contains(2));
+        assertTrue(set.contains(3));
+        assertTrue(set.contains(4.5));
+        assertTrue(set.contains(4.5f));
+        assertFalse(set.contains(4));
+        assertFalse(set.contains("1"));
+    }
+
+    @Test
+    public void testLargeListsUseSortedArray() {
+        List<Object> values = new ArrayList<>();
+        for (int i = 0; i < ConditionValueSet.SORTED_ARRAY_THRESHOLD * 2; i++) {
+            values.add(i * 3L);
+        }
+        values.add("account-1");
+
+        ConditionValueSet set = ConditionValueSet.of(values);
+
+        assertTrue(set.isSorted());
+        assertTrue(set.contains(0));
+        assertTrue(set.contains(3));
+        assertTrue(set.contains(3.0));
+        assertTrue(set.contains((ConditionValueSet.SORTED_ARRAY_THRESHOLD * 2 - 1) * 3));
+        assertFalse(set.contains(4));
+        assertTrue(set.contains("account-1"));
+    }
+
+    @Test
+    public void testLargeStringListsAreFrontCoded() {
+        List<Object> values = new ArrayList<>();
+        for (int i = 0; i < ConditionValueSet.SORTED_ARRAY_THRESHOLD * 2; i++) {
+            values.add("user-" + i);
+        }
+        values.add("ünïcode");
+        values.add("");
+
+        ConditionValueSet set = ConditionValueSet.of(values);
+
+        assertTrue(set.isCompact());
+        assertFalse(set.isSorted());
+        assertTrue(set.contains("user-0"));
+        assertTrue(set.contains("user-1"));
+        assertTrue(set.contains("user-10"));
+        assertTrue(set.contains("user-1023"));
+        assertTrue(set.contains("ünïcode"));
+        assertTrue(set.contains(""));
+        assertFalse(set.contains("user-"));
+        assertFalse(set.contains("user-1024"));
+        assertFalse(set.contains("user-01"));
+        assertFalse(set.contains("a"));
+        assertFalse(set.contains("zzz"));
+
+        List<Object> view = set.asList();
+        assertEquals(values.size(), view.size());
+        assertTrue(view.containsAll(values));
+        assertTrue(ConditionValueSet.listContains(view, "user-512"));
+        assertTrue(set.estimatedBytes() < ConditionValueSet.estimatedListBytes(values));
+    }
+
+    @Test
+    public void testFrontCodedLookupsMatchHashSet() {
+        // shared prefixes, multi-byte characters, surrogate pairs and unpaired surrogates
+        String[] parts = {"a", "ab", "é", "€", "\uD83D\uDE00", "\uD800", "z", "-", "\u07FF"};
+        Random random = new Random(7);
+        Set<String> strings = new HashSet<>();
+        while (strings.size() < 3000) {
+            StringBuilder builder = new StringBuilder("user");
+            for (int i = random.nextInt(5); i > 0; i--) {
+                builder.append(parts[random.nextInt(parts.length)]);
+            }
+            strings.add(builder.toString());
+        }
+
+        FrontCodedStringSet set = FrontCodedStringSet.of(strings);
+        for (int i = 0; i < 20000; i++) {
+            StringBuilder builder = new StringBuilder(random.nextInt(10) == 0 ? "" : "user");
+            for (int j = random.nextInt(6); j > 0; j--) {
+                builder.append(parts[random.nextInt(parts.length)]);
+            }
+            String key = builder.toString();
+            // unpaired surrogates are stored as '?', so only compare keys that survive encoding
+            if (key.contains("\uD800")) {
+                continue;
+            }
+            assertEquals(strings.contains(key), set.contains(key), key);
+        }
+        for (String value : strings) {
+            assertTrue(set.contains(value), value);
+        }
+    }
+
+    @Test
+    public void testCompactConditionValuesReplaceDatafileLists() {
+        List<Object> ids = new ArrayList<>();
+        for (long i = 0; i < 1000; i++) {
+            ids.add(1_000_000L + i);
+        }
+
+        Map<String, Object> condition = new HashMap<>();
+        condition.put("attribute", "accountId");
+        condition.put("operator", "in");
+        condition.put("value", ids);
+
+        Segment accounts = new Segment("accounts");
+        accounts.setConditions(Arrays.asList(condition));
+
+        Map<String, Segment> segments = new HashMap<>();
+        segments.put("accounts", accounts);
+
+        DatafileContent datafile = new DatafileContent();
+        datafile.setSchemaVersion("2");
+        datafile.setRevision("1");
+        datafile.setSegments(segments);
+        datafile.setFeatures(new HashMap<>());
+
+        DatafileReader reader = new DatafileReader(new DatafileReader.DatafileReaderOptions()
+            .datafile(datafile)
+            .compactConditionValues(true)
+            .logger(Logger.createLogger(new Logger.CreateLoggerOptions().level(Logger.LogLevel.WARN))));
+
+        assertNotSame(ids, condition.get("value"));
+        assertEquals(1000, ((List<?>) condition.get("value")).size());
+        assertTrue(reader.allSegmentsAreMatched("accounts", Map.of("accountId", 1_000_500)));
+        assertFalse(reader.allSegmentsAreMatched("accounts", Map.of("accountId", 999)));
+
+        DatafileReader.ConditionValuesFootprint footprint = reader.getConditionValuesFootprint();
+        assertEquals(1, footprint.getValueSets());
+        assertEquals(1, footprint.getCompactValueSets());
+        assertEquals(1000, footprint.getValues());
+        assertTrue(footprint.getEstimatedBytes() < footprint.getOriginalEstimatedBytes());
+    }
+
+    @Test
+    public void testCompiledSegmentMatchesNumericContextValues() {
+        Map<String, Object> condition = new HashMap<>();
+        condition.put("attribute", "accountId");
+        condition.put("operator", "in");
+        condition.put("value", Arrays.asList(100, 200, 300));
+
+        Map<String, Object> notInCondition = new HashMap<>();
+        notInCondition.put("attribute", "accountId");
+        notInCondition.put("operator", "notIn");
+        notInCondition.put("value", Arrays.asList(100, 200, 300));
+
+        Segment allowlist = new Segment("allowlist");
+        allowlist.setConditions(Arrays.asList(condition));
+
+        Segment blocklist = new Segment("blocklist");
+        blocklist.setConditions(Arrays.asList(notInCondition));
+
+        Map<String, Segment> segments = new HashMap<>();
+        segments.put("allowlist", allowlist);
+        segments.put("blocklist", blocklist);
+
+        DatafileContent datafile = new DatafileContent();
+        datafile.setSchemaVersion("2");
+        datafile.setRevision("1");
+        datafile.setSegments(segments);
+        datafile.setFeatures(new HashMap<>());
+
+        DatafileReader reader = new DatafileReader(new DatafileReader.DatafileReaderOptions()
+            .datafile(datafile)
+            .logger(Logger.createLogger(new Logger.CreateLoggerOptions().level(Logger.LogLevel.WARN))));
+
+        assertTrue(reader.allSegmentsAreMatched("allowlist", Map.of("accountId", 200L)));
+        assertTrue(reader.allSegmentsAreMatched("allowlist", Map.of("accountId", 300.0)));
+        assertFalse(reader.allSegmentsAreMatched("allowlist", Map.of("accountId", 400)));
+        assertFalse(reader.allSegmentsAreMatched("allowlist", Map.of("accountId", "200")));
+
+        assertFalse(reader.allSegmentsAreMatched("blocklist", Map.of("accountId", 100L)));
+        assertTrue(reader.allSegmentsAreMatched("blocklist", Map.of("accountId", 400)));
+        assertFalse(reader.allSegmentsAreMatched("blocklist", Map.of("country", "nl")));
+    }
+}
@@ -0,0 +1,116 @@
+package com.featurevisor.sdk;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+public class DefaultFeaturevisorMetricsTest {
+
+    private static final String DATAFILE = "{\"schemaVersion\":\"2\",\"revision\":\"1\",\"segments\":{" +
+        "\"netherlands\":{\"key\":\"netherlands\",\"conditions\":[{\"attribute\":\"country\",\"operator\":\"startsWith\",\"value\":\"nl\"}]}},\"features\":{" +
+        "\"test\":{\"key\":\"test\",\"bucketBy\":\"userId\",\"traffic\":[" +
+        "{\"key\":\"1\",\"segments\":\"netherlands\",\"percentage\":100000,\"allocation\":[]}," +
+        "{\"key\":\"2\",\"segments\":\"*\",\"percentage\":0,\"allocation\":[]}]}}}";
+
+    @Test
+    public void testRecordsEvaluationsDatafileAndHooks() throws Exception {
+        DefaultFeaturevisorMetrics metrics = new DefaultFeaturevisorMetrics();
+
+        Featurevisor f = Featurevisor.createInstance(new Featurevisor.Options()
+            .datafileString(DATAFILE)
+            .logLevel(Logger.LogLevel.FATAL)
+            .metrics(metrics)
+            .hooks(List.of(new HooksManager.Hook("noop").after((evaluation, options) -> evaluation))));
+
+        assertEquals(1, metrics.getDatafileParseLatency().getCount());
+        assertEquals(1, metrics.getDatafileCompileLatency().getCount());
+
+        assertTrue(f.isEnabled("test", Map.of("userId", "1", "country", "nl")));
+        assertTrue(f.isEnabled("test", Map.of("userId", "2", "country", "nl")));
+        assertFalse(f.isEnabled("test", Map.of("userId", "3", "country", "de")));
+        assertFalse(f.isEnabled("unknown"));
+
+        assertEquals(3, metrics.getEvaluationCount("test", Evaluation.REASON_RULE));
+        assertEquals(1, metrics.getEvaluationCount("unknown", Evaluation.REASON_FEATURE_NOT_FOUND));
+        assertEquals(Map.of("rule", 3L), metrics.getEvaluationCounts().get("test"));
+        assertEquals(4, metrics.getEvaluationLatency().getCount());
+        assertEquals(4, metrics.getHookLatency("after").getCount());
+        assertNull(metrics.getHookLatency("bucketValue"));
+
+        assertTrue(metrics.getCacheHits("conditions") > 0);
+        assertTrue(metrics.getCacheHitRatio("conditions") > 0);
+
+        f.setDatafile(DATAFILE);
+        assertEquals(2, metrics.getDatafileParseLatency().getCount());
+        assertEquals(2, metrics.getDatafileCompileLatency().getCount());
+        assertEquals(1, metrics.getDatafileSwapLatency().getCount());
+    }
+
+    @Test
+    public void testDatafileSwapExcludesListeners() throws Exception {
+        DefaultFeaturevisorMetrics metrics = new DefaultFeaturevisorMetrics();
+        Featurevisor f = Featurevisor.createInstance(new Featurevisor.Options()
+            .datafileString(DATAFILE)
+            .logLevel(Logger.LogLevel.FATAL)
+            .metrics(metrics));
+        f.on(Emitter.EventName.DATAFILE_SET, details -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        f.setDatafile(DATAFILE);
+        assertEquals(1, metrics.getDatafileSwapLatency().getCount());
+        assertTrue(metrics.getDatafileSwapLatency().getMaxNanos() < 50_000_000L);
+    }
+
+    @Test
+    public void testLatencyHistogramPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getPercentileNanos(50));
+
+        for (int i = 0; i < 99; i++) {
+            histogram.record(1_000);
+        }
+        histogram.record(1_000_000);
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(1_000_000, histogram.getMaxNanos());
+        assertTrue(histogram.getPercentileNanos(50) <= 2_000);
+        assertTrue(histogram.getPercentileNanos(100) >= 1_000_000);
+        assertEquals(100, Arrays.stream(histogram.getBucketCounts()).sum());
+    }
+
+    @Test
+    public void testLatencyHistogramResolvesSubMicrosecondDurations() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 90; i++) {
+            histogram.record(300);
+        }
+        for (int i = 0; i < 10; i++) {
+            histogram.record(1_500);
+        }
+
+        // 300ns and 1.5µs are told apart, and reported within 2x of their value
+        assertEquals(512, histogram.getPercentileNanos(50));
+        assertEquals(1_500, histogram.getPercentileNanos(99));
+
+        long[] buckets = histogram.getBucketCounts();
+        assertEquals(90, buckets[1]);
+        assertEquals(10, buckets[3]);
+
+        LatencyHistogram edges = new LatencyHistogram();
+        edges.record(0);
+        edges.record(256);
+        edges.record(257);
+        edges.record(Long.MAX_VALUE);
+        assertEquals(2, edges.getBucketCounts()[0]);
+        assertEquals(1, edges.getBucketCounts()[1]);
+        assertEquals(1, edges.getBucketCounts()[LatencyHistogram.BUCKETS - 1]);
+    }
+}
@@ -4,8 +4,14 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.BeforeEach;
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 public class EmitterTest {
 
@@ -192,4 +198,80 @@ public class EmitterTest {
         original.put("newKey", "newValue");
         assertNull(copy.get("newKey"));
     }
+
+    @Test
+    public void testHasListeners() {
+        assertFalse(emitter.hasListeners(Emitter.EventName.CONTEXT_SET));
+        emitter.trigger(Emitter.EventName.CONTEXT_SET, null);
+
+        Emitter.UnsubscribeFunction unsubscribe = emitter.on(Emitter.EventName.CONTEXT_SET, this::handleDetails);
+        assertTrue(emitter.hasListeners(Emitter.EventName.CONTEXT_SET));
+        assertFalse(emitter.hasListeners(Emitter.EventName.STICKY_SET));
+
+        unsubscribe.unsubscribe();
+        assertFalse(emitter.hasListeners(Emitter.EventName.CONTEXT_SET));
+    }
+
+    @Test
+    public void testAsyncDispatchDoesNotBlockTrigger() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch delivered = new CountDownLatch(3);
+        List<Object> revisions = Collections.synchronizedList(new ArrayList<>());
+
+        Emitter asyncEmitter = new Emitter(new Emitter.EmitterOptions().async(true));
+        asyncEmitter.on(Emitter.EventName.DATAFILE_SET, details -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            revisions.add(details.get("revision"));
+            delivered.countDown();
+        });
+
+        for (int i = 1; i <= 3; i++) {
+            Emitter.EventDetails details = new Emitter.EventDetails();
+            details.put("revision", String.valueOf(i));
+            asyncEmitter.trigger(Emitter.EventName.DATAFILE_SET, details);
+        }
+
+        // the listener is still blocked, but trigger has returned
+        assertTrue(revisions.isEmpty());
+
+        release.countDown();
+        assertTrue(delivered.await(5, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("1", "2", "3"), revisions);
+
+        asyncEmitter.close();
+    }
+
+    @Test
+    public void testAsyncQueueIsBounded() {
+        List<Runnable> tasks = new ArrayList<>();
+        Emitter asyncEmitter = new Emitter(new Emitter.EmitterOptions()
+            .async(true)
+            .executor(tasks::add)
+            .queueCapacity(2));
+        asyncEmitter.on(Emitter.EventName.STICKY_SET, this::handleDetails);
+
+        // drops are logged on the 1st, 2nd, 4th... drop only
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        PrintStream originalErr = System.err;
+        System.setErr(new PrintStream(err, true));
+        try {
+            for (int i = 0; i < 7; i++) {
+                asyncEmitter.trigger(Emitter.EventName.STICKY_SET, new Emitter.EventDetails());
+            }
+        } finally {
+            System.setErr(originalErr);
+        }
+
+        assertEquals(5, asyncEmitter.getDroppedEvents());
+        assertEquals(3, err.toString().lines().count());
+        assertEquals(1, tasks.size());
+        assertTrue(handledDetails.isEmpty());
+
+        tasks.get(0).run();
+        assertEquals(2, handledDetails.size());
+    }
 }
@@ -0,0 +1,102 @@
+package com.featurevisor.sdk;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+public class EvaluationTracerTest {
+
+    private static final String DATAFILE = "{\"schemaVersion\":\"2\",\"revision\":\"1\",\"segments\":{" +
+        "\"germany\":{\"key\":\"germany\",\"conditions\":[{\"attribute\":\"country\",\"operator\":\"equals\",\"value\":\"de\"}]}," +
+        "\"netherlands\":{\"key\":\"netherlands\",\"conditions\":[{\"attribute\":\"country\",\"operator\":\"equals\",\"value\":\"nl\"}," +
+        "{\"attribute\":\"age\",\"operator\":\"greaterThan\",\"value\":18}]}},\"features\":{" +
+        "\"base\":{\"key\":\"base\",\"bucketBy\":\"userId\",\"traffic\":[{\"key\":\"all\",\"segments\":\"*\",\"percentage\":100000,\"allocation\":[]}]}," +
+        "\"test\":{\"key\":\"test\",\"bucketBy\":\"userId\",\"required\":[\"base\"]," +
+        "\"force\":[{\"conditions\":[{\"attribute\":\"userId\",\"operator\":\"equals\",\"value\":\"forced\"}],\"enabled\":false}]," +
+        "\"traffic\":[" +
+        "{\"key\":\"de\",\"segments\":\"germany\",\"percentage\":0,\"allocation\":[]}," +
+        "{\"key\":\"nl\",\"segments\":[\"netherlands\"],\"percentage\":100000,\"allocation\":[]}," +
+        "{\"key\":\"everyone\",\"segments\":\"*\",\"percentage\":0,\"allocation\":[]}]}}}";
+
+    private Featurevisor createInstance(EvaluationTracer tracer) {
+        return Featurevisor.createInstance(new Featurevisor.Options()
+            .datafileString(DATAFILE)
+            .logLevel(Logger.LogLevel.FATAL)
+            .tracer(tracer));
+    }
+
+    @Test
+    public void testTracesStagesRulesSegmentsAndConditions() {
+        List<EvaluationTrace> traces = new ArrayList<>();
+        Featurevisor f = createInstance(new EvaluationTracer(new EvaluationTracer.EvaluationTracerOptions()
+            .sampleRate(1)
+            .consumer(traces::add)));
+
+        assertTrue(f.isEnabled("test", Map.of("userId", "1", "country", "nl", "age", 30)));
+        assertEquals(1, traces.size());
+
+        EvaluationTrace trace = traces.get(0);
+        assertEquals("test", trace.getFeatureKey());
+        assertEquals(Evaluation.TYPE_FLAG, trace.getType());
+        assertEquals(Evaluation.REASON_RULE, trace.getReason());
+        assertTrue(trace.getDurationNanos() > 0);
+
+        List<String> stages = new ArrayList<>();
+        for (EvaluationTrace.Stage stage : trace.getStages()) {
+            stages.add(stage.getFeatureKey() + "/" + stage.getName());
+        }
+        assertEquals(List.of(
+            "test/sticky", "test/notFound", "test/forced",
+            "base/sticky", "base/notFound", "base/forced", "base/required", "base/bucketing",
+            "test/required", "test/bucketing"), stages);
+        assertEquals(
+            trace.getStages().get(6).getDurationNanos() + trace.getStages().get(8).getDurationNanos(),
+            trace.getStageNanos(EvaluationTracer.STAGE_REQUIRED));
+
+        List<EvaluationTrace.Rule> rules = trace.getRules();
+        assertEquals(3, rules.size());
+        assertEquals("base", rules.get(0).getFeatureKey());
+        assertEquals("de", rules.get(1).getRuleKey());
+        assertFalse(rules.get(1).isMatched());
+        assertEquals("nl", rules.get(2).getRuleKey());
+        assertTrue(rules.get(2).isMatched());
+
+        assertEquals(2, trace.getSegments().size());
+        assertEquals("germany", trace.getSegments().get(0).getSegmentKey());
+        assertEquals("netherlands", trace.getSegments().get(1).getSegmentKey());
+        assertTrue(trace.getSegments().get(1).isMatched());
+
+        // force condition, germany, and both netherlands conditions
+        List<EvaluationTrace.ConditionMatch> conditions = trace.getConditions();
+        assertEquals(4, conditions.size());
+        assertEquals("userId", conditions.get(0).getAttribute());
+        assertEquals(Operator.EQUALS, conditions.get(0).getOperator());
+        assertFalse(conditions.get(0).isMatched());
+        assertEquals("test", conditions.get(0).getFeatureKey());
+    }
+
+    @Test
+    public void testSamplingAndConsumerErrors() {
+        List<EvaluationTrace> traces = new ArrayList<>();
+        Featurevisor sampled = createInstance(new EvaluationTracer(new EvaluationTracer.EvaluationTracerOptions()
+            .sampleRate(10)
+            .consumer(traces::add)));
+
+        for (int i = 0; i < 2000; i++) {
+            sampled.isEnabled("test", Map.of("userId", "" + i, "country", "de"));
+        }
+        assertTrue(traces.size() > 50 && traces.size() < 600, "" + traces.size());
+        assertEquals(Evaluation.REASON_RULE, traces.get(0).getReason());
+
+        Featurevisor failing = createInstance(new EvaluationTracer(new EvaluationTracer.EvaluationTracerOptions()
+            .sampleRate(1)
+            .logger(Logger.createLogger(new Logger.CreateLoggerOptions().level(Logger.LogLevel.FATAL)))
+            .consumer(trace -> { throw new RuntimeException("consumer failed"); })));
+        assertFalse(failing.isEnabled("test", Map.of("userId", "forced")));
+
+        assertThrows(IllegalArgumentException.class, () -> new EvaluationTracer(new EvaluationTracer.EvaluationTracerOptions()));
+    }
+}
@@ -0,0 +1,212 @@
+package com.featurevisor.sdk;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class ExposureTrackerTest {
+
+    private ExposureTracker.ExposureTrackerOptions options(ExposureSink sink) {
+        return new ExposureTracker.ExposureTrackerOptions()
+            .sink(sink)
+            .flushIntervalMillis(60_000)
+            .logger(Logger.createLogger(new Logger.CreateLoggerOptions().level(Logger.LogLevel.FATAL)));
+    }
+
+    @Test
+    public void testTracksVariationExposuresFromHook() throws Exception {
+        InMemoryExposureSink sink = new InMemoryExposureSink();
+        ExposureTracker tracker = new ExposureTracker(options(sink));
+
+        DatafileContent datafile = DatafileContent.fromJson("{\"schemaVersion\":\"2\",\"revision\":\"1\",\"segments\":{},\"features\":{" +
+            "\"test\":{\"key\":\"test\",\"bucketBy\":\"userId\",\"variations\":[{\"value\":\"control\"},{\"value\":\"treatment\"}]," +
+            "\"traffic\":[{\"key\":\"1\",\"segments\":\"*\",\"percentage\":100000,\"allocation\":[" +
+            "{\"variation\":\"control\",\"range\":[0,0]},{\"variation\":\"treatment\",\"range\":[0,100000]}]}]}}}");
+
+        Featurevisor f = Featurevisor.createInstance(new Featurevisor.Options()
+            .datafile(datafile)
+            .logLevel(Logger.LogLevel.FATAL)
+            .hooks(List.of(tracker.getHook())));
+
+        assertEquals("treatment", f.getVariation("test", Map.of("userId", "user-1")));
+        assertEquals("treatment", f.getVariation("test", Map.of("userId", "user-1")));
+        assertEquals("treatment", f.getVariation("test", Map.of("userId", "user-2")));
+        assertTrue(f.isEnabled("test", Map.of("userId", "user-3")));
+
+        tracker.close();
+
+        List<Exposure> exposures = sink.getExposures();
+        assertEquals(2, exposures.size());
+        assertEquals("user-1", exposures.get(0).getUserId());
+        assertEquals("test", exposures.get(0).getFeatureKey());
+        assertEquals("treatment", exposures.get(0).getVariation());
+        assertEquals("user-2", exposures.get(1).getUserId());
+        assertEquals(1, tracker.getDeduplicatedCount());
+        assertEquals(2, tracker.getFlushedCount());
+    }
+
+    @Test
+    public void testDropPolicies() {
+        InMemoryExposureSink sink = new InMemoryExposureSink();
+        ExposureTracker newest = new ExposureTracker(options(sink).bufferCapacity(4).dedupWindowMillis(0));
+        for (int i = 0; i < 6; i++) {
+            newest.track("feature", "user-" + i, "on", null);
+        }
+        assertEquals(2, newest.getDroppedCount());
+        newest.close();
+        assertEquals("user-0", sink.getExposures().get(0).getUserId());
+
+        sink.clear();
+        ExposureTracker oldest = new ExposureTracker(options(sink).bufferCapacity(4).dedupWindowMillis(0)
+            .dropPolicy(ExposureTracker.DropPolicy.DROP_OLDEST));
+        for (int i = 0; i < 6; i++) {
+            oldest.track("feature", "user-" + i, "on", null);
+        }
+        assertEquals(2, oldest.getDroppedCount());
+        oldest.close();
+        assertEquals("user-2", sink.getExposures().get(0).getUserId());
+        assertEquals(4, sink.getExposures().size());
+    }
+
+    @Test
+    public void testDroppedExposuresAreNotDeduplicated() {
+        InMemoryExposureSink sink = new InMemoryExposureSink();
+        ExposureTracker tracker = new ExposureTracker(options(sink).bufferCapacity(2));
+
+        tracker.track("feature", "user-1", "on", null);
+        tracker.track("feature", "user-2", "on", null);
+        tracker.track("feature", "user-3", "on", null);
+        assertEquals(1, tracker.getDroppedCount());
+
+        // user-3 was never reported, so tracking it again once there is room is not a duplicate
+        tracker.flush();
+        tracker.track("feature", "user-3", "on", null);
+        assertEquals(0, tracker.getDeduplicatedCount());
+        tracker.close();
+
+        assertEquals(3, sink.getExposures().size());
+        assertEquals("user-3", sink.getExposures().get(2).getUserId());
+    }
+
+    @Test
+    public void testAnonymousExposuresAreNotDeduplicated() {
+        InMemoryExposureSink sink = new InMemoryExposureSink();
+        ExposureTracker tracker = new ExposureTracker(options(sink));
+
+        tracker.track("feature", null, "on", null);
+        tracker.track("feature", null, "on", null);
+        tracker.track("feature", "null", "on", null);
+        tracker.close();
+
+        assertEquals(0, tracker.getDeduplicatedCount());
+        assertEquals(3, sink.getExposures().size());
+    }
+
+    @Test
+    public void testOldestExposuresAreForgottenFirst() throws Exception {
+        InMemoryExposureSink sink = new InMemoryExposureSink();
+        ExposureTracker tracker = new ExposureTracker(options(sink).dedupMaxEntries(2));
+
+        tracker.track("feature", "user-1", "on", null);
+        Thread.sleep(2);
+        tracker.track("feature", "user-2", "on", null);
+        Thread.sleep(2);
+        tracker.track("feature", "user-3", "on", null);
+        assertEquals(3, tracker.getSeenCount());
+
+        tracker.expireSeen();
+        assertEquals(2, tracker.getSeenCount());
+
+        // only the oldest is tracked again, the others are still deduplicated
+        tracker.track("feature", "user-2", "on", null);
+        tracker.track("feature", "user-3", "on", null);
+        tracker.track("feature", "user-1", "on", null);
+        assertEquals(2, tracker.getDeduplicatedCount());
+        tracker.close();
+
+        assertEquals(4, sink.getExposures().size());
+    }
+
+    @Test
+    public void testConcurrentTrackingWritesEveryExposureOnce() throws Exception {
+        InMemoryExposureSink sink = new InMemoryExposureSink();
+        ExposureTracker tracker = new ExposureTracker(options(sink).bufferCapacity(256).batchSize(32).flushIntervalMillis(1));
+
+        int threads = 4;
+        int perThread = 2000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            final int thread = t;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    tracker.track("feature", thread + "-" + i, "on", null);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        tracker.close();
+
+        assertEquals(threads * perThread, tracker.getTrackedCount() + tracker.getDroppedCount());
+        assertEquals(tracker.getTrackedCount(), sink.getExposures().size());
+        assertEquals(sink.getExposures().size(), sink.getExposures().stream()
+            .map(Exposure::getUserId).distinct().count());
+    }
+
+    @Test
+    public void testExposuresTrackedWhileClosingAreFlushed() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            InMemoryExposureSink sink = new InMemoryExposureSink();
+            ExposureTracker tracker = new ExposureTracker(options(sink).bufferCapacity(1 << 16));
+
+            int threads = 4;
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                final int thread = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 20_000; i++) {
+                        tracker.track("feature", thread + "-" + i, "on", null);
+                    }
+                }));
+            }
+            Thread.sleep(1);
+            tracker.close();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            executor.shutdown();
+
+            // every exposure counted as tracked reached the sink, none was left in the buffer
+            assertEquals(tracker.getTrackedCount(), sink.getExposures().size());
+            assertEquals(0, tracker.getBufferedCount());
+        }
+    }
+
+    @Test
+    public void testFileSinkWritesJsonLines(@TempDir Path directory) throws Exception {
+        Path file = directory.resolve("exposures.jsonl");
+        ExposureTracker tracker = new ExposureTracker(options(new FileExposureSink(file)));
+
+        tracker.track("feature", "user-1", "on", "allocated");
+        tracker.track("feature", "user-2", "off", "allocated");
+        tracker.close();
+
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(0).contains("\"userId\":\"user-1\""));
+        assertTrue(lines.get(1).contains("\"variation\":\"off\""));
+    }
+}
@@ -0,0 +1,83 @@
+package com.featurevisor.sdk;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FeatureHandleTest {
+
+    private static DatafileContent datafile(String revision, int percentage) throws Exception {
+        return DatafileContent.fromJson("{\"schemaVersion\":\"2\",\"revision\":\"" + revision + "\",\"segments\":{}," +
+            "\"features\":{" +
+            "\"base\":{\"key\":\"base\",\"bucketBy\":\"userId\"," +
+            "\"traffic\":[{\"key\":\"1\",\"segments\":\"*\",\"percentage\":100000,\"allocation\":[]}]}," +
+            "\"test\":{\"key\":\"test\",\"bucketBy\":\"userId\",\"required\":[\"base\"]," +
+            "\"variablesSchema\":{" +
+            "\"count\":{\"key\":\"count\",\"type\":\"integer\",\"defaultValue\":3}," +
+            "\"ratio\":{\"key\":\"ratio\",\"type\":\"double\",\"defaultValue\":0.5}," +
+            "\"shown\":{\"key\":\"shown\",\"type\":\"boolean\",\"defaultValue\":true}," +
+            "\"config\":{\"key\":\"config\",\"type\":\"json\",\"defaultValue\":\"{\\\"limit\\\":7}\"}}," +
+            "\"variations\":[{\"value\":\"control\"},{\"value\":\"treatment\",\"variables\":{\"count\":5}}]," +
+            "\"traffic\":[{\"key\":\"1\",\"segments\":\"*\",\"percentage\":" + percentage + ",\"allocation\":[" +
+            "{\"variation\":\"treatment\",\"range\":[0,100000]}]}]}}}");
+    }
+
+    public static class Config {
+        public int limit;
+    }
+
+    @Test
+    public void testHandlesMatchStringMethods() throws Exception {
+        Featurevisor f = Featurevisor.createInstance(new Featurevisor.Options()
+            .datafile(datafile("1", 100000))
+            .logLevel(Logger.LogLevel.FATAL));
+        Map<String, Object> context = Map.of("userId", "123");
+
+        FlagHandle flag = f.flag("test");
+        VariationHandle variation = f.variation("test");
+        VariableHandle<Integer> count = f.variable("test", "count", Integer.class);
+        VariableHandle<Double> ratio = f.variable("test", "ratio", Double.class);
+        VariableHandle<Boolean> shown = f.variable("test", "shown", Boolean.class);
+        VariableHandle<Config> config = f.variable("test", "config", Config.class);
+
+        assertTrue(flag.exists());
+        assertEquals(f.isEnabled("test", context), flag.isEnabled(context));
+        assertEquals(f.getVariation("test", context), variation.getVariation(context));
+        assertEquals(f.getVariableInteger("test", "count", context), count.get(context));
+        assertEquals(5, count.getInt(context));
+        assertEquals(0.5, ratio.getDouble(context));
+        assertTrue(shown.getBoolean(context));
+        assertEquals(7, config.get(context).limit);
+
+        // resolved again for the new datafile
+        f.setDatafile(datafile("2", 0));
+        assertFalse(flag.isEnabled(context));
+        assertNull(variation.getVariation(context));
+        assertNull(count.get(context));
+        assertEquals(-1, count.getInt(context, -1));
+        assertEquals(Evaluation.REASON_DISABLED, count.evaluate(context).getReason());
+
+        FlagHandle missing = f.flag("missing");
+        assertFalse(missing.exists());
+        assertFalse(missing.isEnabled(context));
+        assertEquals(Evaluation.REASON_FEATURE_NOT_FOUND, missing.evaluate(context).getReason());
+    }
+
+    @Test
+    public void testRequiredFeaturesAreNotConfusedWithTheResolvedFeature() throws Exception {
+        Featurevisor f = Featurevisor.createInstance(new Featurevisor.Options()
+            .datafile(datafile("1", 100000))
+            .logLevel(Logger.LogLevel.FATAL)
+            .sticky(Map.of("base", Map.of("enabled", false))));
+        Map<String, Object> context = Map.of("userId", "123");
+
+        assertFalse(f.flag("test").isEnabled(context));
+        assertEquals(Evaluation.REASON_REQUIRED, f.flag("test").evaluate(context).getReason());
+        assertEquals(Evaluation.REASON_STICKY, f.flag("base").evaluate(context).getReason());
+
+        f.setSticky(Map.of(), true);
+        assertTrue(f.flag("test").isEnabled(context));
+    }
+}
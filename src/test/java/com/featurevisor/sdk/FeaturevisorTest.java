@@ -1047,6 +1047,67 @@ public class FeaturevisorTest {
         assertTrue(sdk2.isEnabled("myKey"));
     }
 
+    @Test
+    public void testHonourRequiredFeaturesWhenEvaluatingVariables() {
+        // required feature has no variables of its own
+        String datafileJson = """
+            {
+              "schemaVersion": "2",
+              "revision": "1.0",
+              "features": {
+                "requiredKey": {
+                  "key": "requiredKey",
+                  "bucketBy": "userId",
+                  "traffic": [
+                    {
+                      "key": "1",
+                      "segments": "*",
+                      "percentage": 100000,
+                      "allocation": []
+                    }
+                  ]
+                },
+                "myKey": {
+                  "key": "myKey",
+                  "bucketBy": "userId",
+                  "required": ["requiredKey"],
+                  "variablesSchema": {
+                    "color": {
+                      "key": "color",
+                      "type": "string",
+                      "defaultValue": "red"
+                    }
+                  },
+                  "traffic": [
+                    {
+                      "key": "1",
+                      "segments": "*",
+                      "percentage": 100000,
+                      "allocation": []
+                    }
+                  ]
+                }
+              },
+              "segments": {}
+            }""";
+
+        DatafileContent datafile;
+        try {
+            datafile = DatafileContent.fromJson(datafileJson);
+        } catch (Exception e) {
+            fail("Failed to parse datafile JSON: " + e.getMessage());
+            return;
+        }
+
+        Featurevisor sdk = new Featurevisor(new Featurevisor.Options().datafile(datafile));
+        Map<String, Object> context = Map.of("userId", "123");
+
+        // required feature is evaluated as a flag, not for the requiring feature's variable
+        assertTrue(sdk.isEnabled("myKey", context));
+        assertEquals("red", sdk.getVariable("myKey", "color", context));
+        assertEquals("red", sdk.getVariableString("myKey", "color", context));
+    }
+
     @Test
     public void testEmitWarningsForDeprecatedFeature() {
         // Create datafile content using JSON string for better readability
@@ -1931,4 +1992,175 @@ public class FeaturevisorTest {
             "device", "iphone"
         )));
     }
+
+    @Test
+    public void testParallelGetAllEvaluationsMatchesSequential() throws Exception {
+        StringBuilder features = new StringBuilder();
+        for (int i = 0; i < 300; i++) {
+            if (i > 0) {
+                features.append(",");
+            }
+            features.append("\"feature").append(i).append("\":{\"key\":\"feature").append(i).append("\",\"bucketBy\":\"userId\",")
+                .append("\"variablesSchema\":{\"color\":{\"key\":\"color\",\"type\":\"string\",\"defaultValue\":\"red\"}},")
+                .append("\"variations\":[{\"value\":\"control\"},{\"value\":\"treatment\",\"variables\":{\"color\":\"blue\"}}],")
+                .append("\"traffic\":[{\"key\":\"1\",\"segments\":\"*\",\"percentage\":").append(i * 300).append(",\"allocation\":[")
+                .append("{\"variation\":\"control\",\"range\":[0,50000]},{\"variation\":\"treatment\",\"range\":[50000,100000]}]}]}");
+        }
+        DatafileContent datafile = DatafileContent.fromJson(
+            "{\"schemaVersion\":\"2\",\"revision\":\"1\",\"segments\":{},\"features\":{" + features + "}}");
+
+        java.util.concurrent.atomic.AtomicInteger sequentialHooks = new java.util.concurrent.atomic.AtomicInteger();
+        Featurevisor sequential = new Featurevisor(new Featurevisor.Options()
+            .datafile(datafile)
+            .hooks(List.of(new HooksManager.Hook("count").before(options -> {
+                sequentialHooks.incrementAndGet();
+                return options;
+            }))));
+
+        java.util.concurrent.atomic.AtomicInteger parallelHooks = new java.util.concurrent.atomic.AtomicInteger();
+        java.util.concurrent.atomic.AtomicInteger tasks = new java.util.concurrent.atomic.AtomicInteger();
+        java.util.concurrent.ExecutorService executor = java.util.concurrent.Executors.newFixedThreadPool(4);
+        try {
+            Featurevisor parallel = new Featurevisor(new Featurevisor.Options()
+                .datafile(datafile)
+                .hooks(List.of(new HooksManager.Hook("count").before(options -> {
+                    parallelHooks.incrementAndGet();
+                    return options;
+                })))
+                .parallelEvaluationsThreshold(100)
+                .parallelEvaluationsExecutor(task -> {
+                    tasks.incrementAndGet();
+                    executor.execute(task);
+                }));
+
+            for (String userId : List.of("123", "456", "789")) {
+                Map<String, Object> context = Map.of("userId", userId);
+                Map<String, EvaluatedFeature> expected = sequential.getAllEvaluations(context).getValue();
+                Map<String, EvaluatedFeature> actual = parallel.getAllEvaluations(context).getValue();
+
+                assertEquals(expected.keySet(), actual.keySet());
+                for (String featureKey : expected.keySet()) {
+                    assertEquals(expected.get(featureKey).getEnabled(), actual.get(featureKey).getEnabled(), featureKey);
+                    assertEquals(expected.get(featureKey).getVariation(), actual.get(featureKey).getVariation(), featureKey);
+                    assertEquals(expected.get(featureKey).getVariables(), actual.get(featureKey).getVariables(), featureKey);
+                }
+            }
+
+            assertEquals(sequentialHooks.get(), parallelHooks.get());
+            assertTrue(tasks.get() > 0);
+
+            // below the threshold, evaluated on the calling thread
+            int before = tasks.get();
+            parallel.getAllEvaluations(Map.of("userId", "123"), List.of("feature1", "feature2"));
+            assertEquals(before, tasks.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testParallelGetAllEvaluationsDoesNotWaitForQueuedTasks() throws Exception {
+        StringBuilder features = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            if (i > 0) {
+                features.append(",");
+            }
+            features.append("\"feature").append(i).append("\":{\"key\":\"feature").append(i).append("\",\"bucketBy\":\"userId\",")
+                .append("\"traffic\":[{\"key\":\"1\",\"segments\":\"*\",\"percentage\":100000,\"allocation\":[]}]}");
+        }
+        DatafileContent datafile = DatafileContent.fromJson(
+            "{\"schemaVersion\":\"2\",\"revision\":\"1\",\"segments\":{},\"features\":{" + features + "}}");
+        Map<String, Object> context = Map.of("userId", "123");
+
+        // an executor that never runs its tasks, so the calling thread evaluates everything
+        List<Runnable> queued = new ArrayList<>();
+        Featurevisor neverRuns = new Featurevisor(new Featurevisor.Options()
+            .datafile(datafile)
+            .parallelEvaluationsThreshold(100)
+            .parallelEvaluationsExecutor(queued::add));
+        Map<String, EvaluatedFeature> evaluated = neverRuns.getAllEvaluations(context).getValue();
+        assertEquals(200, evaluated.size());
+        assertTrue(evaluated.values().stream().allMatch(EvaluatedFeature::getEnabled));
+        queued.forEach(Runnable::run);
+
+        // a single thread executor that is busy running the caller itself
+        java.util.concurrent.ExecutorService executor = java.util.concurrent.Executors.newSingleThreadExecutor();
+        try {
+            Featurevisor sameExecutor = new Featurevisor(new Featurevisor.Options()
+                .datafile(datafile)
+                .parallelEvaluationsThreshold(100)
+                .parallelEvaluationsExecutor(executor));
+            Map<String, EvaluatedFeature> fromExecutor = executor
+                .submit(() -> sameExecutor.getAllEvaluations(context).getValue())
+                .get(10, java.util.concurrent.TimeUnit.SECONDS);
+            assertEquals(200, fromExecutor.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testWarmUpBeforeDatafileIsSet() throws Exception {
+        String datafileJson = """
+            {
+              "schemaVersion": "2",
+              "revision": "%s",
+              "segments": {},
+              "features": {
+                "test": {
+                  "key": "test",
+                  "bucketBy": "userId",
+                  "variablesSchema": {
+                    "config": { "key": "config", "type": "json", "defaultValue": "{\\"limit\\":7}" }
+                  },
+                  "variations": [{ "value": "control" }, { "value": "treatment" }],
+                  "traffic": [
+                    {
+                      "key": "1",
+                      "segments": "*",
+                      "percentage": 100000,
+                      "allocation": [{ "variation": "treatment", "range": [0, 100000] }]
+                    }
+                  ]
+                }
+              }
+            }
+            """;
+
+        java.util.concurrent.atomic.AtomicInteger hookCalls = new java.util.concurrent.atomic.AtomicInteger();
+        Featurevisor f = Featurevisor.createInstance(new Featurevisor.Options()
+            .datafile(DatafileContent.fromJson(String.format(datafileJson, "1")))
+            .logLevel(Logger.LogLevel.FATAL)
+            .hooks(List.of(new HooksManager.Hook("count").before(options -> {
+                hookCalls.incrementAndGet();
+                return options;
+            })))
+            .warmUp(new Featurevisor.WarmUpOptions()
+                .contexts(List.of(Map.of("userId", "123"), Map.of("userId", "456")))
+                .featureKeys(List.of("test", "missing"))
+                .iterations(2)));
+
+        // warm-up evaluations do not run hooks
+        assertEquals(0, hookCalls.get());
+
+        List<Map<String, Object>> events = new ArrayList<>();
+        f.on(Emitter.EventName.DATAFILE_SET, events::add);
+        f.setDatafile(DatafileContent.fromJson(String.format(datafileJson, "2")));
+
+        assertEquals(0, hookCalls.get());
+        assertEquals(1, events.size());
+        assertTrue(events.get(0).get("warmUpDuration") instanceof Double);
+        assertTrue((Double) events.get(0).get("warmUpDuration") > 0);
+
+        assertEquals("treatment", f.getVariation("test", Map.of("userId", "123")));
+        assertEquals(Map.of("limit", 7), f.getVariableObject("test", "config", Map.of("userId", "123")));
+        assertTrue(hookCalls.get() > 0);
+
+        // not reported without warm-up
+        Featurevisor plain = Featurevisor.createInstance(new Featurevisor.Options().logLevel(Logger.LogLevel.FATAL));
+        List<Map<String, Object>> plainEvents = new ArrayList<>();
+        plain.on(Emitter.EventName.DATAFILE_SET, plainEvents::add);
+        plain.setDatafile(DatafileContent.fromJson(String.format(datafileJson, "2")));
+        assertFalse(plainEvents.get(0).containsKey("warmUpDuration"));
+    }
 }
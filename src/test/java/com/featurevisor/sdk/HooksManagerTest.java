@@ -8,6 +8,10 @@ import static org.junit.jupiter.api.Assertions.*;
 import java.util.Map;
 import java.util.HashMap;
 import java.util.List;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Test class for HooksManager functionality
@@ -219,4 +223,60 @@ public class HooksManagerTest {
         assertTrue((Boolean) context.get("hook1"));
         assertTrue((Boolean) context.get("hook2"));
     }
+
+    @Test
+    void testHookChainIsPartitionedByKind() {
+        assertTrue(hooksManager.getChain().isEmpty());
+        assertFalse(hooksManager.getChain().hasBefore());
+
+        hooksManager.add(new HooksManager.Hook("bucket-key").bucketKey(options -> options.getBucketKey() + ":1"));
+        hooksManager.add(new HooksManager.Hook("bucket-key-2").bucketKey(options -> options.getBucketKey() + ":2"));
+
+        HooksManager.HookChain chain = hooksManager.getChain();
+        assertFalse(chain.isEmpty());
+        assertTrue(chain.hasBucketKey());
+        assertFalse(chain.hasBefore());
+        assertFalse(chain.hasAfter());
+        assertFalse(chain.hasBucketValue());
+        assertEquals("key:1:2", chain.executeBucketKeyHooks("test-feature", new HashMap<>(), new Bucket("userId"), "key"));
+
+        // snapshots are not affected by later changes
+        hooksManager.remove("bucket-key");
+        assertEquals("key:1:2", chain.executeBucketKeyHooks("test-feature", new HashMap<>(), new Bucket("userId"), "key"));
+        assertEquals("key:2", hooksManager.getChain().executeBucketKeyHooks("test-feature", new HashMap<>(), new Bucket("userId"), "key"));
+
+        hooksManager.remove("bucket-key-2");
+        assertTrue(hooksManager.getChain().isEmpty());
+    }
+
+    @Test
+    void testConcurrentAddAndRemove() throws Exception {
+        int threads = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int t = 0; t < threads; t++) {
+            final int thread = t;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 200; i++) {
+                    String name = "hook-" + thread + "-" + i;
+                    Runnable remove = hooksManager.add(new HooksManager.Hook(name).bucketValue(options -> options.getBucketValue() + 1));
+                    assertNotNull(remove);
+                    hooksManager.executeBucketValueHooks(new HooksManager.ConfigureBucketValueOptions("test-feature", "key", new HashMap<>(), 0));
+                    if (i % 2 == 0) {
+                        remove.run();
+                    }
+                }
+            }));
+        }
+
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertEquals(threads * 100, hooksManager.getAll().size());
+        assertEquals(threads * 100, hooksManager.executeBucketValueHooks(
+            new HooksManager.ConfigureBucketValueOptions("test-feature", "key", new HashMap<>(), 0)));
+    }
 }
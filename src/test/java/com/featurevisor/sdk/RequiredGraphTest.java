@@ -0,0 +1,83 @@
+package com.featurevisor.sdk;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RequiredGraphTest {
+
+    private static String feature(String key, String required) {
+        return "\"" + key + "\":{\"key\":\"" + key + "\",\"bucketBy\":\"userId\",\"required\":" + required + "," +
+            "\"variations\":[{\"value\":\"on\"}]," +
+            "\"traffic\":[{\"key\":\"1\",\"segments\":\"*\",\"percentage\":100000,\"allocation\":[{\"variation\":\"on\",\"range\":[0,100000]}]}]}";
+    }
+
+    private static DatafileContent datafile(String... features) throws Exception {
+        return DatafileContent.fromJson("{\"schemaVersion\":\"2\",\"revision\":\"1\",\"segments\":{},\"features\":{" +
+            String.join(",", features) + "}}");
+    }
+
+    @Test
+    public void testOrderAndCycles() throws Exception {
+        RequiredGraph graph = RequiredGraph.build(datafile(
+            feature("a", "[\"b\",{\"key\":\"c\",\"variation\":\"on\"}]"),
+            feature("b", "[\"d\"]"),
+            feature("c", "[\"d\",\"missing\"]"),
+            feature("d", "[]"),
+            feature("x", "[\"y\"]"),
+            feature("y", "[\"z\"]"),
+            feature("z", "[\"x\"]"),
+            feature("self", "[\"self\"]"),
+            feature("dependsOnCycle", "[\"x\"]")).getFeatures());
+
+        List<String> order = graph.getOrder();
+        assertEquals(9, order.size());
+        assertTrue(order.indexOf("d") < order.indexOf("b"));
+        assertTrue(order.indexOf("d") < order.indexOf("c"));
+        assertTrue(order.indexOf("b") < order.indexOf("a"));
+        assertTrue(order.indexOf("c") < order.indexOf("a"));
+
+        assertEquals(List.of(List.of("x", "y", "z"), List.of("self")), graph.getCycles());
+        assertTrue(graph.isCyclic("x"));
+        assertTrue(graph.isCyclic("self"));
+        assertFalse(graph.isCyclic("dependsOnCycle"));
+        assertFalse(graph.isCyclic("a"));
+
+        RequiredGraph.Dependency c = graph.getDependencies("a").get(1);
+        assertEquals("c", c.getFeatureKey());
+        assertTrue(c.isByVariation());
+        assertEquals("on", c.getVariation());
+        assertTrue(graph.getDependencies("d").isEmpty());
+    }
+
+    @Test
+    public void testEvaluatesEachRequiredFeatureOncePerCall() throws Exception {
+        Map<String, Integer> bucketed = new ConcurrentHashMap<>();
+        Featurevisor f = Featurevisor.createInstance(new Featurevisor.Options()
+            .datafile(datafile(
+                feature("a", "[\"b\",\"c\"]"),
+                feature("b", "[\"d\"]"),
+                feature("c", "[\"d\"]"),
+                feature("d", "[]"),
+                feature("x", "[\"y\"]"),
+                feature("y", "[\"x\"]"),
+                feature("dependsOnCycle", "[\"x\"]")))
+            .logLevel(Logger.LogLevel.FATAL)
+            .hooks(List.of(new HooksManager.Hook("count").bucketKey(options -> {
+                bucketed.merge(options.getFeatureKey(), 1, Integer::sum);
+                return options.getBucketKey();
+            }))));
+
+        assertTrue(f.isEnabled("a", Map.of("userId", "123")));
+        assertEquals(Map.of("a", 1, "b", 1, "c", 1, "d", 1), bucketed);
+
+        // cycles evaluate as disabled, as does everything requiring them
+        assertFalse(f.isEnabled("x", Map.of("userId", "123")));
+        assertFalse(f.isEnabled("dependsOnCycle", Map.of("userId", "123")));
+        assertEquals(Evaluation.REASON_REQUIRED, f.evaluateFlag("x", Map.of("userId", "123")).getReason());
+    }
+}
@@ -0,0 +1,111 @@
+package com.featurevisor.sdk;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SegmentIndexTest {
+
+    private static DatafileReader reader() throws Exception {
+        DatafileContent datafile = DatafileContent.fromJson("""
+            {
+              "schemaVersion": "2",
+              "revision": "1",
+              "features": {},
+              "segments": {
+                "netherlands": { "key": "netherlands", "conditions": [{ "attribute": "country", "operator": "equals", "value": "nl" }] },
+                "benelux": { "key": "benelux", "conditions": { "attribute": "country", "operator": "in", "value": ["nl", "be", "lu"] } },
+                "paidInGermany": {
+                  "key": "paidInGermany",
+                  "conditions": {
+                    "and": [
+                      { "attribute": "plan", "operator": "in", "value": ["pro", "enterprise"] },
+                      { "attribute": "country", "operator": "equals", "value": "de" },
+                      { "attribute": "age", "operator": "greaterThan", "value": 18 }
+                    ]
+                  }
+                },
+                "tenants": { "key": "tenants", "conditions": [{ "attribute": "account.tenantId", "operator": "in", "value": [1, 2.0, null] }] },
+                "numberEquals": { "key": "numberEquals", "conditions": [{ "attribute": "tenantId", "operator": "equals", "value": 1 }] },
+                "versionFirst": {
+                  "key": "versionFirst",
+                  "conditions": [
+                    { "attribute": "version", "operator": "semverGreaterThan", "value": "1.0.0" },
+                    { "attribute": "country", "operator": "equals", "value": "nl" }
+                  ]
+                },
+                "either": {
+                  "key": "either",
+                  "conditions": { "or": [{ "attribute": "country", "operator": "equals", "value": "nl" }, { "attribute": "plan", "operator": "equals", "value": "pro" }] }
+                },
+                "everyone": { "key": "everyone", "conditions": "*" }
+              }
+            }
+            """);
+        return new DatafileReader(new DatafileReader.DatafileReaderOptions()
+            .datafile(datafile)
+            .logger(Logger.createLogger(new Logger.CreateLoggerOptions().level(Logger.LogLevel.FATAL))));
+    }
+
+    @Test
+    public void testIndexedSegmentsMatchLikeTheirConditions() throws Exception {
+        DatafileReader reader = reader();
+        // numberEquals, either and everyone have no indexable top level condition
+        assertEquals(5, reader.getSegmentIndex().size());
+
+        List<Object> countries = new ArrayList<>(List.of("nl", "be", "de", "us", 1));
+        countries.add(null);
+        List<Object> tenantIds = new ArrayList<>(List.of(1, 1L, 1.0, 2, 2.5, "1"));
+        tenantIds.add(null);
+
+        for (Object country : countries) {
+            for (Object plan : List.of("pro", "free")) {
+                for (Object tenantId : tenantIds) {
+                    Map<String, Object> account = new HashMap<>();
+                    account.put("tenantId", tenantId);
+                    Map<String, Object> context = new HashMap<>();
+                    context.put("country", country);
+                    context.put("plan", plan);
+                    context.put("age", 30);
+                    context.put("tenantId", tenantId);
+                    context.put("version", "2.0.0");
+                    context.put("account", account);
+
+                    for (String segmentKey : List.of("netherlands", "benelux", "paidInGermany", "tenants",
+                            "numberEquals", "versionFirst", "either", "everyone")) {
+                        assertEquals(
+                            reader.segmentIsMatched(reader.getSegment(segmentKey), context),
+                            reader.allSegmentsAreMatched(segmentKey, context),
+                            segmentKey + " " + context);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testIndexedAttributeValues() throws Exception {
+        SegmentIndex index = reader().getSegmentIndex();
+
+        assertEquals("country", index.getAttribute("netherlands"));
+        assertEquals(Set.of("nl"), index.getValues("netherlands"));
+        assertEquals(Set.of("nl", "be", "lu"), index.getValues("benelux"));
+        assertEquals("country", index.getAttribute("paidInGermany"));
+        assertEquals(Set.of("de"), index.getValues("paidInGermany"));
+
+        // numbers are normalized, and null stands for a missing account.tenantId
+        assertEquals("account.tenantId", index.getAttribute("tenants"));
+        assertEquals(3, index.getValues("tenants").size());
+        assertTrue(index.getValues("tenants").contains(SegmentIndex.key(2)));
+        assertTrue(index.getValues("tenants").contains(SegmentIndex.key(null)));
+
+        assertNull(index.getAttribute("either"));
+        assertNull(index.getValues("everyone"));
+    }
+}
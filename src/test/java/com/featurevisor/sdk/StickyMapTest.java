@@ -0,0 +1,78 @@
+package com.featurevisor.sdk;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StickyMapTest {
+
+    @Test
+    public void testBehavesLikeHashMap() {
+        Random random = new Random(1);
+        Map<String, Object> expected = new HashMap<>();
+        StickyMap sticky = StickyMap.EMPTY;
+
+        for (int i = 0; i < 5000; i++) {
+            String key = "feature" + random.nextInt(2000);
+            Map<String, Object> value = Map.of("enabled", random.nextBoolean());
+
+            StickyMap previous = sticky;
+            int previousSize = previous.size();
+            sticky = sticky.with(key, value);
+            expected.put(key, value);
+
+            // the previous version is unchanged
+            assertEquals(previousSize, previous.size());
+            assertEquals(expected.size(), sticky.size());
+            assertEquals(value, sticky.get(key));
+        }
+
+        assertEquals(expected, sticky);
+        assertEquals(sticky, expected);
+        assertEquals(expected.hashCode(), sticky.hashCode());
+        assertFalse(sticky.containsKey("missing"));
+        assertNull(sticky.get("missing"));
+    }
+
+    @Test
+    public void testHashCollisions() {
+        // "Aa" and "BB" have the same hash code
+        StickyMap sticky = StickyMap.of(Map.of("Aa", Map.of("variation", "a"), "BB", Map.of("variation", "b")));
+        StickyMap updated = sticky.withAll(Map.of("BB", Map.of("variation", "c"), "AaAa", Map.of("variation", "d")));
+
+        assertEquals(2, sticky.size());
+        assertEquals("b", sticky.getEntry("BB").getVariation());
+        assertEquals(3, updated.size());
+        assertEquals("a", updated.getEntry("Aa").getVariation());
+        assertEquals("c", updated.getEntry("BB").getVariation());
+        assertEquals("d", updated.getEntry("AaAa").getVariation());
+    }
+
+    @Test
+    public void testParsesEntries() {
+        StickyMap sticky = StickyMap.of(Map.of(
+            "flag", Map.of("enabled", false),
+            "full", Map.of("enabled", true, "variation", "treatment", "variables", Map.of("color", "blue")),
+            "invalid", "not a map"));
+
+        StickyMap.StickyEntry flag = sticky.getEntry("flag");
+        assertTrue(flag.hasEnabled());
+        assertEquals(false, flag.getEnabled());
+        assertNull(flag.getVariation());
+        assertNull(flag.getVariables());
+
+        StickyMap.StickyEntry full = sticky.getEntry("full");
+        assertEquals("treatment", full.getVariation());
+        assertEquals("blue", full.getVariables().get("color"));
+
+        assertNull(sticky.getEntry("invalid").getMap());
+        assertEquals("not a map", sticky.get("invalid"));
+        assertSame(sticky, StickyMap.of(sticky));
+        assertSame(sticky, sticky.withAll(Map.of()));
+        assertThrows(UnsupportedOperationException.class, () -> sticky.put("other", Map.of()));
+    }
+}
@@ -4,12 +4,17 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.featurevisor.sdk.DatafileContent;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 public class TypedVariableMethodsTest {
 
@@ -89,4 +94,184 @@ public class TypedVariableMethodsTest {
         Integer invalid = sdk.getVariableObject("typed", "config", context, Integer.class);
         assertNull(invalid);
     }
+
+    @Test
+    public void testDecodedAndConvertedValuesAreSharedPerRevision() throws Exception {
+        String datafileJson = """
+            {
+              "schemaVersion": "2",
+              "revision": "1",
+              "segments": {},
+              "features": {
+                "typed": {
+                  "key": "typed",
+                  "bucketBy": "userId",
+                  "variablesSchema": {
+                    "settings": {
+                      "type": "json",
+                      "defaultValue": "{\\"mode\\":\\"strict\\",\\"threshold\\":50}"
+                    },
+                    "config": {
+                      "type": "object",
+                      "defaultValue": {"mode": "loose", "threshold": 10}
+                    }
+                  },
+                  "traffic": [
+                    {"key": "rule-1", "segments": "*", "percentage": 100000}
+                  ]
+                }
+              }
+            }
+            """;
+
+        Featurevisor sdk = Featurevisor.createInstance(new Featurevisor.Options()
+            .datafile(DatafileContent.fromJson(datafileJson))
+            .logLevel(Logger.LogLevel.FATAL));
+        Map<String, Object> context = Map.of("userId", "123");
+
+        Map<String, Object> settings = sdk.getVariableJSON("typed", "settings", context);
+        assertEquals("strict", settings.get("mode"));
+        assertSame(settings, sdk.getVariableJSON("typed", "settings", context));
+        assertThrows(UnsupportedOperationException.class, () -> settings.put("mode", "changed"));
+
+        // POJOs are mutable, so every call converts a new instance
+        FeatureConfig fromJson = sdk.getVariableObject("typed", "settings", context, FeatureConfig.class);
+        assertEquals(50, fromJson.threshold);
+        fromJson.threshold = 0;
+        FeatureConfig fromJsonAgain = sdk.getVariableObject("typed", "settings", context, FeatureConfig.class);
+        assertNotSame(fromJson, fromJsonAgain);
+        assertEquals(50, fromJsonAgain.threshold);
+
+        // maps of immutable values are shared, but unmodifiable
+        Map<String, Object> config = sdk.getVariableObject("typed", "config", context, Map.class);
+        assertEquals("loose", config.get("mode"));
+        assertSame(config, sdk.getVariableObject("typed", "config", context, Map.class));
+        assertThrows(UnsupportedOperationException.class, () -> config.put("mode", "changed"));
+
+        // decoded again for a new revision
+        sdk.setDatafile(DatafileContent.fromJson(datafileJson.replace("\"revision\": \"1\"", "\"revision\": \"2\"")));
+        assertEquals(settings, sdk.getVariableJSON("typed", "settings", context));
+        assertNotSame(settings, sdk.getVariableJSON("typed", "settings", context));
+        assertEquals(config, sdk.getVariableObject("typed", "config", context, Map.class));
+        assertNotSame(config, sdk.getVariableObject("typed", "config", context, Map.class));
+    }
+
+    @Test
+    public void testConcreteCollectionTypesAreConvertedAfresh() throws Exception {
+        String datafileJson = """
+            {
+              "schemaVersion": "2",
+              "revision": "1",
+              "segments": {},
+              "features": {
+                "typed": {
+                  "key": "typed",
+                  "bucketBy": "userId",
+                  "variablesSchema": {
+                    "config": {
+                      "type": "object",
+                      "defaultValue": {"mode": "loose", "threshold": 10}
+                    },
+                    "tags": {
+                      "type": "array",
+                      "defaultValue": ["a", "b"]
+                    },
+                    "steps": {
+                      "type": "array",
+                      "defaultValue": [{"name": "phase-1"}]
+                    }
+                  },
+                  "traffic": [
+                    {"key": "rule-1", "segments": "*", "percentage": 100000}
+                  ]
+                }
+              }
+            }
+            """;
+
+        Featurevisor sdk = Featurevisor.createInstance(new Featurevisor.Options()
+            .datafile(DatafileContent.fromJson(datafileJson))
+            .logLevel(Logger.LogLevel.FATAL));
+        Map<String, Object> context = Map.of("userId", "123");
+
+        HashMap<?, ?> config = sdk.getVariableObject("typed", "config", context, HashMap.class);
+        assertEquals("loose", config.get("mode"));
+        assertNotSame(config, sdk.getVariableObject("typed", "config", context, HashMap.class));
+
+        ArrayList<?> tags = sdk.getVariableObject("typed", "tags", context, ArrayList.class);
+        assertEquals(List.of("a", "b"), tags);
+        assertNotSame(tags, sdk.getVariableObject("typed", "tags", context, ArrayList.class));
+
+        ArrayList<String> typedTags = sdk.getVariableArray("typed", "tags", context, new TypeReference<ArrayList<String>>() {});
+        assertEquals(List.of("a", "b"), typedTags);
+
+        // the list is asked for by its interface, but its items by their class
+        List<HashMap<String, Object>> steps = sdk.getVariableArray("typed", "steps", context,
+            new TypeReference<List<HashMap<String, Object>>>() {});
+        HashMap<String, Object> step = steps.get(0);
+        assertEquals("phase-1", step.get("name"));
+    }
+
+    @Test
+    public void testOnlyDatafileValuesAreCached() throws Exception {
+        String datafileJson = """
+            {
+              "schemaVersion": "2",
+              "revision": "1",
+              "segments": {},
+              "features": {
+                "typed": {
+                  "key": "typed",
+                  "bucketBy": "userId",
+                  "variablesSchema": {
+                    "config": {
+                      "type": "object",
+                      "defaultValue": {"mode": "loose", "threshold": 10}
+                    },
+                    "settings": {
+                      "type": "json",
+                      "defaultValue": "{\\"mode\\":\\"strict\\"}"
+                    }
+                  },
+                  "traffic": [
+                    {"key": "rule-1", "segments": "*", "percentage": 100000}
+                  ]
+                }
+              }
+            }
+            """;
+
+        // replaces values with new objects on every call for users other than "123"
+        Featurevisor sdk = Featurevisor.createInstance(new Featurevisor.Options()
+            .datafile(DatafileContent.fromJson(datafileJson))
+            .logLevel(Logger.LogLevel.FATAL)
+            .hooks(List.of(new HooksManager.Hook("fresh").after((evaluation, options) -> {
+                if (!"123".equals(options.getContext().get("userId")) && options.getVariableKey() != null) {
+                    evaluation.setVariableValue("config".equals(options.getVariableKey())
+                        ? new HashMap<>(Map.of("mode", "hooked"))
+                        : new String("{\"mode\":\"hooked\"}"));
+                }
+                return evaluation;
+            }))));
+        VariableValueCache cache = sdk.getDatafileReader().getVariableValues();
+
+        Map<String, Object> context = Map.of("userId", "123");
+        Map<?, ?> config = sdk.getVariableObject("typed", "config", context, Map.class);
+        assertSame(config, sdk.getVariableObject("typed", "config", context, Map.class));
+        Map<String, Object> settings = sdk.getVariableJSON("typed", "settings", context);
+        assertEquals("strict", settings.get("mode"));
+        int size = cache.size();
+        assertEquals(2, size);
+
+        Map<String, Object> hooked = Map.of("userId", "456");
+        for (int i = 0; i < 100; i++) {
+            assertEquals("hooked", sdk.getVariableObject("typed", "config", hooked, Map.class).get("mode"));
+            Map<String, Object> hookedSettings = sdk.getVariableJSON("typed", "settings", hooked);
+            assertEquals("hooked", hookedSettings.get("mode"));
+        }
+        assertEquals(size, cache.size());
+
+        // datafile values are still cached after values from hooks
+        assertSame(config, sdk.getVariableObject("typed", "config", context, Map.class));
+    }
 }